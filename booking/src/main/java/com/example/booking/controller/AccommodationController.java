@@ -1,14 +1,32 @@
 package com.example.booking.controller;
 
+import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import com.example.booking.dto.AccommodationDTO;
+import com.example.booking.dto.AccommodationSearchFilter;
+import com.example.booking.dto.AvailabilityCalendarDTO;
+import com.example.booking.dto.FacetedSearchResultDTO;
+import com.example.booking.dto.FlexibleSearchResultDTO;
+import com.example.booking.dto.NearbyAccommodationDTO;
+import com.example.booking.dto.RoomTypeDTO;
+import com.example.booking.dto.SuggestionDTO;
 import com.example.booking.model.Accommodation;
-import com.example.booking.model.RoomType;
+import com.example.booking.repository.AccommodationKeysetRepository.Sort;
+import com.example.booking.service.AccommodationFacetIndex;
+import com.example.booking.service.AccommodationGeoIndex;
+import com.example.booking.service.AccommodationSuggestIndex;
+import com.example.booking.service.AvailabilityCalendarService;
 import com.example.booking.service.BookingService;
+import com.example.booking.service.FlexibleDateSearchService;
+import com.example.booking.service.SearchResultCache;
 
 // Swagger annotations
 import io.swagger.v3.oas.annotations.Operation;
@@ -23,25 +41,44 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 public class AccommodationController {
 
     private final BookingService bookingService;
+    private final AvailabilityCalendarService availabilityCalendarService;
+    private final FlexibleDateSearchService flexibleDateSearchService;
+    private final AccommodationFacetIndex facetIndex;
+    private final AccommodationSuggestIndex suggestIndex;
+    private final SearchResultCache searchResultCache;
 
-    public AccommodationController(BookingService bookingService) {
+    public AccommodationController(BookingService bookingService,
+                                   AvailabilityCalendarService availabilityCalendarService,
+                                   FlexibleDateSearchService flexibleDateSearchService,
+                                   AccommodationFacetIndex facetIndex,
+                                   AccommodationSuggestIndex suggestIndex,
+                                   SearchResultCache searchResultCache) {
         this.bookingService = bookingService;
+        this.availabilityCalendarService = availabilityCalendarService;
+        this.flexibleDateSearchService = flexibleDateSearchService;
+        this.facetIndex = facetIndex;
+        this.suggestIndex = suggestIndex;
+        this.searchResultCache = searchResultCache;
     }
 
     @GetMapping
     @Operation(
-        summary = "取得所有住宿",
-        description = "回傳系統中所有可用的住宿列表，支援多種排序方式"
+        summary = "取得住宿列表",
+        description = "依排序方式分頁回傳住宿列表（{items, nextCursor, hasMore}），以 nextCursor 取下一頁"
     )
     @ApiResponses(value = {
         @ApiResponse(responseCode = "200", description = "成功取得住宿列表"),
         @ApiResponse(responseCode = "500", description = "伺服器錯誤")
     })
-    public List<Accommodation> list(
+    public ResponseEntity<?> list(
         @Parameter(description = "排序方式：price_asc(價格低到高), price_desc(價格高到低), rating(評分), popularity(熱門), distance(距離), name_asc(名稱A-Z), name_desc(名稱Z-A)", example = "price_asc")
-        @RequestParam(required = false) String sortBy
+        @RequestParam(required = false) String sortBy,
+        @Parameter(description = "分頁游標（上一頁回傳的 nextCursor），未指定時回傳第一頁")
+        @RequestParam(required = false) String cursor,
+        @Parameter(description = "每頁筆數，預設 50，最多 200", example = "20")
+        @RequestParam(required = false) Integer limit
     ) {
-        return bookingService.getAllAccommodations(sortBy);
+        return ResponseEntity.ok(bookingService.getAccommodationPage(sortBy, cursor, limit).map(AccommodationDTO::from));
     }
 
     @GetMapping("/{id}")
@@ -53,27 +90,27 @@ public class AccommodationController {
         @ApiResponse(responseCode = "200", description = "成功取得住宿資訊"),
         @ApiResponse(responseCode = "404", description = "找不到該住宿")
     })
-    public Accommodation getById(
+    public ResponseEntity<AccommodationDTO> getById(
         @Parameter(description = "住宿 ID", required = true, example = "1")
         @PathVariable Long id
     ) {
-        return bookingService.getAllAccommodations()
-                .stream()
-                .filter(acc -> acc.getId().equals(id))
-                .findFirst()
-                .orElse(null);
+        return bookingService.getAccommodation(id)
+                .map(acc -> ResponseEntity.ok(AccommodationDTO.from(acc)))
+                .orElse(ResponseEntity.notFound().build());
     }
 
     @GetMapping("/search")
     @Operation(
         summary = "搜尋住宿",
-        description = "根據地點或名稱關鍵字搜尋住宿，支援模糊搜尋、排序功能"
+        description = "根據地點或名稱關鍵字搜尋住宿，支援排序；fuzzy=true 時容許錯字。"
+                + "指定城市、價格、評分、設施或入住人數時，所有條件與排序由單一 SQL 查詢完成。"
+                + "與住宿列表相同，一律分頁回傳（{items, nextCursor, hasMore}），以 nextCursor 取下一頁"
     )
     @ApiResponses(value = {
         @ApiResponse(responseCode = "200", description = "成功取得搜尋結果"),
         @ApiResponse(responseCode = "400", description = "搜尋參數錯誤")
     })
-    public List<Accommodation> searchAccommodations(
+    public ResponseEntity<?> searchAccommodations(
         @Parameter(description = "搜尋關鍵字（地點或名稱）", example = "台北")
         @RequestParam(required = false) String query,
         @Parameter(description = "地點關鍵字（保留向下兼容）", example = "台北")
@@ -82,30 +119,151 @@ public class AccommodationController {
         @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate checkIn,
         @Parameter(description = "退房日期", example = "2025-11-12")
         @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate checkOut,
-        @Parameter(description = "入住人數", example = "2")
+        @Parameter(description = "入住人數：至少一個房型每間可住此人數（有日期時該房型也須有空房）", example = "2")
         @RequestParam(required = false) Integer guests,
+        @Parameter(description = "城市（可多選，地點以此開頭）", example = "台北")
+        @RequestParam(required = false) List<String> city,
+        @Parameter(description = "每晚最低價格", example = "1000")
+        @RequestParam(required = false) BigDecimal minPrice,
+        @Parameter(description = "每晚最高價格", example = "3000")
+        @RequestParam(required = false) BigDecimal maxPrice,
+        @Parameter(description = "最低評分", example = "4.0")
+        @RequestParam(required = false) BigDecimal minRating,
+        @Parameter(description = "設施（可多選，須全部具備）", example = "WiFi")
+        @RequestParam(required = false) List<String> amenity,
         @Parameter(description = "排序方式：price_asc(價格低到高), price_desc(價格高到低), rating(評分), popularity(熱門), distance(距離)", example = "price_asc")
-        @RequestParam(required = false) String sortBy
+        @RequestParam(required = false) String sortBy,
+        @Parameter(description = "容許錯字：名稱或地點近似包含關鍵字即符合，錯字少的排在前面", example = "false")
+        @RequestParam(defaultValue = "false") boolean fuzzy,
+        @Parameter(description = "分頁游標（上一頁回傳的 nextCursor），未指定時回傳第一頁")
+        @RequestParam(required = false) String cursor,
+        @Parameter(description = "每頁筆數，預設 50，最多 200", example = "20")
+        @RequestParam(required = false) Integer limit
     ) {
         // 統一使用 query 參數，但保留 location 以向下兼容
-        String searchKeyword = query != null ? query : location;
+        AccommodationSearchFilter filter = searchFilter(query != null ? query : location, checkIn, checkOut, guests);
+        filter.setCities(city);
+        filter.setMinPrice(minPrice);
+        filter.setMaxPrice(maxPrice);
+        filter.setMinRating(minRating);
+        filter.setAmenities(amenity);
+        // 容許錯字的結果依錯字數排列，有日期的價格排序依房價日曆報價，都沒有可用的排序鍵：
+        // 先取得排好的完整結果（後者走結果快取），再依位置分頁
+        if (fuzzy) {
+            return ResponseEntity.ok(bookingService.pageOf(findAccommodations(filter, sortBy, true), cursor, limit)
+                    .map(AccommodationDTO::from));
+        }
+        if (filter.hasAttributeFilters()) {
+            return ResponseEntity.ok(bookingService.searchByFilterPage(filter, sortBy, cursor, limit)
+                    .map(AccommodationDTO::from));
+        }
+        if (checkIn != null && checkOut != null && isPriceSort(sortBy)) {
+            List<Accommodation> sorted = searchResultCache.get(filter.getKeyword(), checkIn, checkOut, null, sortBy,
+                    () -> findAccommodations(filter, sortBy, false));
+            return ResponseEntity.ok(bookingService.pageOf(sorted, cursor, limit).map(AccommodationDTO::from));
+        }
+        return ResponseEntity.ok(bookingService.searchAccommodationPage(
+                filter.getKeyword(), checkIn, checkOut, sortBy, cursor, limit).map(AccommodationDTO::from));
+    }
+
+    private static boolean isPriceSort(String sortBy) {
+        Sort sort = Sort.of(sortBy);
+        return sort == Sort.PRICE_ASC || sort == Sort.PRICE_DESC;
+    }
+
+    @GetMapping("/search/faceted")
+    @Operation(
+        summary = "篩選面向搜尋",
+        description = "與搜尋住宿相同的條件，另可依設施、城市、價格區間與評分篩選，並回傳各選項的符合筆數"
+    )
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "成功取得搜尋結果與篩選筆數"),
+        @ApiResponse(responseCode = "400", description = "搜尋參數錯誤")
+    })
+    public FacetedSearchResultDTO searchFaceted(
+        @Parameter(description = "搜尋關鍵字（地點或名稱）", example = "台北")
+        @RequestParam(required = false) String query,
+        @Parameter(description = "入住日期", example = "2025-11-10")
+        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate checkIn,
+        @Parameter(description = "退房日期", example = "2025-11-12")
+        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate checkOut,
+        @Parameter(description = "入住人數：至少一個房型每間可住此人數", example = "2")
+        @RequestParam(required = false) Integer guests,
+        @Parameter(description = "排序方式", example = "price_asc")
+        @RequestParam(required = false) String sortBy,
+        @Parameter(description = "容許錯字：名稱或地點近似包含關鍵字即符合", example = "false")
+        @RequestParam(defaultValue = "false") boolean fuzzy,
+        @Parameter(description = "設施（可多選）", example = "WiFi")
+        @RequestParam(required = false) List<String> amenity,
+        @Parameter(description = "城市（可多選）", example = "台北市")
+        @RequestParam(required = false) List<String> city,
+        @Parameter(description = "價格區間（可多選）", example = "1000-2000")
+        @RequestParam(required = false) List<String> price,
+        @Parameter(description = "評分門檻（可多選）", example = "4+")
+        @RequestParam(required = false) List<String> rating
+    ) {
+        Map<String, List<String>> filters = new HashMap<>();
+        if (amenity != null) filters.put(AccommodationFacetIndex.AMENITY, amenity);
+        if (city != null) filters.put(AccommodationFacetIndex.CITY, city);
+        if (price != null) filters.put(AccommodationFacetIndex.PRICE, price);
+        if (rating != null) filters.put(AccommodationFacetIndex.RATING, rating);
+
+        return facetIndex.apply(findAccommodations(searchFilter(query, checkIn, checkOut, guests), sortBy, fuzzy), filters);
+    }
+
+    @GetMapping("/suggest")
+    @Operation(
+        summary = "搜尋框自動完成",
+        description = "依輸入的開頭文字建議住宿名稱、地點與附近景點，依熱門度排列；中文與英數字皆可，多字詞也可由後面的字開始比對"
+    )
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "成功取得建議")
+    })
+    public List<SuggestionDTO> suggest(
+        @Parameter(description = "目前輸入的文字", example = "台")
+        @RequestParam(required = false) String q,
+        @Parameter(description = "最多筆數，預設與上限皆為 app.suggest.top-k", example = "8")
+        @RequestParam(required = false) Integer limit
+    ) {
+        int size = limit != null ? Math.min(limit, suggestIndex.getTopK()) : suggestIndex.getTopK();
+        return suggestIndex.suggest(q, size);
+    }
+
+    private static AccommodationSearchFilter searchFilter(String keyword, LocalDate checkIn, LocalDate checkOut,
+                                                          Integer guests) {
+        AccommodationSearchFilter filter = new AccommodationSearchFilter();
+        filter.setKeyword(keyword);
+        filter.setCheckIn(checkIn);
+        filter.setCheckOut(checkOut);
+        filter.setGuests(guests);
+        return filter;
+    }
+
+    // 搜尋條件的查詢，/search 與 /search/faceted 共用
+    private List<Accommodation> findAccommodations(AccommodationSearchFilter filter, String sortBy, boolean fuzzy) {
+        String searchKeyword = filter.getKeyword();
+        LocalDate checkIn = filter.getCheckIn();
+        LocalDate checkOut = filter.getCheckOut();
+
+        // 容許錯字的搜尋由模糊搜尋索引處理關鍵字與日期，其餘條件再交給資料庫篩選
+        if (fuzzy && searchKeyword != null && !searchKeyword.isBlank()) {
+            return bookingService.retainByFilter(
+                    bookingService.fuzzySearch(searchKeyword, checkIn, checkOut, sortBy), filter);
+        }
+
+        // 有城市、價格、評分、設施或人數條件時，全部條件與排序交給單一 SQL
+        if (filter.hasAttributeFilters()) {
+            return bookingService.searchByFilter(filter, sortBy);
+        }
 
         // 如果有日期，執行可用性搜尋
         if (checkIn != null && checkOut != null) {
             List<Accommodation> available = bookingService.getAvailableAccommodations(checkIn, checkOut);
 
             // 如果還有關鍵字，進一步篩選
-            if (searchKeyword != null && !searchKeyword.isBlank()) {
-                String keyword = searchKeyword.toLowerCase().trim();
-                available = available.stream()
-                    .filter(acc ->
-                        acc.getLocation().toLowerCase().contains(keyword) ||
-                        acc.getName().toLowerCase().contains(keyword)
-                    )
-                    .collect(java.util.stream.Collectors.toList());
-            }
+            available = bookingService.filterByKeyword(available, searchKeyword);
 
-            return bookingService.sortAccommodations(available, sortBy);
+            return bookingService.sortAccommodations(available, sortBy, checkIn, checkOut);
         }
 
         // 只有關鍵字的情況
@@ -117,6 +275,56 @@ public class AccommodationController {
         return bookingService.getAllAccommodations(sortBy);
     }
 
+    @GetMapping("/nearby")
+    @Operation(
+        summary = "附近住宿搜尋",
+        description = "依與中心點的實際距離由近到遠列出住宿，可限定半徑或地圖範圍（南、西、北、東需同時提供），並可搭配關鍵字與日期篩選；未提供中心點時以地圖範圍的中心計算距離"
+    )
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "成功取得附近住宿"),
+        @ApiResponse(responseCode = "400", description = "座標、半徑或日期參數錯誤")
+    })
+    public List<NearbyAccommodationDTO> searchNearby(
+        @Parameter(description = "中心緯度", example = "25.033964")
+        @RequestParam(required = false) Double lat,
+        @Parameter(description = "中心經度", example = "121.564468")
+        @RequestParam(required = false) Double lng,
+        @Parameter(description = "搜尋半徑（公里）", example = "2")
+        @RequestParam(required = false) Double radiusKm,
+        @Parameter(description = "地圖範圍南邊界（緯度）", example = "25.00")
+        @RequestParam(required = false) Double south,
+        @Parameter(description = "地圖範圍西邊界（經度）", example = "121.50")
+        @RequestParam(required = false) Double west,
+        @Parameter(description = "地圖範圍北邊界（緯度）", example = "25.10")
+        @RequestParam(required = false) Double north,
+        @Parameter(description = "地圖範圍東邊界（經度）", example = "121.60")
+        @RequestParam(required = false) Double east,
+        @Parameter(description = "搜尋關鍵字（地點或名稱）", example = "台北")
+        @RequestParam(required = false) String query,
+        @Parameter(description = "入住日期", example = "2025-11-10")
+        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate checkIn,
+        @Parameter(description = "退房日期", example = "2025-11-12")
+        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate checkOut,
+        @Parameter(description = "最多筆數，預設 50，最多 200", example = "20")
+        @RequestParam(required = false) Integer limit
+    ) {
+        AccommodationGeoIndex.BoundingBox box = null;
+        if (south != null || west != null || north != null || east != null) {
+            if (south == null || west == null || north == null || east == null) {
+                throw new IllegalArgumentException("地圖範圍需同時提供南、西、北、東邊界");
+            }
+            box = new AccommodationGeoIndex.BoundingBox(south, west, north, east);
+        }
+        if (lat == null || lng == null) {
+            if (lat != null || lng != null || box == null) {
+                throw new IllegalArgumentException("請提供中心座標或地圖範圍");
+            }
+            lat = box.centerLatitude();
+            lng = box.centerLongitude();
+        }
+        return bookingService.searchNearby(lat, lng, radiusKm, box, query, checkIn, checkOut, limit);
+    }
+
     @GetMapping("/available")
     @Operation(
         summary = "查詢可用住宿",
@@ -126,7 +334,7 @@ public class AccommodationController {
         @ApiResponse(responseCode = "200", description = "成功取得可用住宿"),
         @ApiResponse(responseCode = "400", description = "日期參數錯誤")
     })
-    public List<Accommodation> getAvailable(
+    public List<AccommodationDTO> getAvailable(
         @Parameter(description = "入住日期", required = true, example = "2025-01-15")
         @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate checkIn,
         @Parameter(description = "退房日期", required = true, example = "2025-01-18")
@@ -135,11 +343,38 @@ public class AccommodationController {
         @RequestParam(required = false) String sortBy
     ) {
         System.out.println("🔍 /available 端點被調用 - checkIn: " + checkIn + ", checkOut: " + checkOut + ", sortBy: " + sortBy);
-        List<Accommodation> available = bookingService.getAvailableAccommodations(checkIn, checkOut);
-        System.out.println("📊 可用住宿數量: " + available.size());
-        List<Accommodation> sorted = bookingService.sortAccommodations(available, sortBy);
+        // 與不帶關鍵字的日期搜尋結果相同，共用同一個快取項目
+        List<Accommodation> sorted = searchResultCache.get(null, checkIn, checkOut, null, sortBy, () -> {
+            List<Accommodation> available = bookingService.getAvailableAccommodations(checkIn, checkOut);
+            System.out.println("📊 可用住宿數量: " + available.size());
+            return bookingService.sortAccommodations(available, sortBy, checkIn, checkOut);
+        });
         System.out.println("✅ 排序後返回 " + sorted.size() + " 筆資料");
-        return sorted;
+        return AccommodationDTO.fromAll(sorted);
+    }
+
+    @GetMapping("/flexible")
+    @Operation(
+        summary = "彈性日期搜尋",
+        description = "在日期期間內找出每間住宿連續 N 晚可訂且總價最低的入住區間，依最低總價排序"
+    )
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "成功取得搜尋結果"),
+        @ApiResponse(responseCode = "400", description = "日期或晚數參數錯誤")
+    })
+    public List<FlexibleSearchResultDTO> searchFlexible(
+        @Parameter(description = "期間起始日（最早入住日）", required = true, example = "2025-01-01")
+        @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+        @Parameter(description = "期間結束日（最晚退房日）", required = true, example = "2025-01-15")
+        @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+        @Parameter(description = "連續入住晚數", required = true, example = "2")
+        @RequestParam int nights,
+        @Parameter(description = "預訂間數", example = "1")
+        @RequestParam(defaultValue = "1") int quantity,
+        @Parameter(description = "每間住宿最多回傳的區間數", example = "3")
+        @RequestParam(defaultValue = "3") int limit
+    ) {
+        return flexibleDateSearchService.search(from, to, nights, quantity, limit);
     }
 
     @GetMapping("/{id}/room-types")
@@ -151,10 +386,35 @@ public class AccommodationController {
         @ApiResponse(responseCode = "200", description = "成功取得房型列表"),
         @ApiResponse(responseCode = "404", description = "找不到該住宿")
     })
-    public List<RoomType> getRoomTypesByAccommodation(
+    public List<RoomTypeDTO> getRoomTypesByAccommodation(
         @Parameter(description = "住宿 ID", required = true, example = "1")
         @PathVariable Long id
     ) {
-        return bookingService.getRoomTypesForAccommodation(id);
+        return bookingService.getRoomTypeViewsForAccommodation(id);
+    }
+
+    @GetMapping("/{id}/availability")
+    @Operation(
+        summary = "取得住宿可用性日曆",
+        description = "回傳每個房型在日期區間內每晚的剩餘房數，以遊程編碼 [剩餘房數, 連續晚數, ...] 表示"
+    )
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "成功取得可用性日曆"),
+        @ApiResponse(responseCode = "400", description = "日期參數錯誤"),
+        @ApiResponse(responseCode = "404", description = "找不到該住宿")
+    })
+    public ResponseEntity<AvailabilityCalendarDTO> getAvailabilityCalendar(
+        @Parameter(description = "住宿 ID", required = true, example = "1")
+        @PathVariable Long id,
+        @Parameter(description = "起始日期（含），預設今天", example = "2025-01-01")
+        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+        @Parameter(description = "結束日期（不含），預設起始日一個月後", example = "2025-02-01")
+        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to
+    ) {
+        LocalDate start = from != null ? from : LocalDate.now();
+        LocalDate end = to != null ? to : start.plusMonths(1);
+        return availabilityCalendarService.getCalendar(id, start, end)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
     }
 }
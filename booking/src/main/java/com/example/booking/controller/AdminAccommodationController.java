@@ -1,5 +1,6 @@
 package com.example.booking.controller;
 
+import com.example.booking.event.AccommodationChangedEvent;
 import com.example.booking.model.Accommodation;
 import com.example.booking.model.RoomType;
 import com.example.booking.model.User;
@@ -7,6 +8,7 @@ import com.example.booking.repository.AccommodationRepository;
 import com.example.booking.repository.UserRepository;
 import com.example.booking.service.BookingService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -25,6 +27,9 @@ public class AdminAccommodationController {
     @Autowired
     private BookingService bookingService;
 
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
     // --- 住宿管理 (Admin) ---
 
     @PostMapping
@@ -36,6 +41,7 @@ public class AdminAccommodationController {
         accommodation.setOwner(adminUser);
 
         Accommodation saved = accommodationRepository.save(accommodation);
+        eventPublisher.publishEvent(new AccommodationChangedEvent(saved.getId()));
         return ResponseEntity.ok(saved);
     }
 
@@ -50,7 +56,11 @@ public class AdminAccommodationController {
                     existing.setDescription(accommodation.getDescription());
                     existing.setPricePerNight(accommodation.getPricePerNight());
                     existing.setImageUrl(accommodation.getImageUrl()); // ✅ 添加圖片 URL 更新
-                    return ResponseEntity.ok(accommodationRepository.save(existing));
+                    existing.setLatitude(accommodation.getLatitude());
+                    existing.setLongitude(accommodation.getLongitude());
+                    Accommodation saved = accommodationRepository.save(existing);
+                    eventPublisher.publishEvent(new AccommodationChangedEvent(saved.getId()));
+                    return ResponseEntity.ok(saved);
                 })
                 .orElseGet(() -> ResponseEntity.notFound().build());
     }
@@ -63,6 +73,7 @@ public class AdminAccommodationController {
         }
         // 注意：這裡直接刪除，BookingService 中的 deleteAccommodation 有檢查邏輯
         accommodationRepository.deleteById(id);
+        eventPublisher.publishEvent(new AccommodationChangedEvent(id));
         return ResponseEntity.ok("刪除成功");
     }
 
@@ -1,11 +1,15 @@
 package com.example.booking.controller;
 
 import com.example.booking.model.Booking;
+import com.example.booking.service.BookingConflictDetector;
 import com.example.booking.service.BookingService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDate;
+
 @RestController
 @RequestMapping("/api/admin/bookings")
 public class AdminBookingController {
@@ -13,6 +17,9 @@ public class AdminBookingController {
     @Autowired
     private BookingService bookingService;
 
+    @Autowired
+    private BookingConflictDetector bookingConflictDetector;
+
     @PostMapping("/{id}/confirm")
     public ResponseEntity<?> confirmBooking(@PathVariable Long id) {
         try {
@@ -22,4 +29,17 @@ public class AdminBookingController {
             return ResponseEntity.badRequest().body(e.getMessage());
         }
     }
+
+    // 房型在日期區間內的最大佔用量與所有重疊的訂單/保留區間
+    @GetMapping("/conflicts")
+    public ResponseEntity<?> checkConflicts(
+            @RequestParam Long roomTypeId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate checkIn,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate checkOut) {
+        try {
+            return ResponseEntity.ok(bookingConflictDetector.check(roomTypeId, checkIn, checkOut));
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
 }
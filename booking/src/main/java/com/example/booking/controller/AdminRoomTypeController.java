@@ -1,10 +1,14 @@
 package com.example.booking.controller;
 
+import com.example.booking.model.RoomRate;
 import com.example.booking.model.RoomType;
 import com.example.booking.service.BookingService;
+import com.example.booking.service.RateCalendarService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.List;
+
 @RestController
 @RequestMapping("/api/admin/room-types")
 public class AdminRoomTypeController {
@@ -12,6 +16,9 @@ public class AdminRoomTypeController {
     @Autowired
     private BookingService bookingService;
 
+    @Autowired
+    private RateCalendarService rateCalendarService;
+
     @PutMapping("/{id}")
     public RoomType updateRoomType(@PathVariable Long id, @RequestBody RoomType roomType) {
         // 使用我們在 BookingService 中新增的 Admin 專用方法
@@ -23,4 +30,19 @@ public class AdminRoomTypeController {
         // 使用我們在 BookingService 中新增的 Admin 專用方法
         bookingService.deleteRoomTypeForAdmin(id);
     }
+
+    @GetMapping("/{id}/rates")
+    public List<RoomRate> getRoomRates(@PathVariable Long id) {
+        return rateCalendarService.getRules(id);
+    }
+
+    @PostMapping("/{id}/rates")
+    public RoomRate addRoomRate(@PathVariable Long id, @RequestBody RoomRate rate) {
+        return rateCalendarService.addRule(id, rate);
+    }
+
+    @DeleteMapping("/{id}/rates/{rateId}")
+    public void deleteRoomRate(@PathVariable Long id, @PathVariable Long rateId) {
+        rateCalendarService.deleteRule(id, rateId);
+    }
 }
@@ -1,8 +1,11 @@
 package com.example.booking.controller;
 
+import com.example.booking.dto.CursorPage;
 import com.example.booking.model.User;
 import com.example.booking.repository.UserRepository;
+import com.example.booking.service.KeysetCursor;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -17,8 +20,15 @@ public class AdminUserController {
     private UserRepository userRepository;
 
     @GetMapping
-    public ResponseEntity<List<User>> getAllUsers() {
-        return ResponseEntity.ok(userRepository.findAll());
+    public ResponseEntity<?> getAllUsers(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
+        // 分頁回傳（依 ID 遞增）；未指定 limit 時每頁 KeysetCursor.DEFAULT_LIMIT 筆
+        int size = KeysetCursor.limit(limit);
+        KeysetCursor after = KeysetCursor.decode(cursor, "users", 1);
+        List<User> fetched = userRepository.findByIdGreaterThanOrderByIdAsc(
+                after != null ? after.lastId() : 0L, PageRequest.of(0, size + 1));
+        return ResponseEntity.ok(CursorPage.of(fetched, size, u -> KeysetCursor.encode("users", u.getId())));
     }
 
     @PutMapping("/{userId}/role")
@@ -1,16 +1,27 @@
 package com.example.booking.controller;
 
+import com.example.booking.dto.CartLineDTO;
 import com.example.booking.model.Booking;
+import com.example.booking.model.BookingHold;
+import com.example.booking.model.WaitlistEntry;
+import com.example.booking.service.BookingHoldService;
 import com.example.booking.service.BookingService;
+import com.example.booking.service.IdempotencyService;
+import com.example.booking.service.WaitlistService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 
+import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 // Swagger annotations
 import io.swagger.v3.oas.annotations.Operation;
@@ -27,6 +38,15 @@ public class BookingController {
     @Autowired
     private BookingService bookingService;
 
+    @Autowired
+    private BookingHoldService bookingHoldService;
+
+    @Autowired
+    private IdempotencyService idempotencyService;
+
+    @Autowired
+    private WaitlistService waitlistService;
+
     // === 1. 舊版：以住宿 ID 下單 ===
     @PostMapping
     @Operation(
@@ -38,18 +58,24 @@ public class BookingController {
         @ApiResponse(responseCode = "400", description = "訂單參數錯誤或庫存不足"),
         @ApiResponse(responseCode = "401", description = "未登入")
     })
-    public ResponseEntity<Booking> bookByAccommodation(
+    public ResponseEntity<?> bookByAccommodation(
             @Parameter(description = "住宿 ID", required = true, example = "1")
             @RequestParam Long accommodationId,
             @Parameter(description = "入住日期", required = true, example = "2025-01-15")
             @RequestParam String checkIn,
             @Parameter(description = "退房日期", required = true, example = "2025-01-18")
-            @RequestParam String checkOut
+            @RequestParam String checkOut,
+            @Parameter(description = "冪等鍵，重送相同請求時回傳第一次的結果")
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey,
+            Authentication authentication
     ) {
-        LocalDate in = LocalDate.parse(checkIn);
-        LocalDate out = LocalDate.parse(checkOut);
-        Booking booking = bookingService.book(accommodationId, in, out);
-        return ResponseEntity.ok(booking);
+        return idempotencyService.execute(idempotencyKey, authentication.getName(),
+                Arrays.asList("book", accommodationId, checkIn, checkOut), () -> {
+            LocalDate in = LocalDate.parse(checkIn);
+            LocalDate out = LocalDate.parse(checkOut);
+            Booking booking = bookingService.book(accommodationId, in, out);
+            return ResponseEntity.ok(booking);
+        });
     }
 
     // === 2. 新版：以房型 ID 下單（支援數量與庫存檢查）===
@@ -63,7 +89,7 @@ public class BookingController {
         @ApiResponse(responseCode = "400", description = "訂單參數錯誤或庫存不足"),
         @ApiResponse(responseCode = "401", description = "未登入")
     })
-    public ResponseEntity<Booking> bookByRoomType(
+    public ResponseEntity<?> bookByRoomType(
             @Parameter(description = "房型 ID", required = true, example = "1")
             @RequestParam Long roomTypeId,
             @Parameter(description = "入住日期", required = true, example = "2025-01-15")
@@ -71,12 +97,18 @@ public class BookingController {
             @Parameter(description = "退房日期", required = true, example = "2025-01-18")
             @RequestParam String checkOut,
             @Parameter(description = "房間數量", required = false, example = "2")
-            @RequestParam(defaultValue = "1") Integer quantity
+            @RequestParam(defaultValue = "1") Integer quantity,
+            @Parameter(description = "冪等鍵，重送相同請求時回傳第一次的結果")
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey,
+            Authentication authentication
     ) {
-        LocalDate in = LocalDate.parse(checkIn);
-        LocalDate out = LocalDate.parse(checkOut);
-        Booking booking = bookingService.bookByRoomType(roomTypeId, in, out, quantity);
-        return ResponseEntity.ok(booking);
+        return idempotencyService.execute(idempotencyKey, authentication.getName(),
+                Arrays.asList("by-room-type", roomTypeId, checkIn, checkOut, quantity), () -> {
+            LocalDate in = LocalDate.parse(checkIn);
+            LocalDate out = LocalDate.parse(checkOut);
+            Booking booking = bookingService.bookByRoomType(roomTypeId, in, out, quantity);
+            return ResponseEntity.ok(booking);
+        });
     }
 
     // === 2-2. 訂房 API（返回 JSON 格式，供前端使用）===
@@ -85,18 +117,28 @@ public class BookingController {
         summary = "建立訂單（前端專用）",
         description = "根據房型 ID、入住/退房日期與房間數量建立新訂單，返回 JSON 格式回應。"
     )
-    public ResponseEntity<Map<String, Object>> bookByRoomTypeJson(
+    public ResponseEntity<?> bookByRoomTypeJson(
             @RequestParam Long roomTypeId,
             @RequestParam String checkIn,
             @RequestParam String checkOut,
-            @RequestParam(defaultValue = "1") Integer quantity
+            @RequestParam(defaultValue = "1") Integer quantity,
+            @RequestParam(required = false) Long holdId,
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey,
+            Authentication authentication
     ) {
+        return idempotencyService.execute(idempotencyKey, authentication.getName(),
+                Arrays.asList("book-by-room-type", roomTypeId, checkIn, checkOut, quantity, holdId),
+                () -> placeBookingJson(roomTypeId, checkIn, checkOut, quantity, holdId));
+    }
+
+    private ResponseEntity<Map<String, Object>> placeBookingJson(Long roomTypeId, String checkIn, String checkOut,
+                                                                 Integer quantity, Long holdId) {
         Map<String, Object> response = new HashMap<>();
 
         try {
             LocalDate in = LocalDate.parse(checkIn);
             LocalDate out = LocalDate.parse(checkOut);
-            Booking booking = bookingService.bookByRoomType(roomTypeId, in, out, quantity);
+            Booking booking = bookingService.bookWithHold(holdId, roomTypeId, in, out, quantity);
 
             response.put("success", true);
             response.put("message", "訂房成功");
@@ -106,10 +148,235 @@ public class BookingController {
         } catch (RuntimeException e) {
             response.put("success", false);
             response.put("message", e.getMessage());
+            response.put("waitlistAvailable", isSoldOut(e));
             return ResponseEntity.badRequest().body(response);
         }
     }
 
+    // === 2-2b. 非同步訂房：交給房型分片的單一寫入者處理，等待期間不佔用請求執行緒與資料庫連線 ===
+    @PostMapping("/book-async")
+    @Operation(
+        summary = "建立訂單（排隊處理）",
+        description = "適用搶購時段的熱門房型：請求依房型進入單一寫入者佇列，批次提交後回應，回應格式同 /book-by-room-type。"
+    )
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "訂單建立成功"),
+        @ApiResponse(responseCode = "400", description = "訂單參數錯誤、庫存不足或佇列已滿"),
+        @ApiResponse(responseCode = "401", description = "未登入")
+    })
+    public CompletableFuture<ResponseEntity<?>> bookByRoomTypeAsync(
+            @RequestParam Long roomTypeId,
+            @RequestParam String checkIn,
+            @RequestParam String checkOut,
+            @RequestParam(defaultValue = "1") Integer quantity,
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey,
+            Authentication authentication
+    ) {
+        return idempotencyService.executeAsync(idempotencyKey, authentication.getName(),
+                Arrays.asList("book-async", roomTypeId, checkIn, checkOut, quantity),
+                () -> placeBookingAsync(roomTypeId, checkIn, checkOut, quantity));
+    }
+
+    private CompletableFuture<ResponseEntity<Map<String, Object>>> placeBookingAsync(Long roomTypeId, String checkIn,
+                                                                                     String checkOut, Integer quantity) {
+        CompletableFuture<Booking> future;
+        try {
+            future = bookingService.bookByRoomTypeAsync(roomTypeId, LocalDate.parse(checkIn),
+                    LocalDate.parse(checkOut), quantity);
+        } catch (RuntimeException e) {
+            future = CompletableFuture.failedFuture(e);
+        }
+
+        return future.handle((booking, error) -> {
+            Map<String, Object> response = new HashMap<>();
+            if (error != null) {
+                Throwable cause = error instanceof CompletionException && error.getCause() != null
+                        ? error.getCause() : error;
+                response.put("success", false);
+                response.put("message", cause.getMessage());
+                response.put("waitlistAvailable", isSoldOut(cause));
+                return ResponseEntity.badRequest().body(response);
+            }
+            response.put("success", true);
+            response.put("message", "訂房成功");
+            response.put("bookingId", booking.getId());
+            response.put("totalPrice", booking.getTotalPrice());
+            return ResponseEntity.ok(response);
+        });
+    }
+
+    // === 2-3. 購物車訂房：一次預訂多個房型，全部成功或全部失敗 ===
+    @PostMapping("/cart")
+    @Operation(
+        summary = "購物車訂房",
+        description = "一次預訂多個房型（各自的日期與間數），在同一筆交易內完成；任一項庫存不足則整筆取消。"
+    )
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "全部訂單建立成功"),
+        @ApiResponse(responseCode = "400", description = "參數錯誤或任一項庫存不足"),
+        @ApiResponse(responseCode = "401", description = "未登入")
+    })
+    public ResponseEntity<?> bookCart(
+            @RequestBody List<CartLineDTO> lines,
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey,
+            Authentication authentication
+    ) {
+        return idempotencyService.execute(idempotencyKey, authentication.getName(),
+                Arrays.asList("cart", lines), () -> placeCart(lines));
+    }
+
+    private ResponseEntity<Map<String, Object>> placeCart(List<CartLineDTO> lines) {
+        Map<String, Object> response = new HashMap<>();
+
+        try {
+            List<Booking> bookings = bookingService.bookCart(lines);
+
+            response.put("success", true);
+            response.put("message", "訂房成功，共 " + bookings.size() + " 筆");
+            response.put("bookingIds", bookings.stream().map(Booking::getId).toList());
+            response.put("totalPrice", bookings.stream()
+                    .map(Booking::getTotalPrice)
+                    .reduce(BigDecimal.ZERO, BigDecimal::add));
+            return ResponseEntity.ok(response);
+        } catch (RuntimeException e) {
+            response.put("success", false);
+            response.put("message", e.getMessage());
+            return ResponseEntity.badRequest().body(response);
+        }
+    }
+
+    // === 2-4. 暫時保留：開啟訂房視窗時先保留房間，逾時自動釋放 ===
+    @PostMapping("/holds")
+    @Operation(
+        summary = "建立暫時保留",
+        description = "在填寫訂房資料期間暫時保留房間，逾時未下單會自動釋放。變更日期或數量時帶入 replaceHoldId 以替換先前的保留。"
+    )
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "保留成功"),
+        @ApiResponse(responseCode = "400", description = "參數錯誤或庫存不足"),
+        @ApiResponse(responseCode = "401", description = "未登入")
+    })
+    public ResponseEntity<?> createHold(
+            @RequestParam Long roomTypeId,
+            @RequestParam String checkIn,
+            @RequestParam String checkOut,
+            @RequestParam(defaultValue = "1") Integer quantity,
+            @RequestParam(required = false) Long replaceHoldId,
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey,
+            Authentication authentication
+    ) {
+        return idempotencyService.execute(idempotencyKey, authentication.getName(),
+                Arrays.asList("holds", roomTypeId, checkIn, checkOut, quantity, replaceHoldId),
+                () -> placeHold(roomTypeId, checkIn, checkOut, quantity, replaceHoldId, authentication.getName()));
+    }
+
+    private ResponseEntity<Map<String, Object>> placeHold(Long roomTypeId, String checkIn, String checkOut,
+                                                          Integer quantity, Long replaceHoldId, String username) {
+        Map<String, Object> response = new HashMap<>();
+
+        try {
+            BookingHold hold = bookingHoldService.createHold(roomTypeId, LocalDate.parse(checkIn),
+                    LocalDate.parse(checkOut), quantity, username, replaceHoldId);
+
+            response.put("success", true);
+            response.put("holdId", hold.getId());
+            response.put("expiresAt", hold.getExpiresAt().toString());
+            return ResponseEntity.ok(response);
+        } catch (RuntimeException e) {
+            response.put("success", false);
+            response.put("message", e.getMessage());
+            return ResponseEntity.badRequest().body(response);
+        }
+    }
+
+    @DeleteMapping("/holds/{id}")
+    @Operation(
+        summary = "釋放暫時保留",
+        description = "關閉訂房視窗時釋放自己的保留。"
+    )
+    public ResponseEntity<Map<String, Object>> releaseHold(
+            @Parameter(description = "保留 ID", required = true, example = "1")
+            @PathVariable Long id, Authentication authentication) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", bookingHoldService.release(id, authentication.getName()));
+        return ResponseEntity.ok(response);
+    }
+
+    // === 2-5. 候補：庫存不足時登記，有房間釋出時依登記順序自動轉為訂單 ===
+    @PostMapping("/waitlist")
+    @Operation(
+        summary = "登記候補",
+        description = "訂房因庫存不足失敗時登記候補；有訂單取消釋出房間時依登記順序自動建立訂單（待確認）。"
+    )
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "登記成功"),
+        @ApiResponse(responseCode = "400", description = "參數錯誤或已登記過相同日期"),
+        @ApiResponse(responseCode = "401", description = "未登入")
+    })
+    public ResponseEntity<Map<String, Object>> joinWaitlist(
+            @RequestParam Long roomTypeId,
+            @RequestParam String checkIn,
+            @RequestParam String checkOut,
+            @RequestParam(defaultValue = "1") Integer quantity,
+            Authentication authentication
+    ) {
+        Map<String, Object> response = new HashMap<>();
+
+        try {
+            WaitlistEntry entry = waitlistService.join(roomTypeId, LocalDate.parse(checkIn),
+                    LocalDate.parse(checkOut), quantity, authentication.getName());
+
+            response.put("success", true);
+            response.put("entryId", entry.getId());
+            response.put("message", "已登記候補，有空房時會自動為您建立訂單");
+            return ResponseEntity.ok(response);
+        } catch (RuntimeException e) {
+            response.put("success", false);
+            response.put("message", e.getMessage());
+            return ResponseEntity.badRequest().body(response);
+        }
+    }
+
+    @GetMapping("/waitlist")
+    @Operation(
+        summary = "取得我的候補",
+        description = "列出當前使用者的候補登記，等待中的候補附上目前順位。"
+    )
+    public ResponseEntity<List<Map<String, Object>>> getWaitlist(Authentication authentication) {
+        List<Map<String, Object>> result = new ArrayList<>();
+        for (WaitlistEntry entry : waitlistService.getEntriesForUser(authentication.getName())) {
+            Map<String, Object> item = new HashMap<>();
+            item.put("id", entry.getId());
+            item.put("roomTypeId", entry.getRoomTypeId());
+            item.put("checkIn", entry.getCheckIn());
+            item.put("checkOut", entry.getCheckOut());
+            item.put("quantity", entry.getQuantity());
+            item.put("status", entry.getStatus());
+            item.put("bookingId", entry.getBookingId());
+            item.put("position", waitlistService.positionOf(entry));
+            result.add(item);
+        }
+        return ResponseEntity.ok(result);
+    }
+
+    @DeleteMapping("/waitlist/{id}")
+    @Operation(
+        summary = "取消候補",
+        description = "取消自己仍在等待中的候補。"
+    )
+    public ResponseEntity<Map<String, Object>> leaveWaitlist(
+            @Parameter(description = "候補 ID", required = true, example = "1")
+            @PathVariable Long id, Authentication authentication) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", waitlistService.leave(id, authentication.getName()));
+        return ResponseEntity.ok(response);
+    }
+
+    // 庫存不足的失敗才提示可登記候補
+    private static boolean isSoldOut(Throwable error) {
+        return error.getMessage() != null && error.getMessage().startsWith("庫存不足");
+    }
+
     // === 3. 使用者查自己的訂單（自動取登入帳號） ===
     @GetMapping
     @Operation(
@@ -135,14 +402,19 @@ public class BookingController {
     @GetMapping("/admin/all")
     @Operation(
         summary = "取得所有訂單（管理員）",
-        description = "管理員取得系統所有訂單列表。"
+        description = "管理員分頁取得系統所有訂單（新到舊），以 nextCursor 取下一頁。"
     )
     @ApiResponses(value = {
         @ApiResponse(responseCode = "200", description = "成功取得訂單列表"),
         @ApiResponse(responseCode = "403", description = "需要管理員權限")
     })
-    public ResponseEntity<List<Booking>> getAllBookings() {
-        return ResponseEntity.ok(bookingService.getAllBookings());
+    public ResponseEntity<?> getAllBookings(
+        @Parameter(description = "分頁游標（上一頁回傳的 nextCursor），未指定時回傳第一頁")
+        @RequestParam(required = false) String cursor,
+        @Parameter(description = "每頁筆數，預設 50，最多 200", example = "20")
+        @RequestParam(required = false) Integer limit
+    ) {
+        return ResponseEntity.ok(bookingService.getBookingPage(cursor, limit));
     }
 
     // === 5.（選用）Admin 可查指定使用者的訂單 ===
@@ -1,5 +1,6 @@
 package com.example.booking.controller;
 
+import com.example.booking.dto.CursorPage;
 import com.example.booking.model.Accommodation;
 import com.example.booking.service.FavoriteService;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -11,7 +12,6 @@ import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
 
 /**
@@ -25,13 +25,16 @@ public class FavoriteController {
     private FavoriteService favoriteService;
 
     /**
-     * 我的收藏頁面
+     * 我的收藏頁面（新到舊分頁，以 cursor 取下一頁）
      */
     @GetMapping
-    public String favoritesPage(@AuthenticationPrincipal UserDetails userDetails, Model model) {
-        List<Accommodation> favorites = favoriteService.getFavorites(userDetails.getUsername());
-        model.addAttribute("favorites", favorites);
-        model.addAttribute("favoriteCount", favorites.size());
+    public String favoritesPage(@AuthenticationPrincipal UserDetails userDetails,
+                                @RequestParam(required = false) String cursor,
+                                Model model) {
+        CursorPage<Accommodation> page = favoriteService.getFavoritePage(userDetails.getUsername(), cursor, null);
+        model.addAttribute("favorites", page.getItems());
+        model.addAttribute("favoriteCount", favoriteService.getFavoriteCount(userDetails.getUsername()));
+        model.addAttribute("nextCursor", page.getNextCursor());
         return "user-favorites";
     }
 
@@ -82,13 +85,18 @@ public class FavoriteController {
     @GetMapping("/api/list")
     @ResponseBody
     public ResponseEntity<Map<String, Object>> getFavorites(
-            @AuthenticationPrincipal UserDetails userDetails) {
+            @AuthenticationPrincipal UserDetails userDetails,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
 
         Map<String, Object> response = new HashMap<>();
-        List<Accommodation> favorites = favoriteService.getFavorites(userDetails.getUsername());
 
-        response.put("favorites", favorites);
-        response.put("count", favorites.size());
+        // 分頁回傳（新到舊），另回傳下一頁游標
+        CursorPage<Accommodation> page = favoriteService.getFavoritePage(userDetails.getUsername(), cursor, limit);
+        response.put("favorites", page.getItems());
+        response.put("count", page.getItems().size());
+        response.put("nextCursor", page.getNextCursor());
+        response.put("hasMore", page.isHasMore());
         return ResponseEntity.ok(response);
     }
 
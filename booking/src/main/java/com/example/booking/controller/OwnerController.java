@@ -1,9 +1,14 @@
 package com.example.booking.controller;
 
+import com.example.booking.dto.AccommodationDTO;
+import com.example.booking.dto.BookingDTO;
+import com.example.booking.dto.RoomTypeDTO;
 import com.example.booking.model.Accommodation;
 import com.example.booking.model.Booking;
+import com.example.booking.model.RoomRate;
 import com.example.booking.model.RoomType;
 import com.example.booking.service.BookingService;
+import com.example.booking.service.RateCalendarService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
@@ -20,24 +25,29 @@ public class OwnerController {
     @Autowired
     private BookingService bookingService;
 
+    @Autowired
+    private RateCalendarService rateCalendarService;
+
+    // 回應一律轉成 DTO，序列化時不會再延遲載入房型、房東或訂單
+
     @GetMapping("/accommodations")
-    public List<Accommodation> getOwnerAccommodations(Authentication authentication) {
-        return bookingService.getAccommodationsForOwner(authentication.getName());
+    public List<AccommodationDTO> getOwnerAccommodations(Authentication authentication) {
+        return AccommodationDTO.fromAll(bookingService.getAccommodationsForOwner(authentication.getName()));
     }
 
     @PostMapping("/accommodations")
-    public Accommodation createAccommodation(
+    public AccommodationDTO createAccommodation(
             @RequestBody Accommodation accommodation,
             Authentication authentication) {
-        return bookingService.createAccommodation(accommodation, authentication.getName());
+        return AccommodationDTO.from(bookingService.createAccommodation(accommodation, authentication.getName()));
     }
 
     @PutMapping("/accommodations/{id}")
-    public Accommodation updateAccommodation(
+    public AccommodationDTO updateAccommodation(
             @PathVariable Long id,
             @RequestBody Accommodation accommodation,
             Authentication authentication) {
-        return bookingService.updateAccommodation(id, accommodation, authentication.getName());
+        return AccommodationDTO.from(bookingService.updateAccommodation(id, accommodation, authentication.getName()));
     }
 
     @DeleteMapping("/accommodations/{id}")
@@ -48,28 +58,28 @@ public class OwnerController {
     }
 
     @PostMapping("/accommodations/{accId}/room-types")
-    public RoomType createRoomType(
+    public RoomTypeDTO createRoomType(
             @PathVariable Long accId,
             @RequestBody RoomType roomType,
             Authentication authentication) {
-        return bookingService.createRoomType(accId, roomType, authentication.getName());
+        return RoomTypeDTO.from(bookingService.createRoomType(accId, roomType, authentication.getName()));
     }
 
     @GetMapping("/accommodations/{accId}/room-types")
-    public List<RoomType> getRoomTypes(
+    public List<RoomTypeDTO> getRoomTypes(
             @PathVariable Long accId,
             Authentication authentication) {
         // 使用現有的 checkAccommodationOwnership 方法來驗證權限
         bookingService.checkAccommodationOwnership(accId, authentication.getName());
-        return bookingService.getRoomTypesForAccommodation(accId);
+        return bookingService.getRoomTypeViewsForAccommodation(accId);
     }
 
     @PutMapping("/room-types/{id}")
-    public RoomType updateRoomType(
+    public RoomTypeDTO updateRoomType(
             @PathVariable Long id,
             @RequestBody RoomType roomType,
             Authentication authentication) {
-        return bookingService.updateRoomType(id, roomType, authentication.getName());
+        return RoomTypeDTO.from(bookingService.updateRoomType(id, roomType, authentication.getName()));
     }
 
     @DeleteMapping("/room-types/{id}")
@@ -79,31 +89,62 @@ public class OwnerController {
         bookingService.deleteRoomType(id, authentication.getName());
     }
 
-    // 取得房東的所有訂單
+    // 房價規則（星期 / 季節 / 單日覆寫，金額單位為分）
+    @GetMapping("/room-types/{id}/rates")
+    public List<RoomRate> getRoomRates(
+            @PathVariable Long id,
+            Authentication authentication) {
+        rateCalendarService.checkOwnership(id, authentication.getName());
+        return rateCalendarService.getRules(id);
+    }
+
+    @PostMapping("/room-types/{id}/rates")
+    public RoomRate addRoomRate(
+            @PathVariable Long id,
+            @RequestBody RoomRate rate,
+            Authentication authentication) {
+        rateCalendarService.checkOwnership(id, authentication.getName());
+        return rateCalendarService.addRule(id, rate);
+    }
+
+    @DeleteMapping("/room-types/{id}/rates/{rateId}")
+    public void deleteRoomRate(
+            @PathVariable Long id,
+            @PathVariable Long rateId,
+            Authentication authentication) {
+        rateCalendarService.checkOwnership(id, authentication.getName());
+        rateCalendarService.deleteRule(id, rateId);
+    }
+
+    // 取得房東的訂單，分頁回傳（新到舊）；未指定 limit 時每頁 KeysetCursor.DEFAULT_LIMIT 筆
     @GetMapping("/bookings")
-    public List<Booking> getOwnerBookings(Authentication authentication) {
-        return bookingService.getBookingsForOwner(authentication.getName());
+    public ResponseEntity<?> getOwnerBookings(
+            Authentication authentication,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
+        return ResponseEntity.ok(bookingService.getOwnerBookingPage(authentication.getName(), cursor, limit)
+                .map(BookingDTO::from));
     }
 
     @PostMapping("/bookings/{id}/confirm")
-    public ResponseEntity<Booking> confirmBooking(
+    public ResponseEntity<BookingDTO> confirmBooking(
             @PathVariable Long id,
             Authentication authentication) {
         try {
             Booking booking = bookingService.confirmBookingByOwner(id, authentication.getName());
-            return ResponseEntity.ok(booking);
+            return ResponseEntity.ok(BookingDTO.from(booking));
         } catch (RuntimeException e) {
             return ResponseEntity.badRequest().build();
         }
     }
 
     @PostMapping("/bookings/{id}/cancel")
-    public ResponseEntity<Booking> cancelBooking(
+    public ResponseEntity<BookingDTO> cancelBooking(
             @PathVariable Long id,
             Authentication authentication) {
         try {
             Booking booking = bookingService.cancelBookingByOwner(id, authentication.getName());
-            return ResponseEntity.ok(booking);
+            return ResponseEntity.ok(BookingDTO.from(booking));
         } catch (RuntimeException e) {
             return ResponseEntity.badRequest().build();
         }
@@ -125,11 +166,8 @@ public class OwnerController {
             // 基本統計
             stats.put("accommodationCount", accommodations.size());
 
-            // 計算總房型數
-            int totalRoomTypes = accommodations.stream()
-                    .mapToInt(acc -> bookingService.getRoomTypesForAccommodation(acc.getId()).size())
-                    .sum();
-            stats.put("roomTypeCount", totalRoomTypes);
+            // 總房型數：一次 COUNT，不逐間住宿查詢房型
+            stats.put("roomTypeCount", bookingService.countRoomTypesForOwner(username));
 
             // 待確認訂單數
             long pendingBookings = bookings.stream()
@@ -1,15 +1,23 @@
 package com.example.booking.controller;
 
-import com.example.booking.model.RoomType;
+import com.example.booking.dto.CursorPage;
+import com.example.booking.dto.QuoteDTO;
+import com.example.booking.dto.RoomTypeDTO;
 import com.example.booking.repository.RoomTypeRepository;
+import com.example.booking.service.KeysetCursor;
+import com.example.booking.service.QuoteService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDate;
 import java.util.List;
 
 @RestController
@@ -20,17 +28,29 @@ public class RoomTypeController {
     @Autowired
     private RoomTypeRepository roomTypeRepo;
 
+    @Autowired
+    private QuoteService quoteService;
+
     @GetMapping
     @Operation(
-        summary = "取得所有房型",
-        description = "回傳系統中所有房型的列表（管理用途）"
+        summary = "取得房型列表",
+        description = "依 ID 分頁回傳房型列表（管理用途），以 nextCursor 取下一頁"
     )
     @ApiResponses(value = {
         @ApiResponse(responseCode = "200", description = "成功取得房型列表"),
         @ApiResponse(responseCode = "500", description = "伺服器錯誤")
     })
-    public List<RoomType> getAllRoomTypes() {
-        return roomTypeRepo.findAll();
+    public ResponseEntity<?> getAllRoomTypes(
+        @Parameter(description = "分頁游標（上一頁回傳的 nextCursor），未指定時回傳第一頁")
+        @RequestParam(required = false) String cursor,
+        @Parameter(description = "每頁筆數，預設 50，最多 200", example = "20")
+        @RequestParam(required = false) Integer limit
+    ) {
+        int size = KeysetCursor.limit(limit);
+        KeysetCursor after = KeysetCursor.decode(cursor, "room-types", 1);
+        List<RoomTypeDTO> fetched = roomTypeRepo.findDtoPage(
+                after != null ? after.lastId() : 0L, PageRequest.of(0, size + 1));
+        return ResponseEntity.ok(CursorPage.of(fetched, size, rt -> KeysetCursor.encode("room-types", rt.getId())));
     }
 
     @GetMapping("/by-accommodation/{accId}")
@@ -42,9 +62,34 @@ public class RoomTypeController {
         @ApiResponse(responseCode = "200", description = "成功取得房型列表"),
         @ApiResponse(responseCode = "404", description = "找不到該住宿")
     })
-    public List<RoomType> getByAccommodation(
+    public List<RoomTypeDTO> getByAccommodation(
         @Parameter(description = "住宿 ID", required = true, example = "1")
         @PathVariable Long accId) {
-        return roomTypeRepo.findByAccommodationId(accId);
+        return roomTypeRepo.findDtoByAccommodationId(accId);
+    }
+
+    @GetMapping("/{id}/quote")
+    @Operation(
+        summary = "房型報價",
+        description = "回傳指定日期與間數的總價、每晚房價與區間內剩餘房數，可在每次變更日期時呼叫"
+    )
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "成功取得報價"),
+        @ApiResponse(responseCode = "400", description = "日期或數量參數錯誤"),
+        @ApiResponse(responseCode = "404", description = "找不到該房型")
+    })
+    public ResponseEntity<QuoteDTO> getQuote(
+        @Parameter(description = "房型 ID", required = true, example = "1")
+        @PathVariable Long id,
+        @Parameter(description = "入住日期", required = true, example = "2025-01-01")
+        @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate checkIn,
+        @Parameter(description = "退房日期（不含）", required = true, example = "2025-01-03")
+        @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate checkOut,
+        @Parameter(description = "間數", example = "1")
+        @RequestParam(defaultValue = "1") int quantity
+    ) {
+        return quoteService.quote(id, checkIn, checkOut, quantity)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
     }
 }
@@ -1,6 +1,19 @@
 package com.example.booking.controller;
 
+import com.example.booking.service.AccommodationCounterService;
+import com.example.booking.service.AccommodationFacetIndex;
+import com.example.booking.service.AccommodationFuzzyIndex;
+import com.example.booking.service.AccommodationGeoIndex;
+import com.example.booking.service.AccommodationRankIndex;
+import com.example.booking.service.AccommodationSuggestIndex;
+import com.example.booking.service.AccommodationSearchIndex;
+import com.example.booking.service.AvailabilityIndex;
+import com.example.booking.service.BookingConflictDetector;
+import com.example.booking.service.BookingSequencer;
+import com.example.booking.service.QuoteService;
+import com.example.booking.service.SearchResultCache;
 import com.example.booking.service.StatisticsService;
+import com.example.booking.service.WaitlistService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
@@ -24,6 +37,45 @@ public class StatisticsController {
     @Autowired
     private StatisticsService statisticsService;
 
+    @Autowired
+    private AvailabilityIndex availabilityIndex;
+
+    @Autowired
+    private BookingSequencer bookingSequencer;
+
+    @Autowired
+    private BookingConflictDetector bookingConflictDetector;
+
+    @Autowired
+    private QuoteService quoteService;
+
+    @Autowired
+    private SearchResultCache searchResultCache;
+
+    @Autowired
+    private WaitlistService waitlistService;
+
+    @Autowired
+    private AccommodationCounterService accommodationCounterService;
+
+    @Autowired
+    private AccommodationSearchIndex accommodationSearchIndex;
+
+    @Autowired
+    private AccommodationFacetIndex accommodationFacetIndex;
+
+    @Autowired
+    private AccommodationRankIndex accommodationRankIndex;
+
+    @Autowired
+    private AccommodationGeoIndex accommodationGeoIndex;
+
+    @Autowired
+    private AccommodationSuggestIndex accommodationSuggestIndex;
+
+    @Autowired
+    private AccommodationFuzzyIndex accommodationFuzzyIndex;
+
     /**
      * 取得訂單狀態分布
      * 管理員：所有訂單
@@ -226,6 +278,108 @@ public class StatisticsController {
         return ResponseEntity.ok(dashboard);
     }
 
+    /**
+     * 取得可用性索引的狀態與記憶體用量
+     */
+    @GetMapping("/admin/availability-index")
+    @Operation(
+        summary = "取得可用性索引狀態",
+        description = "回傳索引涵蓋的房型數、天數與估算記憶體用量"
+    )
+    public ResponseEntity<Map<String, Object>> getAvailabilityIndexStats() {
+        return ResponseEntity.ok(availabilityIndex.getStats());
+    }
+
+    /**
+     * 取得訂房排序器的佇列長度與批次大小
+     */
+    @GetMapping("/admin/booking-sequencer")
+    @Operation(
+        summary = "取得訂房排序器狀態",
+        description = "回傳分片數、排隊中的指令數與平均每批提交的指令數"
+    )
+    public ResponseEntity<Map<String, Object>> getBookingSequencerStats() {
+        return ResponseEntity.ok(bookingSequencer.getStats());
+    }
+
+    /**
+     * 取得衝突偵測區間樹的載入狀態
+     */
+    @GetMapping("/admin/conflict-detector")
+    @Operation(
+        summary = "取得衝突偵測狀態",
+        description = "回傳已載入區間樹的房型數與區間總數"
+    )
+    public ResponseEntity<Map<String, Object>> getConflictDetectorStats() {
+        return ResponseEntity.ok(bookingConflictDetector.getStats());
+    }
+
+    /**
+     * 取得報價快取命中率
+     */
+    @GetMapping("/admin/quote-cache")
+    @Operation(
+        summary = "取得報價快取狀態",
+        description = "回傳報價快取筆數、命中與未命中次數"
+    )
+    public ResponseEntity<Map<String, Object>> getQuoteCacheStats() {
+        return ResponseEntity.ok(quoteService.getStats());
+    }
+
+    /**
+     * 取得搜尋結果快取命中率
+     */
+    @GetMapping("/admin/search-cache")
+    @Operation(
+        summary = "取得搜尋結果快取狀態",
+        description = "回傳搜尋結果快取筆數、命中率、LRU 淘汰數、版本失效數與異動時移除的筆數"
+    )
+    public ResponseEntity<Map<String, Object>> getSearchCacheStats() {
+        return ResponseEntity.ok(searchResultCache.getStats());
+    }
+
+    /**
+     * 取得候補佇列狀態
+     */
+    @GetMapping("/admin/waitlist")
+    @Operation(
+        summary = "取得候補佇列狀態",
+        description = "回傳等待中的候補數、待處理房型數與累計轉為訂單的候補數"
+    )
+    public ResponseEntity<Map<String, Object>> getWaitlistStats() {
+        return ResponseEntity.ok(waitlistService.getStats());
+    }
+
+    /**
+     * 取得住宿計數器寫回狀態
+     */
+    @GetMapping("/admin/counters")
+    @Operation(
+        summary = "取得住宿計數器狀態",
+        description = "回傳有待寫回增量的住宿數、寫回次數與累計更新列數"
+    )
+    public ResponseEntity<Map<String, Object>> getCounterStats() {
+        return ResponseEntity.ok(accommodationCounterService.getStats());
+    }
+
+    /**
+     * 取得關鍵字索引狀態
+     */
+    @GetMapping("/admin/search-index")
+    @Operation(
+        summary = "取得關鍵字索引狀態",
+        description = "回傳關鍵字索引的住宿數、詞數、倒排表總長度與待回收的文件編號數，以及各篩選面向的選項數、排序名次索引、地理索引、自動完成索引與模糊搜尋索引狀態"
+    )
+    public ResponseEntity<Map<String, Object>> getSearchIndexStats() {
+        Map<String, Object> stats = new java.util.LinkedHashMap<>(accommodationSearchIndex.getStats());
+        stats.put("facets", accommodationFacetIndex.getStats());
+        stats.put("ranks", accommodationRankIndex.getStats());
+        stats.put("geo", accommodationGeoIndex.getStats());
+        stats.put("suggest", accommodationSuggestIndex.getStats());
+        stats.put("fuzzy", accommodationFuzzyIndex.getStats());
+        return ResponseEntity.ok(stats);
+    }
+
     /**
      * 取得房東儀表板的所有統計資料（一次性取得）
      */
@@ -0,0 +1,121 @@
+package com.example.booking.dto;
+
+import com.example.booking.model.Accommodation;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * 住宿列表 / 詳細資料的回應 DTO：只含住宿本身的欄位與房東 ID。
+ * 房型另由 /api/accommodations/{id}/room-types 取得，序列化時不會再觸發房型或房東的延遲載入
+ */
+public class AccommodationDTO {
+    private Long id;
+    private String name;
+    private String location;
+    private String description;
+    private BigDecimal pricePerNight;
+    private String amenities;
+    private BigDecimal rating;
+    private Integer reviewCount;
+    private Integer bookingCount;
+    private Integer favoriteCount;
+    private BigDecimal distanceFromCenter;
+    private BigDecimal latitude;
+    private BigDecimal longitude;
+    private String imageUrl;
+    private String images;
+    private String nearbyAttractions;
+    private String address;
+    private String phone;
+    private Long ownerId;
+
+    /**
+     * 由已載入的住宿建立；房東只取代理物件上的 ID，不會查詢 users
+     */
+    public static AccommodationDTO from(Accommodation acc) {
+        AccommodationDTO dto = new AccommodationDTO();
+        dto.id = acc.getId();
+        dto.name = acc.getName();
+        dto.location = acc.getLocation();
+        dto.description = acc.getDescription();
+        dto.pricePerNight = acc.getPricePerNight();
+        dto.amenities = acc.getAmenities();
+        dto.rating = acc.getRating();
+        dto.reviewCount = acc.getReviewCount();
+        dto.bookingCount = acc.getBookingCount();
+        dto.favoriteCount = acc.getFavoriteCount();
+        dto.distanceFromCenter = acc.getDistanceFromCenter();
+        dto.latitude = acc.getLatitude();
+        dto.longitude = acc.getLongitude();
+        dto.imageUrl = acc.getImageUrl();
+        dto.images = acc.getImages();
+        dto.nearbyAttractions = acc.getNearbyAttractions();
+        dto.address = acc.getAddress();
+        dto.phone = acc.getPhone();
+        dto.ownerId = acc.getOwner() != null ? acc.getOwner().getId() : null;
+        return dto;
+    }
+
+    public static List<AccommodationDTO> fromAll(List<Accommodation> accommodations) {
+        return accommodations.stream().map(AccommodationDTO::from).toList();
+    }
+
+    // === Getters and Setters ===
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public String getName() { return name; }
+    public void setName(String name) { this.name = name; }
+
+    public String getLocation() { return location; }
+    public void setLocation(String location) { this.location = location; }
+
+    public String getDescription() { return description; }
+    public void setDescription(String description) { this.description = description; }
+
+    public BigDecimal getPricePerNight() { return pricePerNight; }
+    public void setPricePerNight(BigDecimal pricePerNight) { this.pricePerNight = pricePerNight; }
+
+    public String getAmenities() { return amenities; }
+    public void setAmenities(String amenities) { this.amenities = amenities; }
+
+    public BigDecimal getRating() { return rating; }
+    public void setRating(BigDecimal rating) { this.rating = rating; }
+
+    public Integer getReviewCount() { return reviewCount; }
+    public void setReviewCount(Integer reviewCount) { this.reviewCount = reviewCount; }
+
+    public Integer getBookingCount() { return bookingCount; }
+    public void setBookingCount(Integer bookingCount) { this.bookingCount = bookingCount; }
+
+    public Integer getFavoriteCount() { return favoriteCount; }
+    public void setFavoriteCount(Integer favoriteCount) { this.favoriteCount = favoriteCount; }
+
+    public BigDecimal getDistanceFromCenter() { return distanceFromCenter; }
+    public void setDistanceFromCenter(BigDecimal distanceFromCenter) { this.distanceFromCenter = distanceFromCenter; }
+
+    public BigDecimal getLatitude() { return latitude; }
+    public void setLatitude(BigDecimal latitude) { this.latitude = latitude; }
+
+    public BigDecimal getLongitude() { return longitude; }
+    public void setLongitude(BigDecimal longitude) { this.longitude = longitude; }
+
+    public String getImageUrl() { return imageUrl; }
+    public void setImageUrl(String imageUrl) { this.imageUrl = imageUrl; }
+
+    public String getImages() { return images; }
+    public void setImages(String images) { this.images = images; }
+
+    public String getNearbyAttractions() { return nearbyAttractions; }
+    public void setNearbyAttractions(String nearbyAttractions) { this.nearbyAttractions = nearbyAttractions; }
+
+    public String getAddress() { return address; }
+    public void setAddress(String address) { this.address = address; }
+
+    public String getPhone() { return phone; }
+    public void setPhone(String phone) { this.phone = phone; }
+
+    public Long getOwnerId() { return ownerId; }
+    public void setOwnerId(Long ownerId) { this.ownerId = ownerId; }
+}
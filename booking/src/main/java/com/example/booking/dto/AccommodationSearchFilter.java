@@ -0,0 +1,103 @@
+package com.example.booking.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * 住宿搜尋條件 DTO：所有欄位皆可為 null，null 或空列表代表不篩選
+ */
+public class AccommodationSearchFilter {
+    private String keyword;
+    private List<String> cities;
+    private BigDecimal minPrice;
+    private BigDecimal maxPrice;
+    private BigDecimal minRating;
+    private List<String> amenities;
+    private Integer guests;
+    private LocalDate checkIn;
+    private LocalDate checkOut;
+
+    /**
+     * 是否有關鍵字與日期以外的條件（城市、價格、評分、設施或人數）
+     */
+    public boolean hasAttributeFilters() {
+        return (cities != null && !cities.isEmpty())
+                || minPrice != null || maxPrice != null || minRating != null
+                || (amenities != null && !amenities.isEmpty())
+                || guests != null;
+    }
+
+    // === Getters and Setters ===
+    public String getKeyword() {
+        return keyword;
+    }
+
+    public void setKeyword(String keyword) {
+        this.keyword = keyword;
+    }
+
+    public List<String> getCities() {
+        return cities;
+    }
+
+    public void setCities(List<String> cities) {
+        this.cities = cities;
+    }
+
+    public BigDecimal getMinPrice() {
+        return minPrice;
+    }
+
+    public void setMinPrice(BigDecimal minPrice) {
+        this.minPrice = minPrice;
+    }
+
+    public BigDecimal getMaxPrice() {
+        return maxPrice;
+    }
+
+    public void setMaxPrice(BigDecimal maxPrice) {
+        this.maxPrice = maxPrice;
+    }
+
+    public BigDecimal getMinRating() {
+        return minRating;
+    }
+
+    public void setMinRating(BigDecimal minRating) {
+        this.minRating = minRating;
+    }
+
+    public List<String> getAmenities() {
+        return amenities;
+    }
+
+    public void setAmenities(List<String> amenities) {
+        this.amenities = amenities;
+    }
+
+    public Integer getGuests() {
+        return guests;
+    }
+
+    public void setGuests(Integer guests) {
+        this.guests = guests;
+    }
+
+    public LocalDate getCheckIn() {
+        return checkIn;
+    }
+
+    public void setCheckIn(LocalDate checkIn) {
+        this.checkIn = checkIn;
+    }
+
+    public LocalDate getCheckOut() {
+        return checkOut;
+    }
+
+    public void setCheckOut(LocalDate checkOut) {
+        this.checkOut = checkOut;
+    }
+}
@@ -0,0 +1,130 @@
+package com.example.booking.dto;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * 住宿可用性日曆 DTO
+ * 每個房型的每晚剩餘房數以遊程編碼（RLE）表示：[剩餘房數, 連續晚數, 剩餘房數, 連續晚數, ...]，
+ * 從 from 當晚開始依序展開，共 nights 晚。
+ */
+public class AvailabilityCalendarDTO {
+    private Long accommodationId;
+    private LocalDate from;
+    private LocalDate to;
+    private int nights;
+    private String encoding = "rle";
+    private List<RoomTypeCalendar> roomTypes;
+
+    /**
+     * 單一房型的剩餘房數
+     */
+    public static class RoomTypeCalendar {
+        private Long roomTypeId;
+        private String name;
+        private int totalRooms;
+        private int[] remaining;
+
+        public RoomTypeCalendar() {}
+
+        public RoomTypeCalendar(Long roomTypeId, String name, int totalRooms, int[] remaining) {
+            this.roomTypeId = roomTypeId;
+            this.name = name;
+            this.totalRooms = totalRooms;
+            this.remaining = remaining;
+        }
+
+        public Long getRoomTypeId() {
+            return roomTypeId;
+        }
+
+        public void setRoomTypeId(Long roomTypeId) {
+            this.roomTypeId = roomTypeId;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+
+        public int getTotalRooms() {
+            return totalRooms;
+        }
+
+        public void setTotalRooms(int totalRooms) {
+            this.totalRooms = totalRooms;
+        }
+
+        public int[] getRemaining() {
+            return remaining;
+        }
+
+        public void setRemaining(int[] remaining) {
+            this.remaining = remaining;
+        }
+    }
+
+    // === Constructors ===
+    public AvailabilityCalendarDTO() {}
+
+    public AvailabilityCalendarDTO(Long accommodationId, LocalDate from, LocalDate to, int nights,
+                                   List<RoomTypeCalendar> roomTypes) {
+        this.accommodationId = accommodationId;
+        this.from = from;
+        this.to = to;
+        this.nights = nights;
+        this.roomTypes = roomTypes;
+    }
+
+    // === Getters and Setters ===
+    public Long getAccommodationId() {
+        return accommodationId;
+    }
+
+    public void setAccommodationId(Long accommodationId) {
+        this.accommodationId = accommodationId;
+    }
+
+    public LocalDate getFrom() {
+        return from;
+    }
+
+    public void setFrom(LocalDate from) {
+        this.from = from;
+    }
+
+    public LocalDate getTo() {
+        return to;
+    }
+
+    public void setTo(LocalDate to) {
+        this.to = to;
+    }
+
+    public int getNights() {
+        return nights;
+    }
+
+    public void setNights(int nights) {
+        this.nights = nights;
+    }
+
+    public String getEncoding() {
+        return encoding;
+    }
+
+    public void setEncoding(String encoding) {
+        this.encoding = encoding;
+    }
+
+    public List<RoomTypeCalendar> getRoomTypes() {
+        return roomTypes;
+    }
+
+    public void setRoomTypes(List<RoomTypeCalendar> roomTypes) {
+        this.roomTypes = roomTypes;
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.booking.dto;
+
+import com.example.booking.model.Booking;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * 房東訂單列表的回應 DTO：訂單欄位與訂房者、房型、住宿名稱攤平成一層，
+ * 不再帶出整個房型、住宿與使用者實體
+ */
+public class BookingDTO {
+    private Long id;
+    private LocalDate checkIn;
+    private LocalDate checkOut;
+    private Integer bookedQuantity;
+    private BigDecimal totalPrice;
+    private String status;
+    private LocalDateTime createdAt;
+    private String username;
+    private Long roomTypeId;
+    private String roomTypeName;
+    private Long accommodationId;
+    private String accommodationName;
+
+    /**
+     * 由訂單建立；訂房者、房型與住宿需已一併載入（例如 JOIN FETCH），否則會各自查詢一次
+     */
+    public static BookingDTO from(Booking booking) {
+        BookingDTO dto = new BookingDTO();
+        dto.id = booking.getId();
+        dto.checkIn = booking.getCheckIn();
+        dto.checkOut = booking.getCheckOut();
+        dto.bookedQuantity = booking.getBookedQuantity();
+        dto.totalPrice = booking.getTotalPrice();
+        dto.status = booking.getStatus();
+        dto.createdAt = booking.getCreatedAt();
+        dto.username = booking.getUser().getUsername();
+        dto.roomTypeId = booking.getRoomType().getId();
+        dto.roomTypeName = booking.getRoomType().getName();
+        if (booking.getRoomType().getAccommodation() != null) {
+            dto.accommodationId = booking.getRoomType().getAccommodation().getId();
+            dto.accommodationName = booking.getRoomType().getAccommodation().getName();
+        }
+        return dto;
+    }
+
+    // === Getters and Setters ===
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public LocalDate getCheckIn() { return checkIn; }
+    public void setCheckIn(LocalDate checkIn) { this.checkIn = checkIn; }
+
+    public LocalDate getCheckOut() { return checkOut; }
+    public void setCheckOut(LocalDate checkOut) { this.checkOut = checkOut; }
+
+    public Integer getBookedQuantity() { return bookedQuantity; }
+    public void setBookedQuantity(Integer bookedQuantity) { this.bookedQuantity = bookedQuantity; }
+
+    public BigDecimal getTotalPrice() { return totalPrice; }
+    public void setTotalPrice(BigDecimal totalPrice) { this.totalPrice = totalPrice; }
+
+    public String getStatus() { return status; }
+    public void setStatus(String status) { this.status = status; }
+
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+
+    public String getUsername() { return username; }
+    public void setUsername(String username) { this.username = username; }
+
+    public Long getRoomTypeId() { return roomTypeId; }
+    public void setRoomTypeId(Long roomTypeId) { this.roomTypeId = roomTypeId; }
+
+    public String getRoomTypeName() { return roomTypeName; }
+    public void setRoomTypeName(String roomTypeName) { this.roomTypeName = roomTypeName; }
+
+    public Long getAccommodationId() { return accommodationId; }
+    public void setAccommodationId(Long accommodationId) { this.accommodationId = accommodationId; }
+
+    public String getAccommodationName() { return accommodationName; }
+    public void setAccommodationName(String accommodationName) { this.accommodationName = accommodationName; }
+}
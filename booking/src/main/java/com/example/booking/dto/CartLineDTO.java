@@ -0,0 +1,56 @@
+package com.example.booking.dto;
+
+import java.time.LocalDate;
+
+/**
+ * 購物車訂房項目 DTO（一個房型 + 日期區間 + 間數）
+ */
+public class CartLineDTO {
+    private Long roomTypeId;
+    private LocalDate checkIn;
+    private LocalDate checkOut;
+    private Integer quantity = 1;
+
+    // === Constructors ===
+    public CartLineDTO() {}
+
+    public CartLineDTO(Long roomTypeId, LocalDate checkIn, LocalDate checkOut, Integer quantity) {
+        this.roomTypeId = roomTypeId;
+        this.checkIn = checkIn;
+        this.checkOut = checkOut;
+        this.quantity = quantity;
+    }
+
+    // === Getters and Setters ===
+    public Long getRoomTypeId() {
+        return roomTypeId;
+    }
+
+    public void setRoomTypeId(Long roomTypeId) {
+        this.roomTypeId = roomTypeId;
+    }
+
+    public LocalDate getCheckIn() {
+        return checkIn;
+    }
+
+    public void setCheckIn(LocalDate checkIn) {
+        this.checkIn = checkIn;
+    }
+
+    public LocalDate getCheckOut() {
+        return checkOut;
+    }
+
+    public void setCheckOut(LocalDate checkOut) {
+        this.checkOut = checkOut;
+    }
+
+    public Integer getQuantity() {
+        return quantity;
+    }
+
+    public void setQuantity(Integer quantity) {
+        this.quantity = quantity;
+    }
+}
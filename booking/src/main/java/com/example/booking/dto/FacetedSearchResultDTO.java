@@ -0,0 +1,100 @@
+package com.example.booking.dto;
+
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 篩選面向搜尋結果 DTO：套用篩選後的住宿，以及每個面向各選項的符合筆數
+ */
+public class FacetedSearchResultDTO {
+    private List<AccommodationDTO> results;
+    private int total;
+    // 面向名稱（amenity / city / price / rating）→ 選項與筆數
+    private Map<String, List<FacetCount>> facets;
+
+    /**
+     * 單一篩選選項；count 為「套用其他面向的篩選後」再選這個選項會得到的筆數
+     */
+    public static class FacetCount {
+        private String value;
+        private String label;
+        private int count;
+        private boolean selected;
+
+        public FacetCount() {}
+
+        public FacetCount(String value, String label, int count, boolean selected) {
+            this.value = value;
+            this.label = label;
+            this.count = count;
+            this.selected = selected;
+        }
+
+        public String getValue() {
+            return value;
+        }
+
+        public void setValue(String value) {
+            this.value = value;
+        }
+
+        public String getLabel() {
+            return label;
+        }
+
+        public void setLabel(String label) {
+            this.label = label;
+        }
+
+        public int getCount() {
+            return count;
+        }
+
+        public void setCount(int count) {
+            this.count = count;
+        }
+
+        public boolean isSelected() {
+            return selected;
+        }
+
+        public void setSelected(boolean selected) {
+            this.selected = selected;
+        }
+    }
+
+    // === Constructors ===
+    public FacetedSearchResultDTO() {}
+
+    public FacetedSearchResultDTO(List<AccommodationDTO> results, Map<String, List<FacetCount>> facets) {
+        this.results = results;
+        this.total = results.size();
+        this.facets = facets;
+    }
+
+    // === Getters and Setters ===
+    public List<AccommodationDTO> getResults() {
+        return results;
+    }
+
+    public void setResults(List<AccommodationDTO> results) {
+        this.results = results;
+    }
+
+    public int getTotal() {
+        return total;
+    }
+
+    public void setTotal(int total) {
+        this.total = total;
+    }
+
+    public Map<String, List<FacetCount>> getFacets() {
+        return facets;
+    }
+
+    public void setFacets(Map<String, List<FacetCount>> facets) {
+        this.facets = facets;
+    }
+}
@@ -0,0 +1,130 @@
+package com.example.booking.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * 彈性日期搜尋結果 DTO：一間住宿在搜尋期間內最便宜的幾個可訂區間
+ */
+public class FlexibleSearchResultDTO {
+    private Long accommodationId;
+    private String name;
+    private String location;
+    private List<Window> windows;
+
+    /**
+     * 一個可訂的入住區間（該區間內最便宜的房型）
+     */
+    public static class Window {
+        private LocalDate checkIn;
+        private LocalDate checkOut;
+        private Long roomTypeId;
+        private String roomTypeName;
+        private BigDecimal totalPrice;
+        private int remaining;
+
+        public Window() {}
+
+        public Window(LocalDate checkIn, LocalDate checkOut, Long roomTypeId, String roomTypeName,
+                      BigDecimal totalPrice, int remaining) {
+            this.checkIn = checkIn;
+            this.checkOut = checkOut;
+            this.roomTypeId = roomTypeId;
+            this.roomTypeName = roomTypeName;
+            this.totalPrice = totalPrice;
+            this.remaining = remaining;
+        }
+
+        public LocalDate getCheckIn() {
+            return checkIn;
+        }
+
+        public void setCheckIn(LocalDate checkIn) {
+            this.checkIn = checkIn;
+        }
+
+        public LocalDate getCheckOut() {
+            return checkOut;
+        }
+
+        public void setCheckOut(LocalDate checkOut) {
+            this.checkOut = checkOut;
+        }
+
+        public Long getRoomTypeId() {
+            return roomTypeId;
+        }
+
+        public void setRoomTypeId(Long roomTypeId) {
+            this.roomTypeId = roomTypeId;
+        }
+
+        public String getRoomTypeName() {
+            return roomTypeName;
+        }
+
+        public void setRoomTypeName(String roomTypeName) {
+            this.roomTypeName = roomTypeName;
+        }
+
+        public BigDecimal getTotalPrice() {
+            return totalPrice;
+        }
+
+        public void setTotalPrice(BigDecimal totalPrice) {
+            this.totalPrice = totalPrice;
+        }
+
+        public int getRemaining() {
+            return remaining;
+        }
+
+        public void setRemaining(int remaining) {
+            this.remaining = remaining;
+        }
+    }
+
+    // === Constructors ===
+    public FlexibleSearchResultDTO() {}
+
+    public FlexibleSearchResultDTO(Long accommodationId, String name, String location, List<Window> windows) {
+        this.accommodationId = accommodationId;
+        this.name = name;
+        this.location = location;
+        this.windows = windows;
+    }
+
+    // === Getters and Setters ===
+    public Long getAccommodationId() {
+        return accommodationId;
+    }
+
+    public void setAccommodationId(Long accommodationId) {
+        this.accommodationId = accommodationId;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public String getLocation() {
+        return location;
+    }
+
+    public void setLocation(String location) {
+        this.location = location;
+    }
+
+    public List<Window> getWindows() {
+        return windows;
+    }
+
+    public void setWindows(List<Window> windows) {
+        this.windows = windows;
+    }
+}
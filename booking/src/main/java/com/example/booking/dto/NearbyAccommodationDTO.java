@@ -0,0 +1,34 @@
+package com.example.booking.dto;
+
+/**
+ * 附近住宿搜尋結果 DTO：住宿與距離搜尋中心的公里數
+ */
+public class NearbyAccommodationDTO {
+    private AccommodationDTO accommodation;
+    private double distanceKm;
+
+    // === Constructors ===
+    public NearbyAccommodationDTO() {}
+
+    public NearbyAccommodationDTO(AccommodationDTO accommodation, double distanceKm) {
+        this.accommodation = accommodation;
+        this.distanceKm = distanceKm;
+    }
+
+    // === Getters and Setters ===
+    public AccommodationDTO getAccommodation() {
+        return accommodation;
+    }
+
+    public void setAccommodation(AccommodationDTO accommodation) {
+        this.accommodation = accommodation;
+    }
+
+    public double getDistanceKm() {
+        return distanceKm;
+    }
+
+    public void setDistanceKm(double distanceKm) {
+        this.distanceKm = distanceKm;
+    }
+}
@@ -0,0 +1,140 @@
+package com.example.booking.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * 房型報價 DTO
+ * nightlyPrices 為 [checkIn, checkOut) 每晚單間房價，totalPrice 已乘上間數；
+ * remainingRooms 為區間內最少的剩餘房數，僅供參考，是否訂得到仍以下單結果為準。
+ */
+public class QuoteDTO {
+    private Long roomTypeId;
+    private LocalDate checkIn;
+    private LocalDate checkOut;
+    private int nights;
+    private int quantity;
+    private List<NightPrice> nightlyPrices;
+    private BigDecimal totalPrice;
+    private int remainingRooms;
+    private boolean available;
+
+    /**
+     * 單晚房價
+     */
+    public static class NightPrice {
+        private LocalDate date;
+        private BigDecimal price;
+
+        public NightPrice() {}
+
+        public NightPrice(LocalDate date, BigDecimal price) {
+            this.date = date;
+            this.price = price;
+        }
+
+        public LocalDate getDate() {
+            return date;
+        }
+
+        public void setDate(LocalDate date) {
+            this.date = date;
+        }
+
+        public BigDecimal getPrice() {
+            return price;
+        }
+
+        public void setPrice(BigDecimal price) {
+            this.price = price;
+        }
+    }
+
+    public QuoteDTO() {}
+
+    public QuoteDTO(Long roomTypeId, LocalDate checkIn, LocalDate checkOut, int quantity,
+                    List<NightPrice> nightlyPrices, BigDecimal totalPrice, int remainingRooms) {
+        this.roomTypeId = roomTypeId;
+        this.checkIn = checkIn;
+        this.checkOut = checkOut;
+        this.nights = nightlyPrices.size();
+        this.quantity = quantity;
+        this.nightlyPrices = nightlyPrices;
+        this.totalPrice = totalPrice;
+        this.remainingRooms = remainingRooms;
+        this.available = remainingRooms >= quantity;
+    }
+
+    public Long getRoomTypeId() {
+        return roomTypeId;
+    }
+
+    public void setRoomTypeId(Long roomTypeId) {
+        this.roomTypeId = roomTypeId;
+    }
+
+    public LocalDate getCheckIn() {
+        return checkIn;
+    }
+
+    public void setCheckIn(LocalDate checkIn) {
+        this.checkIn = checkIn;
+    }
+
+    public LocalDate getCheckOut() {
+        return checkOut;
+    }
+
+    public void setCheckOut(LocalDate checkOut) {
+        this.checkOut = checkOut;
+    }
+
+    public int getNights() {
+        return nights;
+    }
+
+    public void setNights(int nights) {
+        this.nights = nights;
+    }
+
+    public int getQuantity() {
+        return quantity;
+    }
+
+    public void setQuantity(int quantity) {
+        this.quantity = quantity;
+    }
+
+    public List<NightPrice> getNightlyPrices() {
+        return nightlyPrices;
+    }
+
+    public void setNightlyPrices(List<NightPrice> nightlyPrices) {
+        this.nightlyPrices = nightlyPrices;
+    }
+
+    public BigDecimal getTotalPrice() {
+        return totalPrice;
+    }
+
+    public void setTotalPrice(BigDecimal totalPrice) {
+        this.totalPrice = totalPrice;
+    }
+
+    public int getRemainingRooms() {
+        return remainingRooms;
+    }
+
+    public void setRemainingRooms(int remainingRooms) {
+        this.remainingRooms = remainingRooms;
+    }
+
+    public boolean isAvailable() {
+        return available;
+    }
+
+    public void setAvailable(boolean available) {
+        this.available = available;
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.booking.dto;
+
+import com.example.booking.model.RoomType;
+
+import java.math.BigDecimal;
+
+/**
+ * 房型列表的回應 DTO：房型欄位與所屬住宿的 ID、名稱，不含訂單。
+ * 列表由 RoomTypeRepository 以建構式查詢（SELECT new ...）一次取得
+ */
+public class RoomTypeDTO {
+    private Long id;
+    private String name;
+    private String description;
+    private BigDecimal pricePerNight;
+    private int totalRooms;
+    private Integer maxGuests;
+    private Long accommodationId;
+    private String accommodationName;
+
+    /**
+     * 由已載入的房型建立（新增 / 更新後回傳），所屬住宿須已載入
+     */
+    public static RoomTypeDTO from(RoomType rt) {
+        return new RoomTypeDTO(rt.getId(), rt.getName(), rt.getDescription(), rt.getPricePerNight(),
+                rt.getTotalRooms(), rt.getMaxGuests(),
+                rt.getAccommodation() != null ? rt.getAccommodation().getId() : null,
+                rt.getAccommodation() != null ? rt.getAccommodation().getName() : null);
+    }
+
+    // === Constructors ===
+    public RoomTypeDTO() {}
+
+    // 建構式查詢用，參數型別與實體欄位的查詢結果型別一致
+    public RoomTypeDTO(Long id, String name, String description, BigDecimal pricePerNight, Integer totalRooms,
+                       Integer maxGuests, Long accommodationId, String accommodationName) {
+        this.id = id;
+        this.name = name;
+        this.description = description;
+        this.pricePerNight = pricePerNight;
+        this.totalRooms = totalRooms != null ? totalRooms : 0;
+        this.maxGuests = maxGuests;
+        this.accommodationId = accommodationId;
+        this.accommodationName = accommodationName;
+    }
+
+    // === Getters and Setters ===
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public String getName() { return name; }
+    public void setName(String name) { this.name = name; }
+
+    public String getDescription() { return description; }
+    public void setDescription(String description) { this.description = description; }
+
+    public BigDecimal getPricePerNight() { return pricePerNight; }
+    public void setPricePerNight(BigDecimal pricePerNight) { this.pricePerNight = pricePerNight; }
+
+    public int getTotalRooms() { return totalRooms; }
+    public void setTotalRooms(int totalRooms) { this.totalRooms = totalRooms; }
+
+    public Integer getMaxGuests() { return maxGuests; }
+    public void setMaxGuests(Integer maxGuests) { this.maxGuests = maxGuests; }
+
+    public Long getAccommodationId() { return accommodationId; }
+    public void setAccommodationId(Long accommodationId) { this.accommodationId = accommodationId; }
+
+    public String getAccommodationName() { return accommodationName; }
+    public void setAccommodationName(String accommodationName) { this.accommodationName = accommodationName; }
+}
@@ -0,0 +1,57 @@
+package com.example.booking.dto;
+
+/**
+ * 搜尋框自動完成的建議項目
+ */
+public class SuggestionDTO {
+    private String text;
+    // NAME（住宿名稱）、LOCATION（地點）、ATTRACTION（附近景點）
+    private String type;
+    // 符合此建議的住宿數
+    private int accommodationCount;
+    // 只對應一間住宿時的住宿 ID，可直接開啟該住宿
+    private Long accommodationId;
+
+    // === Constructors ===
+    public SuggestionDTO() {}
+
+    public SuggestionDTO(String text, String type, int accommodationCount, Long accommodationId) {
+        this.text = text;
+        this.type = type;
+        this.accommodationCount = accommodationCount;
+        this.accommodationId = accommodationId;
+    }
+
+    // === Getters and Setters ===
+    public String getText() {
+        return text;
+    }
+
+    public void setText(String text) {
+        this.text = text;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public void setType(String type) {
+        this.type = type;
+    }
+
+    public int getAccommodationCount() {
+        return accommodationCount;
+    }
+
+    public void setAccommodationCount(int accommodationCount) {
+        this.accommodationCount = accommodationCount;
+    }
+
+    public Long getAccommodationId() {
+        return accommodationId;
+    }
+
+    public void setAccommodationId(Long accommodationId) {
+        this.accommodationId = accommodationId;
+    }
+}
@@ -0,0 +1,15 @@
+package com.example.booking.event;
+
+/**
+ * 住宿新增、修改或刪除事件
+ */
+public final class AccommodationChangedEvent {
+
+    private final Long accommodationId;
+
+    public AccommodationChangedEvent(Long accommodationId) {
+        this.accommodationId = accommodationId;
+    }
+
+    public Long getAccommodationId() { return accommodationId; }
+}
@@ -0,0 +1,28 @@
+package com.example.booking.event;
+
+/**
+ * 住宿計數變動事件（訂房、取消、評論、收藏）
+ * 由計數器在交易提交後累加，定期批次寫回 accommodations
+ */
+public final class AccommodationCounterEvent {
+
+    public enum Counter {
+        BOOKINGS,
+        REVIEWS,
+        FAVORITES
+    }
+
+    private final Long accommodationId;
+    private final Counter counter;
+    private final int delta;
+
+    public AccommodationCounterEvent(Long accommodationId, Counter counter, int delta) {
+        this.accommodationId = accommodationId;
+        this.counter = counter;
+        this.delta = delta;
+    }
+
+    public Long getAccommodationId() { return accommodationId; }
+    public Counter getCounter() { return counter; }
+    public int getDelta() { return delta; }
+}
@@ -0,0 +1,16 @@
+package com.example.booking.event;
+
+/**
+ * 住宿計數已寫回事件
+ * 累積的增量寫入 accommodations 後，每間有變動的住宿發布一次；由資料庫讀取計數的結果此後才會反映新值
+ */
+public final class AccommodationCountersFlushedEvent {
+
+    private final Long accommodationId;
+
+    public AccommodationCountersFlushedEvent(Long accommodationId) {
+        this.accommodationId = accommodationId;
+    }
+
+    public Long getAccommodationId() { return accommodationId; }
+}
@@ -0,0 +1,27 @@
+package com.example.booking.event;
+
+import java.time.LocalDate;
+
+/**
+ * 訂單佔用房間數變動事件
+ * quantityDelta 為正代表佔用（新訂單），為負代表釋放（取消訂單）
+ */
+public final class BookingChangedEvent {
+
+    private final Long roomTypeId;
+    private final LocalDate checkIn;
+    private final LocalDate checkOut;
+    private final int quantityDelta;
+
+    public BookingChangedEvent(Long roomTypeId, LocalDate checkIn, LocalDate checkOut, int quantityDelta) {
+        this.roomTypeId = roomTypeId;
+        this.checkIn = checkIn;
+        this.checkOut = checkOut;
+        this.quantityDelta = quantityDelta;
+    }
+
+    public Long getRoomTypeId() { return roomTypeId; }
+    public LocalDate getCheckIn() { return checkIn; }
+    public LocalDate getCheckOut() { return checkOut; }
+    public int getQuantityDelta() { return quantityDelta; }
+}
@@ -0,0 +1,15 @@
+package com.example.booking.event;
+
+/**
+ * 房型新增、修改或刪除事件
+ */
+public final class CatalogChangedEvent {
+
+    private final Long roomTypeId;
+
+    public CatalogChangedEvent(Long roomTypeId) {
+        this.roomTypeId = roomTypeId;
+    }
+
+    public Long getRoomTypeId() { return roomTypeId; }
+}
@@ -2,13 +2,18 @@ package com.example.booking.model;
 
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import jakarta.persistence.*;
+import org.hibernate.annotations.ColumnDefault;
 import java.math.BigDecimal;
 import java.util.List;
 
 import io.swagger.v3.oas.annotations.media.Schema;
 
 @Entity
-@Table(name = "accommodations")
+@Table(name = "accommodations", indexes = {
+    @Index(name = "idx_accommodations_location_price", columnList = "location, price_per_night"),
+    @Index(name = "idx_accommodations_price", columnList = "price_per_night"),
+    @Index(name = "idx_accommodations_rating", columnList = "rating, review_count")
+})
 @JsonIgnoreProperties({"hibernateLazyInitializer", "handler"}) // 避免 Lazy 加載報錯
 @Schema(description = "住宿資訊")
 public class Accommodation {
@@ -35,22 +40,38 @@ public class Accommodation {
     @Schema(description = "設施", example = "WiFi, 停車場, 早餐")
     private String amenities; // 例："WiFi, 停車場, 早餐"
 
-    @Column(name = "rating", precision = 3, scale = 2)
+    // 評分與評論數不允許 NULL（尚無評論為 0），評分排序可直接使用 (rating, review_count) 索引
+    @Column(name = "rating", precision = 3, scale = 2, nullable = false)
+    @ColumnDefault("0")
     @Schema(description = "評分", example = "4.5")
-    private BigDecimal rating; // 評分 0-5
+    private BigDecimal rating = BigDecimal.ZERO; // 評分 0-5
 
-    @Column(name = "review_count")
+    // 計數欄位由 AccommodationCounterService 以累加 UPDATE 寫回，JPA 不更新，避免覆蓋尚未讀到的增量
+    @Column(name = "review_count", updatable = false, nullable = false)
+    @ColumnDefault("0")
     @Schema(description = "評論數量", example = "128")
     private Integer reviewCount = 0; // 評論數量
 
-    @Column(name = "booking_count")
+    @Column(name = "booking_count", updatable = false)
     @Schema(description = "訂房次數", example = "256")
     private Integer bookingCount = 0; // 訂房次數（用於推薦排序）
 
+    @Column(name = "favorite_count", updatable = false)
+    @Schema(description = "收藏次數", example = "64")
+    private Integer favoriteCount = 0; // 收藏次數
+
     @Column(name = "distance_from_center", precision = 5, scale = 2)
     @Schema(description = "距離市中心距離（公里）", example = "2.5")
     private BigDecimal distanceFromCenter; // 距離市中心（公里）
 
+    @Column(name = "latitude", precision = 9, scale = 6)
+    @Schema(description = "緯度", example = "25.033600")
+    private BigDecimal latitude;
+
+    @Column(name = "longitude", precision = 9, scale = 6)
+    @Schema(description = "經度", example = "121.564800")
+    private BigDecimal longitude;
+
     @Column(name = "image_url", length = 1000)
     @Schema(description = "住宿主圖片URL", example = "https://example.com/hotel1.jpg")
     private String imageUrl; // 主圖片
@@ -113,17 +134,26 @@ public class Accommodation {
     public void setAmenities(String amenities) { this.amenities = amenities; }
 
     public BigDecimal getRating() { return rating; }
-    public void setRating(BigDecimal rating) { this.rating = rating; }
+    public void setRating(BigDecimal rating) { this.rating = rating != null ? rating : BigDecimal.ZERO; }
 
     public Integer getReviewCount() { return reviewCount; }
-    public void setReviewCount(Integer reviewCount) { this.reviewCount = reviewCount; }
+    public void setReviewCount(Integer reviewCount) { this.reviewCount = reviewCount != null ? reviewCount : 0; }
 
     public Integer getBookingCount() { return bookingCount; }
     public void setBookingCount(Integer bookingCount) { this.bookingCount = bookingCount; }
 
+    public Integer getFavoriteCount() { return favoriteCount; }
+    public void setFavoriteCount(Integer favoriteCount) { this.favoriteCount = favoriteCount; }
+
     public BigDecimal getDistanceFromCenter() { return distanceFromCenter; }
     public void setDistanceFromCenter(BigDecimal distanceFromCenter) { this.distanceFromCenter = distanceFromCenter; }
 
+    public BigDecimal getLatitude() { return latitude; }
+    public void setLatitude(BigDecimal latitude) { this.latitude = latitude; }
+
+    public BigDecimal getLongitude() { return longitude; }
+    public void setLongitude(BigDecimal longitude) { this.longitude = longitude; }
+
     public String getImageUrl() { return imageUrl; }
     public void setImageUrl(String imageUrl) { this.imageUrl = imageUrl; }
 
@@ -9,7 +9,10 @@ import java.time.LocalDateTime;
 import io.swagger.v3.oas.annotations.media.Schema;
 
 @Entity
-@Table(name = "bookings")
+@Table(name = "bookings", indexes = {
+        // 可用性查詢依房型與日期區間掃描重疊訂單
+        @Index(name = "idx_bookings_room_type_dates", columnList = "room_type_id, check_in, check_out")
+})
 @Schema(description = "訂單資訊")
 public class Booking {
 
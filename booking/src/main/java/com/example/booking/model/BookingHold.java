@@ -0,0 +1,94 @@
+package com.example.booking.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * 訂房暫時保留
+ * 使用者開啟訂房視窗時先扣住每晚庫存，逾時未轉成訂單即自動釋放
+ */
+@Entity
+@Table(name = "booking_holds")
+public class BookingHold {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "room_type_id", nullable = false)
+    private Long roomTypeId;
+
+    @Column(name = "username", nullable = false)
+    private String username;
+
+    @Column(name = "check_in", nullable = false)
+    private LocalDate checkIn;
+
+    @Column(name = "check_out", nullable = false)
+    private LocalDate checkOut;
+
+    @Column(name = "quantity", nullable = false)
+    private int quantity;
+
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+
+    // === Constructors ===
+    public BookingHold() {}
+
+    public BookingHold(Long roomTypeId, String username, LocalDate checkIn, LocalDate checkOut,
+                       int quantity, LocalDateTime expiresAt) {
+        this.roomTypeId = roomTypeId;
+        this.username = username;
+        this.checkIn = checkIn;
+        this.checkOut = checkOut;
+        this.quantity = quantity;
+        this.expiresAt = expiresAt;
+    }
+
+    /**
+     * 是否與要下單的房型、日期與數量完全相同
+     */
+    public boolean matches(Long roomTypeId, LocalDate checkIn, LocalDate checkOut, int quantity) {
+        return this.roomTypeId.equals(roomTypeId)
+                && this.checkIn.equals(checkIn)
+                && this.checkOut.equals(checkOut)
+                && this.quantity == quantity;
+    }
+
+    // === Getters / Setters ===
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public Long getRoomTypeId() { return roomTypeId; }
+    public void setRoomTypeId(Long roomTypeId) { this.roomTypeId = roomTypeId; }
+
+    public String getUsername() { return username; }
+    public void setUsername(String username) { this.username = username; }
+
+    public LocalDate getCheckIn() { return checkIn; }
+    public void setCheckIn(LocalDate checkIn) { this.checkIn = checkIn; }
+
+    public LocalDate getCheckOut() { return checkOut; }
+    public void setCheckOut(LocalDate checkOut) { this.checkOut = checkOut; }
+
+    public int getQuantity() { return quantity; }
+    public void setQuantity(int quantity) { this.quantity = quantity; }
+
+    public LocalDateTime getExpiresAt() { return expiresAt; }
+    public void setExpiresAt(LocalDateTime expiresAt) { this.expiresAt = expiresAt; }
+
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+
+    @PrePersist
+    protected void onCreate() {
+        if (createdAt == null) {
+            createdAt = LocalDateTime.now();
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.example.booking.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * 冪等鍵紀錄
+ * 同一使用者的同一個 Idempotency-Key 只會執行一次，重送時直接回傳保存的回應
+ */
+@Entity
+@Table(name = "idempotency_keys",
+        uniqueConstraints = @UniqueConstraint(name = "uk_idempotency_user_key", columnNames = {"username", "idem_key"}),
+        indexes = @Index(name = "idx_idempotency_created_at", columnList = "created_at"))
+public class IdempotencyRecord {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "username", nullable = false, length = 50)
+    private String username;
+
+    @Column(name = "idem_key", nullable = false, length = 100)
+    private String idemKey;
+
+    // 請求內容摘要（SHA-256），同一個鍵用在不同請求時拒絕
+    @Column(name = "request_hash", nullable = false, length = 64)
+    private String requestHash;
+
+    // 尚未完成時為 null
+    @Column(name = "status_code")
+    private Integer statusCode;
+
+    @Column(name = "response_body", length = 65535)
+    private String responseBody;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    // === Constructors ===
+    public IdempotencyRecord() {}
+
+    public IdempotencyRecord(String username, String idemKey, String requestHash) {
+        this.username = username;
+        this.idemKey = idemKey;
+        this.requestHash = requestHash;
+    }
+
+    public boolean isCompleted() {
+        return statusCode != null;
+    }
+
+    // === Getters / Setters ===
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public String getUsername() { return username; }
+    public void setUsername(String username) { this.username = username; }
+
+    public String getIdemKey() { return idemKey; }
+    public void setIdemKey(String idemKey) { this.idemKey = idemKey; }
+
+    public String getRequestHash() { return requestHash; }
+    public void setRequestHash(String requestHash) { this.requestHash = requestHash; }
+
+    public Integer getStatusCode() { return statusCode; }
+    public void setStatusCode(Integer statusCode) { this.statusCode = statusCode; }
+
+    public String getResponseBody() { return responseBody; }
+    public void setResponseBody(String responseBody) { this.responseBody = responseBody; }
+
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+
+    @PrePersist
+    protected void onCreate() {
+        if (createdAt == null) {
+            createdAt = LocalDateTime.now();
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.example.booking.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDate;
+
+/**
+ * 房型房價規則（金額以「分」為單位的 long 儲存）
+ * 優先順序：單日覆寫 OVERRIDE > 季節 SEASON > 星期 WEEKDAY > 房型基本房價；
+ * 同一類規則重疊時以後建立者為準
+ */
+@Entity
+@Table(name = "room_rates", indexes = {
+    @Index(name = "idx_room_rates_room_type", columnList = "room_type_id")
+})
+public class RoomRate {
+
+    public enum RuleType {
+        /** 每週固定星期幾（例如週五、週六的假日價） */
+        WEEKDAY,
+        /** 日期區間 [startDate, endDate)，可再限定星期幾 */
+        SEASON,
+        /** 指定日期區間的覆寫價，優先於其他規則 */
+        OVERRIDE
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "room_type_id", nullable = false)
+    private Long roomTypeId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "rule_type", nullable = false, length = 16)
+    private RuleType ruleType;
+
+    // 1 = 星期一 … 7 = 星期日（ISO），null 代表每天
+    @Column(name = "day_of_week")
+    private Integer dayOfWeek;
+
+    @Column(name = "start_date")
+    private LocalDate startDate;
+
+    // 不含當晚
+    @Column(name = "end_date")
+    private LocalDate endDate;
+
+    @Column(name = "price_cents", nullable = false)
+    private long priceCents;
+
+    // === Constructors ===
+    public RoomRate() {}
+
+    public RoomRate(Long roomTypeId, RuleType ruleType, Integer dayOfWeek,
+                    LocalDate startDate, LocalDate endDate, long priceCents) {
+        this.roomTypeId = roomTypeId;
+        this.ruleType = ruleType;
+        this.dayOfWeek = dayOfWeek;
+        this.startDate = startDate;
+        this.endDate = endDate;
+        this.priceCents = priceCents;
+    }
+
+    /**
+     * 此規則是否適用於指定夜晚
+     */
+    public boolean appliesTo(LocalDate night) {
+        if (dayOfWeek != null && night.getDayOfWeek().getValue() != dayOfWeek) {
+            return false;
+        }
+        if (startDate != null && night.isBefore(startDate)) {
+            return false;
+        }
+        return endDate == null || night.isBefore(endDate);
+    }
+
+    // === Getters / Setters ===
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public Long getRoomTypeId() { return roomTypeId; }
+    public void setRoomTypeId(Long roomTypeId) { this.roomTypeId = roomTypeId; }
+
+    public RuleType getRuleType() { return ruleType; }
+    public void setRuleType(RuleType ruleType) { this.ruleType = ruleType; }
+
+    public Integer getDayOfWeek() { return dayOfWeek; }
+    public void setDayOfWeek(Integer dayOfWeek) { this.dayOfWeek = dayOfWeek; }
+
+    public LocalDate getStartDate() { return startDate; }
+    public void setStartDate(LocalDate startDate) { this.startDate = startDate; }
+
+    public LocalDate getEndDate() { return endDate; }
+    public void setEndDate(LocalDate endDate) { this.endDate = endDate; }
+
+    public long getPriceCents() { return priceCents; }
+    public void setPriceCents(long priceCents) { this.priceCents = priceCents; }
+}
@@ -6,10 +6,15 @@ import java.math.BigDecimal;
 import java.util.List;
 
 @Entity
-@Table(name = "room_types")
+@Table(name = "room_types", indexes = {
+    @Index(name = "idx_room_types_accommodation_guests", columnList = "accommodation_id, max_guests, total_rooms")
+})
 @JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
 public class RoomType {
 
+    // 未設定可住人數的房型（既有資料）視為雙人房
+    public static final int DEFAULT_MAX_GUESTS = 2;
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
@@ -23,6 +28,10 @@ public class RoomType {
     @Column(name = "total_rooms")
     private int totalRooms;
 
+    // 每間房可入住人數，null 時以 DEFAULT_MAX_GUESTS 計
+    @Column(name = "max_guests")
+    private Integer maxGuests;
+
     // 房型所屬住宿
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "accommodation_id")
@@ -61,6 +70,9 @@ public class RoomType {
     public int getTotalRooms() { return totalRooms; }
     public void setTotalRooms(int totalRooms) { this.totalRooms = totalRooms; }
 
+    public Integer getMaxGuests() { return maxGuests; }
+    public void setMaxGuests(Integer maxGuests) { this.maxGuests = maxGuests; }
+
     public Accommodation getAccommodation() { return accommodation; }
     public void setAccommodation(Accommodation accommodation) { this.accommodation = accommodation; }
 
@@ -0,0 +1,65 @@
+package com.example.booking.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDate;
+
+/**
+ * 房型每晚庫存帳本
+ * 每個 (房型, 夜晚) 一列，記錄該晚已訂與總房數
+ */
+@Entity
+@Table(name = "room_type_inventory", uniqueConstraints = {
+    @UniqueConstraint(columnNames = {"room_type_id", "night"})
+})
+public class RoomTypeInventory {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "room_type_id", nullable = false)
+    private Long roomTypeId;
+
+    @Column(name = "night", nullable = false)
+    private LocalDate night;
+
+    @Column(name = "booked_rooms", nullable = false)
+    private int bookedRooms;
+
+    @Column(name = "total_rooms", nullable = false)
+    private int totalRooms;
+
+    // 樂觀鎖版本號（OPTIMISTIC 策略提交時比對），批次 UPDATE 也需手動遞增
+    @Version
+    @Column(name = "version", nullable = false)
+    private long version;
+
+    // === Constructors ===
+    public RoomTypeInventory() {}
+
+    public RoomTypeInventory(Long roomTypeId, LocalDate night, int bookedRooms, int totalRooms) {
+        this.roomTypeId = roomTypeId;
+        this.night = night;
+        this.bookedRooms = bookedRooms;
+        this.totalRooms = totalRooms;
+    }
+
+    // === Getters / Setters ===
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public Long getRoomTypeId() { return roomTypeId; }
+    public void setRoomTypeId(Long roomTypeId) { this.roomTypeId = roomTypeId; }
+
+    public LocalDate getNight() { return night; }
+    public void setNight(LocalDate night) { this.night = night; }
+
+    public int getBookedRooms() { return bookedRooms; }
+    public void setBookedRooms(int bookedRooms) { this.bookedRooms = bookedRooms; }
+
+    public int getTotalRooms() { return totalRooms; }
+    public void setTotalRooms(int totalRooms) { this.totalRooms = totalRooms; }
+
+    public long getVersion() { return version; }
+    public void setVersion(long version) { this.version = version; }
+}
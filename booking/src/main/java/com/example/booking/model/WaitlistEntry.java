@@ -0,0 +1,104 @@
+package com.example.booking.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * 候補登記
+ * 訂房因庫存不足失敗時可登記候補，有房間釋出時依登記順序（id 遞增）自動轉為訂單
+ */
+@Entity
+@Table(name = "waitlist_entries", indexes = {
+    @Index(name = "idx_waitlist_status_room_type", columnList = "status, room_type_id"),
+    @Index(name = "idx_waitlist_username", columnList = "username")
+})
+public class WaitlistEntry {
+
+    // 狀態：WAITING 等待中、PROMOTED 已轉為訂單、CANCELLED 使用者取消、EXPIRED 入住日已過或房型已刪除
+    public static final String WAITING = "WAITING";
+    public static final String PROMOTED = "PROMOTED";
+    public static final String CANCELLED = "CANCELLED";
+    public static final String EXPIRED = "EXPIRED";
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "room_type_id", nullable = false)
+    private Long roomTypeId;
+
+    @Column(name = "username", nullable = false)
+    private String username;
+
+    @Column(name = "check_in", nullable = false)
+    private LocalDate checkIn;
+
+    @Column(name = "check_out", nullable = false)
+    private LocalDate checkOut;
+
+    @Column(name = "quantity", nullable = false)
+    private int quantity;
+
+    @Column(name = "status", nullable = false, length = 16)
+    private String status = WAITING;
+
+    // 轉為訂單後的訂單 ID
+    @Column(name = "booking_id")
+    private Long bookingId;
+
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+
+    @Column(name = "promoted_at")
+    private LocalDateTime promotedAt;
+
+    // === Constructors ===
+    public WaitlistEntry() {}
+
+    public WaitlistEntry(Long roomTypeId, String username, LocalDate checkIn, LocalDate checkOut, int quantity) {
+        this.roomTypeId = roomTypeId;
+        this.username = username;
+        this.checkIn = checkIn;
+        this.checkOut = checkOut;
+        this.quantity = quantity;
+    }
+
+    // === Getters / Setters ===
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public Long getRoomTypeId() { return roomTypeId; }
+    public void setRoomTypeId(Long roomTypeId) { this.roomTypeId = roomTypeId; }
+
+    public String getUsername() { return username; }
+    public void setUsername(String username) { this.username = username; }
+
+    public LocalDate getCheckIn() { return checkIn; }
+    public void setCheckIn(LocalDate checkIn) { this.checkIn = checkIn; }
+
+    public LocalDate getCheckOut() { return checkOut; }
+    public void setCheckOut(LocalDate checkOut) { this.checkOut = checkOut; }
+
+    public int getQuantity() { return quantity; }
+    public void setQuantity(int quantity) { this.quantity = quantity; }
+
+    public String getStatus() { return status; }
+    public void setStatus(String status) { this.status = status; }
+
+    public Long getBookingId() { return bookingId; }
+    public void setBookingId(Long bookingId) { this.bookingId = bookingId; }
+
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+
+    public LocalDateTime getPromotedAt() { return promotedAt; }
+    public void setPromotedAt(LocalDateTime promotedAt) { this.promotedAt = promotedAt; }
+
+    @PrePersist
+    protected void onCreate() {
+        if (createdAt == null) {
+            createdAt = LocalDateTime.now();
+        }
+    }
+}
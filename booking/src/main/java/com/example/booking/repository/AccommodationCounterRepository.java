@@ -0,0 +1,45 @@
+package com.example.booking.repository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.stereotype.Repository;
+
+import java.util.Map;
+
+/**
+ * 住宿計數批次寫回
+ * 只送出累加量（欄位 = 欄位 + 增量），不讀取也不覆蓋其他欄位
+ */
+@Repository
+public class AccommodationCounterRepository {
+
+    private static final String UPDATE_SQL = """
+            UPDATE accommodations
+            SET booking_count = COALESCE(booking_count, 0) + :bookings,
+                review_count = COALESCE(review_count, 0) + :reviews,
+                favorite_count = COALESCE(favorite_count, 0) + :favorites
+            WHERE id = :id
+            """;
+
+    @Autowired
+    private NamedParameterJdbcTemplate jdbcTemplate;
+
+    /**
+     * 以單一 JDBC batch 累加多間住宿的計數；deltas 的值為 [訂房, 評論, 收藏] 增量
+     */
+    public void addAll(Map<Long, long[]> deltas) {
+        SqlParameterSource[] params = new SqlParameterSource[deltas.size()];
+        int i = 0;
+        for (Map.Entry<Long, long[]> entry : deltas.entrySet()) {
+            long[] d = entry.getValue();
+            params[i++] = new MapSqlParameterSource()
+                    .addValue("id", entry.getKey())
+                    .addValue("bookings", d[0])
+                    .addValue("reviews", d[1])
+                    .addValue("favorites", d[2]);
+        }
+        jdbcTemplate.batchUpdate(UPDATE_SQL, params);
+    }
+}
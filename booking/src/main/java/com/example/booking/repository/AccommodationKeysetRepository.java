@@ -0,0 +1,284 @@
+package com.example.booking.repository;
+
+import com.example.booking.model.Accommodation;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Order;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * 住宿游標分頁查詢
+ * 依排序鍵與 ID 組成 (k1, k2, ..., id) 的全序，下一頁條件為「排在上一頁最後一筆之後」，
+ * 查詢只取 limit 筆，不用 OFFSET，也不載入整張表
+ */
+@Repository
+public class AccommodationKeysetRepository {
+
+    /**
+     * 排序方式，對應 BookingService.sortAccommodations 的 sortBy 參數；ID 永遠是最後的排序鍵
+     */
+    public enum Sort {
+        DEFAULT(),
+        PRICE_ASC(new SortKey("a.pricePerNight", (a, cb) -> a.get("pricePerNight"),
+                false, Accommodation::getPricePerNight, BigDecimal::new)),
+        PRICE_DESC(new SortKey("a.pricePerNight", (a, cb) -> a.get("pricePerNight"),
+                true, Accommodation::getPricePerNight, BigDecimal::new)),
+        // rating 與 review_count 為 NOT NULL，直接以欄位排序才能走 idx_accommodations_rating
+        RATING(new SortKey("a.rating", (a, cb) -> a.get("rating"),
+                       true, a -> orZero(a.getRating()), BigDecimal::new),
+               new SortKey("a.reviewCount", (a, cb) -> a.get("reviewCount"),
+                       true, a -> orZero(a.getReviewCount()), Integer::valueOf)),
+        // 與記憶體排序相同的綜合分數（訂房次數 * 0.7 + 評分 * 評論數 * 0.3），整體乘以 10 以維持精確小數
+        POPULARITY(new SortKey(
+                "COALESCE(a.bookingCount, 0) * 7 + COALESCE(a.rating, 0) * COALESCE(a.reviewCount, 0) * 3",
+                Sort::popularityExpression, true, Sort::popularityScore, BigDecimal::new)),
+        DISTANCE(new SortKey("COALESCE(a.distanceFromCenter, 999)",
+                (a, cb) -> cb.coalesce(a.<BigDecimal>get("distanceFromCenter"), BigDecimal.valueOf(999)), false,
+                a -> a.getDistanceFromCenter() != null ? a.getDistanceFromCenter() : BigDecimal.valueOf(999),
+                BigDecimal::new)),
+        NAME_ASC(new SortKey("LOWER(COALESCE(a.name, ''))", Sort::lowerNameExpression,
+                false, Sort::lowerName, raw -> raw)),
+        NAME_DESC(new SortKey("LOWER(COALESCE(a.name, ''))", Sort::lowerNameExpression,
+                true, Sort::lowerName, raw -> raw));
+
+        private final SortKey[] keys;
+
+        Sort(SortKey... keys) {
+            this.keys = keys;
+        }
+
+        public static Sort of(String sortBy) {
+            if (sortBy == null || sortBy.isBlank()) {
+                return DEFAULT;
+            }
+            return switch (sortBy.toLowerCase()) {
+                case "price_asc", "price_low" -> PRICE_ASC;
+                case "price_desc", "price_high" -> PRICE_DESC;
+                case "rating", "rating_desc" -> RATING;
+                case "popularity", "recommended" -> POPULARITY;
+                case "distance", "distance_asc" -> DISTANCE;
+                case "name_asc", "name_a_z" -> NAME_ASC;
+                case "name_desc", "name_z_a" -> NAME_DESC;
+                default -> DEFAULT;
+            };
+        }
+
+        /** 排序鍵數量（不含 ID） */
+        public int keyCount() {
+            return keys.length;
+        }
+
+        /** 住宿在此排序下的排序鍵值，最後一個為 ID，用於產生游標 */
+        public Object[] keysOf(Accommodation acc) {
+            Object[] values = new Object[keys.length + 1];
+            for (int i = 0; i < keys.length; i++) {
+                values[i] = keys[i].extractor.apply(acc);
+            }
+            values[keys.length] = acc.getId();
+            return values;
+        }
+
+        /** 將游標中的字串還原為排序鍵值，最後一個為 ID */
+        public Object[] parse(List<String> raw) {
+            Object[] values = new Object[keys.length + 1];
+            try {
+                for (int i = 0; i < keys.length; i++) {
+                    values[i] = keys[i].parser.apply(raw.get(i));
+                }
+                values[keys.length] = Long.valueOf(raw.get(keys.length));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("分頁游標無效");
+            }
+            return values;
+        }
+
+        private static BigDecimal popularityScore(Accommodation a) {
+            BigDecimal bookings = BigDecimal.valueOf(orZero(a.getBookingCount()) * 7L);
+            return bookings.add(orZero(a.getRating()).multiply(BigDecimal.valueOf(orZero(a.getReviewCount()) * 3L)));
+        }
+
+        private static String lowerName(Accommodation a) {
+            return a.getName() != null ? a.getName().toLowerCase() : "";
+        }
+
+        private static Expression<?> popularityExpression(Root<Accommodation> a, CriteriaBuilder cb) {
+            Expression<Integer> bookings = cb.prod(cb.coalesce(a.<Integer>get("bookingCount"), 0), 7);
+            Expression<BigDecimal> rating = cb.coalesce(a.<BigDecimal>get("rating"), BigDecimal.ZERO);
+            Expression<Integer> reviews = cb.prod(cb.coalesce(a.<Integer>get("reviewCount"), 0), 3);
+            return cb.sum(bookings, cb.prod(rating, reviews));
+        }
+
+        private static Expression<?> lowerNameExpression(Root<Accommodation> a, CriteriaBuilder cb) {
+            return cb.lower(cb.coalesce(a.<String>get("name"), ""));
+        }
+    }
+
+    private static final class SortKey {
+        final String expression;
+        // 同一個排序鍵的 Criteria 寫法，供搜尋條件查詢使用
+        final BiFunction<Root<Accommodation>, CriteriaBuilder, Expression<?>> criteria;
+        final boolean descending;
+        final Function<Accommodation, Object> extractor;
+        final Function<String, Object> parser;
+
+        SortKey(String expression, BiFunction<Root<Accommodation>, CriteriaBuilder, Expression<?>> criteria,
+                boolean descending, Function<Accommodation, Object> extractor, Function<String, Object> parser) {
+            this.expression = expression;
+            this.criteria = criteria;
+            this.descending = descending;
+            this.extractor = extractor;
+            this.parser = parser;
+        }
+    }
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * 取一頁住宿
+     * @param sort 排序方式
+     * @param after 上一頁最後一筆的排序鍵值（Sort.parse 的結果），第一頁為 null
+     * @param ids 限定的住宿 ID（例如日期可用或關鍵字命中的住宿），null 表示不限定
+     * @param nameOrLocation 名稱或地點需包含的關鍵字，null 表示不篩選
+     * @param maxResults 最多筆數（呼叫端通常多取一筆判斷是否有下一頁）
+     */
+    public List<Accommodation> findPage(Sort sort, Object[] after, Collection<Long> ids,
+                                        String nameOrLocation, int maxResults) {
+        if (ids != null && ids.isEmpty()) {
+            return List.of();
+        }
+        SortKey[] keys = sort.keys;
+
+        StringBuilder jpql = new StringBuilder("SELECT a FROM Accommodation a WHERE 1 = 1");
+        if (ids != null) {
+            jpql.append(" AND a.id IN :ids");
+        }
+        if (nameOrLocation != null) {
+            jpql.append(" AND (LOWER(a.name) LIKE :keyword OR LOWER(a.location) LIKE :keyword)");
+        }
+        if (after != null) {
+            jpql.append(" AND ").append(afterCondition(keys, 0));
+        }
+        jpql.append(" ORDER BY ");
+        for (SortKey key : keys) {
+            jpql.append(key.expression).append(key.descending ? " DESC, " : " ASC, ");
+        }
+        jpql.append("a.id ASC");
+
+        TypedQuery<Accommodation> query = entityManager.createQuery(jpql.toString(), Accommodation.class);
+        if (ids != null) {
+            query.setParameter("ids", ids);
+        }
+        if (nameOrLocation != null) {
+            query.setParameter("keyword", "%" + nameOrLocation.trim().toLowerCase() + "%");
+        }
+        if (after != null) {
+            for (int i = 0; i < after.length; i++) {
+                query.setParameter("k" + i, after[i]);
+            }
+        }
+        return query.setMaxResults(maxResults).getResultList();
+    }
+
+    /**
+     * 依搜尋條件取一頁住宿：條件、排序與筆數限制組成單一 SQL，篩選不在記憶體中進行
+     * @param sort 排序方式
+     * @param after 上一頁最後一筆的排序鍵值（Sort.parse 的結果），第一頁為 null
+     * @param spec 搜尋條件（AccommodationSpecifications 組合而成），null 表示不篩選
+     * @param maxResults 最多筆數（呼叫端通常多取一筆判斷是否有下一頁）
+     */
+    public List<Accommodation> findPage(Sort sort, Object[] after, Specification<Accommodation> spec,
+                                        int maxResults) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Accommodation> query = cb.createQuery(Accommodation.class);
+        Root<Accommodation> a = query.from(Accommodation.class);
+
+        List<Predicate> where = new ArrayList<>();
+        Predicate filter = spec != null ? spec.toPredicate(a, query, cb) : null;
+        if (filter != null) {
+            where.add(filter);
+        }
+        SortKey[] keys = sort.keys;
+        List<Expression<?>> expressions = new ArrayList<>();
+        for (SortKey key : keys) {
+            expressions.add(key.criteria.apply(a, cb));
+        }
+        expressions.add(a.get("id"));
+        if (after != null) {
+            where.add(afterPredicate(cb, keys, expressions, after, 0));
+        }
+
+        List<Order> orders = new ArrayList<>();
+        for (int i = 0; i < keys.length; i++) {
+            orders.add(keys[i].descending ? cb.desc(expressions.get(i)) : cb.asc(expressions.get(i)));
+        }
+        orders.add(cb.asc(a.get("id")));
+
+        query.select(a).where(where.toArray(new Predicate[0])).orderBy(orders);
+        return entityManager.createQuery(query).setMaxResults(maxResults).getResultList();
+    }
+
+    // afterCondition 的 Criteria 版本
+    @SuppressWarnings("unchecked")
+    private static Predicate afterPredicate(CriteriaBuilder cb, SortKey[] keys, List<Expression<?>> expressions,
+                                            Object[] after, int i) {
+        if (i == keys.length) {
+            return cb.gt((Expression<Long>) expressions.get(i), (Long) after[i]);
+        }
+        Predicate beyond = keys[i].descending
+                ? lessThan(cb, expressions.get(i), after[i])
+                : greaterThan(cb, expressions.get(i), after[i]);
+        return cb.or(beyond, cb.and(cb.equal(expressions.get(i), after[i]),
+                afterPredicate(cb, keys, expressions, after, i + 1)));
+    }
+
+    // 排序鍵不是數字就是字串（名稱）
+    @SuppressWarnings("unchecked")
+    private static Predicate greaterThan(CriteriaBuilder cb, Expression<?> expression, Object value) {
+        if (value instanceof Number number) {
+            return cb.gt((Expression<? extends Number>) expression, number);
+        }
+        return cb.greaterThan((Expression<String>) expression, (String) value);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Predicate lessThan(CriteriaBuilder cb, Expression<?> expression, Object value) {
+        if (value instanceof Number number) {
+            return cb.lt((Expression<? extends Number>) expression, number);
+        }
+        return cb.lessThan((Expression<String>) expression, (String) value);
+    }
+
+    // (k0 > :k0) OR (k0 = :k0 AND ((k1 > :k1) OR (k1 = :k1 AND ... a.id > :kn)))
+    private static String afterCondition(SortKey[] keys, int i) {
+        if (i == keys.length) {
+            return "a.id > :k" + i;
+        }
+        SortKey key = keys[i];
+        String op = key.descending ? " < " : " > ";
+        return "(" + key.expression + op + ":k" + i
+                + " OR (" + key.expression + " = :k" + i + " AND " + afterCondition(keys, i + 1) + "))";
+    }
+
+    private static BigDecimal orZero(BigDecimal value) {
+        return value != null ? value : BigDecimal.ZERO;
+    }
+
+    private static int orZero(Integer value) {
+        return value != null ? value : 0;
+    }
+}
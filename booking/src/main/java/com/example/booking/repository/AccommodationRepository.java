@@ -15,17 +15,22 @@ public interface AccommodationRepository extends JpaRepository<Accommodation, Lo
     // 模糊搜尋地點（忽略大小寫）
     List<Accommodation> findByLocationContainingIgnoreCase(String location);
 
-    // 查詢在指定日期區間內可訂的住宿
-    // ❗ 已更新為：透過房型 (RoomType) 與 Booking 的關聯進行過濾
+    // 查詢在指定日期區間內可訂的住宿：至少一個房型在每一晚都還有空房
+    // 依每晚庫存帳本（含保留）按房型取區間內最少的剩餘房數，任一晚為 0 即視為售完；
+    // 沒有帳本列的夜晚沒有訂單佔用，呼叫端需先以 InventoryService.ensureNightsForBookings 回填舊訂單
     @Query("""
         SELECT DISTINCT a
         FROM Accommodation a
         JOIN a.roomTypes rt
-        WHERE a.id NOT IN (
-            SELECT DISTINCT rt.accommodation.id
-            FROM Booking b
-            WHERE (b.checkIn < :checkOut AND b.checkOut > :checkIn)
-        )
+        WHERE rt.totalRooms > 0
+          AND rt.id NOT IN (
+            SELECT i.roomTypeId
+            FROM RoomTypeInventory i
+            WHERE i.night >= :checkIn
+              AND i.night < :checkOut
+            GROUP BY i.roomTypeId
+            HAVING MIN(i.totalRooms - i.bookedRooms) <= 0
+          )
         """)
     List<Accommodation> findAvailableAccommodations(
             @Param("checkIn") LocalDate checkIn,
@@ -34,4 +39,39 @@ public interface AccommodationRepository extends JpaRepository<Accommodation, Lo
 
     // 查詢指定用戶名擁有的所有住宿
     List<Accommodation> findByOwnerUsername(String username);
+
+    // 關鍵字索引用：只取住宿 ID 與需要斷詞的欄位，不載入實體
+    @Query("SELECT a.id, a.name, a.location, a.address, a.nearbyAttractions, a.amenities FROM Accommodation a")
+    List<Object[]> findSearchFields();
+
+    @Query("SELECT a.id, a.name, a.location, a.address, a.nearbyAttractions, a.amenities FROM Accommodation a WHERE a.id = :id")
+    List<Object[]> findSearchFieldsById(@Param("id") Long id);
+
+    // 篩選面向索引用：住宿 ID、地點、設施、每晚價格與評分
+    @Query("SELECT a.id, a.location, a.amenities, a.pricePerNight, a.rating FROM Accommodation a")
+    List<Object[]> findFacetFields();
+
+    @Query("SELECT a.id, a.location, a.amenities, a.pricePerNight, a.rating FROM Accommodation a WHERE a.id = :id")
+    List<Object[]> findFacetFieldsById(@Param("id") Long id);
+
+    // 排序名次索引用：住宿 ID、名稱、每晚價格、評分、評論數、訂房次數與距離
+    @Query("SELECT a.id, a.name, a.pricePerNight, a.rating, a.reviewCount, a.bookingCount, a.distanceFromCenter FROM Accommodation a")
+    List<Object[]> findRankFields();
+
+    @Query("SELECT a.id, a.name, a.pricePerNight, a.rating, a.reviewCount, a.bookingCount, a.distanceFromCenter FROM Accommodation a WHERE a.id = :id")
+    List<Object[]> findRankFieldsById(@Param("id") Long id);
+
+    // 地理索引用：有座標的住宿 ID、緯度與經度
+    @Query("SELECT a.id, a.latitude, a.longitude FROM Accommodation a WHERE a.latitude IS NOT NULL AND a.longitude IS NOT NULL")
+    List<Object[]> findGeoFields();
+
+    @Query("SELECT a.id, a.latitude, a.longitude FROM Accommodation a WHERE a.id = :id AND a.latitude IS NOT NULL AND a.longitude IS NOT NULL")
+    List<Object[]> findGeoFieldsById(@Param("id") Long id);
+
+    // 自動完成索引用：住宿 ID、名稱、地點、附近景點，以及計算熱門度的訂房次數、評分與評論數
+    @Query("SELECT a.id, a.name, a.location, a.nearbyAttractions, a.bookingCount, a.rating, a.reviewCount FROM Accommodation a")
+    List<Object[]> findSuggestFields();
+
+    @Query("SELECT a.id, a.name, a.location, a.nearbyAttractions, a.bookingCount, a.rating, a.reviewCount FROM Accommodation a WHERE a.id = :id")
+    List<Object[]> findSuggestFieldsById(@Param("id") Long id);
 }
@@ -0,0 +1,183 @@
+package com.example.booking.repository;
+
+import com.example.booking.model.Accommodation;
+import com.example.booking.model.RoomType;
+import com.example.booking.model.RoomTypeInventory;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Subquery;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * 住宿搜尋條件
+ * 每個條件都是一個 Specification，可用 and() 自由組合，最後與排序、筆數一起交給
+ * AccommodationKeysetRepository 產生單一 SQL；參數為 null 或空白的條件不加入查詢
+ */
+public final class AccommodationSpecifications {
+
+    private AccommodationSpecifications() {}
+
+    /** 限定住宿 ID */
+    public static Specification<Accommodation> idIn(Collection<Long> ids) {
+        if (ids == null) {
+            return null;
+        }
+        return (root, query, cb) -> ids.isEmpty() ? cb.disjunction() : root.get("id").in(ids);
+    }
+
+    /** 名稱或地點包含關鍵字（不分大小寫） */
+    public static Specification<Accommodation> keyword(String keyword) {
+        if (keyword == null || keyword.isBlank()) {
+            return null;
+        }
+        String pattern = containsPattern(keyword);
+        return (root, query, cb) -> cb.or(
+                cb.like(cb.lower(root.get("name")), pattern, '\\'),
+                cb.like(cb.lower(root.get("location")), pattern, '\\'));
+    }
+
+    /**
+     * 地點以任一城市開頭，台與臺視為相同；
+     * 城市寫法與篩選面向相同（例如「台北市」），只寫「台北」也可以
+     */
+    public static Specification<Accommodation> inCities(Collection<String> cities) {
+        List<String> patterns = new ArrayList<>();
+        if (cities != null) {
+            for (String city : cities) {
+                if (city == null || city.isBlank()) {
+                    continue;
+                }
+                String normalized = city.trim().replace('臺', '台');
+                patterns.add(escape(normalized) + "%");
+                patterns.add(escape(normalized.replace('台', '臺')) + "%");
+            }
+        }
+        if (patterns.isEmpty()) {
+            return null;
+        }
+        return (root, query, cb) -> {
+            Expression<String> location = root.get("location");
+            return cb.or(patterns.stream()
+                    .map(pattern -> cb.like(location, pattern, '\\'))
+                    .toArray(Predicate[]::new));
+        };
+    }
+
+    /** 每晚價格介於 [minPrice, maxPrice]，任一端可為 null */
+    public static Specification<Accommodation> priceBetween(BigDecimal minPrice, BigDecimal maxPrice) {
+        if (minPrice != null && maxPrice != null && minPrice.compareTo(maxPrice) > 0) {
+            throw new IllegalArgumentException("最低價格不可高於最高價格");
+        }
+        if (minPrice == null && maxPrice == null) {
+            return null;
+        }
+        return (root, query, cb) -> {
+            Expression<BigDecimal> price = root.get("pricePerNight");
+            if (minPrice == null) {
+                return cb.lessThanOrEqualTo(price, maxPrice);
+            }
+            if (maxPrice == null) {
+                return cb.greaterThanOrEqualTo(price, minPrice);
+            }
+            return cb.between(price, minPrice, maxPrice);
+        };
+    }
+
+    /** 評分至少 minRating，未評分的住宿不符合 */
+    public static Specification<Accommodation> minRating(BigDecimal minRating) {
+        if (minRating == null) {
+            return null;
+        }
+        return (root, query, cb) -> cb.greaterThanOrEqualTo(root.get("rating"), minRating);
+    }
+
+    /** 設施欄位須包含每一項設施（不分大小寫） */
+    public static Specification<Accommodation> hasAmenities(Collection<String> amenities) {
+        List<String> patterns = new ArrayList<>();
+        if (amenities != null) {
+            for (String amenity : amenities) {
+                if (amenity != null && !amenity.isBlank()) {
+                    patterns.add(containsPattern(amenity));
+                }
+            }
+        }
+        if (patterns.isEmpty()) {
+            return null;
+        }
+        return (root, query, cb) -> {
+            Expression<String> column = cb.lower(root.get("amenities"));
+            return cb.and(patterns.stream()
+                    .map(pattern -> cb.like(column, pattern, '\\'))
+                    .toArray(Predicate[]::new));
+        };
+    }
+
+    /**
+     * 至少一個房型可住 guests 人（每間房的人數），有日期時該房型在區間內每一晚都還有空房；
+     * 兩者皆未指定時不加入條件
+     */
+    public static Specification<Accommodation> availableFor(Integer guests, LocalDate checkIn, LocalDate checkOut) {
+        boolean hasDates = checkIn != null && checkOut != null;
+        if (hasDates && !checkOut.isAfter(checkIn)) {
+            throw new IllegalArgumentException("日期區間不合法");
+        }
+        if (guests != null && guests < 1) {
+            throw new IllegalArgumentException("入住人數至少 1 人");
+        }
+        if (guests == null && !hasDates) {
+            return null;
+        }
+        return (root, query, cb) -> {
+            Subquery<Long> rooms = query.subquery(Long.class);
+            Root<RoomType> rt = rooms.from(RoomType.class);
+            List<Predicate> conditions = new ArrayList<>();
+            conditions.add(cb.equal(rt.get("accommodation"), root));
+            conditions.add(cb.gt(rt.get("totalRooms"), 0));
+            if (guests != null) {
+                conditions.add(cb.ge(cb.coalesce(rt.<Integer>get("maxGuests"), RoomType.DEFAULT_MAX_GUESTS), guests));
+            }
+            if (hasDates) {
+                conditions.add(cb.not(cb.exists(soldOutNight(rooms, rt, cb, checkIn, checkOut))));
+            }
+            rooms.select(rt.get("id")).where(conditions.toArray(new Predicate[0]));
+            return cb.exists(rooms);
+        };
+    }
+
+    /**
+     * 房型在區間內有售完的夜晚：與 findAvailableAccommodations 相同，依每晚庫存帳本（含保留）
+     * 取區間內最少的剩餘房數；走 room_type_inventory (room_type_id, night) 唯一索引
+     */
+    private static Subquery<Long> soldOutNight(Subquery<Long> rooms, Root<RoomType> rt, CriteriaBuilder cb,
+                                               LocalDate checkIn, LocalDate checkOut) {
+        Subquery<Long> ledger = rooms.subquery(Long.class);
+        Root<RoomTypeInventory> night = ledger.from(RoomTypeInventory.class);
+        Expression<Integer> remaining = cb.diff(night.<Integer>get("totalRooms"), night.<Integer>get("bookedRooms"));
+
+        ledger.select(night.get("roomTypeId"))
+                .where(cb.equal(night.get("roomTypeId"), rt.get("id")),
+                        cb.greaterThanOrEqualTo(night.get("night"), checkIn),
+                        cb.lessThan(night.get("night"), checkOut))
+                .groupBy(night.get("roomTypeId"))
+                .having(cb.le(cb.min(remaining), 0));
+        return ledger;
+    }
+
+    // LIKE 的 % 與 _ 視為一般字元
+    private static String containsPattern(String text) {
+        return "%" + escape(text.trim().toLowerCase(Locale.ROOT)) + "%";
+    }
+
+    private static String escape(String text) {
+        return text.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+}
@@ -0,0 +1,65 @@
+package com.example.booking.repository;
+
+import com.example.booking.model.Booking;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 訂單批次寫入
+ * bookings 使用 IDENTITY 主鍵，Hibernate 無法批次 INSERT，
+ * 購物車一次多筆訂單改以單一 JDBC batch 送出並取回自動產生的 ID
+ */
+@Repository
+public class BookingBatchRepository {
+
+    private static final String INSERT_SQL = """
+            INSERT INTO bookings (check_in, check_out, total_price, booked_quantity, status,
+                                  room_type_id, user_id, created_at)
+            VALUES (:checkIn, :checkOut, :totalPrice, :bookedQuantity, :status,
+                    :roomTypeId, :userId, :createdAt)
+            """;
+
+    @Autowired
+    private NamedParameterJdbcTemplate jdbcTemplate;
+
+    /**
+     * 批次新增訂單並回填 ID 與建立時間（需在既有交易內呼叫）
+     */
+    public void insertAll(List<Booking> bookings) {
+        LocalDateTime now = LocalDateTime.now();
+        SqlParameterSource[] params = new SqlParameterSource[bookings.size()];
+        for (int i = 0; i < bookings.size(); i++) {
+            Booking b = bookings.get(i);
+            if (b.getCreatedAt() == null) {
+                b.setCreatedAt(now);
+            }
+            params[i] = new MapSqlParameterSource()
+                    .addValue("checkIn", b.getCheckIn())
+                    .addValue("checkOut", b.getCheckOut())
+                    .addValue("totalPrice", b.getTotalPrice())
+                    .addValue("bookedQuantity", b.getBookedQuantity())
+                    .addValue("status", b.getStatus())
+                    .addValue("roomTypeId", b.getRoomType().getId())
+                    .addValue("userId", b.getUser().getId())
+                    .addValue("createdAt", b.getCreatedAt());
+        }
+
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(INSERT_SQL, params, keyHolder, new String[]{"id"});
+
+        List<Map<String, Object>> keys = keyHolder.getKeyList();
+        for (int i = 0; i < bookings.size(); i++) {
+            Number id = (Number) keys.get(i).values().iterator().next();
+            bookings.get(i).setId(id.longValue());
+        }
+    }
+}
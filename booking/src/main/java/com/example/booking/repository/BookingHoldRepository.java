@@ -0,0 +1,86 @@
+package com.example.booking.repository;
+
+import com.example.booking.model.BookingHold;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+public interface BookingHoldRepository extends JpaRepository<BookingHold, Long> {
+
+    // 轉成訂單：只有本人且尚未逾時的保留能被刪除，回傳 0 代表已失效
+    @Modifying
+    @Query("""
+           DELETE FROM BookingHold h
+           WHERE h.id = :id
+             AND h.username = :username
+             AND h.expiresAt > :now
+           """)
+    int claim(@Param("id") Long id,
+              @Param("username") String username,
+              @Param("now") LocalDateTime now);
+
+    // 逾時釋放：與 claim 條件互斥，同一筆保留只會被其中一方刪除
+    @Modifying
+    @Query("DELETE FROM BookingHold h WHERE h.id = :id AND h.expiresAt <= :now")
+    int deleteIfExpired(@Param("id") Long id, @Param("now") LocalDateTime now);
+
+    // 使用者主動放棄（關閉訂房視窗）
+    @Modifying
+    @Query("DELETE FROM BookingHold h WHERE h.id = :id AND h.username = :username")
+    int deleteOwned(@Param("id") Long id, @Param("username") String username);
+
+    // 每位使用者同時持有的保留上限用：尚未逾時的保留數
+    @Query("SELECT COUNT(h) FROM BookingHold h WHERE h.username = :username AND h.expiresAt > :now")
+    long countActiveByUsername(@Param("username") String username, @Param("now") LocalDateTime now);
+
+    // 啟動時載入時間輪用：[保留 ID, 到期時間]
+    @Query("SELECT h.id, h.expiresAt FROM BookingHold h")
+    List<Object[]> findAllExpiries();
+
+    // 可用性索引用：區間內保留的 [房型 ID, 入住, 退房, 數量]
+    @Query("""
+           SELECT h.roomTypeId, h.checkIn, h.checkOut, h.quantity
+           FROM BookingHold h
+           WHERE h.checkIn < :to
+             AND h.checkOut > :from
+           """)
+    List<Object[]> findActiveSpans(@Param("from") LocalDate from,
+                                   @Param("to") LocalDate to);
+
+    @Query("""
+           SELECT h.roomTypeId, h.checkIn, h.checkOut, h.quantity
+           FROM BookingHold h
+           WHERE h.roomTypeId = :roomTypeId
+             AND h.checkIn < :to
+             AND h.checkOut > :from
+           """)
+    List<Object[]> findActiveSpansForRoomType(@Param("roomTypeId") Long roomTypeId,
+                                              @Param("from") LocalDate from,
+                                              @Param("to") LocalDate to);
+
+    @Query("""
+           SELECT h.roomTypeId, h.checkIn, h.checkOut, h.quantity
+           FROM BookingHold h
+           WHERE h.roomTypeId = :roomTypeId
+             AND h.checkOut > :today
+           """)
+    List<Object[]> findCurrentSpansForRoomType(@Param("roomTypeId") Long roomTypeId,
+                                               @Param("today") LocalDate today);
+
+    @Query("""
+           SELECT h.roomTypeId, h.checkIn, h.checkOut, h.quantity
+           FROM BookingHold h
+           WHERE h.roomTypeId IN :roomTypeIds
+             AND h.checkIn < :to
+             AND h.checkOut > :from
+           """)
+    List<Object[]> findActiveSpansForRoomTypes(@Param("roomTypeIds") Collection<Long> roomTypeIds,
+                                               @Param("from") LocalDate from,
+                                               @Param("to") LocalDate to);
+}
@@ -1,7 +1,9 @@
 package com.example.booking.repository;
 
 import com.example.booking.model.Booking;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
@@ -12,6 +14,11 @@ public interface BookingRepository extends JpaRepository<Booking, Long> {
 
     List<Booking> findByUserUsername(String username);
 
+    // 條件式取消：只有尚未取消的訂單會被改到；同時取消同一訂單時只有一個交易回傳 1
+    @Modifying
+    @Query("UPDATE Booking b SET b.status = 'CANCELLED' WHERE b.id = :id AND b.status <> 'CANCELLED'")
+    int markCancelled(@Param("id") Long id);
+
     @Query("""
            SELECT b FROM Booking b
              JOIN FETCH b.user u
@@ -29,6 +36,17 @@ public interface BookingRepository extends JpaRepository<Booking, Long> {
            """)
     List<Booking> findAllWithRelations();
 
+    // 游標分頁：新到舊，取 ID 小於上一頁最後一筆的訂單（筆數由 Pageable 限制，不查總數）
+    @Query("""
+           SELECT b FROM Booking b
+             JOIN FETCH b.user u
+             JOIN FETCH b.roomType rt
+             JOIN FETCH rt.accommodation acc
+           WHERE b.id < :beforeId
+           ORDER BY b.id DESC
+           """)
+    List<Booking> findPageWithRelations(@Param("beforeId") Long beforeId, Pageable pageable);
+
     @Query("""
            SELECT b FROM Booking b
              JOIN FETCH b.user u
@@ -39,6 +57,20 @@ public interface BookingRepository extends JpaRepository<Booking, Long> {
            """)
     List<Booking> findByOwnerUsernameFetchAll(@Param("ownerUsername") String ownerUsername);
 
+    @Query("""
+           SELECT b FROM Booking b
+             JOIN FETCH b.user u
+             JOIN FETCH b.roomType rt
+             JOIN FETCH rt.accommodation acc
+             JOIN FETCH acc.owner o
+           WHERE o.username = :ownerUsername
+             AND b.id < :beforeId
+           ORDER BY b.id DESC
+           """)
+    List<Booking> findPageByOwnerUsername(@Param("ownerUsername") String ownerUsername,
+                                          @Param("beforeId") Long beforeId,
+                                          Pageable pageable);
+
     // 查重疊（同房型且日期有交集，且非取消狀態）
     @Query("""
            SELECT b FROM Booking b
@@ -51,6 +83,22 @@ public interface BookingRepository extends JpaRepository<Booking, Long> {
                                           @Param("checkIn") LocalDate checkIn,
                                           @Param("checkOut") LocalDate checkOut);
 
+    // 可用性查詢前補帳本用：區間內有未取消訂單的房型 [房型 ID, 最早入住, 最晚退房, 區間內已建立的帳本列數]
+    @Query("""
+           SELECT b.roomType.id, MIN(b.checkIn), MAX(b.checkOut),
+                  (SELECT COUNT(i) FROM RoomTypeInventory i
+                   WHERE i.roomTypeId = b.roomType.id
+                     AND i.night >= :from
+                     AND i.night < :to)
+           FROM Booking b
+           WHERE b.checkIn < :to
+             AND b.checkOut > :from
+             AND b.status != 'CANCELLED'
+           GROUP BY b.roomType.id
+           """)
+    List<Object[]> findBookedSpansWithLedgerCount(@Param("from") LocalDate from,
+                                                  @Param("to") LocalDate to);
+
     // 匯總重疊區間的已預訂間數（排除已取消訂單）
     @Query("""
            SELECT COALESCE(SUM(b.bookedQuantity), 0)
@@ -63,4 +111,51 @@ public interface BookingRepository extends JpaRepository<Booking, Long> {
     Long sumBookedQuantityBetween(@Param("roomTypeId") Long roomTypeId,
                                   @Param("checkIn") LocalDate checkIn,
                                   @Param("checkOut") LocalDate checkOut);
+
+    // 可用性索引用：區間內未取消訂單的 [房型 ID, 入住, 退房, 數量]，不載入實體
+    @Query("""
+           SELECT b.roomType.id, b.checkIn, b.checkOut, b.bookedQuantity
+           FROM Booking b
+           WHERE b.checkIn < :to
+             AND b.checkOut > :from
+             AND b.status != 'CANCELLED'
+           """)
+    List<Object[]> findActiveSpans(@Param("from") LocalDate from,
+                                   @Param("to") LocalDate to);
+
+    @Query("""
+           SELECT b.roomType.id, b.checkIn, b.checkOut, b.bookedQuantity
+           FROM Booking b
+           WHERE b.roomType.id = :roomTypeId
+             AND b.checkIn < :to
+             AND b.checkOut > :from
+             AND b.status != 'CANCELLED'
+           """)
+    List<Object[]> findActiveSpansForRoomType(@Param("roomTypeId") Long roomTypeId,
+                                              @Param("from") LocalDate from,
+                                              @Param("to") LocalDate to);
+
+    // 衝突偵測區間樹用：房型尚未退房的未取消訂單 [房型 ID, 入住, 退房, 數量]（已結束的住宿不載入）
+    @Query("""
+           SELECT b.roomType.id, b.checkIn, b.checkOut, b.bookedQuantity
+           FROM Booking b
+           WHERE b.roomType.id = :roomTypeId
+             AND b.checkOut > :today
+             AND b.status != 'CANCELLED'
+           """)
+    List<Object[]> findCurrentSpansForRoomType(@Param("roomTypeId") Long roomTypeId,
+                                               @Param("today") LocalDate today);
+
+    // 可用性日曆用：住宿所有房型在區間內未取消訂單的 [房型 ID, 入住, 退房, 數量]
+    @Query("""
+           SELECT b.roomType.id, b.checkIn, b.checkOut, b.bookedQuantity
+           FROM Booking b
+           WHERE b.roomType.accommodation.id = :accommodationId
+             AND b.checkIn < :to
+             AND b.checkOut > :from
+             AND b.status != 'CANCELLED'
+           """)
+    List<Object[]> findActiveSpansForAccommodation(@Param("accommodationId") Long accommodationId,
+                                                   @Param("from") LocalDate from,
+                                                   @Param("to") LocalDate to);
 }
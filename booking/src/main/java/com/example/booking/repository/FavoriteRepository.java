@@ -1,6 +1,7 @@
 package com.example.booking.repository;
 
 import com.example.booking.model.Favorite;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -22,6 +23,21 @@ public interface FavoriteRepository extends JpaRepository<Favorite, Long> {
            """)
     List<Favorite> findByUserUsername(@Param("username") String username);
 
+    /**
+     * 游標分頁查詢用戶的收藏：ID 遞減（與建立時間新到舊一致），取 ID 小於上一頁最後一筆的收藏
+     */
+    @Query("""
+           SELECT f FROM Favorite f
+           JOIN FETCH f.accommodation a
+           JOIN FETCH a.owner
+           WHERE f.user.username = :username
+             AND f.id < :beforeId
+           ORDER BY f.id DESC
+           """)
+    List<Favorite> findPageByUserUsername(@Param("username") String username,
+                                          @Param("beforeId") Long beforeId,
+                                          Pageable pageable);
+
     /**
      * 查詢用戶是否已收藏某住宿
      */
@@ -40,6 +56,11 @@ public interface FavoriteRepository extends JpaRepository<Favorite, Long> {
      */
     void deleteByUserUsernameAndAccommodationId(String username, Long accommodationId);
 
+    /**
+     * 用戶的收藏數（不載入收藏與住宿）
+     */
+    long countByUserUsername(String username);
+
     /**
      * 檢查是否已收藏
      */
@@ -0,0 +1,69 @@
+package com.example.booking.repository;
+
+import com.example.booking.model.IdempotencyRecord;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+public interface IdempotencyRecordRepository extends JpaRepository<IdempotencyRecord, Long> {
+
+    Optional<IdempotencyRecord> findByUsernameAndIdemKey(String username, String idemKey);
+
+    // 以原生 INSERT 搶下鍵：唯一鍵衝突直接拋出例外，不會在持久化內容中留下失敗的實體
+    @Modifying
+    @Query(value = """
+           INSERT INTO idempotency_keys (username, idem_key, request_hash, created_at)
+           VALUES (:username, :idemKey, :requestHash, :createdAt)
+           """, nativeQuery = true)
+    int insertPending(@Param("username") String username,
+                      @Param("idemKey") String idemKey,
+                      @Param("requestHash") String requestHash,
+                      @Param("createdAt") LocalDateTime createdAt);
+
+    // 接手租約已過期的處理中紀錄（前一個請求中途當機）；以新的 created_at 作為這次搶下的憑證
+    @Modifying
+    @Query("""
+           UPDATE IdempotencyRecord r
+           SET r.requestHash = :requestHash, r.createdAt = :claimedAt
+           WHERE r.username = :username AND r.idemKey = :idemKey
+             AND r.statusCode IS NULL AND r.createdAt < :leaseBefore
+           """)
+    int takeOverPending(@Param("username") String username,
+                        @Param("idemKey") String idemKey,
+                        @Param("requestHash") String requestHash,
+                        @Param("claimedAt") LocalDateTime claimedAt,
+                        @Param("leaseBefore") LocalDateTime leaseBefore);
+
+    // 寫入執行結果；紀錄已被其他請求接手時不更新
+    @Modifying
+    @Query("""
+           UPDATE IdempotencyRecord r
+           SET r.statusCode = :statusCode, r.responseBody = :body
+           WHERE r.id = :id AND r.statusCode IS NULL AND r.createdAt = :claimedAt
+           """)
+    int complete(@Param("id") Long id,
+                 @Param("claimedAt") LocalDateTime claimedAt,
+                 @Param("statusCode") int statusCode,
+                 @Param("body") String body);
+
+    // 執行失敗時放棄處理中的紀錄；紀錄已被其他請求接手時不刪除
+    @Modifying
+    @Query("""
+           DELETE FROM IdempotencyRecord r
+           WHERE r.id = :id AND r.statusCode IS NULL AND r.createdAt = :claimedAt
+           """)
+    int deletePending(@Param("id") Long id, @Param("claimedAt") LocalDateTime claimedAt);
+
+    @Modifying
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.id = :id")
+    int deleteRecord(@Param("id") Long id);
+
+    // 清除過期的鍵（依 created_at 索引）
+    @Modifying
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.createdAt < :before")
+    int deleteCreatedBefore(@Param("before") LocalDateTime before);
+}
@@ -0,0 +1,20 @@
+package com.example.booking.repository;
+
+import com.example.booking.model.RoomRate;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+
+public interface RoomRateRepository extends JpaRepository<RoomRate, Long> {
+
+    // 依建立順序，後建立的規則覆蓋先前的同類規則
+    List<RoomRate> findByRoomTypeIdOrderByIdAsc(Long roomTypeId);
+
+    // 刪除房型時一併清除房價規則
+    @Modifying
+    @Query("DELETE FROM RoomRate r WHERE r.roomTypeId = :roomTypeId")
+    int deleteByRoomTypeId(@Param("roomTypeId") Long roomTypeId);
+}
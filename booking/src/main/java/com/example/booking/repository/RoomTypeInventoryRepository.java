@@ -0,0 +1,110 @@
+package com.example.booking.repository;
+
+import com.example.booking.model.RoomTypeInventory;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public interface RoomTypeInventoryRepository extends JpaRepository<RoomTypeInventory, Long> {
+
+    // 查詢區間內已建立帳本列的夜晚與剩餘房數 [night, totalRooms - bookedRooms]；
+    // 以投影讀取，不經過持久化內容，讀到的是資料庫目前的值
+    @Query("""
+           SELECT i.night, i.totalRooms - i.bookedRooms FROM RoomTypeInventory i
+           WHERE i.roomTypeId = :roomTypeId
+             AND i.night >= :from
+             AND i.night < :to
+           """)
+    List<Object[]> findRemainingBetween(@Param("roomTypeId") Long roomTypeId,
+                                        @Param("from") LocalDate from,
+                                        @Param("to") LocalDate to);
+
+    // 樂觀鎖模式：讀出區間內的帳本列，於記憶體檢查與累加後由 @Version 在提交時偵測衝突
+    @Query("""
+           SELECT i FROM RoomTypeInventory i
+           WHERE i.roomTypeId = :roomTypeId
+             AND i.night >= :from
+             AND i.night < :to
+           ORDER BY i.night
+           """)
+    List<RoomTypeInventory> findRowsBetween(@Param("roomTypeId") Long roomTypeId,
+                                            @Param("from") LocalDate from,
+                                            @Param("to") LocalDate to);
+
+    // 建立缺少的夜晚後重新讀取：鎖定讀取看得到其他交易同時建立並已提交的列（一般查詢只看得到交易快照）
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("""
+           SELECT i FROM RoomTypeInventory i
+           WHERE i.roomTypeId = :roomTypeId
+             AND i.night >= :from
+             AND i.night < :to
+           ORDER BY i.night
+           """)
+    List<RoomTypeInventory> findRowsBetweenForUpdate(@Param("roomTypeId") Long roomTypeId,
+                                                     @Param("from") LocalDate from,
+                                                     @Param("to") LocalDate to);
+
+    // 建立一晚的帳本列；其他交易同時建立同一晚時不報錯，保留先建立的列
+    @Modifying
+    @Query(value = """
+           INSERT INTO room_type_inventory (room_type_id, night, booked_rooms, total_rooms, version)
+           VALUES (:roomTypeId, :night, :bookedRooms, :totalRooms, 0)
+           ON DUPLICATE KEY UPDATE id = id
+           """, nativeQuery = true)
+    int insertIfAbsent(@Param("roomTypeId") Long roomTypeId,
+                       @Param("night") LocalDate night,
+                       @Param("bookedRooms") int bookedRooms,
+                       @Param("totalRooms") int totalRooms);
+
+    // 條件式扣庫存：只更新仍有足夠空房的夜晚，回傳筆數小於晚數代表庫存不足（呼叫端需拋出例外讓交易回滾）
+    @Modifying
+    @Query("""
+           UPDATE RoomTypeInventory i
+              SET i.bookedRooms = i.bookedRooms + :quantity,
+                  i.version = i.version + 1
+           WHERE i.roomTypeId = :roomTypeId
+             AND i.night >= :from
+             AND i.night < :to
+             AND i.bookedRooms + :quantity <= i.totalRooms
+           """)
+    int reserve(@Param("roomTypeId") Long roomTypeId,
+                @Param("from") LocalDate from,
+                @Param("to") LocalDate to,
+                @Param("quantity") int quantity);
+
+    // 釋放庫存（取消訂單時）
+    @Modifying
+    @Query("""
+           UPDATE RoomTypeInventory i
+              SET i.bookedRooms = i.bookedRooms - :quantity,
+                  i.version = i.version + 1
+           WHERE i.roomTypeId = :roomTypeId
+             AND i.night >= :from
+             AND i.night < :to
+             AND i.bookedRooms >= :quantity
+           """)
+    int release(@Param("roomTypeId") Long roomTypeId,
+                @Param("from") LocalDate from,
+                @Param("to") LocalDate to,
+                @Param("quantity") int quantity);
+
+    // 房型總房數調整時同步帳本
+    @Modifying
+    @Query("""
+           UPDATE RoomTypeInventory i
+              SET i.totalRooms = :totalRooms,
+                  i.version = i.version + 1
+           WHERE i.roomTypeId = :roomTypeId
+           """)
+    int updateTotalRooms(@Param("roomTypeId") Long roomTypeId, @Param("totalRooms") int totalRooms);
+
+    @Modifying
+    @Query("DELETE FROM RoomTypeInventory i WHERE i.roomTypeId = :roomTypeId")
+    int deleteByRoomTypeId(@Param("roomTypeId") Long roomTypeId);
+}
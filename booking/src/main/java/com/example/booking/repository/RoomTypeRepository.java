@@ -1,12 +1,15 @@
 package com.example.booking.repository;
 
+import com.example.booking.dto.RoomTypeDTO;
 import com.example.booking.model.RoomType;
 import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -16,4 +19,48 @@ public interface RoomTypeRepository extends JpaRepository<RoomType, Long> {
     @Lock(LockModeType.PESSIMISTIC_WRITE)
     @Query("SELECT rt FROM RoomType rt WHERE rt.id = :id")
     Optional<RoomType> findByIdWithLock(@Param("id") Long id);
+
+    // 可用性索引用：只取房型 ID、所屬住宿 ID 與總房數，不載入實體
+    @Query("SELECT rt.id, rt.accommodation.id, rt.totalRooms FROM RoomType rt")
+    List<Object[]> findInventorySnapshot();
+
+    @Query("SELECT rt.id, rt.accommodation.id, rt.totalRooms FROM RoomType rt WHERE rt.id = :id")
+    List<Object[]> findInventorySnapshotById(@Param("id") Long id);
+
+    // 搜尋結果快取用：住宿底下的房型 ID（房型 ID、住宿 ID）
+    @Query("SELECT rt.id, rt.accommodation.id FROM RoomType rt WHERE rt.accommodation.id IN :ids")
+    List<Object[]> findIdsByAccommodationIds(@Param("ids") Collection<Long> ids);
+
+    // 有日期的價格排序用：多間住宿的房型一次載入
+    @Query("SELECT rt FROM RoomType rt WHERE rt.accommodation.id IN :ids")
+    List<RoomType> findByAccommodationIds(@Param("ids") Collection<Long> ids);
+
+    // 彈性日期搜尋用：所有房型連同所屬住宿一次載入
+    @Query("SELECT rt FROM RoomType rt JOIN FETCH rt.accommodation")
+    List<RoomType> findAllWithAccommodation();
+
+    // === 房型列表 API 用：建構式查詢直接產生 DTO，單一 SQL，不載入實體與訂單 ===
+
+    @Query("""
+           SELECT new com.example.booking.dto.RoomTypeDTO(rt.id, rt.name, rt.description, rt.pricePerNight,
+                  rt.totalRooms, rt.maxGuests, a.id, a.name)
+             FROM RoomType rt JOIN rt.accommodation a
+            WHERE a.id = :accommodationId
+            ORDER BY rt.id
+           """)
+    List<RoomTypeDTO> findDtoByAccommodationId(@Param("accommodationId") Long accommodationId);
+
+    // 游標分頁：依 ID 遞增，取上一頁最後一筆之後的房型
+    @Query("""
+           SELECT new com.example.booking.dto.RoomTypeDTO(rt.id, rt.name, rt.description, rt.pricePerNight,
+                  rt.totalRooms, rt.maxGuests, a.id, a.name)
+             FROM RoomType rt LEFT JOIN rt.accommodation a
+            WHERE rt.id > :afterId
+            ORDER BY rt.id
+           """)
+    List<RoomTypeDTO> findDtoPage(@Param("afterId") Long afterId, Pageable pageable);
+
+    // 房東儀表板用：名下房型總數
+    @Query("SELECT COUNT(rt) FROM RoomType rt WHERE rt.accommodation.owner.username = :username")
+    long countByOwnerUsername(@Param("username") String username);
 }
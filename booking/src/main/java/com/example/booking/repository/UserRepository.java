@@ -1,13 +1,27 @@
 package com.example.booking.repository;
 
 import com.example.booking.model.User;
+import org.springframework.data.domain.Pageable;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import java.util.List;
 import java.util.Optional;
 
 public interface UserRepository extends JpaRepository<User, Long> {
     Optional<User> findByUsername(String username);
 
+    // 同一使用者的寫入依序進行（例如檢查保留上限後再建立保留）
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT u FROM User u WHERE u.username = :username")
+    Optional<User> findByUsernameForUpdate(@Param("username") String username);
+
     Optional<User> findByEmail(String email);
 
     Optional<User> findByResetToken(String resetToken);
+
+    // 游標分頁：依 ID 遞增，取上一頁最後一筆之後的用戶
+    List<User> findByIdGreaterThanOrderByIdAsc(Long afterId, Pageable pageable);
 }
@@ -0,0 +1,70 @@
+package com.example.booking.repository;
+
+import com.example.booking.model.WaitlistEntry;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface WaitlistEntryRepository extends JpaRepository<WaitlistEntry, Long> {
+
+    // 啟動或每日重建候補佇列用，依登記順序
+    @Query("SELECT w FROM WaitlistEntry w WHERE w.status = 'WAITING' ORDER BY w.id")
+    List<WaitlistEntry> findAllWaiting();
+
+    List<WaitlistEntry> findByUsernameOrderByIdDesc(String username);
+
+    // 同一使用者對同一房型、同一日期區間只保留一筆等待中的候補
+    @Query("""
+           SELECT COUNT(w) > 0 FROM WaitlistEntry w
+           WHERE w.username = :username
+             AND w.roomTypeId = :roomTypeId
+             AND w.checkIn = :checkIn
+             AND w.checkOut = :checkOut
+             AND w.status = 'WAITING'
+           """)
+    boolean existsWaiting(@Param("username") String username,
+                          @Param("roomTypeId") Long roomTypeId,
+                          @Param("checkIn") LocalDate checkIn,
+                          @Param("checkOut") LocalDate checkOut);
+
+    // 轉為訂單：與訂單寫入同一交易，只更新仍在等待中的候補，回傳 0 代表使用者已先取消
+    @Modifying
+    @Query("""
+           UPDATE WaitlistEntry w
+           SET w.status = 'PROMOTED', w.promotedAt = :now
+           WHERE w.id = :id
+             AND w.status = 'WAITING'
+           """)
+    int markPromoted(@Param("id") Long id, @Param("now") LocalDateTime now);
+
+    // 同一交易內訂單寫入取得 ID 後補上
+    @Modifying
+    @Query("UPDATE WaitlistEntry w SET w.bookingId = :bookingId WHERE w.id = :id AND w.status = 'PROMOTED'")
+    int attachBooking(@Param("id") Long id, @Param("bookingId") Long bookingId);
+
+    // 使用者取消自己的候補
+    @Modifying
+    @Query("""
+           UPDATE WaitlistEntry w
+           SET w.status = 'CANCELLED'
+           WHERE w.id = :id
+             AND w.username = :username
+             AND w.status = 'WAITING'
+           """)
+    int cancelOwned(@Param("id") Long id, @Param("username") String username);
+
+    // 入住日已過仍未轉成訂單的候補
+    @Modifying
+    @Query("UPDATE WaitlistEntry w SET w.status = 'EXPIRED' WHERE w.status = 'WAITING' AND w.checkIn < :today")
+    int expirePast(@Param("today") LocalDate today);
+
+    // 刪除房型時一併結束候補
+    @Modifying
+    @Query("UPDATE WaitlistEntry w SET w.status = 'EXPIRED' WHERE w.status = 'WAITING' AND w.roomTypeId = :roomTypeId")
+    int expireForRoomType(@Param("roomTypeId") Long roomTypeId);
+}
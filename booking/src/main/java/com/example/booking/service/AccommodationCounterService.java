@@ -0,0 +1,143 @@
+package com.example.booking.service;
+
+import com.example.booking.event.AccommodationCounterEvent;
+import com.example.booking.event.AccommodationCountersFlushedEvent;
+import com.example.booking.repository.AccommodationCounterRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * 住宿計數器（訂房次數、評論數、收藏數）
+ * 訂房、取消、評論與收藏在交易提交後只累加記憶體中的 LongAdder，寫入路徑不更新 accommodations；
+ * 排程定期取出增量，以一次 JDBC batch 的累加 UPDATE 寫回，熱門住宿的列不會成為爭用點。
+ * 寫回前的增量只存在記憶體，程式關閉時會先寫回一次。
+ * 寫回成功後逐一發布 AccommodationCountersFlushedEvent，讓以資料庫計數計算的快取在此時才失效。
+ */
+@Service
+public class AccommodationCounterService {
+
+    private static final Logger logger = LoggerFactory.getLogger(AccommodationCounterService.class);
+
+    private static final AccommodationCounterEvent.Counter[] COUNTERS = AccommodationCounterEvent.Counter.values();
+
+    @Autowired
+    private AccommodationCounterRepository counterRepository;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    // 住宿 ID → 各計數的增量（依 Counter 順序）
+    private final Map<Long, LongAdder[]> pending = new ConcurrentHashMap<>();
+
+    private final AtomicLong flushes = new AtomicLong();
+    private final AtomicLong flushedRows = new AtomicLong();
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCounterEvent(AccommodationCounterEvent event) {
+        if (event.getAccommodationId() == null || event.getDelta() == 0) {
+            return;
+        }
+        pending.computeIfAbsent(event.getAccommodationId(), id -> newAdders())[event.getCounter().ordinal()]
+                .add(event.getDelta());
+    }
+
+    /**
+     * 將累積的增量寫回資料庫，回傳更新的住宿數
+     */
+    @Scheduled(fixedDelayString = "${app.counters.flush-interval-ms:5000}")
+    public synchronized int flush() {
+        Map<Long, long[]> deltas = new HashMap<>();
+        for (Map.Entry<Long, LongAdder[]> entry : pending.entrySet()) {
+            long[] d = new long[COUNTERS.length];
+            boolean changed = false;
+            for (int i = 0; i < d.length; i++) {
+                // sumThenReset 逐格 getAndSet，與同時進行的 add 不會互相遺失
+                d[i] = entry.getValue()[i].sumThenReset();
+                changed |= d[i] != 0;
+            }
+            if (changed) {
+                deltas.put(entry.getKey(), d);
+            }
+        }
+        if (deltas.isEmpty()) {
+            return 0;
+        }
+
+        try {
+            counterRepository.addAll(deltas);
+        } catch (RuntimeException e) {
+            // 寫回失敗時把增量放回去，下一輪再試
+            deltas.forEach((id, d) -> {
+                LongAdder[] adders = pending.computeIfAbsent(id, k -> newAdders());
+                for (int i = 0; i < d.length; i++) {
+                    adders[i].add(d[i]);
+                }
+            });
+            logger.warn("住宿計數寫回失敗，{} 筆稍後重試：{}", deltas.size(), e.getMessage());
+            return 0;
+        }
+        flushes.incrementAndGet();
+        flushedRows.addAndGet(deltas.size());
+        for (Long id : deltas.keySet()) {
+            eventPublisher.publishEvent(new AccommodationCountersFlushedEvent(id));
+        }
+        return deltas.size();
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+
+    /**
+     * 尚未寫回的增量，依 Counter 順序；與資料庫的值相加時須在 readConsistent 內讀取
+     */
+    public long[] pendingFor(Long accommodationId) {
+        long[] d = new long[COUNTERS.length];
+        LongAdder[] adders = pending.get(accommodationId);
+        if (adders != null) {
+            for (int i = 0; i < d.length; i++) {
+                d[i] = adders[i].sum();
+            }
+        }
+        return d;
+    }
+
+    /**
+     * 與寫回互斥地執行讀取：期間增量不會從暫存移入資料庫，
+     * 讀到的資料庫計數加上 pendingFor 即為目前值，不會漏算或重算
+     */
+    public synchronized <T> T readConsistent(Supplier<T> reader) {
+        return reader.get();
+    }
+
+    private static LongAdder[] newAdders() {
+        LongAdder[] adders = new LongAdder[COUNTERS.length];
+        for (int i = 0; i < adders.length; i++) {
+            adders[i] = new LongAdder();
+        }
+        return adders;
+    }
+
+    // === 監控 ===
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("trackedAccommodations", pending.size());
+        stats.put("flushes", flushes.get());
+        stats.put("flushedRows", flushedRows.get());
+        return stats;
+    }
+}
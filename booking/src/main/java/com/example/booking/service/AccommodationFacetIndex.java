@@ -0,0 +1,403 @@
+package com.example.booking.service;
+
+import com.example.booking.dto.AccommodationDTO;
+import com.example.booking.dto.FacetedSearchResultDTO;
+import com.example.booking.dto.FacetedSearchResultDTO.FacetCount;
+import com.example.booking.event.AccommodationChangedEvent;
+import com.example.booking.model.Accommodation;
+import com.example.booking.repository.AccommodationRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.text.Normalizer;
+import java.util.*;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 住宿篩選面向（facet）索引
+ * 設施、城市、價格區間與評分門檻的每個選項各保存一份住宿 BitSet，
+ * 任一搜尋結果的各選項筆數只需 BitSet 交集後計算位元數，不必逐筆解析設施字串。
+ * 同一面向內多選為「或」，不同面向之間為「且」；某面向的筆數以「其他面向的篩選」計算，選項不會因自己被選而歸零。
+ * 啟動時由資料庫建立，之後由住宿新增、修改、刪除與評分變動事件（交易提交後）增量更新。
+ */
+@Service
+public class AccommodationFacetIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(AccommodationFacetIndex.class);
+
+    public static final String AMENITY = "amenity";
+    public static final String CITY = "city";
+    public static final String PRICE = "price";
+    public static final String RATING = "rating";
+
+    private static final String[] FACETS = {AMENITY, CITY, PRICE, RATING};
+
+    // 評分門檻（累積：4.5 分的住宿同時屬於 4 分以上、3.5 分以上…）
+    private static final BigDecimal[] RATING_THRESHOLDS = {
+            new BigDecimal("4.5"), new BigDecimal("4"), new BigDecimal("3.5"), new BigDecimal("3")};
+
+    @Autowired
+    private AccommodationRepository accommodationRepository;
+
+    @Value("${app.search.index-enabled:true}")
+    private boolean enabled = true;
+
+    // 價格區間邊界（每晚價格），例如 1000,2000 → 0-1000、1000-2000、2000+
+    @Value("${app.search.facets.price-buckets:1000,2000,3000,5000}")
+    private long[] priceBounds = {1000, 2000, 3000, 5000};
+
+    // 設施與城市面向最多回傳的選項數（已選的選項一定回傳）
+    @Value("${app.search.facets.max-values:20}")
+    private int maxValues = 20;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private Segment segment;
+
+    /**
+     * 一個篩選選項與符合的住宿
+     */
+    private static final class FacetValue {
+        final String label;
+        final BitSet docs = new BitSet();
+
+        FacetValue(String label) {
+            this.label = label;
+        }
+    }
+
+    private static final class Segment {
+        // 面向 → 選項代碼 → 選項；價格與評分預先建立，保持區間順序
+        final Map<String, Map<String, FacetValue>> facets = new HashMap<>();
+        final Map<Long, Integer> docOf = new HashMap<>();
+        // 刪除後空出的位置，新住宿優先使用，BitSet 不會無限變長
+        final Deque<Integer> free = new ArrayDeque<>();
+        // 位置 → 該住宿所在的選項，刪除時逐一清除位元
+        final Map<Integer, List<FacetValue>> docValues = new HashMap<>();
+        int nextDoc;
+
+        Segment(long[] priceBounds) {
+            for (String facet : FACETS) {
+                facets.put(facet, new LinkedHashMap<>());
+            }
+            for (int i = 0; i <= priceBounds.length; i++) {
+                String key = priceKey(priceBounds, i);
+                facets.get(PRICE).put(key, new FacetValue(priceLabel(priceBounds, i)));
+            }
+            for (BigDecimal threshold : RATING_THRESHOLDS) {
+                facets.get(RATING).put(threshold.toPlainString() + "+", new FacetValue(threshold.toPlainString() + " 分以上"));
+            }
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onReady() {
+        if (enabled) {
+            rebuild();
+        }
+    }
+
+    @Scheduled(cron = "${app.search.rebuild-cron:0 15 0 * * *}")
+    public void scheduledRebuild() {
+        if (enabled) {
+            rebuild();
+        }
+    }
+
+    /**
+     * 由資料庫重建整份索引
+     */
+    public void rebuild() {
+        long start = System.nanoTime();
+        load(accommodationRepository.findFacetFields());
+        logger.info("篩選面向索引重建完成：{}，耗時 {} ms", getStats(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * 以 [id, 地點, 設施, 每晚價格, 評分] 列建立新索引並替換
+     */
+    void load(List<Object[]> rows) {
+        Segment fresh = build(rows);
+        lock.writeLock().lock();
+        try {
+            segment = fresh;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private Segment build(List<Object[]> rows) {
+        Segment fresh = new Segment(priceBounds);
+        for (Object[] row : rows) {
+            add(fresh, row);
+        }
+        return fresh;
+    }
+
+    public boolean isReady() {
+        lock.readLock().lock();
+        try {
+            return segment != null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onAccommodationChanged(AccommodationChangedEvent event) {
+        if (!isReady()) {
+            return;
+        }
+        List<Object[]> rows = accommodationRepository.findFacetFieldsById(event.getAccommodationId());
+        lock.writeLock().lock();
+        try {
+            remove(segment, event.getAccommodationId());
+            if (!rows.isEmpty()) {
+                add(segment, rows.get(0));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void add(Segment s, Object[] row) {
+        Long id = (Long) row[0];
+        Integer recycled = s.free.poll();
+        int doc = recycled != null ? recycled : s.nextDoc++;
+        s.docOf.put(id, doc);
+
+        List<FacetValue> values = new ArrayList<>();
+        for (String amenity : parseAmenities((String) row[2])) {
+            values.add(s.facets.get(AMENITY).computeIfAbsent(amenity.toLowerCase(Locale.ROOT), k -> new FacetValue(amenity)));
+        }
+        String city = cityOf((String) row[1]);
+        if (city != null) {
+            values.add(s.facets.get(CITY).computeIfAbsent(city, k -> new FacetValue(city)));
+        }
+        BigDecimal price = (BigDecimal) row[3];
+        if (price != null) {
+            values.add(s.facets.get(PRICE).get(priceKey(priceBounds, priceBucket(priceBounds, price))));
+        }
+        BigDecimal rating = (BigDecimal) row[4];
+        if (rating != null) {
+            for (BigDecimal threshold : RATING_THRESHOLDS) {
+                if (rating.compareTo(threshold) >= 0) {
+                    values.add(s.facets.get(RATING).get(threshold.toPlainString() + "+"));
+                }
+            }
+        }
+
+        for (FacetValue value : values) {
+            value.docs.set(doc);
+        }
+        s.docValues.put(doc, values);
+    }
+
+    private static void remove(Segment s, Long id) {
+        Integer doc = s.docOf.remove(id);
+        if (doc == null) {
+            return;
+        }
+        for (FacetValue value : s.docValues.remove(doc)) {
+            value.docs.clear(doc);
+        }
+        // 沒有住宿的設施與城市不再列出
+        s.facets.get(AMENITY).values().removeIf(v -> v.docs.isEmpty());
+        s.facets.get(CITY).values().removeIf(v -> v.docs.isEmpty());
+        s.free.push(doc);
+    }
+
+    /**
+     * 對搜尋結果套用篩選並計算各面向的選項筆數，結果保留原本順序
+     *
+     * @param results 關鍵字、日期等條件搜尋出的住宿
+     * @param filters 面向名稱 → 選取的選項代碼
+     */
+    public FacetedSearchResultDTO apply(List<Accommodation> results, Map<String, ? extends Collection<String>> filters) {
+        lock.readLock().lock();
+        try {
+            Segment s = segment;
+            if (s == null || results.stream().anyMatch(acc -> !s.docOf.containsKey(acc.getId()))) {
+                // 索引尚未建立或還沒收到新住宿的事件：就這批結果臨時建一份
+                return apply(build(toRows(results)), results, filters);
+            }
+            return apply(s, results, filters);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private FacetedSearchResultDTO apply(Segment s, List<Accommodation> results,
+                                         Map<String, ? extends Collection<String>> filters) {
+        BitSet base = new BitSet();
+        for (Accommodation acc : results) {
+            base.set(s.docOf.get(acc.getId()));
+        }
+
+        // 每個面向已選選項的聯集；未篩選的面向為 null
+        Map<String, BitSet> selected = new HashMap<>();
+        for (String facet : FACETS) {
+            Collection<String> chosen = filters.get(facet);
+            if (chosen == null || chosen.isEmpty()) {
+                continue;
+            }
+            BitSet union = new BitSet();
+            for (String key : chosen) {
+                FacetValue value = s.facets.get(facet).get(normalizeKey(facet, key));
+                if (value != null) {
+                    union.or(value.docs);
+                }
+            }
+            selected.put(facet, union);
+        }
+
+        BitSet matched = (BitSet) base.clone();
+        selected.values().forEach(matched::and);
+
+        Map<String, List<FacetCount>> facets = new LinkedHashMap<>();
+        for (String facet : FACETS) {
+            // 只套用其他面向的篩選
+            BitSet mask = (BitSet) base.clone();
+            selected.forEach((other, bits) -> {
+                if (!other.equals(facet)) {
+                    mask.and(bits);
+                }
+            });
+            Collection<String> chosen = filters.get(facet);
+            Set<String> chosenKeys = new HashSet<>();
+            if (chosen != null) {
+                chosen.forEach(key -> chosenKeys.add(normalizeKey(facet, key)));
+            }
+
+            List<FacetCount> counts = new ArrayList<>();
+            for (Map.Entry<String, FacetValue> entry : s.facets.get(facet).entrySet()) {
+                BitSet hit = (BitSet) mask.clone();
+                hit.and(entry.getValue().docs);
+                int count = hit.cardinality();
+                boolean isSelected = chosenKeys.contains(entry.getKey());
+                if (count > 0 || isSelected) {
+                    counts.add(new FacetCount(entry.getKey(), entry.getValue().label, count, isSelected));
+                }
+            }
+            if (AMENITY.equals(facet) || CITY.equals(facet)) {
+                counts.sort(Comparator.comparingInt(FacetCount::getCount).reversed()
+                        .thenComparing(FacetCount::getLabel));
+                if (counts.size() > maxValues) {
+                    List<FacetCount> top = new ArrayList<>(counts.subList(0, maxValues));
+                    counts.subList(maxValues, counts.size()).stream()
+                            .filter(FacetCount::isSelected)
+                            .forEach(top::add);
+                    counts = top;
+                }
+            }
+            facets.put(facet, counts);
+        }
+
+        List<Accommodation> filtered = new ArrayList<>();
+        for (Accommodation acc : results) {
+            if (matched.get(s.docOf.get(acc.getId()))) {
+                filtered.add(acc);
+            }
+        }
+        return new FacetedSearchResultDTO(AccommodationDTO.fromAll(filtered), facets);
+    }
+
+    private static List<Object[]> toRows(List<Accommodation> accommodations) {
+        List<Object[]> rows = new ArrayList<>(accommodations.size());
+        for (Accommodation acc : accommodations) {
+            rows.add(new Object[]{acc.getId(), acc.getLocation(), acc.getAmenities(), acc.getPricePerNight(), acc.getRating()});
+        }
+        return rows;
+    }
+
+    // === 欄位解析 ===
+
+    /**
+     * 設施欄位是以逗號、頓號等分隔的自由文字，去除空白與重複（不分大小寫）
+     */
+    static List<String> parseAmenities(String amenities) {
+        if (amenities == null || amenities.isBlank()) {
+            return List.of();
+        }
+        Map<String, String> unique = new LinkedHashMap<>();
+        for (String part : Normalizer.normalize(amenities, Normalizer.Form.NFKC).split("[,、;/|]")) {
+            String amenity = part.trim();
+            if (!amenity.isEmpty()) {
+                unique.putIfAbsent(amenity.toLowerCase(Locale.ROOT), amenity);
+            }
+        }
+        return new ArrayList<>(unique.values());
+    }
+
+    /**
+     * 由地點取出城市：第一個「市」或「縣」為止（臺統一為台），沒有時以整個地點為城市
+     */
+    static String cityOf(String location) {
+        if (location == null || location.isBlank()) {
+            return null;
+        }
+        String normalized = location.trim().replace('臺', '台');
+        for (int i = 1; i < normalized.length(); i++) {
+            char c = normalized.charAt(i);
+            if (c == '市' || c == '縣') {
+                return normalized.substring(0, i + 1);
+            }
+        }
+        return normalized;
+    }
+
+    static int priceBucket(long[] bounds, BigDecimal price) {
+        int i = 0;
+        while (i < bounds.length && price.compareTo(BigDecimal.valueOf(bounds[i])) >= 0) {
+            i++;
+        }
+        return i;
+    }
+
+    private static String priceKey(long[] bounds, int bucket) {
+        long low = bucket == 0 ? 0 : bounds[bucket - 1];
+        return bucket == bounds.length ? low + "+" : low + "-" + bounds[bucket];
+    }
+
+    private static String priceLabel(long[] bounds, int bucket) {
+        long low = bucket == 0 ? 0 : bounds[bucket - 1];
+        return bucket == bounds.length ? "NT$ " + low + " 以上" : "NT$ " + low + " - " + bounds[bucket];
+    }
+
+    private static String normalizeKey(String facet, String key) {
+        String trimmed = key.trim();
+        if (AMENITY.equals(facet)) {
+            return Normalizer.normalize(trimmed, Normalizer.Form.NFKC).toLowerCase(Locale.ROOT);
+        }
+        if (CITY.equals(facet)) {
+            return trimmed.replace('臺', '台');
+        }
+        return trimmed;
+    }
+
+    // === 監控 ===
+
+    public Map<String, Object> getStats() {
+        lock.readLock().lock();
+        try {
+            Map<String, Object> stats = new LinkedHashMap<>();
+            Segment s = segment;
+            stats.put("ready", s != null);
+            stats.put("accommodations", s != null ? s.docOf.size() : 0);
+            for (String facet : FACETS) {
+                stats.put(facet + "Values", s != null ? s.facets.get(facet).size() : 0);
+            }
+            return stats;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+}
@@ -0,0 +1,414 @@
+package com.example.booking.service;
+
+import com.example.booking.event.AccommodationChangedEvent;
+import com.example.booking.repository.AccommodationRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.*;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 住宿模糊搜尋索引（字元 n-gram）
+ * 名稱與地點正規化後切成英數單字與中日韓字串：英數單字前補兩個、後補一個空白後切成三連組，
+ * 中日韓字串一個字就是一個詞素，改切成相鄰兩字（與關鍵字索引相同）；另外收錄單字與兩字片段供很短的查詢詞使用。
+ * 查詢詞同樣切片，只有共同片段數達到門檻的住宿才會以有上限的編輯距離（含相鄰字元對調）驗證，
+ * 查詢詞只需近似出現在名稱或地點的某一段即可，不必掃描所有住宿。片段門檻是篩選用的近似條件，
+ * 錯字集中在很短的詞時可能找不到（例如三個字錯一個且與名稱沒有共同片段）。
+ * 容許的錯字數依查詢詞長度而定：兩個字以內須完全相同，三到五個字一個，六個字以上兩個（不超過設定上限）。
+ * 啟動時由資料庫建立，之後由住宿新增、修改、刪除事件（交易提交後）增量更新，每日凌晨重建以回收作廢的編號。
+ */
+@Service
+public class AccommodationFuzzyIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(AccommodationFuzzyIndex.class);
+
+    // 候選至少要有查詢詞三成的片段（與 PostgreSQL pg_trgm 的預設相似度門檻相同），避免常見片段帶出大量候選
+    private static final double MIN_GRAM_RATIO = 0.3;
+
+    @Autowired
+    private AccommodationRepository accommodationRepository;
+
+    @Value("${app.search.index-enabled:true}")
+    private boolean enabled = true;
+
+    // 單一查詢詞最多容許的錯字數
+    @Value("${app.search.fuzzy.max-edits:2}")
+    private int maxEdits = 2;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private Segment segment;
+
+    /**
+     * 查詢結果：住宿 ID、所有查詢詞的錯字數總和，以及是否在名稱中找到
+     */
+    public static final class Match {
+        private final long accommodationId;
+        private final int edits;
+        private final boolean inName;
+
+        Match(long accommodationId, int edits, boolean inName) {
+            this.accommodationId = accommodationId;
+            this.edits = edits;
+            this.inName = inName;
+        }
+
+        public long getAccommodationId() { return accommodationId; }
+        public int getEdits() { return edits; }
+        public boolean isInName() { return inName; }
+    }
+
+    /**
+     * 三連組的倒排表，文件編號遞增；作廢的編號查詢時略過，重建時清除
+     */
+    private static final class Postings {
+        int[] docs = new int[4];
+        int size;
+
+        void append(int doc) {
+            if (size == docs.length) {
+                docs = Arrays.copyOf(docs, size * 2);
+            }
+            docs[size++] = doc;
+        }
+    }
+
+    private static final class Segment {
+        final Map<String, Postings> dictionary = new HashMap<>();
+        // 文件編號 → 住宿 ID（作廢為 -1）、正規化後名稱與地點的字碼；住宿修改時給新編號
+        long[] accommodationIds = new long[1024];
+        int[][] names = new int[1024][];
+        int[][] locations = new int[1024][];
+        int nextDoc;
+        final Map<Long, Integer> docOf = new HashMap<>();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onReady() {
+        if (enabled) {
+            rebuild();
+        }
+    }
+
+    // 每日凌晨重建，回收住宿修改後作廢的文件編號
+    @Scheduled(cron = "${app.search.rebuild-cron:0 15 0 * * *}")
+    public void scheduledRebuild() {
+        if (enabled) {
+            rebuild();
+        }
+    }
+
+    /**
+     * 由資料庫重建整份索引
+     */
+    public void rebuild() {
+        long start = System.nanoTime();
+        load(accommodationRepository.findSearchFields());
+        logger.info("模糊搜尋索引重建完成：{}，耗時 {} ms", getStats(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * 以 [id, 名稱, 地點, ...] 列建立新索引並替換（與關鍵字索引共用同一個查詢）
+     */
+    void load(List<Object[]> rows) {
+        Segment fresh = new Segment();
+        for (Object[] row : rows) {
+            add(fresh, row);
+        }
+        lock.writeLock().lock();
+        try {
+            segment = fresh;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public boolean isReady() {
+        lock.readLock().lock();
+        try {
+            return segment != null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onAccommodationChanged(AccommodationChangedEvent event) {
+        if (!isReady()) {
+            return;
+        }
+        List<Object[]> rows = accommodationRepository.findSearchFieldsById(event.getAccommodationId());
+        lock.writeLock().lock();
+        try {
+            Integer doc = segment.docOf.remove(event.getAccommodationId());
+            if (doc != null) {
+                segment.accommodationIds[doc] = -1;
+            }
+            if (!rows.isEmpty()) {
+                add(segment, rows.get(0));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private static void add(Segment s, Object[] row) {
+        Long accommodationId = (Long) row[0];
+        String name = AccommodationSuggestIndex.normalize((String) row[1]);
+        String location = AccommodationSuggestIndex.normalize((String) row[2]);
+
+        int doc = s.nextDoc++;
+        if (doc == s.accommodationIds.length) {
+            s.accommodationIds = Arrays.copyOf(s.accommodationIds, doc * 2);
+            s.names = Arrays.copyOf(s.names, doc * 2);
+            s.locations = Arrays.copyOf(s.locations, doc * 2);
+        }
+        s.accommodationIds[doc] = accommodationId;
+        s.names[doc] = name.codePoints().toArray();
+        s.locations[doc] = location.codePoints().toArray();
+        s.docOf.put(accommodationId, doc);
+
+        Set<String> grams = new HashSet<>();
+        for (String run : runs(name)) {
+            addIndexGrams(run, grams);
+        }
+        for (String run : runs(location)) {
+            addIndexGrams(run, grams);
+        }
+        for (String gram : grams) {
+            s.dictionary.computeIfAbsent(gram, g -> new Postings()).append(doc);
+        }
+    }
+
+    /**
+     * 找出名稱或地點近似包含所有查詢詞的住宿，依錯字數由少到多、名稱優先於地點、住宿 ID 排列
+     */
+    public List<Match> search(String query) {
+        List<String> tokens = runs(AccommodationSuggestIndex.normalize(query));
+        if (tokens.isEmpty()) {
+            return List.of();
+        }
+        lock.readLock().lock();
+        try {
+            Segment s = segment;
+            if (s == null) {
+                return List.of();
+            }
+            // 依片段篩出每個查詢詞的候選，候選最少的先驗證
+            List<int[]> candidates = new ArrayList<>(tokens.size());
+            int[][] patterns = new int[tokens.size()][];
+            int[] allowed = new int[tokens.size()];
+            for (int t = 0; t < tokens.size(); t++) {
+                String token = tokens.get(t);
+                patterns[t] = token.codePoints().toArray();
+                allowed[t] = allowedEdits(token);
+                int[] docs = candidates(s, token, allowed[t]);
+                if (docs.length == 0) {
+                    return List.of();
+                }
+                candidates.add(docs);
+            }
+
+            int shortest = 0;
+            for (int t = 1; t < candidates.size(); t++) {
+                if (candidates.get(t).length < candidates.get(shortest).length) {
+                    shortest = t;
+                }
+            }
+            List<Match> matches = new ArrayList<>();
+            for (int doc : candidates.get(shortest)) {
+                int total = 0;
+                boolean inName = true;
+                for (int t = 0; t < tokens.size() && total >= 0; t++) {
+                    if (t != shortest && Arrays.binarySearch(candidates.get(t), doc) < 0) {
+                        total = -1;
+                        break;
+                    }
+                    int k = allowed[t];
+                    int nameEdits = substringDistance(patterns[t], s.names[doc], k);
+                    int locationEdits = nameEdits == 0 ? k + 1 : substringDistance(patterns[t], s.locations[doc], k);
+                    int edits = Math.min(nameEdits, locationEdits);
+                    if (edits > k) {
+                        total = -1;
+                    } else {
+                        total += edits;
+                        inName &= nameEdits <= locationEdits;
+                    }
+                }
+                if (total >= 0) {
+                    matches.add(new Match(s.accommodationIds[doc], total, inName));
+                }
+            }
+            matches.sort(Comparator.comparingInt(Match::getEdits)
+                    .thenComparing(m -> !m.isInName())
+                    .thenComparingLong(Match::getAccommodationId));
+            return matches;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // 共同片段門檻：一個錯字最多破壞 n 個 n-gram，英數詞不在單字開頭或結尾時補白的片段也對不上；再以最低比例過濾
+    private static int[] candidates(Segment s, String token, int k) {
+        Set<String> grams = new HashSet<>();
+        int threshold;
+        if (token.codePointCount(0, token.length()) <= 2) {
+            // 不容許錯字，單字或兩字片段即可找出所有包含此詞的住宿
+            grams.add(token);
+            threshold = 1;
+        } else if (isCjk(token.codePointAt(0))) {
+            addNGrams(token, 2, grams);
+            threshold = Math.max(1, grams.size() - 2 * k);
+        } else {
+            addNGrams("  " + token + " ", 3, grams);
+            threshold = Math.max(1, grams.size() - 3 * k - 3);
+        }
+        threshold = Math.max(threshold, (int) Math.ceil(grams.size() * MIN_GRAM_RATIO));
+
+        int[] counts = new int[s.nextDoc];
+        int[] touched = new int[16];
+        int touchedCount = 0;
+        for (String gram : grams) {
+            Postings p = s.dictionary.get(gram);
+            if (p == null) {
+                continue;
+            }
+            for (int i = 0; i < p.size; i++) {
+                int doc = p.docs[i];
+                if (counts[doc]++ == 0) {
+                    if (touchedCount == touched.length) {
+                        touched = Arrays.copyOf(touched, touchedCount * 2);
+                    }
+                    touched[touchedCount++] = doc;
+                }
+            }
+        }
+        int[] result = new int[touchedCount];
+        int n = 0;
+        for (int i = 0; i < touchedCount; i++) {
+            int doc = touched[i];
+            if (counts[doc] >= threshold && s.accommodationIds[doc] >= 0) {
+                result[n++] = doc;
+            }
+        }
+        result = Arrays.copyOf(result, n);
+        Arrays.sort(result);
+        return result;
+    }
+
+    private int allowedEdits(String token) {
+        int length = token.codePointCount(0, token.length());
+        int k = length <= 2 ? 0 : length <= 5 ? 1 : 2;
+        return Math.min(k, maxEdits);
+    }
+
+    /**
+     * pattern 與 text 中最相近的一段之間的編輯距離（插入、刪除、取代、相鄰對調各算一次）；
+     * 超過 k 時提早結束並回傳 k + 1
+     */
+    static int substringDistance(String pattern, String text, int k) {
+        return substringDistance(pattern.codePoints().toArray(), text.codePoints().toArray(), k);
+    }
+
+    private static int substringDistance(int[] p, int[] t, int k) {
+        int m = p.length;
+        if (m == 0) {
+            return 0;
+        }
+        // 以文字為列、樣式為欄，每一列都可從文字的任意位置開始（第 0 欄為 0）
+        int[] before = new int[m + 1];
+        int[] previous = new int[m + 1];
+        int[] current = new int[m + 1];
+        for (int i = 0; i <= m; i++) {
+            previous[i] = i;
+        }
+        int best = previous[m];
+        for (int j = 1; j <= t.length && best > 0; j++) {
+            current[0] = 0;
+            for (int i = 1; i <= m; i++) {
+                int cost = p[i - 1] == t[j - 1] ? 0 : 1;
+                int d = Math.min(Math.min(previous[i] + 1, current[i - 1] + 1), previous[i - 1] + cost);
+                if (i > 1 && j > 1 && p[i - 1] == t[j - 2] && p[i - 2] == t[j - 1]) {
+                    d = Math.min(d, before[i - 2] + 1);
+                }
+                current[i] = d;
+            }
+            best = Math.min(best, current[m]);
+            int[] recycled = before;
+            before = previous;
+            previous = current;
+            current = recycled;
+        }
+        return Math.min(best, k + 1);
+    }
+
+    // 建索引的片段：單字與兩字片段，英數單字再加上補白後的三連組
+    private static void addIndexGrams(String run, Set<String> grams) {
+        addNGrams(run, 1, grams);
+        addNGrams(run, 2, grams);
+        if (!isCjk(run.codePointAt(0))) {
+            addNGrams("  " + run + " ", 3, grams);
+        }
+    }
+
+    private static void addNGrams(String text, int n, Set<String> grams) {
+        int[] cps = text.codePoints().toArray();
+        for (int i = 0; i + n <= cps.length; i++) {
+            grams.add(new String(cps, i, n));
+        }
+    }
+
+    // 正規化後的文字切成英數單字與中日韓字串
+    private static List<String> runs(String normalized) {
+        List<String> runs = new ArrayList<>();
+        int start = 0;
+        int previous = -1;
+        for (int i = 0; i <= normalized.length(); ) {
+            int cp = i < normalized.length() ? normalized.codePointAt(i) : ' ';
+            boolean split = cp == ' ' || (previous != -1 && isCjk(cp) != isCjk(previous));
+            if (split) {
+                if (i > start) {
+                    runs.add(normalized.substring(start, i));
+                }
+                start = cp == ' ' ? i + 1 : i;
+            }
+            previous = cp == ' ' ? -1 : cp;
+            i += i < normalized.length() ? Character.charCount(cp) : 1;
+        }
+        return runs;
+    }
+
+    private static boolean isCjk(int cp) {
+        Character.UnicodeScript script = Character.UnicodeScript.of(cp);
+        return script == Character.UnicodeScript.HAN
+                || script == Character.UnicodeScript.HIRAGANA
+                || script == Character.UnicodeScript.KATAKANA
+                || script == Character.UnicodeScript.HANGUL;
+    }
+
+    // === 監控 ===
+
+    public Map<String, Object> getStats() {
+        lock.readLock().lock();
+        try {
+            Map<String, Object> stats = new LinkedHashMap<>();
+            Segment s = segment;
+            stats.put("ready", s != null);
+            stats.put("accommodations", s != null ? s.docOf.size() : 0);
+            stats.put("grams", s != null ? s.dictionary.size() : 0);
+            stats.put("retiredDocs", s != null ? s.nextDoc - s.docOf.size() : 0);
+            stats.put("maxEdits", maxEdits);
+            return stats;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+}
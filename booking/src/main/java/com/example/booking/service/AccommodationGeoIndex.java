@@ -0,0 +1,407 @@
+package com.example.booking.service;
+
+import com.example.booking.event.AccommodationChangedEvent;
+import com.example.booking.repository.AccommodationRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.util.*;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 住宿地理索引（經緯度格網）
+ * 依座標把住宿放進固定大小的格子，查詢時從中心所在的格子一圈一圈往外找，
+ * 以球面距離（haversine）排序；下一圈的最近可能距離已超過半徑，或已找滿且都比下一圈近時即停止，
+ * 不必計算所有住宿的距離。可限定半徑、矩形範圍與候選住宿（可用日期、關鍵字的結果）。
+ * 啟動時由資料庫建立，之後由住宿新增、修改、刪除事件（交易提交後）增量更新。
+ */
+@Service
+public class AccommodationGeoIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(AccommodationGeoIndex.class);
+
+    private static final double EARTH_RADIUS_KM = 6371.0088;
+    private static final double KM_PER_DEGREE = EARTH_RADIUS_KM * Math.PI / 180;
+
+    @Autowired
+    private AccommodationRepository accommodationRepository;
+
+    @Value("${app.search.index-enabled:true}")
+    private boolean enabled = true;
+
+    // 格子邊長（度）
+    @Value("${app.geo.cell-degrees:0.02}")
+    private double cellDegrees = 0.02;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private Segment segment;
+
+    /**
+     * 查詢結果：住宿 ID 與距離中心的公里數
+     */
+    public static final class Hit {
+        private final long accommodationId;
+        private final double distanceKm;
+
+        Hit(long accommodationId, double distanceKm) {
+            this.accommodationId = accommodationId;
+            this.distanceKm = distanceKm;
+        }
+
+        public long getAccommodationId() { return accommodationId; }
+        public double getDistanceKm() { return distanceKm; }
+    }
+
+    /**
+     * 矩形範圍（南、西、北、東邊界，含邊界）；不支援跨越 180 度經線
+     */
+    public static final class BoundingBox {
+        private final double south;
+        private final double west;
+        private final double north;
+        private final double east;
+
+        public BoundingBox(double south, double west, double north, double east) {
+            if (south > north || west > east || south < -90 || north > 90 || west < -180 || east > 180) {
+                throw new IllegalArgumentException("地圖範圍不合法");
+            }
+            this.south = south;
+            this.west = west;
+            this.north = north;
+            this.east = east;
+        }
+
+        boolean contains(double lat, double lng) {
+            return lat >= south && lat <= north && lng >= west && lng <= east;
+        }
+
+        public double centerLatitude() { return (south + north) / 2; }
+        public double centerLongitude() { return (west + east) / 2; }
+    }
+
+    /**
+     * 一個格子內的住宿位置；刪除時以最後一筆補位
+     */
+    private static final class Cell {
+        int[] docs = new int[4];
+        int size;
+
+        void add(int doc) {
+            if (size == docs.length) {
+                docs = Arrays.copyOf(docs, size * 2);
+            }
+            docs[size++] = doc;
+        }
+
+        void remove(int doc) {
+            for (int i = 0; i < size; i++) {
+                if (docs[i] == doc) {
+                    docs[i] = docs[--size];
+                    return;
+                }
+            }
+        }
+    }
+
+    private static final class Segment {
+        final double cellDegrees;
+        final Map<Long, Cell> cells = new HashMap<>();
+        final Map<Long, Integer> docOf = new HashMap<>();
+        // 刪除後空出的位置，新住宿優先使用
+        final Deque<Integer> free = new ArrayDeque<>();
+        long[] ids = new long[16];
+        double[] lat = new double[16];
+        double[] lng = new double[16];
+        int nextDoc;
+        // 有住宿的格子範圍（只會擴大），限制往外找的圈數
+        int minRow = Integer.MAX_VALUE;
+        int maxRow = Integer.MIN_VALUE;
+        int minCol = Integer.MAX_VALUE;
+        int maxCol = Integer.MIN_VALUE;
+
+        Segment(double cellDegrees) {
+            this.cellDegrees = cellDegrees;
+        }
+
+        int row(double latitude) {
+            return (int) Math.floor((latitude + 90) / cellDegrees);
+        }
+
+        int col(double longitude) {
+            return (int) Math.floor((longitude + 180) / cellDegrees);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onReady() {
+        if (enabled) {
+            rebuild();
+        }
+    }
+
+    @Scheduled(cron = "${app.search.rebuild-cron:0 15 0 * * *}")
+    public void scheduledRebuild() {
+        if (enabled) {
+            rebuild();
+        }
+    }
+
+    /**
+     * 由資料庫重建整份索引
+     */
+    public void rebuild() {
+        long start = System.nanoTime();
+        load(accommodationRepository.findGeoFields());
+        logger.info("地理索引重建完成：{}，耗時 {} ms", getStats(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * 以 [id, 緯度, 經度] 列建立新索引並替換
+     */
+    void load(List<Object[]> rows) {
+        Segment fresh = build(rows);
+        lock.writeLock().lock();
+        try {
+            segment = fresh;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private Segment build(List<Object[]> rows) {
+        Segment fresh = new Segment(cellDegrees);
+        for (Object[] row : rows) {
+            add(fresh, row);
+        }
+        return fresh;
+    }
+
+    public boolean isReady() {
+        lock.readLock().lock();
+        try {
+            return segment != null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onAccommodationChanged(AccommodationChangedEvent event) {
+        if (!isReady()) {
+            return;
+        }
+        List<Object[]> rows = accommodationRepository.findGeoFieldsById(event.getAccommodationId());
+        lock.writeLock().lock();
+        try {
+            remove(segment, event.getAccommodationId());
+            if (!rows.isEmpty()) {
+                add(segment, rows.get(0));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 由近到遠找出住宿
+     *
+     * @param latitude   中心緯度
+     * @param longitude  中心經度
+     * @param radiusKm   半徑（公里），null 表示不限
+     * @param box        矩形範圍，null 表示不限
+     * @param candidates 限定的住宿 ID，null 表示不限
+     * @param limit      最多筆數
+     */
+    public List<Hit> search(double latitude, double longitude, Double radiusKm, BoundingBox box,
+                            Set<Long> candidates, int limit) {
+        if (latitude < -90 || latitude > 90 || longitude < -180 || longitude > 180) {
+            throw new IllegalArgumentException("座標不合法");
+        }
+        if (radiusKm != null && radiusKm <= 0) {
+            throw new IllegalArgumentException("搜尋半徑必須大於 0");
+        }
+        lock.readLock().lock();
+        try {
+            // 索引尚未建立（啟動中或已停用）：就資料庫目前的座標臨時建一份
+            Segment s = segment != null ? segment : build(accommodationRepository.findGeoFields());
+            return search(s, latitude, longitude, radiusKm, box, candidates, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static List<Hit> search(Segment s, double latitude, double longitude, Double radiusKm,
+                                    BoundingBox box, Set<Long> candidates, int limit) {
+        if (s.docOf.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+
+        // 需要找的格子範圍：有住宿的範圍，再與矩形範圍、半徑外接矩形取交集
+        int rowLo = s.minRow, rowHi = s.maxRow, colLo = s.minCol, colHi = s.maxCol;
+        if (box != null) {
+            rowLo = Math.max(rowLo, s.row(box.south));
+            rowHi = Math.min(rowHi, s.row(box.north));
+            colLo = Math.max(colLo, s.col(box.west));
+            colHi = Math.min(colHi, s.col(box.east));
+        }
+        if (radiusKm != null) {
+            double dLat = radiusKm / KM_PER_DEGREE;
+            double cos = Math.cos(Math.toRadians(Math.min(89.9, Math.abs(latitude) + dLat)));
+            double dLng = Math.min(180, radiusKm / (KM_PER_DEGREE * cos));
+            rowLo = Math.max(rowLo, s.row(Math.max(-90, latitude - dLat)));
+            rowHi = Math.min(rowHi, s.row(Math.min(90, latitude + dLat)));
+            colLo = Math.max(colLo, s.col(Math.max(-180, longitude - dLng)));
+            colHi = Math.min(colHi, s.col(Math.min(180, longitude + dLng)));
+        }
+        if (rowLo > rowHi || colLo > colHi) {
+            return List.of();
+        }
+
+        int row0 = s.row(latitude);
+        int col0 = s.col(longitude);
+        int maxRing = Math.max(Math.max(Math.abs(row0 - rowLo), Math.abs(rowHi - row0)),
+                Math.max(Math.abs(col0 - colLo), Math.abs(colHi - col0)));
+
+        // 一格的最短邊（公里）：經度方向的格寬隨緯度縮小，取範圍內最高緯度，並略為保守
+        double poleward = Math.max(Math.abs(rowLo * s.cellDegrees - 90), Math.abs((rowHi + 1) * s.cellDegrees - 90));
+        double cellKm = s.cellDegrees * KM_PER_DEGREE * Math.cos(Math.toRadians(Math.min(89.9, poleward))) * 0.95;
+
+        // 目前最近的 limit 筆，堆頂為其中最遠的一筆
+        PriorityQueue<Hit> best = new PriorityQueue<>(Comparator.comparingDouble(Hit::getDistanceKm).reversed());
+        for (int r = 0; r <= maxRing; r++) {
+            // 第 r 圈的住宿距中心至少 r - 1 格
+            double ringMin = Math.max(0, r - 1) * cellKm;
+            if (radiusKm != null && ringMin > radiusKm) {
+                break;
+            }
+            if (best.size() == limit && best.peek().getDistanceKm() <= ringMin) {
+                break;
+            }
+            for (int row = Math.max(rowLo, row0 - r); row <= Math.min(rowHi, row0 + r); row++) {
+                // 圈的上下兩排取整排，其餘各排只有左右兩格
+                boolean edgeRow = Math.abs(row - row0) == r;
+                int step = edgeRow ? 1 : 2 * r;
+                int from = edgeRow ? Math.max(colLo, col0 - r) : col0 - r;
+                int to = edgeRow ? Math.min(colHi, col0 + r) : col0 + r;
+                for (int col = from; col <= to; col += step) {
+                    if (col < colLo || col > colHi) {
+                        continue;
+                    }
+                    Cell cell = s.cells.get(cellKey(row, col));
+                    if (cell != null) {
+                        collect(s, cell, latitude, longitude, radiusKm, box, candidates, limit, best);
+                    }
+                }
+            }
+        }
+
+        List<Hit> hits = new ArrayList<>(best);
+        hits.sort(Comparator.comparingDouble(Hit::getDistanceKm).thenComparingLong(Hit::getAccommodationId));
+        return hits;
+    }
+
+    private static void collect(Segment s, Cell cell, double latitude, double longitude, Double radiusKm,
+                                BoundingBox box, Set<Long> candidates, int limit, PriorityQueue<Hit> best) {
+        for (int i = 0; i < cell.size; i++) {
+            int doc = cell.docs[i];
+            if (box != null && !box.contains(s.lat[doc], s.lng[doc])) {
+                continue;
+            }
+            if (candidates != null && !candidates.contains(s.ids[doc])) {
+                continue;
+            }
+            double d = distanceKm(latitude, longitude, s.lat[doc], s.lng[doc]);
+            if (radiusKm != null && d > radiusKm) {
+                continue;
+            }
+            if (best.size() < limit) {
+                best.add(new Hit(s.ids[doc], d));
+            } else if (d < best.peek().getDistanceKm()) {
+                best.poll();
+                best.add(new Hit(s.ids[doc], d));
+            }
+        }
+    }
+
+    /**
+     * 兩點的球面距離（公里）
+     */
+    public static double distanceKm(double lat1, double lng1, double lat2, double lng2) {
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLng = Math.toRadians(lng2 - lng1);
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2)) * Math.sin(dLng / 2) * Math.sin(dLng / 2);
+        return 2 * EARTH_RADIUS_KM * Math.asin(Math.min(1, Math.sqrt(a)));
+    }
+
+    private static long cellKey(int row, int col) {
+        return ((long) row << 32) | (col & 0xffffffffL);
+    }
+
+    private static void add(Segment s, Object[] row) {
+        Long id = (Long) row[0];
+        double latitude = ((BigDecimal) row[1]).doubleValue();
+        double longitude = ((BigDecimal) row[2]).doubleValue();
+        if (latitude < -90 || latitude > 90 || longitude < -180 || longitude > 180) {
+            return;
+        }
+        Integer recycled = s.free.poll();
+        int doc = recycled != null ? recycled : s.nextDoc++;
+        if (doc >= s.ids.length) {
+            int n = s.ids.length * 2;
+            s.ids = Arrays.copyOf(s.ids, n);
+            s.lat = Arrays.copyOf(s.lat, n);
+            s.lng = Arrays.copyOf(s.lng, n);
+        }
+        s.ids[doc] = id;
+        s.lat[doc] = latitude;
+        s.lng[doc] = longitude;
+        s.docOf.put(id, doc);
+
+        int r = s.row(latitude);
+        int c = s.col(longitude);
+        s.cells.computeIfAbsent(cellKey(r, c), k -> new Cell()).add(doc);
+        s.minRow = Math.min(s.minRow, r);
+        s.maxRow = Math.max(s.maxRow, r);
+        s.minCol = Math.min(s.minCol, c);
+        s.maxCol = Math.max(s.maxCol, c);
+    }
+
+    private static void remove(Segment s, Long id) {
+        Integer doc = s.docOf.remove(id);
+        if (doc == null) {
+            return;
+        }
+        long key = cellKey(s.row(s.lat[doc]), s.col(s.lng[doc]));
+        Cell cell = s.cells.get(key);
+        cell.remove(doc);
+        if (cell.size == 0) {
+            s.cells.remove(key);
+        }
+        s.free.push(doc);
+    }
+
+    public Map<String, Object> getStats() {
+        lock.readLock().lock();
+        try {
+            Map<String, Object> stats = new LinkedHashMap<>();
+            Segment s = segment;
+            stats.put("ready", s != null);
+            stats.put("accommodations", s != null ? s.docOf.size() : 0);
+            stats.put("cells", s != null ? s.cells.size() : 0);
+            stats.put("cellDegrees", cellDegrees);
+            return stats;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+}
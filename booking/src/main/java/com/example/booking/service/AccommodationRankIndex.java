@@ -0,0 +1,528 @@
+package com.example.booking.service;
+
+import com.example.booking.event.AccommodationChangedEvent;
+import com.example.booking.event.AccommodationCounterEvent;
+import com.example.booking.model.Accommodation;
+import com.example.booking.repository.AccommodationKeysetRepository.Sort;
+import com.example.booking.repository.AccommodationRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.util.*;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 住宿排序名次索引
+ * 每間住宿的排序鍵預先換算成 long（價格、評分、距離換算成「分」，熱門度以整數計算），
+ * 並為每種排序方式保存一份排好的住宿排列與「住宿 → 名次」對照。
+ * 排序一批住宿時不必再比較 BigDecimal 或重算熱門分數：
+ * 結果佔總數比例高時沿排列走一遍挑出結果，比例低時只對結果的名次（int）排序。
+ * 同值時依住宿 ID 排列，與游標分頁的排序鍵一致。
+ * 啟動時由資料庫建立，之後由住宿變更事件與訂房、評論計數事件（交易提交後）增量調整名次。
+ */
+@Service
+public class AccommodationRankIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(AccommodationRankIndex.class);
+
+    private static final Sort[] SORTS = {
+            Sort.PRICE_ASC, Sort.PRICE_DESC, Sort.RATING, Sort.POPULARITY,
+            Sort.DISTANCE, Sort.NAME_ASC, Sort.NAME_DESC};
+
+    // 沒有距離時視為 999 公里，與記憶體排序相同
+    private static final long NO_DISTANCE = 99_900;
+
+    // 結果數 * WALK_RATIO 仍小於住宿總數時，改為只排序結果的名次，不走完整個排列
+    private static final int WALK_RATIO = 8;
+
+    @Autowired
+    private AccommodationRepository accommodationRepository;
+
+    @Autowired
+    private AccommodationCounterService counterService;
+
+    @Value("${app.search.index-enabled:true}")
+    private boolean enabled = true;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private Segment segment;
+
+    private static final class Segment {
+        final Map<Long, Integer> docOf = new HashMap<>();
+        // 刪除後空出的位置，新住宿優先使用
+        final Deque<Integer> free = new ArrayDeque<>();
+
+        // 位置 → 住宿 ID 與原始排序欄位
+        long[] ids;
+        long[] priceCents;
+        int[] ratingCents;
+        int[] reviews;
+        int[] bookings;
+        long[] distanceCents;
+        String[] names;
+
+        // 排序方式 → 位置 → 排序鍵（遞增即為排序順序；名稱排序另比較 names）
+        final long[][] keys = new long[Sort.values().length][];
+        // 排序方式 → 名次 → 位置
+        final int[][] order = new int[Sort.values().length][];
+        // 排序方式 → 位置 → 名次
+        final int[][] rank = new int[Sort.values().length][];
+
+        int count;
+        int nextDoc;
+
+        Segment(int capacity) {
+            int n = Math.max(capacity, 16);
+            ids = new long[n];
+            priceCents = new long[n];
+            ratingCents = new int[n];
+            reviews = new int[n];
+            bookings = new int[n];
+            distanceCents = new long[n];
+            names = new String[n];
+            for (Sort sort : SORTS) {
+                keys[sort.ordinal()] = new long[n];
+                order[sort.ordinal()] = new int[n];
+                rank[sort.ordinal()] = new int[n];
+            }
+        }
+
+        void ensureCapacity(int doc) {
+            if (doc < ids.length) {
+                return;
+            }
+            int n = Math.max(doc + 1, ids.length * 2);
+            ids = Arrays.copyOf(ids, n);
+            priceCents = Arrays.copyOf(priceCents, n);
+            ratingCents = Arrays.copyOf(ratingCents, n);
+            reviews = Arrays.copyOf(reviews, n);
+            bookings = Arrays.copyOf(bookings, n);
+            distanceCents = Arrays.copyOf(distanceCents, n);
+            names = Arrays.copyOf(names, n);
+            for (Sort sort : SORTS) {
+                keys[sort.ordinal()] = Arrays.copyOf(keys[sort.ordinal()], n);
+                order[sort.ordinal()] = Arrays.copyOf(order[sort.ordinal()], n);
+                rank[sort.ordinal()] = Arrays.copyOf(rank[sort.ordinal()], n);
+            }
+        }
+
+        void computeKeys(int doc) {
+            for (Sort sort : SORTS) {
+                keys[sort.ordinal()][doc] = keyOf(sort, priceCents[doc], ratingCents[doc], reviews[doc],
+                        bookings[doc], distanceCents[doc]);
+            }
+        }
+
+        int compare(Sort sort, int a, int b) {
+            return compareKeys(sort, keys[sort.ordinal()][a], names[a], ids[a],
+                    keys[sort.ordinal()][b], names[b], ids[b]);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onReady() {
+        if (enabled) {
+            rebuild();
+        }
+    }
+
+    @Scheduled(cron = "${app.search.rebuild-cron:0 15 0 * * *}")
+    public void scheduledRebuild() {
+        if (enabled) {
+            rebuild();
+        }
+    }
+
+    /**
+     * 由資料庫重建整份索引
+     */
+    public void rebuild() {
+        long start = System.nanoTime();
+        load(counterService.readConsistent(() -> withPending(accommodationRepository.findRankFields())));
+        logger.info("排序名次索引重建完成：{}，耗時 {} ms", getStats(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * 以 [id, 名稱, 每晚價格, 評分, 評論數, 訂房次數, 距離] 列建立新索引並替換
+     */
+    void load(List<Object[]> rows) {
+        Segment fresh = new Segment(rows.size());
+        for (Object[] row : rows) {
+            int doc = fresh.nextDoc++;
+            fresh.ensureCapacity(doc);
+            fresh.docOf.put((Long) row[0], doc);
+            setFields(fresh, doc, row);
+        }
+        fresh.count = fresh.nextDoc;
+
+        Integer[] docs = new Integer[fresh.count];
+        for (Sort sort : SORTS) {
+            for (int i = 0; i < docs.length; i++) {
+                docs[i] = i;
+            }
+            Arrays.sort(docs, (a, b) -> fresh.compare(sort, a, b));
+            int[] order = fresh.order[sort.ordinal()];
+            int[] rank = fresh.rank[sort.ordinal()];
+            for (int i = 0; i < docs.length; i++) {
+                order[i] = docs[i];
+                rank[docs[i]] = i;
+            }
+        }
+
+        lock.writeLock().lock();
+        try {
+            segment = fresh;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public boolean isReady() {
+        lock.readLock().lock();
+        try {
+            return segment != null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onAccommodationChanged(AccommodationChangedEvent event) {
+        if (!isReady()) {
+            return;
+        }
+        List<Object[]> rows = counterService.readConsistent(() ->
+                withPending(accommodationRepository.findRankFieldsById(event.getAccommodationId())));
+        lock.writeLock().lock();
+        try {
+            Segment s = segment;
+            Integer doc = s.docOf.get(event.getAccommodationId());
+            if (rows.isEmpty()) {
+                if (doc != null) {
+                    remove(s, doc);
+                }
+                return;
+            }
+            if (doc == null) {
+                add(s, rows.get(0));
+                return;
+            }
+            // 已收錄的住宿：計數由計數事件即時調整，保留記憶體中的值，只更新住宿本身的欄位
+            int reviews = s.reviews[doc];
+            int bookings = s.bookings[doc];
+            detachAll(s, doc);
+            setFields(s, doc, rows.get(0));
+            s.reviews[doc] = reviews;
+            s.bookings[doc] = bookings;
+            s.computeKeys(doc);
+            attachAll(s, doc, s.count - 1);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 訂房與評論數變動會改變熱門度與評分排序，直接調整名次，不等計數寫回資料庫
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCounterEvent(AccommodationCounterEvent event) {
+        if (event.getCounter() == AccommodationCounterEvent.Counter.FAVORITES || !isReady()) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            Segment s = segment;
+            Integer doc = s.docOf.get(event.getAccommodationId());
+            if (doc == null) {
+                return;
+            }
+            detachAll(s, doc);
+            if (event.getCounter() == AccommodationCounterEvent.Counter.BOOKINGS) {
+                s.bookings[doc] = Math.max(0, s.bookings[doc] + event.getDelta());
+            } else {
+                s.reviews[doc] = Math.max(0, s.reviews[doc] + event.getDelta());
+            }
+            s.computeKeys(doc);
+            attachAll(s, doc, s.count - 1);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 依排序方式排列住宿；索引尚未建立或有住宿尚未收錄時回傳 null，由呼叫端改用比較器排序
+     */
+    public List<Accommodation> sort(List<Accommodation> accommodations, Sort sort) {
+        if (sort == Sort.DEFAULT) {
+            return accommodations;
+        }
+        lock.readLock().lock();
+        try {
+            Segment s = segment;
+            if (s == null) {
+                return null;
+            }
+            int k = accommodations.size();
+            int[] docs = new int[k];
+            for (int i = 0; i < k; i++) {
+                Integer doc = s.docOf.get(accommodations.get(i).getId());
+                if (doc == null) {
+                    return null;
+                }
+                docs[i] = doc;
+            }
+
+            List<Accommodation> sorted = new ArrayList<>(k);
+            if ((long) k * WALK_RATIO < s.count) {
+                // 結果少：名次（高 32 位）與結果索引（低 32 位）合成 long 後排序
+                int[] rank = s.rank[sort.ordinal()];
+                long[] packed = new long[k];
+                for (int i = 0; i < k; i++) {
+                    packed[i] = ((long) rank[docs[i]] << 32) | i;
+                }
+                Arrays.sort(packed);
+                for (long p : packed) {
+                    sorted.add(accommodations.get((int) p));
+                }
+                return sorted;
+            }
+
+            // 結果多：沿排列走一遍，找齊所有結果即停止
+            Accommodation[] byDoc = new Accommodation[s.ids.length];
+            for (int i = 0; i < k; i++) {
+                if (byDoc[docs[i]] != null) {
+                    return null;
+                }
+                byDoc[docs[i]] = accommodations.get(i);
+            }
+            int[] order = s.order[sort.ordinal()];
+            for (int r = 0; r < s.count && sorted.size() < k; r++) {
+                Accommodation acc = byDoc[order[r]];
+                if (acc != null) {
+                    sorted.add(acc);
+                }
+            }
+            return sorted;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 游標分頁：在候選住宿中取排在 after 之後的前 max 筆 ID
+     * 沿排列找到 max 筆即停止，不排序整批候選
+     *
+     * @param after 上一頁最後一筆的排序鍵值（Sort.parse 的結果），第一頁為 null
+     * @return 住宿 ID；索引尚未建立或有候選住宿尚未收錄時回傳 null
+     */
+    public List<Long> page(Sort sort, Object[] after, Collection<Long> candidates, int max) {
+        if (sort == Sort.DEFAULT) {
+            return null;
+        }
+        lock.readLock().lock();
+        try {
+            Segment s = segment;
+            if (s == null) {
+                return null;
+            }
+            int[] rank = s.rank[sort.ordinal()];
+            int[] order = s.order[sort.ordinal()];
+            int start = after != null ? firstAfter(s, sort, after) : 0;
+
+            int[] candidateRanks = new int[candidates.size()];
+            int n = 0;
+            for (Long id : candidates) {
+                Integer doc = s.docOf.get(id);
+                if (doc == null) {
+                    return null;
+                }
+                if (rank[doc] >= start) {
+                    candidateRanks[n++] = rank[doc];
+                }
+            }
+
+            List<Long> ids = new ArrayList<>(Math.min(max, n));
+            if ((long) n * WALK_RATIO < s.count - start) {
+                Arrays.sort(candidateRanks, 0, n);
+                for (int i = 0; i < n && ids.size() < max; i++) {
+                    ids.add(s.ids[order[candidateRanks[i]]]);
+                }
+                return ids;
+            }
+            BitSet marked = new BitSet(s.count);
+            for (int i = 0; i < n; i++) {
+                marked.set(candidateRanks[i]);
+            }
+            for (int r = marked.nextSetBit(start); r >= 0 && ids.size() < max; r = marked.nextSetBit(r + 1)) {
+                ids.add(s.ids[order[r]]);
+            }
+            return ids;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // 第一個排在游標之後的名次（二分搜尋）
+    private static int firstAfter(Segment s, Sort sort, Object[] after) {
+        long key = cursorKey(sort, after);
+        String name = sort == Sort.NAME_ASC || sort == Sort.NAME_DESC ? (String) after[0] : null;
+        long id = (Long) after[after.length - 1];
+
+        long[] keys = s.keys[sort.ordinal()];
+        int[] order = s.order[sort.ordinal()];
+        int lo = 0;
+        int hi = s.count;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            int doc = order[mid];
+            if (compareKeys(sort, keys[doc], s.names[doc], s.ids[doc], key, name, id) <= 0) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    // 游標中的排序鍵值（單位與 AccommodationKeysetRepository 相同）換算成索引的 long 排序鍵
+    private static long cursorKey(Sort sort, Object[] after) {
+        try {
+            return switch (sort) {
+                case PRICE_ASC, PRICE_DESC -> keyOf(sort, MoneyCents.of((BigDecimal) after[0]), 0, 0, 0, 0);
+                case RATING -> keyOf(sort, 0, (int) MoneyCents.of((BigDecimal) after[0]), (Integer) after[1], 0, 0);
+                // 資料庫的熱門分數為 訂房次數 * 7 + 評分 * 評論數 * 3，索引再乘 100 以「分」計算評分
+                case POPULARITY -> -MoneyCents.of((BigDecimal) after[0]);
+                case DISTANCE -> keyOf(sort, 0, 0, 0, 0, MoneyCents.of((BigDecimal) after[0]));
+                default -> 0;
+            };
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("分頁游標無效");
+        }
+    }
+
+    // 各排序方式的 long 排序鍵，遞增即為排序順序
+    private static long keyOf(Sort sort, long priceCents, int ratingCents, int reviews, int bookings, long distanceCents) {
+        return switch (sort) {
+            case PRICE_ASC -> priceCents;
+            case PRICE_DESC -> -priceCents;
+            // 評分高到低，同分時評論多的在前
+            case RATING -> -(((long) ratingCents << 32) | reviews);
+            // 訂房次數 * 0.7 + 評分 * 評論數 * 0.3，整體乘以 1000 後以整數計算
+            case POPULARITY -> -((long) bookings * 700 + (long) ratingCents * reviews * 3);
+            case DISTANCE -> distanceCents;
+            default -> 0;
+        };
+    }
+
+    private static int compareKeys(Sort sort, long keyA, String nameA, long idA, long keyB, String nameB, long idB) {
+        int c = switch (sort) {
+            case NAME_ASC -> String.CASE_INSENSITIVE_ORDER.compare(nameA, nameB);
+            case NAME_DESC -> String.CASE_INSENSITIVE_ORDER.compare(nameB, nameA);
+            default -> Long.compare(keyA, keyB);
+        };
+        return c != 0 ? c : Long.compare(idA, idB);
+    }
+
+    // 資料庫的評論與訂房次數加上尚未寫回的增量；須在 counterService.readConsistent 內呼叫
+    private List<Object[]> withPending(List<Object[]> rows) {
+        List<Object[]> merged = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            long[] pending = counterService.pendingFor((Long) row[0]);
+            Object[] copy = row.clone();
+            copy[4] = (row[4] != null ? (Integer) row[4] : 0)
+                    + (int) pending[AccommodationCounterEvent.Counter.REVIEWS.ordinal()];
+            copy[5] = (row[5] != null ? (Integer) row[5] : 0)
+                    + (int) pending[AccommodationCounterEvent.Counter.BOOKINGS.ordinal()];
+            merged.add(copy);
+        }
+        return merged;
+    }
+
+    private static void setFields(Segment s, int doc, Object[] row) {
+        s.ids[doc] = (Long) row[0];
+        s.names[doc] = row[1] != null ? (String) row[1] : "";
+        s.priceCents[doc] = MoneyCents.of((BigDecimal) row[2]);
+        s.ratingCents[doc] = (int) MoneyCents.of((BigDecimal) row[3]);
+        s.reviews[doc] = row[4] != null ? Math.max(0, (Integer) row[4]) : 0;
+        s.bookings[doc] = row[5] != null ? Math.max(0, (Integer) row[5]) : 0;
+        s.distanceCents[doc] = row[6] != null ? MoneyCents.of((BigDecimal) row[6]) : NO_DISTANCE;
+        s.computeKeys(doc);
+    }
+
+    private static void add(Segment s, Object[] row) {
+        Integer recycled = s.free.poll();
+        int doc = recycled != null ? recycled : s.nextDoc++;
+        s.ensureCapacity(doc);
+        s.docOf.put((Long) row[0], doc);
+        setFields(s, doc, row);
+        attachAll(s, doc, s.count);
+        s.count++;
+    }
+
+    private static void remove(Segment s, int doc) {
+        detachAll(s, doc);
+        s.count--;
+        s.docOf.remove(s.ids[doc]);
+        s.names[doc] = null;
+        s.free.push(doc);
+    }
+
+    // 從每個排列移除住宿（移除前排列長度為 count）
+    private static void detachAll(Segment s, int doc) {
+        for (Sort sort : SORTS) {
+            int[] order = s.order[sort.ordinal()];
+            int[] rank = s.rank[sort.ordinal()];
+            int r = rank[doc];
+            System.arraycopy(order, r + 1, order, r, s.count - r - 1);
+            for (int i = r; i < s.count - 1; i++) {
+                rank[order[i]] = i;
+            }
+        }
+    }
+
+    // 依排序鍵將住宿插入每個排列，length 為插入前的排列長度
+    private static void attachAll(Segment s, int doc, int length) {
+        for (Sort sort : SORTS) {
+            int[] order = s.order[sort.ordinal()];
+            int[] rank = s.rank[sort.ordinal()];
+            int lo = 0;
+            int hi = length;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (s.compare(sort, order[mid], doc) < 0) {
+                    lo = mid + 1;
+                } else {
+                    hi = mid;
+                }
+            }
+            System.arraycopy(order, lo, order, lo + 1, length - lo);
+            order[lo] = doc;
+            for (int i = lo; i <= length; i++) {
+                rank[order[i]] = i;
+            }
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        lock.readLock().lock();
+        try {
+            Map<String, Object> stats = new LinkedHashMap<>();
+            Segment s = segment;
+            stats.put("ready", s != null);
+            stats.put("accommodations", s != null ? s.count : 0);
+            stats.put("sorts", SORTS.length);
+            return stats;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+}
@@ -0,0 +1,447 @@
+package com.example.booking.service;
+
+import com.example.booking.event.AccommodationChangedEvent;
+import com.example.booking.repository.AccommodationRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.text.Normalizer;
+import java.util.*;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 住宿關鍵字倒排索引
+ * 名稱、地點、地址、附近景點與設施斷詞後建成「詞 → 住宿」的倒排表（遞增的 int 陣列），
+ * 查詢只需取出查詢詞的倒排表求交集並計分，不必載入所有住宿逐筆比對字串。
+ * 中日韓文字以單字與相鄰兩字（bigram）斷詞，英數字以整個單字斷詞，查詢的英數詞以前綴比對。
+ * 啟動時由資料庫建立，之後由住宿新增、修改、刪除事件（交易提交後）增量更新，每日凌晨重建以回收作廢的編號。
+ */
+@Service
+public class AccommodationSearchIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(AccommodationSearchIndex.class);
+
+    // 欄位權重，依 findSearchFields 的欄位順序：名稱、地點、地址、附近景點、設施
+    private static final int[] FIELD_WEIGHTS = {8, 6, 3, 3, 2};
+
+    // 英數前綴最多展開的詞數，避免一兩個字母的查詢合併大量倒排表
+    private static final int MAX_PREFIX_TERMS = 64;
+
+    @Autowired
+    private AccommodationRepository accommodationRepository;
+
+    @Value("${app.search.index-enabled:true}")
+    private boolean enabled = true;
+
+    // 查詢取讀鎖，增量更新與重建取寫鎖
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private Segment segment;
+
+    /**
+     * 單一詞的倒排表：文件編號遞增排列，weights 為該詞在文件中的欄位權重總和
+     */
+    static final class Postings {
+        int[] docs = new int[4];
+        int[] weights = new int[4];
+        int size;
+
+        // 新文件的編號一定最大，直接追加在尾端
+        void append(int doc, int weight) {
+            if (size == docs.length) {
+                docs = Arrays.copyOf(docs, size * 2);
+                weights = Arrays.copyOf(weights, size * 2);
+            }
+            docs[size] = doc;
+            weights[size] = weight;
+            size++;
+        }
+
+        void remove(int doc) {
+            int i = Arrays.binarySearch(docs, 0, size, doc);
+            if (i >= 0) {
+                System.arraycopy(docs, i + 1, docs, i, size - i - 1);
+                System.arraycopy(weights, i + 1, weights, i, size - i - 1);
+                size--;
+            }
+        }
+
+        /**
+         * 自 from 起以倍增再二分的方式找 doc，找不到時回傳 -(插入點 + 1)
+         */
+        int seek(int doc, int from) {
+            int bound = 1;
+            while (from + bound < size && docs[from + bound] < doc) {
+                bound <<= 1;
+            }
+            return Arrays.binarySearch(docs, from + (bound >> 1), Math.min(from + bound + 1, size), doc);
+        }
+    }
+
+    /**
+     * 整份索引狀態；重建時建好新的一份再整份替換
+     */
+    private static final class Segment {
+        // 詞典依字典序排列，英數前綴以 tailMap 展開
+        final TreeMap<String, Postings> dictionary = new TreeMap<>();
+        // 文件編號 → 住宿 ID；住宿修改時給新編號、舊編號作廢，倒排表只需在尾端追加
+        long[] accommodationIds = new long[1024];
+        int nextDoc;
+        final Map<Long, Integer> docOf = new HashMap<>();
+        // 文件編號 → 該文件的詞，刪除時據此移出倒排表
+        final Map<Integer, String[]> docTerms = new HashMap<>();
+        long postings;
+    }
+
+    /**
+     * 查詢詞：英數詞以前綴比對，中日韓詞須完全相同
+     */
+    static final class QueryTerm {
+        final String text;
+        final boolean prefix;
+
+        QueryTerm(String text, boolean prefix) {
+            this.text = text;
+            this.prefix = prefix;
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onReady() {
+        if (enabled) {
+            rebuild();
+        }
+    }
+
+    // 每日凌晨重建，回收住宿修改後作廢的文件編號
+    @Scheduled(cron = "${app.search.rebuild-cron:0 15 0 * * *}")
+    public void scheduledRebuild() {
+        if (enabled) {
+            rebuild();
+        }
+    }
+
+    /**
+     * 由資料庫重建整份索引
+     */
+    public void rebuild() {
+        long start = System.nanoTime();
+        load(accommodationRepository.findSearchFields());
+        Map<String, Object> stats = getStats();
+        logger.info("關鍵字索引重建完成：{} 間住宿、{} 個詞，耗時 {} ms",
+                stats.get("accommodations"), stats.get("terms"), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * 以 [id, 名稱, 地點, 地址, 附近景點, 設施] 列建立新索引並替換
+     */
+    void load(List<Object[]> rows) {
+        Segment fresh = new Segment();
+        for (Object[] row : rows) {
+            add(fresh, row);
+        }
+        lock.writeLock().lock();
+        try {
+            segment = fresh;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public boolean isReady() {
+        lock.readLock().lock();
+        try {
+            return segment != null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onAccommodationChanged(AccommodationChangedEvent event) {
+        if (!isReady()) {
+            return;
+        }
+        List<Object[]> rows = accommodationRepository.findSearchFieldsById(event.getAccommodationId());
+        lock.writeLock().lock();
+        try {
+            remove(segment, event.getAccommodationId());
+            if (!rows.isEmpty()) {
+                add(segment, rows.get(0));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private static void add(Segment s, Object[] row) {
+        Long accommodationId = (Long) row[0];
+        Map<String, Integer> termWeights = new HashMap<>();
+        for (int f = 0; f < FIELD_WEIGHTS.length; f++) {
+            for (String term : tokenize((String) row[f + 1])) {
+                termWeights.merge(term, FIELD_WEIGHTS[f], Integer::sum);
+            }
+        }
+
+        int doc = s.nextDoc++;
+        if (doc == s.accommodationIds.length) {
+            s.accommodationIds = Arrays.copyOf(s.accommodationIds, doc * 2);
+        }
+        s.accommodationIds[doc] = accommodationId;
+        s.docOf.put(accommodationId, doc);
+        s.docTerms.put(doc, termWeights.keySet().toArray(new String[0]));
+        termWeights.forEach((term, weight) ->
+                s.dictionary.computeIfAbsent(term, t -> new Postings()).append(doc, weight));
+        s.postings += termWeights.size();
+    }
+
+    private static void remove(Segment s, Long accommodationId) {
+        Integer doc = s.docOf.remove(accommodationId);
+        if (doc == null) {
+            return;
+        }
+        for (String term : s.docTerms.remove(doc)) {
+            Postings p = s.dictionary.get(term);
+            p.remove(doc);
+            if (p.size == 0) {
+                s.dictionary.remove(term);
+            }
+            s.postings--;
+        }
+    }
+
+    /**
+     * 依關聯度由高到低回傳符合所有查詢詞的住宿 ID
+     */
+    public List<Long> search(String query) {
+        List<QueryTerm> terms = parseQuery(query);
+        if (terms.isEmpty()) {
+            return List.of();
+        }
+
+        lock.readLock().lock();
+        try {
+            Segment s = segment;
+            if (s == null) {
+                return List.of();
+            }
+            int live = s.docOf.size();
+            Postings[] lists = new Postings[terms.size()];
+            for (int t = 0; t < lists.length; t++) {
+                lists[t] = lookup(s, terms.get(t));
+                if (lists[t].size == 0) {
+                    return List.of();
+                }
+            }
+            // 由最短的倒排表開始求交集
+            Arrays.sort(lists, Comparator.comparingInt(p -> p.size));
+
+            Postings first = lists[0];
+            int[] candidates = Arrays.copyOf(first.docs, first.size);
+            double[] scores = new double[first.size];
+            double firstIdf = idf(live, first.size);
+            for (int i = 0; i < first.size; i++) {
+                scores[i] = first.weights[i] * firstIdf;
+            }
+            int count = first.size;
+
+            for (int t = 1; t < lists.length && count > 0; t++) {
+                Postings p = lists[t];
+                double termIdf = idf(live, p.size);
+                int kept = 0;
+                int pos = 0;
+                for (int i = 0; i < count && pos < p.size; i++) {
+                    int found = p.seek(candidates[i], pos);
+                    if (found >= 0) {
+                        candidates[kept] = candidates[i];
+                        scores[kept] = scores[i] + p.weights[found] * termIdf;
+                        kept++;
+                        pos = found + 1;
+                    } else {
+                        pos = -found - 1;
+                    }
+                }
+                count = kept;
+            }
+
+            Integer[] order = new Integer[count];
+            for (int i = 0; i < count; i++) {
+                order[i] = i;
+            }
+            long[] ids = s.accommodationIds;
+            int[] docs = candidates;
+            double[] sc = scores;
+            Arrays.sort(order, (a, b) -> {
+                int c = Double.compare(sc[b], sc[a]);
+                return c != 0 ? c : Long.compare(ids[docs[a]], ids[docs[b]]);
+            });
+            List<Long> result = new ArrayList<>(count);
+            for (Integer i : order) {
+                result.add(ids[docs[i]]);
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // 詞越少見權重越高
+    private static double idf(int live, int df) {
+        return Math.log(1.0 + (double) live / df);
+    }
+
+    private static Postings lookup(Segment s, QueryTerm term) {
+        Postings exact = s.dictionary.get(term.text);
+        if (!term.prefix) {
+            return exact != null ? exact : new Postings();
+        }
+
+        // 前綴展開：合併所有以此開頭的詞，完全相同的詞保留全部權重，其餘折半
+        List<long[]> pairs = new ArrayList<>();
+        int expanded = 0;
+        int total = 0;
+        for (Map.Entry<String, Postings> e : s.dictionary.tailMap(term.text, true).entrySet()) {
+            if (!e.getKey().startsWith(term.text) || expanded++ >= MAX_PREFIX_TERMS) {
+                break;
+            }
+            Postings p = e.getValue();
+            boolean same = e.getValue() == exact;
+            long[] packed = new long[p.size];
+            for (int i = 0; i < p.size; i++) {
+                int w = same ? p.weights[i] * 2 : p.weights[i];
+                packed[i] = ((long) p.docs[i] << 32) | w;
+            }
+            pairs.add(packed);
+            total += p.size;
+        }
+        if (pairs.size() == 1 && exact != null) {
+            return exact;
+        }
+
+        long[] all = new long[total];
+        int n = 0;
+        for (long[] packed : pairs) {
+            System.arraycopy(packed, 0, all, n, packed.length);
+            n += packed.length;
+        }
+        Arrays.sort(all);
+        Postings merged = new Postings();
+        for (int i = 0; i < all.length; ) {
+            int doc = (int) (all[i] >>> 32);
+            int best = 0;
+            while (i < all.length && (int) (all[i] >>> 32) == doc) {
+                best = Math.max(best, (int) all[i]);
+                i++;
+            }
+            // 前綴命中的權重已乘 2 比較，這裡換回原本的尺度
+            merged.append(doc, Math.max(1, best / 2));
+        }
+        return merged;
+    }
+
+    // === 斷詞 ===
+
+    /**
+     * 建索引用的斷詞：中日韓文字產生單字與相鄰兩字，英數字以整個單字為一個詞
+     */
+    static List<String> tokenize(String text) {
+        List<String> terms = new ArrayList<>();
+        forEachRun(text, (run, cjk) -> {
+            if (!cjk) {
+                terms.add(run);
+                return;
+            }
+            for (int i = 0; i < run.length(); i++) {
+                terms.add(run.substring(i, i + 1));
+                if (i + 1 < run.length()) {
+                    terms.add(run.substring(i, i + 2));
+                }
+            }
+        });
+        return terms;
+    }
+
+    /**
+     * 查詢用的斷詞：中日韓連續兩字以上只用兩字詞（等同子字串比對），單一字才用單字詞
+     */
+    static List<QueryTerm> parseQuery(String query) {
+        // 詞 → 是否前綴比對，重複的詞只保留一次
+        Map<String, Boolean> terms = new LinkedHashMap<>();
+        forEachRun(query, (run, cjk) -> {
+            if (!cjk) {
+                terms.put(run, true);
+            } else if (run.length() == 1) {
+                terms.put(run, false);
+            } else {
+                for (int i = 0; i + 1 < run.length(); i++) {
+                    terms.put(run.substring(i, i + 2), false);
+                }
+            }
+        });
+        List<QueryTerm> result = new ArrayList<>(terms.size());
+        terms.forEach((text, prefix) -> result.add(new QueryTerm(text, prefix)));
+        return result;
+    }
+
+    private interface RunConsumer {
+        void accept(String run, boolean cjk);
+    }
+
+    // 將文字正規化（全形轉半形、轉小寫）後切成連續的中日韓字串或英數字串，其他字元視為分隔
+    private static void forEachRun(String text, RunConsumer consumer) {
+        if (text == null || text.isBlank()) {
+            return;
+        }
+        String normalized = Normalizer.normalize(text, Normalizer.Form.NFKC).toLowerCase(Locale.ROOT);
+        int start = -1;
+        boolean runCjk = false;
+        int i = 0;
+        while (i <= normalized.length()) {
+            int cp = i < normalized.length() ? normalized.codePointAt(i) : ' ';
+            boolean cjk = isCjk(cp);
+            boolean word = cjk || Character.isLetterOrDigit(cp);
+            if (start >= 0 && (!word || cjk != runCjk)) {
+                consumer.accept(normalized.substring(start, i), runCjk);
+                start = -1;
+            }
+            if (word && start < 0) {
+                start = i;
+                runCjk = cjk;
+            }
+            i += i < normalized.length() ? Character.charCount(cp) : 1;
+        }
+    }
+
+    private static boolean isCjk(int cp) {
+        Character.UnicodeScript script = Character.UnicodeScript.of(cp);
+        return script == Character.UnicodeScript.HAN
+                || script == Character.UnicodeScript.HIRAGANA
+                || script == Character.UnicodeScript.KATAKANA
+                || script == Character.UnicodeScript.HANGUL;
+    }
+
+    // === 監控 ===
+
+    public Map<String, Object> getStats() {
+        lock.readLock().lock();
+        try {
+            Map<String, Object> stats = new LinkedHashMap<>();
+            Segment s = segment;
+            stats.put("ready", s != null);
+            stats.put("accommodations", s != null ? s.docOf.size() : 0);
+            stats.put("terms", s != null ? s.dictionary.size() : 0);
+            stats.put("postings", s != null ? s.postings : 0);
+            stats.put("retiredDocs", s != null ? s.nextDoc - s.docOf.size() : 0);
+            return stats;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+}
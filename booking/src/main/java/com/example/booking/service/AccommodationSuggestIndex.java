@@ -0,0 +1,506 @@
+package com.example.booking.service;
+
+import com.example.booking.dto.SuggestionDTO;
+import com.example.booking.event.AccommodationChangedEvent;
+import com.example.booking.event.AccommodationCounterEvent;
+import com.example.booking.repository.AccommodationRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.text.Normalizer;
+import java.util.*;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 搜尋框自動完成索引（前綴樹）
+ * 住宿名稱、地點與附近景點各自成為一個建議詞，正規化（全形轉半形、轉小寫）後放進前綴樹；
+ * 多個字組成的詞另以每個字（英數單字或中日韓字串）開頭的後綴放入，例如「台北101」也可由「101」找到。
+ * 每個節點預先算好熱門度最高的前 K 個建議，查詢只需沿輸入走到對應節點直接取出，與住宿數量無關。
+ * 建議詞的熱門度為所屬住宿熱門度（訂房次數 * 0.7 + 評分 * 評論數 * 0.3，再加 1）的總和。
+ * 啟動時由資料庫建立，之後由住宿新增、修改、刪除與訂房、評論計數事件增量更新受影響的路徑。
+ */
+@Service
+public class AccommodationSuggestIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(AccommodationSuggestIndex.class);
+
+    public static final String NAME = "NAME";
+    public static final String LOCATION = "LOCATION";
+    public static final String ATTRACTION = "ATTRACTION";
+
+    // 查詢字串上限，超過的部分不可能再比對到建議詞
+    private static final int MAX_QUERY_LENGTH = 100;
+
+    private static final Phrase[] NO_PHRASES = new Phrase[0];
+
+    @Autowired
+    private AccommodationRepository accommodationRepository;
+
+    @Autowired
+    private AccommodationCounterService counterService;
+
+    @Value("${app.search.index-enabled:true}")
+    private boolean enabled = true;
+
+    // 每個節點保留的建議數，也是單次查詢可取得的上限
+    @Value("${app.suggest.top-k:10}")
+    private int topK = 10;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private Segment segment;
+
+    /**
+     * 建議詞：同類型且正規化後相同的文字合併為一個，熱門度為所屬住宿的總和
+     */
+    private static final class Phrase {
+        final String text;
+        final String type;
+        final String[] keys;
+        // 住宿 ID → 該住宿的熱門度
+        final Map<Long, Double> accommodations = new HashMap<>();
+        double score;
+
+        Phrase(String text, String type, String[] keys) {
+            this.text = text;
+            this.type = type;
+            this.keys = keys;
+        }
+    }
+
+    private static final Comparator<Phrase> BY_SCORE = Comparator.<Phrase>comparingDouble(p -> -p.score)
+            .thenComparing(p -> p.text)
+            .thenComparing(p -> p.type);
+
+    /**
+     * 前綴樹節點：子節點依字元排序，top 為此前綴下熱門度最高的前 K 個建議詞
+     */
+    private static final class Node {
+        char[] labels = new char[0];
+        Node[] children = new Node[0];
+        // 以此節點結尾的建議詞
+        List<Phrase> terminals;
+        Phrase[] top = NO_PHRASES;
+
+        Node child(char c) {
+            int i = Arrays.binarySearch(labels, c);
+            return i >= 0 ? children[i] : null;
+        }
+
+        Node childOrCreate(char c, Segment s) {
+            int i = Arrays.binarySearch(labels, c);
+            if (i >= 0) {
+                return children[i];
+            }
+            int at = -i - 1;
+            char[] newLabels = new char[labels.length + 1];
+            Node[] newChildren = new Node[children.length + 1];
+            System.arraycopy(labels, 0, newLabels, 0, at);
+            System.arraycopy(children, 0, newChildren, 0, at);
+            newLabels[at] = c;
+            newChildren[at] = new Node();
+            System.arraycopy(labels, at, newLabels, at + 1, labels.length - at);
+            System.arraycopy(children, at, newChildren, at + 1, children.length - at);
+            labels = newLabels;
+            children = newChildren;
+            s.nodes++;
+            return newChildren[at];
+        }
+    }
+
+    /**
+     * 每間住宿的熱門度欄位與所屬建議詞，計數變動時據此重算
+     */
+    private static final class Listing {
+        int bookings;
+        double rating;
+        int reviews;
+        List<Phrase> phrases = new ArrayList<>();
+
+        double popularity() {
+            return bookings * 0.7 + rating * reviews * 0.3 + 1;
+        }
+    }
+
+    private static final class Segment {
+        final Node root = new Node();
+        // 類型 + 正規化文字 → 建議詞
+        final Map<String, Phrase> phrases = new HashMap<>();
+        final Map<Long, Listing> listings = new HashMap<>();
+        int nodes = 1;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onReady() {
+        if (enabled) {
+            rebuild();
+        }
+    }
+
+    // 每日凌晨重建，清除刪除建議詞後留下的空節點
+    @Scheduled(cron = "${app.search.rebuild-cron:0 15 0 * * *}")
+    public void scheduledRebuild() {
+        if (enabled) {
+            rebuild();
+        }
+    }
+
+    /**
+     * 由資料庫重建整份索引
+     */
+    public void rebuild() {
+        long start = System.nanoTime();
+        load(counterService.readConsistent(() -> withPending(accommodationRepository.findSuggestFields())));
+        logger.info("自動完成索引重建完成：{}，耗時 {} ms", getStats(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * 以 [id, 名稱, 地點, 附近景點, 訂房次數, 評分, 評論數] 列建立新索引並替換
+     */
+    void load(List<Object[]> rows) {
+        Segment fresh = new Segment();
+        for (Object[] row : rows) {
+            add(fresh, row);
+        }
+        for (Phrase phrase : fresh.phrases.values()) {
+            for (String key : phrase.keys) {
+                Node node = fresh.root;
+                for (int i = 0; i < key.length(); i++) {
+                    node = node.childOrCreate(key.charAt(i), fresh);
+                }
+                if (node.terminals == null) {
+                    node.terminals = new ArrayList<>(1);
+                }
+                node.terminals.add(phrase);
+            }
+        }
+        for (Node child : fresh.root.children) {
+            computeTopRecursively(child);
+        }
+        lock.writeLock().lock();
+        try {
+            segment = fresh;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public boolean isReady() {
+        lock.readLock().lock();
+        try {
+            return segment != null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onAccommodationChanged(AccommodationChangedEvent event) {
+        if (!isReady()) {
+            return;
+        }
+        List<Object[]> rows = counterService.readConsistent(() ->
+                withPending(accommodationRepository.findSuggestFieldsById(event.getAccommodationId())));
+        lock.writeLock().lock();
+        try {
+            Listing previous = segment.listings.get(event.getAccommodationId());
+            Set<Phrase> touched = new HashSet<>(remove(segment, event.getAccommodationId()));
+            if (!rows.isEmpty()) {
+                Object[] row = rows.get(0);
+                if (previous != null) {
+                    // 已收錄的住宿：計數由計數事件即時調整，保留記憶體中的值，只更新住宿本身的欄位
+                    row[4] = previous.bookings;
+                    row[6] = previous.reviews;
+                }
+                touched.addAll(add(segment, row));
+            }
+            refresh(segment, touched);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 訂房與評論數變動會改變建議詞的熱門度，直接重算受影響的路徑，不等計數寫回資料庫
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCounterEvent(AccommodationCounterEvent event) {
+        if (event.getCounter() == AccommodationCounterEvent.Counter.FAVORITES || !isReady()) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            Listing listing = segment.listings.get(event.getAccommodationId());
+            if (listing == null) {
+                return;
+            }
+            if (event.getCounter() == AccommodationCounterEvent.Counter.BOOKINGS) {
+                listing.bookings = Math.max(0, listing.bookings + event.getDelta());
+            } else {
+                listing.reviews = Math.max(0, listing.reviews + event.getDelta());
+            }
+            double popularity = listing.popularity();
+            for (Phrase phrase : listing.phrases) {
+                Double old = phrase.accommodations.put(event.getAccommodationId(), popularity);
+                phrase.score += popularity - (old != null ? old : 0);
+            }
+            refresh(segment, listing.phrases);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 依熱門度回傳以輸入開頭的建議
+     * @param query 使用者目前輸入的文字
+     * @param limit 最多筆數，不超過每個節點保留的建議數
+     */
+    public List<SuggestionDTO> suggest(String query, int limit) {
+        String key = normalize(query);
+        if (key.isEmpty() || key.length() > MAX_QUERY_LENGTH || limit <= 0) {
+            return List.of();
+        }
+        lock.readLock().lock();
+        try {
+            Segment s = segment;
+            if (s == null) {
+                return List.of();
+            }
+            Node node = s.root;
+            for (int i = 0; i < key.length() && node != null; i++) {
+                node = node.child(key.charAt(i));
+            }
+            if (node == null) {
+                return List.of();
+            }
+            int n = Math.min(limit, node.top.length);
+            List<SuggestionDTO> result = new ArrayList<>(n);
+            for (int i = 0; i < n; i++) {
+                Phrase p = node.top[i];
+                Long only = p.accommodations.size() == 1 && NAME.equals(p.type)
+                        ? p.accommodations.keySet().iterator().next()
+                        : null;
+                result.add(new SuggestionDTO(p.text, p.type, p.accommodations.size(), only));
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int getTopK() {
+        return topK;
+    }
+
+    // === 建立與更新 ===
+
+    // 資料庫的訂房與評論數加上尚未寫回的增量；須在 counterService.readConsistent 內呼叫
+    private List<Object[]> withPending(List<Object[]> rows) {
+        List<Object[]> merged = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            long[] pending = counterService.pendingFor((Long) row[0]);
+            Object[] copy = row.clone();
+            copy[4] = (row[4] != null ? ((Number) row[4]).intValue() : 0)
+                    + (int) pending[AccommodationCounterEvent.Counter.BOOKINGS.ordinal()];
+            copy[6] = (row[6] != null ? ((Number) row[6]).intValue() : 0)
+                    + (int) pending[AccommodationCounterEvent.Counter.REVIEWS.ordinal()];
+            merged.add(copy);
+        }
+        return merged;
+    }
+
+    // 加入一間住宿的建議詞，回傳此住宿所屬的建議詞；新的建議詞只放進詞表，前綴樹由呼叫端更新
+    private static List<Phrase> add(Segment s, Object[] row) {
+        Long accommodationId = (Long) row[0];
+        Listing listing = new Listing();
+        listing.bookings = row[4] != null ? ((Number) row[4]).intValue() : 0;
+        listing.rating = row[5] != null ? ((BigDecimal) row[5]).doubleValue() : 0;
+        listing.reviews = row[6] != null ? ((Number) row[6]).intValue() : 0;
+        double popularity = listing.popularity();
+
+        List<String[]> entries = new ArrayList<>();
+        entries.add(new String[]{NAME, (String) row[1]});
+        entries.add(new String[]{LOCATION, (String) row[2]});
+        if (row[3] != null) {
+            for (String attraction : ((String) row[3]).split("[,，、;；]")) {
+                entries.add(new String[]{ATTRACTION, attraction});
+            }
+        }
+        for (String[] entry : entries) {
+            String text = entry[1] != null ? entry[1].trim() : "";
+            String normalized = normalize(text);
+            if (normalized.isEmpty()) {
+                continue;
+            }
+            Phrase phrase = s.phrases.computeIfAbsent(entry[0] + '\u0000' + normalized,
+                    k -> new Phrase(text, entry[0], keysOf(normalized)));
+            if (phrase.accommodations.put(accommodationId, popularity) == null) {
+                phrase.score += popularity;
+                listing.phrases.add(phrase);
+            }
+        }
+        s.listings.put(accommodationId, listing);
+        return listing.phrases;
+    }
+
+    // 移除一間住宿對建議詞的貢獻，回傳受影響的建議詞；已無住宿的建議詞移出詞表與前綴樹
+    private static List<Phrase> remove(Segment s, Long accommodationId) {
+        Listing listing = s.listings.remove(accommodationId);
+        if (listing == null) {
+            return List.of();
+        }
+        for (Phrase phrase : listing.phrases) {
+            Double popularity = phrase.accommodations.remove(accommodationId);
+            if (popularity != null) {
+                phrase.score -= popularity;
+            }
+            if (phrase.accommodations.isEmpty()) {
+                s.phrases.remove(phrase.type + '\u0000' + normalize(phrase.text));
+            }
+        }
+        return listing.phrases;
+    }
+
+    // 調整建議詞在前綴樹中的位置，並由下往上重算經過節點的前 K 名
+    private void refresh(Segment s, Collection<Phrase> phrases) {
+        for (Phrase phrase : phrases) {
+            boolean alive = !phrase.accommodations.isEmpty();
+            for (String key : phrase.keys) {
+                Node[] path = new Node[key.length() + 1];
+                path[0] = s.root;
+                for (int i = 0; i < key.length(); i++) {
+                    path[i + 1] = path[i].childOrCreate(key.charAt(i), s);
+                }
+                Node end = path[key.length()];
+                if (end.terminals == null) {
+                    end.terminals = new ArrayList<>(1);
+                }
+                boolean listed = end.terminals.stream().anyMatch(p -> p == phrase);
+                if (alive && !listed) {
+                    end.terminals.add(phrase);
+                } else if (!alive) {
+                    end.terminals.removeIf(p -> p == phrase);
+                }
+                for (int i = key.length(); i >= 1; i--) {
+                    computeTop(path[i]);
+                }
+            }
+        }
+    }
+
+    private void computeTopRecursively(Node node) {
+        for (Node child : node.children) {
+            computeTopRecursively(child);
+        }
+        computeTop(node);
+    }
+
+    // 此節點的前 K 名只可能來自以此結尾的建議詞與各子節點的前 K 名
+    private void computeTop(Node node) {
+        List<Phrase> candidates = new ArrayList<>();
+        if (node.terminals != null) {
+            candidates.addAll(node.terminals);
+        }
+        for (Node child : node.children) {
+            candidates.addAll(Arrays.asList(child.top));
+        }
+        if (candidates.isEmpty()) {
+            node.top = NO_PHRASES;
+            return;
+        }
+        candidates.sort(BY_SCORE);
+        List<Phrase> top = new ArrayList<>(Math.min(topK, candidates.size()));
+        Set<Phrase> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (Phrase p : candidates) {
+            // 同一建議詞的不同後綴可能經過同一個節點
+            if (seen.add(p)) {
+                top.add(p);
+                if (top.size() == topK) {
+                    break;
+                }
+            }
+        }
+        node.top = top.toArray(NO_PHRASES);
+    }
+
+    // === 正規化 ===
+
+    /**
+     * 全形轉半形、轉小寫，連續空白與標點合併為一個空白
+     */
+    static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        String normalized = Normalizer.normalize(text, Normalizer.Form.NFKC).toLowerCase(Locale.ROOT);
+        StringBuilder sb = new StringBuilder(normalized.length());
+        boolean space = false;
+        for (int i = 0; i < normalized.length(); ) {
+            int cp = normalized.codePointAt(i);
+            if (Character.isLetterOrDigit(cp)) {
+                if (space && sb.length() > 0) {
+                    sb.append(' ');
+                }
+                sb.appendCodePoint(cp);
+                space = false;
+            } else {
+                space = true;
+            }
+            i += Character.charCount(cp);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * 建議詞放進前綴樹的鍵：整個詞，以及從每個後續英數單字或中日韓字串開頭的後綴
+     */
+    static String[] keysOf(String normalized) {
+        List<String> keys = new ArrayList<>();
+        keys.add(normalized);
+        int previous = ' ';
+        for (int i = 0; i < normalized.length(); ) {
+            int cp = normalized.codePointAt(i);
+            boolean boundary = previous == ' ' ? cp != ' ' : cp != ' ' && isCjk(cp) != isCjk(previous);
+            if (i > 0 && boundary) {
+                keys.add(normalized.substring(i));
+            }
+            previous = cp;
+            i += Character.charCount(cp);
+        }
+        return keys.toArray(new String[0]);
+    }
+
+    private static boolean isCjk(int cp) {
+        Character.UnicodeScript script = Character.UnicodeScript.of(cp);
+        return script == Character.UnicodeScript.HAN
+                || script == Character.UnicodeScript.HIRAGANA
+                || script == Character.UnicodeScript.KATAKANA
+                || script == Character.UnicodeScript.HANGUL;
+    }
+
+    // === 監控 ===
+
+    public Map<String, Object> getStats() {
+        lock.readLock().lock();
+        try {
+            Map<String, Object> stats = new LinkedHashMap<>();
+            Segment s = segment;
+            stats.put("ready", s != null);
+            stats.put("accommodations", s != null ? s.listings.size() : 0);
+            stats.put("phrases", s != null ? s.phrases.size() : 0);
+            stats.put("nodes", s != null ? s.nodes : 0);
+            stats.put("topK", topK);
+            return stats;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+}
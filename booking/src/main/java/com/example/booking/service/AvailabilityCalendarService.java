@@ -0,0 +1,136 @@
+package com.example.booking.service;
+
+import com.example.booking.dto.AvailabilityCalendarDTO;
+import com.example.booking.model.RoomType;
+import com.example.booking.repository.AccommodationRepository;
+import com.example.booking.repository.BookingHoldRepository;
+import com.example.booking.repository.BookingRepository;
+import com.example.booking.repository.RoomTypeRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+
+/**
+ * 住宿可用性日曆
+ * 以一次查詢取出住宿所有房型在區間內的訂單與保留，
+ * 用差分陣列（入住日 +數量、退房日 -數量）掃描一遍得出每晚剩餘房數，不必逐晚查詢。
+ */
+@Service
+public class AvailabilityCalendarService {
+
+    // 單次查詢最多晚數（略多於一年）
+    static final int MAX_NIGHTS = 400;
+
+    @Autowired
+    private AccommodationRepository accommodationRepository;
+
+    @Autowired
+    private RoomTypeRepository roomTypeRepository;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private BookingHoldRepository bookingHoldRepository;
+
+    /**
+     * 住宿每個房型在 [from, to) 每晚的剩餘房數（RLE 編碼），住宿不存在時回傳 empty
+     */
+    @Transactional(readOnly = true)
+    public Optional<AvailabilityCalendarDTO> getCalendar(Long accommodationId, LocalDate from, LocalDate to) {
+        int nights = validateRange(from, to);
+        if (!accommodationRepository.existsById(accommodationId)) {
+            return Optional.empty();
+        }
+
+        List<RoomType> roomTypes = roomTypeRepository.findByAccommodationId(accommodationId);
+        Map<Long, int[]> remaining = remainingPerNight(roomTypes, from, nights,
+                bookingRepository.findActiveSpansForAccommodation(accommodationId, from, to),
+                roomTypes.isEmpty() ? List.of() : bookingHoldRepository.findActiveSpansForRoomTypes(
+                        roomTypes.stream().map(RoomType::getId).toList(), from, to));
+
+        List<AvailabilityCalendarDTO.RoomTypeCalendar> calendars = new ArrayList<>(roomTypes.size());
+        for (RoomType rt : roomTypes) {
+            calendars.add(new AvailabilityCalendarDTO.RoomTypeCalendar(
+                    rt.getId(), rt.getName(), rt.getTotalRooms(), encodeRuns(remaining.get(rt.getId()))));
+        }
+        return Optional.of(new AvailabilityCalendarDTO(accommodationId, from, to, nights, calendars));
+    }
+
+    /**
+     * 檢查日期區間並回傳晚數
+     */
+    static int validateRange(LocalDate from, LocalDate to) {
+        if (from == null || to == null || !to.isAfter(from)) {
+            throw new IllegalArgumentException("日期區間不合法");
+        }
+        long nights = ChronoUnit.DAYS.between(from, to);
+        if (nights > MAX_NIGHTS) {
+            throw new IllegalArgumentException("查詢區間最多 " + MAX_NIGHTS + " 晚");
+        }
+        return (int) nights;
+    }
+
+    /**
+     * 依 [房型 ID, 入住, 退房, 數量] 的佔用資料算出每個房型從 from 起 nights 晚的剩餘房數
+     */
+    @SafeVarargs
+    static Map<Long, int[]> remainingPerNight(Collection<RoomType> roomTypes, LocalDate from, int nights,
+                                              List<Object[]>... spanSources) {
+        // 多留一格給退房日落在區間最後一晚之後的訂單
+        Map<Long, int[]> diff = new HashMap<>();
+        for (RoomType rt : roomTypes) {
+            diff.put(rt.getId(), new int[nights + 1]);
+        }
+        for (List<Object[]> spans : spanSources) {
+            for (Object[] row : spans) {
+                int[] d = diff.get((Long) row[0]);
+                if (d == null) {
+                    continue;
+                }
+                int start = (int) Math.max(0, ChronoUnit.DAYS.between(from, (LocalDate) row[1]));
+                int end = (int) Math.min(nights, ChronoUnit.DAYS.between(from, (LocalDate) row[2]));
+                if (start < end) {
+                    int quantity = (Integer) row[3];
+                    d[start] += quantity;
+                    d[end] -= quantity;
+                }
+            }
+        }
+
+        Map<Long, int[]> remaining = new HashMap<>();
+        for (RoomType rt : roomTypes) {
+            int[] d = diff.get(rt.getId());
+            int[] nightly = new int[nights];
+            int booked = 0;
+            for (int i = 0; i < nights; i++) {
+                booked += d[i];
+                nightly[i] = Math.max(rt.getTotalRooms() - booked, 0);
+            }
+            remaining.put(rt.getId(), nightly);
+        }
+        return remaining;
+    }
+
+    /**
+     * 遊程編碼：[值, 連續次數, 值, 連續次數, ...]
+     */
+    static int[] encodeRuns(int[] values) {
+        int[] runs = new int[values.length * 2];
+        int size = 0;
+        for (int i = 0; i < values.length; ) {
+            int j = i + 1;
+            while (j < values.length && values[j] == values[i]) {
+                j++;
+            }
+            runs[size++] = values[i];
+            runs[size++] = j - i;
+            i = j;
+        }
+        return Arrays.copyOf(runs, size);
+    }
+}
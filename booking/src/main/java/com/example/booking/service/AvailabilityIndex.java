@@ -0,0 +1,306 @@
+package com.example.booking.service;
+
+import com.example.booking.event.BookingChangedEvent;
+import com.example.booking.event.CatalogChangedEvent;
+import com.example.booking.repository.BookingHoldRepository;
+import com.example.booking.repository.BookingRepository;
+import com.example.booking.repository.RoomTypeRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 記憶體內的房型可用性索引
+ * 每個房型保存從 baseDate 起 horizonDays 晚的剩餘房數（short 陣列），
+ * 日期區間查詢只需對陣列做最小值掃描，不必查詢資料庫。
+ * 啟動時由訂單與暫時保留重建，之後由訂房/取消事件（交易提交後）增量更新，每日凌晨重建以滾動視窗。
+ * 重建不阻擋查詢與增量更新，與事件交錯的房型由 BookingCommitTracker 判斷後重新載入。
+ */
+@Service
+public class AvailabilityIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(AvailabilityIndex.class);
+
+    @Autowired
+    private RoomTypeRepository roomTypeRepository;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private BookingHoldRepository bookingHoldRepository;
+
+    @Autowired
+    private BookingCommitTracker commitTracker;
+
+    // 索引涵蓋的天數，超出範圍的查詢交回資料庫處理
+    @Value("${app.availability.horizon-days:540}")
+    private int horizonDays = 540;
+
+    @Value("${app.availability.index-enabled:true}")
+    private boolean enabled = true;
+
+    // 重建時整份替換，讀取端不需加鎖
+    private volatile Snapshot snapshot;
+
+    // 同一時間只有一次全量重建
+    private final Object rebuildLock = new Object();
+
+    // 重建期間調整過的房型，未在重建時為 null
+    private final Object catalogLock = new Object();
+    private Set<Long> catalogChanged;
+
+    /**
+     * 單一房型的每晚剩餘房數
+     */
+    private static final class Slot {
+        final Long accommodationId;
+        final short[] remaining;
+
+        Slot(Long accommodationId, short[] remaining) {
+            this.accommodationId = accommodationId;
+            this.remaining = remaining;
+        }
+    }
+
+    private static final class Snapshot {
+        final LocalDate baseDate;
+        final int horizon;
+        final Map<Long, Slot> slots;
+
+        Snapshot(LocalDate baseDate, int horizon, Map<Long, Slot> slots) {
+            this.baseDate = baseDate;
+            this.horizon = horizon;
+            this.slots = slots;
+        }
+    }
+
+    @PostConstruct
+    public void init() {
+        commitTracker.subscribe(this::onBookingChanged);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onReady() {
+        if (enabled) {
+            rebuild();
+        }
+    }
+
+    // 每日凌晨重建，讓視窗隨日期往前滾動
+    @Scheduled(cron = "${app.availability.rebuild-cron:0 5 0 * * *}")
+    public void scheduledRebuild() {
+        if (enabled) {
+            rebuild();
+        }
+    }
+
+    /**
+     * 由資料庫重建整份索引
+     * 讀取與組裝不持有任何鎖，查詢與增量更新照常進行；新快照生效後，
+     * 重建期間有異動提交或房型調整的房型在房型寫鎖內重新載入，避免同一筆異動在快照與事件中各算一次
+     */
+    public void rebuild() {
+        synchronized (rebuildLock) {
+            long start = System.nanoTime();
+            LocalDate base = LocalDate.now();
+            LocalDate end = base.plusDays(horizonDays);
+
+            commitTracker.startRecording();
+            synchronized (catalogLock) {
+                catalogChanged = new HashSet<>();
+            }
+            Map<Long, Slot> slots = new ConcurrentHashMap<>();
+            Set<Long> touched;
+            try {
+                for (Object[] row : roomTypeRepository.findInventorySnapshot()) {
+                    slots.put((Long) row[0], newSlot((Long) row[1], (Integer) row[2]));
+                }
+                for (Object[] row : bookingRepository.findActiveSpans(base, end)) {
+                    Slot slot = slots.get((Long) row[0]);
+                    if (slot != null) {
+                        occupy(slot, base, (LocalDate) row[1], (LocalDate) row[2], (Integer) row[3]);
+                    }
+                }
+                // 保留中的房間同樣不可售
+                for (Object[] row : bookingHoldRepository.findActiveSpans(base, end)) {
+                    Slot slot = slots.get((Long) row[0]);
+                    if (slot != null) {
+                        occupy(slot, base, (LocalDate) row[1], (LocalDate) row[2], (Integer) row[3]);
+                    }
+                }
+                snapshot = new Snapshot(base, horizonDays, slots);
+            } finally {
+                touched = commitTracker.stopRecording();
+                synchronized (catalogLock) {
+                    touched.addAll(catalogChanged);
+                    catalogChanged = null;
+                }
+            }
+
+            // 快照是否已包含這些房型重建期間的異動無法確定，逐一重新載入
+            Snapshot s = snapshot;
+            for (Long roomTypeId : touched) {
+                reload(s, roomTypeId);
+            }
+            logger.info("可用性索引重建完成：{} 個房型、{} 晚，約 {} KB，重新載入 {} 個房型，耗時 {} ms",
+                    slots.size(), horizonDays, memoryBytes() / 1024, touched.size(),
+                    (System.nanoTime() - start) / 1_000_000);
+        }
+    }
+
+    /**
+     * 索引是否能回答此日期區間
+     */
+    public boolean covers(LocalDate checkIn, LocalDate checkOut) {
+        Snapshot s = snapshot;
+        return s != null
+                && !checkIn.isBefore(s.baseDate)
+                && !checkOut.isAfter(s.baseDate.plusDays(s.horizon));
+    }
+
+    /**
+     * 區間內每晚至少有一間空房的房型所屬住宿 ID
+     * 呼叫前須先以 covers() 確認區間在索引範圍內
+     */
+    public Set<Long> availableAccommodationIds(LocalDate checkIn, LocalDate checkOut) {
+        Snapshot s = snapshot;
+        int from = (int) ChronoUnit.DAYS.between(s.baseDate, checkIn);
+        int to = (int) ChronoUnit.DAYS.between(s.baseDate, checkOut);
+
+        Set<Long> result = new HashSet<>();
+        for (Slot slot : s.slots.values()) {
+            if (result.contains(slot.accommodationId)) {
+                continue;
+            }
+            if (minRemaining(slot.remaining, from, to) > 0) {
+                result.add(slot.accommodationId);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 指定房型在區間內的最少剩餘房數，不在索引內時回傳 -1
+     */
+    public int remainingRooms(Long roomTypeId, LocalDate checkIn, LocalDate checkOut) {
+        Snapshot s = snapshot;
+        Slot slot = s == null ? null : s.slots.get(roomTypeId);
+        if (slot == null || !covers(checkIn, checkOut)) {
+            return -1;
+        }
+        return minRemaining(slot.remaining,
+                (int) ChronoUnit.DAYS.between(s.baseDate, checkIn),
+                (int) ChronoUnit.DAYS.between(s.baseDate, checkOut));
+    }
+
+    // 單純的迴圈讓 JIT 可以向量化
+    private static int minRemaining(short[] remaining, int from, int to) {
+        int min = Short.MAX_VALUE;
+        for (int i = from; i < to; i++) {
+            min = Math.min(min, remaining[i]);
+        }
+        return min;
+    }
+
+    // === 增量更新 ===
+
+    // 由 BookingCommitTracker 在異動提交後、持有房型讀鎖時呼叫
+    void onBookingChanged(BookingChangedEvent event) {
+        Snapshot s = snapshot;
+        Slot slot = s == null ? null : s.slots.get(event.getRoomTypeId());
+        if (slot == null) {
+            return;
+        }
+        synchronized (slot) {
+            occupy(slot, s.baseDate, event.getCheckIn(), event.getCheckOut(), event.getQuantityDelta());
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCatalogChanged(CatalogChangedEvent event) {
+        synchronized (catalogLock) {
+            // 重建中的快照可能讀到調整前的總房數，生效後再載入一次
+            if (catalogChanged != null) {
+                catalogChanged.add(event.getRoomTypeId());
+            }
+        }
+        Snapshot s = snapshot;
+        if (s != null) {
+            reload(s, event.getRoomTypeId());
+        }
+    }
+
+    // 在房型寫鎖內由資料庫重新載入單一房型並放入快照，期間不會有同房型的異動提交
+    private void reload(Snapshot s, Long roomTypeId) {
+        commitTracker.load(roomTypeId, () -> {
+            List<Object[]> info = roomTypeRepository.findInventorySnapshotById(roomTypeId);
+            if (info.isEmpty()) {
+                s.slots.remove(roomTypeId);
+                return null;
+            }
+            Slot slot = newSlot((Long) info.get(0)[1], (Integer) info.get(0)[2]);
+            LocalDate end = s.baseDate.plusDays(s.horizon);
+            for (Object[] row : bookingRepository.findActiveSpansForRoomType(roomTypeId, s.baseDate, end)) {
+                occupy(slot, s.baseDate, (LocalDate) row[1], (LocalDate) row[2], (Integer) row[3]);
+            }
+            for (Object[] row : bookingHoldRepository.findActiveSpansForRoomType(roomTypeId, s.baseDate, end)) {
+                occupy(slot, s.baseDate, (LocalDate) row[1], (LocalDate) row[2], (Integer) row[3]);
+            }
+            s.slots.put(roomTypeId, slot);
+            return null;
+        });
+    }
+
+    private Slot newSlot(Long accommodationId, Integer totalRooms) {
+        short[] remaining = new short[horizonDays];
+        Arrays.fill(remaining, (short) Math.min(totalRooms == null ? 0 : totalRooms, Short.MAX_VALUE));
+        return new Slot(accommodationId, remaining);
+    }
+
+    // 將 [checkIn, checkOut) 與索引範圍的交集扣除 quantity（負數即釋放）
+    private static void occupy(Slot slot, LocalDate base, LocalDate checkIn, LocalDate checkOut, int quantity) {
+        int from = (int) Math.max(0, ChronoUnit.DAYS.between(base, checkIn));
+        int to = (int) Math.min(slot.remaining.length, ChronoUnit.DAYS.between(base, checkOut));
+        for (int i = from; i < to; i++) {
+            slot.remaining[i] -= (short) quantity;
+        }
+    }
+
+    // === 監控 ===
+
+    /**
+     * 陣列佔用的記憶體估算（位元組）
+     */
+    public long memoryBytes() {
+        Snapshot s = snapshot;
+        if (s == null) {
+            return 0;
+        }
+        // short 陣列本體 + 陣列標頭與 Slot/Map 節點的粗估額外開銷
+        return (long) s.slots.size() * (s.horizon * 2L + 96);
+    }
+
+    public Map<String, Object> getStats() {
+        Snapshot s = snapshot;
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("baseDate", s == null ? null : s.baseDate.toString());
+        stats.put("horizonDays", s == null ? horizonDays : s.horizon);
+        stats.put("roomTypes", s == null ? 0 : s.slots.size());
+        stats.put("memoryBytes", memoryBytes());
+        return stats;
+    }
+}
@@ -0,0 +1,214 @@
+package com.example.booking.service;
+
+import com.example.booking.event.BookingChangedEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * 訂單異動的提交追蹤
+ * 記憶體內的佔用索引（可用性索引、衝突偵測區間樹）由資料庫載入快照、再以訂房/取消事件增量更新，
+ * 必須確定快照是否已包含某筆異動，否則同一筆會被重複加減。
+ * 異動所屬交易從提交前（beforeCompletion）到事件送達訂閱者為止持有房型分段的讀鎖（依分段編號順序取得）；
+ * 載入單一房型時取寫鎖，讀取期間同房型沒有正在提交的異動，之後送達的事件都不在快照內。
+ * 全量重建不加鎖，只記下重建期間有異動提交的房型，重建後逐一以單一房型重新載入。
+ */
+@Component
+public class BookingCommitTracker {
+
+    private static final Logger logger = LoggerFactory.getLogger(BookingCommitTracker.class);
+
+    private static final int STRIPES = 64;
+
+    private final ReentrantReadWriteLock[] locks = new ReentrantReadWriteLock[STRIPES];
+
+    private final List<Consumer<BookingChangedEvent>> subscribers = new CopyOnWriteArrayList<>();
+
+    // 正在提交中的交易數，依房型；與 recording 一起由 this 的鎖保護
+    private final Map<Long, Integer> committing = new HashMap<>();
+
+    // 全量重建期間有異動提交的房型，未在重建時為 null
+    private Set<Long> recording;
+
+    // 載入用的唯讀交易：先取得連線再取寫鎖，避免提交中的交易佔滿連線池、載入端拿不到連線
+    private final TransactionTemplate loadTemplate;
+
+    public BookingCommitTracker(PlatformTransactionManager transactionManager) {
+        for (int i = 0; i < STRIPES; i++) {
+            locks[i] = new ReentrantReadWriteLock();
+        }
+        loadTemplate = new TransactionTemplate(transactionManager);
+        loadTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        loadTemplate.setReadOnly(true);
+    }
+
+    /**
+     * 訂閱已提交的異動；在提交交易的執行緒上、持有房型讀鎖時呼叫
+     */
+    public void subscribe(Consumer<BookingChangedEvent> subscriber) {
+        subscribers.add(subscriber);
+    }
+
+    /**
+     * 在房型寫鎖內由資料庫載入並安裝快照，讀取期間不會有同房型的異動提交
+     * 由正在提交、持有同分段讀鎖的執行緒呼叫時（例如同一交易的其他提交後監聽器）無法升級為寫鎖，直接載入
+     */
+    public <T> T load(Long roomTypeId, Supplier<T> loader) {
+        return loadTemplate.execute(status -> {
+            ReentrantReadWriteLock lock = lockFor(roomTypeId);
+            if (lock.getReadHoldCount() > 0) {
+                return loader.get();
+            }
+            lock.writeLock().lock();
+            try {
+                return loader.get();
+            } finally {
+                lock.writeLock().unlock();
+            }
+        });
+    }
+
+    /**
+     * 開始全量重建：記下目前正在提交與之後開始提交的房型
+     */
+    public synchronized void startRecording() {
+        recording = new HashSet<>(committing.keySet());
+    }
+
+    /**
+     * 結束全量重建（須在新快照生效後呼叫），回傳重建期間有異動提交、快照是否包含無法確定的房型
+     */
+    public synchronized Set<Long> stopRecording() {
+        Set<Long> touched = recording == null ? new HashSet<>() : recording;
+        touched.addAll(committing.keySet());
+        recording = null;
+        return touched;
+    }
+
+    // 在發布事件的交易內登記，提交前取讀鎖，提交後通知訂閱者再放鎖；
+    // 排在所有交易同步的最前面，持鎖期間不執行其他監聽器
+    @EventListener
+    public void onBookingChanged(BookingChangedEvent event) {
+        Long roomTypeId = event.getRoomTypeId();
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            // 沒有交易的發布端：異動已寫入，直接通知
+            ReentrantReadWriteLock lock = lockFor(roomTypeId);
+            lock.readLock().lock();
+            try {
+                notifySubscribers(event);
+            } finally {
+                lock.readLock().unlock();
+            }
+            return;
+        }
+        PendingCommit pending = (PendingCommit) TransactionSynchronizationManager.getResource(this);
+        if (pending == null) {
+            pending = new PendingCommit();
+            TransactionSynchronizationManager.bindResource(this, pending);
+            TransactionSynchronizationManager.registerSynchronization(pending);
+        }
+        pending.add(event);
+    }
+
+    /**
+     * 一個交易內的所有異動：每個交易只登記一次，提交前依分段編號由小到大取得各房型分段的讀鎖。
+     * 讀寫鎖不公平，有寫鎖排隊時新的讀鎖會被擋住；若各交易依事件順序取鎖，
+     * 兩個各持一段、等待對方那段的交易會在持有資料列鎖與連線的情況下互相等待
+     */
+    private final class PendingCommit implements TransactionSynchronization {
+        private final List<BookingChangedEvent> events = new ArrayList<>();
+        private final Set<Long> roomTypeIds = new LinkedHashSet<>();
+        private final TreeSet<Integer> stripes = new TreeSet<>();
+        private boolean locked;
+
+        void add(BookingChangedEvent event) {
+            events.add(event);
+            if (roomTypeIds.add(event.getRoomTypeId()) && locked) {
+                // 提交前的其他同步才發布的異動：分段已依序取得，只補上新的分段與房型
+                int stripe = stripeOf(event.getRoomTypeId());
+                if (stripes.add(stripe)) {
+                    locks[stripe].readLock().lock();
+                }
+                begin(event.getRoomTypeId());
+            }
+        }
+
+        @Override
+        public int getOrder() {
+            return Ordered.HIGHEST_PRECEDENCE;
+        }
+
+        @Override
+        public void beforeCompletion() {
+            for (Long roomTypeId : roomTypeIds) {
+                stripes.add(stripeOf(roomTypeId));
+            }
+            for (int stripe : stripes) {
+                locks[stripe].readLock().lock();
+            }
+            locked = true;
+            roomTypeIds.forEach(BookingCommitTracker.this::begin);
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(BookingCommitTracker.this);
+            if (!locked) {
+                return;
+            }
+            try {
+                if (status == STATUS_COMMITTED) {
+                    events.forEach(BookingCommitTracker.this::notifySubscribers);
+                }
+            } finally {
+                roomTypeIds.forEach(BookingCommitTracker.this::end);
+                for (int stripe : stripes.descendingSet()) {
+                    locks[stripe].readLock().unlock();
+                }
+            }
+        }
+    }
+
+    private synchronized void begin(Long roomTypeId) {
+        committing.merge(roomTypeId, 1, Integer::sum);
+        if (recording != null) {
+            recording.add(roomTypeId);
+        }
+    }
+
+    private synchronized void end(Long roomTypeId) {
+        committing.computeIfPresent(roomTypeId, (id, n) -> n == 1 ? null : n - 1);
+    }
+
+    private void notifySubscribers(BookingChangedEvent event) {
+        for (Consumer<BookingChangedEvent> subscriber : subscribers) {
+            try {
+                subscriber.accept(event);
+            } catch (RuntimeException e) {
+                // 交易已提交，不影響呼叫端；索引由下次重建修正
+                logger.warn("房型 {} 異動通知失敗：{}", event.getRoomTypeId(), e.getMessage());
+            }
+        }
+    }
+
+    private ReentrantReadWriteLock lockFor(Long roomTypeId) {
+        return locks[stripeOf(roomTypeId)];
+    }
+
+    private static int stripeOf(Long roomTypeId) {
+        return Math.floorMod(Long.hashCode(roomTypeId), STRIPES);
+    }
+}
@@ -0,0 +1,174 @@
+package com.example.booking.service;
+
+import com.example.booking.event.BookingChangedEvent;
+import com.example.booking.event.CatalogChangedEvent;
+import com.example.booking.model.RoomType;
+import com.example.booking.repository.BookingHoldRepository;
+import com.example.booking.repository.BookingRepository;
+import com.example.booking.repository.RoomTypeRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 訂房衝突偵測
+ * 每個房型一棵區間樹（尚未退房的未取消訂單 + 暫時保留），第一次查詢時由資料庫載入，
+ * 之後由訂房/取消事件（交易提交後）增量更新；已結束的住宿不載入，每日重建時一併淘汰，樹的大小只隨未來訂單成長。
+ * 載入與安裝都在 BookingCommitTracker 的房型寫鎖內，載入期間提交的異動不會在快照與事件中各算一次。
+ * 查詢區間內最大同時佔用量只需走訪重疊的區間，不必每次以 JPQL 掃描所有重疊訂單；
+ * 結果僅供預檢與查詢，實際扣庫存仍以每晚帳本為準。
+ */
+@Service
+public class BookingConflictDetector {
+
+    private static final Logger logger = LoggerFactory.getLogger(BookingConflictDetector.class);
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private BookingHoldRepository bookingHoldRepository;
+
+    @Autowired
+    private RoomTypeRepository roomTypeRepository;
+
+    @Autowired
+    private BookingCommitTracker commitTracker;
+
+    private final Map<Long, IntervalTree> trees = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        commitTracker.subscribe(this::onBookingChanged);
+    }
+
+    /**
+     * [checkIn, checkOut) 內任一晚的最大已佔用間數
+     */
+    public int maxConcurrent(Long roomTypeId, LocalDate checkIn, LocalDate checkOut) {
+        IntervalTree tree = treeFor(roomTypeId);
+        synchronized (tree) {
+            return tree.maxConcurrent(day(checkIn), day(checkOut));
+        }
+    }
+
+    /**
+     * 與 [checkIn, checkOut) 重疊的佔用區間（相同區間已合併數量）
+     */
+    public List<Map<String, Object>> overlapping(Long roomTypeId, LocalDate checkIn, LocalDate checkOut) {
+        IntervalTree tree = treeFor(roomTypeId);
+        List<int[]> hits;
+        synchronized (tree) {
+            hits = tree.overlapping(day(checkIn), day(checkOut));
+        }
+        List<Map<String, Object>> result = new ArrayList<>(hits.size());
+        for (int[] h : hits) {
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("checkIn", LocalDate.ofEpochDay(h[0]));
+            row.put("checkOut", LocalDate.ofEpochDay(h[1]));
+            row.put("quantity", h[2]);
+            result.add(row);
+        }
+        return result;
+    }
+
+    /**
+     * 管理端衝突檢查：區間內最大佔用量、剩餘間數與所有重疊區間
+     */
+    public Map<String, Object> check(Long roomTypeId, LocalDate checkIn, LocalDate checkOut) {
+        if (checkIn == null || checkOut == null || !checkOut.isAfter(checkIn)) {
+            throw new IllegalArgumentException("日期區間不合法");
+        }
+        RoomType rt = roomTypeRepository.findById(roomTypeId)
+                .orElseThrow(() -> new RuntimeException("找不到房型 ID=" + roomTypeId));
+        int occupied = maxConcurrent(roomTypeId, checkIn, checkOut);
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("roomTypeId", roomTypeId);
+        result.put("checkIn", checkIn);
+        result.put("checkOut", checkOut);
+        result.put("totalRooms", rt.getTotalRooms());
+        result.put("maxConcurrent", occupied);
+        result.put("remaining", Math.max(rt.getTotalRooms() - occupied, 0));
+        result.put("overbooked", occupied > rt.getTotalRooms());
+        result.put("intervals", overlapping(roomTypeId, checkIn, checkOut));
+        return result;
+    }
+
+    private IntervalTree treeFor(Long roomTypeId) {
+        IntervalTree tree = trees.get(roomTypeId);
+        if (tree != null) {
+            return tree;
+        }
+        // 在寫鎖內放入 Map：放鎖後才提交的異動一定找得到這棵樹
+        return commitTracker.load(roomTypeId, () -> trees.computeIfAbsent(roomTypeId, this::load));
+    }
+
+    private IntervalTree load(Long roomTypeId) {
+        IntervalTree tree = new IntervalTree();
+        LocalDate today = LocalDate.now();
+        for (Object[] row : bookingRepository.findCurrentSpansForRoomType(roomTypeId, today)) {
+            tree.add(day((LocalDate) row[1]), day((LocalDate) row[2]), (Integer) row[3]);
+        }
+        // 保留中的房間同樣佔用庫存
+        for (Object[] row : bookingHoldRepository.findCurrentSpansForRoomType(roomTypeId, today)) {
+            tree.add(day((LocalDate) row[1]), day((LocalDate) row[2]), (Integer) row[3]);
+        }
+        logger.debug("房型 {} 載入區間樹：{} 個區間", roomTypeId, tree.size());
+        return tree;
+    }
+
+    private static int day(LocalDate date) {
+        return (int) date.toEpochDay();
+    }
+
+    // === 增量更新 ===
+
+    // 由 BookingCommitTracker 在異動提交後、持有房型讀鎖時呼叫
+    void onBookingChanged(BookingChangedEvent event) {
+        // 尚未載入的房型不必更新，下次查詢時會從資料庫載入最新狀態
+        IntervalTree tree = trees.get(event.getRoomTypeId());
+        // 已結束的住宿不在樹中（例如取消過去的訂單），略過以免留下負數量的區間
+        if (tree == null || !event.getCheckOut().isAfter(LocalDate.now())) {
+            return;
+        }
+        synchronized (tree) {
+            tree.add(day(event.getCheckIn()), day(event.getCheckOut()), event.getQuantityDelta());
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCatalogChanged(CatalogChangedEvent event) {
+        trees.remove(event.getRoomTypeId());
+    }
+
+    // 與可用性索引同時清空，讓區間樹隨資料庫中未經事件的異動（例如直接修改資料）重新載入，
+    // 重新載入時只取尚未退房的住宿，前一天結束的區間就此淘汰
+    @Scheduled(cron = "${app.availability.rebuild-cron:0 5 0 * * *}")
+    public void reset() {
+        trees.clear();
+    }
+
+    // === 監控 ===
+
+    public Map<String, Object> getStats() {
+        int intervals = 0;
+        for (IntervalTree tree : trees.values()) {
+            synchronized (tree) {
+                intervals += tree.size();
+            }
+        }
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("roomTypes", trees.size());
+        stats.put("intervals", intervals);
+        return stats;
+    }
+}
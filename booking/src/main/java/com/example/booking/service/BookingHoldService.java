@@ -0,0 +1,210 @@
+package com.example.booking.service;
+
+import com.example.booking.event.BookingChangedEvent;
+import com.example.booking.model.BookingHold;
+import com.example.booking.model.RoomType;
+import com.example.booking.repository.BookingHoldRepository;
+import com.example.booking.repository.RoomTypeRepository;
+import com.example.booking.repository.UserRepository;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Optional;
+
+/**
+ * 訂房暫時保留
+ * 開啟訂房視窗時先以每晚帳本扣住庫存並寫入 booking_holds，
+ * 到期時間排入記憶體時間輪，逾時由排程釋放；送出訂單時直接把保留轉成訂單，不必重新彙總區間。
+ */
+@Service
+public class BookingHoldService {
+
+    private static final Logger logger = LoggerFactory.getLogger(BookingHoldService.class);
+
+    // 時間輪格數（2 的次方），搭配 1 秒 tick 約可涵蓋 8.5 分鐘一圈
+    private static final int WHEEL_SIZE = 512;
+
+    @Autowired
+    private BookingHoldRepository holdRepository;
+
+    @Autowired
+    private RoomTypeRepository roomTypeRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private InventoryService inventoryService;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    // 保留有效時間
+    @Value("${app.booking.hold.ttl-minutes:10}")
+    private long ttlMinutes = 10;
+
+    // 時間輪推進間隔
+    @Value("${app.booking.hold.tick-ms:1000}")
+    private long tickMs = 1000;
+
+    // 每位使用者同時持有的保留上限，避免單一帳號反覆保留把庫存佔滿
+    @Value("${app.booking.hold.max-per-user:5}")
+    private int maxHoldsPerUser = 5;
+
+    private HoldTimingWheel wheel;
+
+    @PostConstruct
+    public void init() {
+        wheel = new HoldTimingWheel(tickMs, WHEEL_SIZE, System.currentTimeMillis());
+    }
+
+    // 啟動時把尚未釋放的保留排回時間輪（唯一一次讀取整張表），已過期的會在下一個 tick 釋放
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadPendingHolds() {
+        int count = 0;
+        for (Object[] row : holdRepository.findAllExpiries()) {
+            wheel.schedule((Long) row[0], toMillis((LocalDateTime) row[1]));
+            count++;
+        }
+        logger.info("已載入 {} 筆暫時保留至時間輪", count);
+    }
+
+    /**
+     * 建立保留；replaceHoldId 為同一使用者先前的保留（變更日期或數量時先釋放）
+     */
+    @Transactional
+    public BookingHold createHold(Long roomTypeId, LocalDate checkIn, LocalDate checkOut, int quantity,
+                                  String username, Long replaceHoldId) {
+        if (checkIn == null || checkOut == null || !checkOut.isAfter(checkIn)) {
+            throw new RuntimeException("日期區間不合法");
+        }
+        if (quantity <= 0) {
+            throw new RuntimeException("預訂數量需大於 0");
+        }
+        if (replaceHoldId != null) {
+            release(replaceHoldId, username);
+        }
+        // 鎖住使用者列讓同一人的並行請求依序計數，避免同時通過上限檢查
+        userRepository.findByUsernameForUpdate(username);
+        if (holdRepository.countActiveByUsername(username, LocalDateTime.now()) >= maxHoldsPerUser) {
+            throw new RuntimeException("保留數量已達上限（" + maxHoldsPerUser + " 筆），請先完成或釋放既有的保留");
+        }
+
+        RoomType rt = roomTypeRepository.findById(roomTypeId)
+                .orElseThrow(() -> new RuntimeException("找不到房型 ID=" + roomTypeId));
+        inventoryService.reserve(rt, checkIn, checkOut, quantity);
+
+        BookingHold hold = holdRepository.save(new BookingHold(roomTypeId, username, checkIn, checkOut, quantity,
+                LocalDateTime.now().plusMinutes(ttlMinutes)));
+        eventPublisher.publishEvent(new BookingChangedEvent(roomTypeId, checkIn, checkOut, quantity));
+        // 交易若回滾，到期時 expire() 找不到保留即略過
+        wheel.schedule(hold.getId(), toMillis(hold.getExpiresAt()));
+        return hold;
+    }
+
+    /**
+     * 使用者放棄保留（關閉訂房視窗），只能釋放自己的保留
+     */
+    @Transactional
+    public boolean release(Long holdId, String username) {
+        BookingHold hold = holdRepository.findById(holdId).orElse(null);
+        if (hold == null || !hold.getUsername().equals(username)) {
+            return false;
+        }
+        if (holdRepository.deleteOwned(holdId, username) == 0) {
+            return false;
+        }
+        releaseInventory(hold);
+        return true;
+    }
+
+    /**
+     * 將保留轉為訂單，須在下單交易內呼叫
+     * 成功時保留的庫存直接沿用；保留已失效或內容不符時回傳 empty，由呼叫端改走一般扣庫存流程
+     */
+    @Transactional
+    public Optional<BookingHold> claim(Long holdId, String username, Long roomTypeId,
+                                       LocalDate checkIn, LocalDate checkOut, int quantity) {
+        BookingHold hold = holdRepository.findById(holdId).orElse(null);
+        if (hold == null || !hold.getUsername().equals(username)) {
+            return Optional.empty();
+        }
+        if (!hold.matches(roomTypeId, checkIn, checkOut, quantity)) {
+            release(holdId, username);
+            return Optional.empty();
+        }
+        if (holdRepository.claim(holdId, username, LocalDateTime.now()) == 1) {
+            return Optional.of(hold);
+        }
+        // 已逾時但排程尚未處理：當場釋放，避免重複佔用
+        expire(holdId);
+        return Optional.empty();
+    }
+
+    /**
+     * 推進時間輪並釋放到期的保留，每筆各自一個交易
+     */
+    @Scheduled(fixedDelayString = "${app.booking.hold.tick-ms:1000}")
+    public void expireDue() {
+        if (wheel == null) {
+            return;
+        }
+        for (Long holdId : wheel.advance(System.currentTimeMillis())) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> expire(holdId));
+            } catch (RuntimeException e) {
+                logger.warn("釋放保留 {} 失敗，稍後重試：{}", holdId, e.getMessage());
+                wheel.schedule(holdId, System.currentTimeMillis() + tickMs);
+            }
+        }
+    }
+
+    /**
+     * 釋放已逾時的保留；與 claim 的條件互斥，已轉成訂單的保留不會被釋放
+     */
+    @Transactional
+    public boolean expire(Long holdId) {
+        BookingHold hold = holdRepository.findById(holdId).orElse(null);
+        if (hold == null) {
+            return false;
+        }
+        if (holdRepository.deleteIfExpired(holdId, LocalDateTime.now()) == 0) {
+            // 尚未到期（例如時鐘誤差），依資料庫的到期時間重新排入
+            wheel.schedule(holdId, toMillis(hold.getExpiresAt()));
+            return false;
+        }
+        releaseInventory(hold);
+        logger.debug("保留 {} 逾時，已釋放 {} 間", holdId, hold.getQuantity());
+        return true;
+    }
+
+    public int pendingCount() {
+        return wheel == null ? 0 : wheel.size();
+    }
+
+    private void releaseInventory(BookingHold hold) {
+        inventoryService.release(hold.getRoomTypeId(), hold.getCheckIn(), hold.getCheckOut(), hold.getQuantity());
+        eventPublisher.publishEvent(new BookingChangedEvent(
+                hold.getRoomTypeId(), hold.getCheckIn(), hold.getCheckOut(), -hold.getQuantity()));
+    }
+
+    private static long toMillis(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
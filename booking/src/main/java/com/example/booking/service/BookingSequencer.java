@@ -0,0 +1,306 @@
+package com.example.booking.service;
+
+import com.example.booking.event.AccommodationCounterEvent;
+import com.example.booking.event.BookingChangedEvent;
+import com.example.booking.model.Booking;
+import com.example.booking.model.RoomType;
+import com.example.booking.model.RoomTypeInventory;
+import com.example.booking.model.User;
+import com.example.booking.repository.BookingBatchRepository;
+import com.example.booking.repository.BookingRepository;
+import com.example.booking.repository.RoomTypeRepository;
+import com.example.booking.repository.UserRepository;
+import com.example.booking.repository.WaitlistEntryRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 單一寫入者訂房排序器
+ * 依房型 ID 雜湊到固定數量的分片，每個分片由一條執行緒從佇列取出訂房指令，
+ * 在記憶體中依序檢查每晚剩餘房數，再把整批接受的訂單以單一交易寫入（group commit）。
+ * 同一房型的請求不會在資料庫鎖上排隊，等待中的請求也不佔用連線，連線數固定為分片數。
+ */
+@Service
+public class BookingSequencer {
+
+    private static final Logger logger = LoggerFactory.getLogger(BookingSequencer.class);
+
+    @Autowired private RoomTypeRepository roomTypeRepo;
+    @Autowired private UserRepository userRepo;
+    @Autowired private BookingRepository bookingRepo;
+    @Autowired private BookingBatchRepository bookingBatchRepository;
+    @Autowired private InventoryService inventoryService;
+    @Autowired private WaitlistEntryRepository waitlistRepository;
+    @Autowired private RateCalendarService rateCalendarService;
+    @Autowired private ApplicationEventPublisher eventPublisher;
+    @Autowired private TransactionTemplate transactionTemplate;
+
+    // 分片數（同時也是排序器最多佔用的資料庫連線數）
+    @Value("${app.booking.sequencer.shards:4}")
+    private int shardCount = 4;
+
+    // 單批最多處理的指令數
+    @Value("${app.booking.sequencer.batch-size:64}")
+    private int batchSize = 64;
+
+    // 每個分片佇列的容量，滿了直接拒絕而不是無限堆積
+    @Value("${app.booking.sequencer.queue-capacity:10000}")
+    private int queueCapacity = 10000;
+
+    // 與其他寫入路徑衝突時，整批重試的次數與起始退避時間（與 BookingService 相同）
+    @Value("${app.booking.optimistic.max-attempts:5}")
+    private int maxAttempts = 5;
+
+    @Value("${app.booking.optimistic.backoff-ms:10}")
+    private long backoffMs = 10;
+
+    private Shard[] shards;
+
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong commands = new AtomicLong();
+
+    /**
+     * 一筆訂房指令；每次嘗試前重設結果，整批提交成功後才通知呼叫端
+     */
+    private static final class Command {
+        final long roomTypeId;
+        final LocalDate checkIn;
+        final LocalDate checkOut;
+        final int quantity;
+        final String username;
+        // 由候補轉成的訂單帶候補 ID，與訂單同一交易把候補標為已轉訂單；一般訂單為 null
+        final Long waitlistEntryId;
+        final CompletableFuture<Booking> future = new CompletableFuture<>();
+
+        Booking booking;
+        RuntimeException rejection;
+
+        Command(long roomTypeId, LocalDate checkIn, LocalDate checkOut, int quantity, String username,
+                Long waitlistEntryId) {
+            this.roomTypeId = roomTypeId;
+            this.checkIn = checkIn;
+            this.checkOut = checkOut;
+            this.quantity = quantity;
+            this.username = username;
+            this.waitlistEntryId = waitlistEntryId;
+        }
+
+        void reset() {
+            booking = null;
+            rejection = null;
+        }
+    }
+
+    private final class Shard implements Runnable {
+        final BlockingQueue<Command> queue = new ArrayBlockingQueue<>(queueCapacity);
+        final Thread thread;
+        volatile boolean running = true;
+
+        Shard(int index) {
+            thread = new Thread(this, "booking-shard-" + index);
+            thread.setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            List<Command> batch = new ArrayList<>(batchSize);
+            while (running) {
+                try {
+                    Command first = queue.poll(100, TimeUnit.MILLISECONDS);
+                    if (first == null) {
+                        continue;
+                    }
+                    batch.add(first);
+                    queue.drainTo(batch, batchSize - 1);
+                    process(batch);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                } catch (RuntimeException e) {
+                    // 不讓單批的意外錯誤終止分片執行緒
+                    logger.error("訂房分片處理失敗", e);
+                    batch.forEach(c -> c.future.completeExceptionally(e));
+                } finally {
+                    batch.clear();
+                }
+            }
+            Command left;
+            while ((left = queue.poll()) != null) {
+                left.future.completeExceptionally(new RuntimeException("系統關閉中，請稍後再試"));
+            }
+        }
+    }
+
+    @PostConstruct
+    public void start() {
+        shards = new Shard[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            shards[i] = new Shard(i);
+            shards[i].thread.start();
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        for (Shard shard : shards) {
+            shard.running = false;
+            shard.thread.interrupt();
+        }
+    }
+
+    /**
+     * 送出訂房指令，立即返回；訂單提交後 future 完成，庫存不足等錯誤以例外完成
+     */
+    public CompletableFuture<Booking> submit(long roomTypeId, LocalDate checkIn, LocalDate checkOut, int quantity,
+                                             String username) {
+        return submit(roomTypeId, checkIn, checkOut, quantity, username, null);
+    }
+
+    /**
+     * 送出由候補轉成的訂房指令：候補在訂單的同一交易內由等待中改為已轉訂單，
+     * 候補已不是等待中（例如使用者已取消）時拒絕這筆指令，不建立訂單
+     */
+    public CompletableFuture<Booking> submit(long roomTypeId, LocalDate checkIn, LocalDate checkOut, int quantity,
+                                             String username, Long waitlistEntryId) {
+        Command command = new Command(roomTypeId, checkIn, checkOut, quantity, username, waitlistEntryId);
+        Shard shard = shards[Math.floorMod(Long.hashCode(roomTypeId), shards.length)];
+        if (!shard.queue.offer(command)) {
+            command.future.completeExceptionally(new RuntimeException("訂房人數眾多，請稍後再試"));
+        }
+        return command.future;
+    }
+
+    private void process(List<Command> batch) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> apply(batch));
+                break;
+            } catch (ConcurrencyFailureException | DataIntegrityViolationException e) {
+                // 其他寫入路徑（取消、保留、購物車）同時修改了同一晚的帳本，退避後整批重來
+                if (attempt >= maxAttempts) {
+                    RuntimeException busy = new RuntimeException("訂房人數眾多，請稍後再試");
+                    batch.forEach(c -> c.future.completeExceptionally(busy));
+                    return;
+                }
+                RetryBackoff.sleep(backoffMs, attempt);
+            }
+        }
+
+        batches.incrementAndGet();
+        commands.addAndGet(batch.size());
+        for (Command c : batch) {
+            if (c.rejection != null) {
+                c.future.completeExceptionally(c.rejection);
+            } else {
+                c.future.complete(c.booking);
+            }
+        }
+    }
+
+    // 在單一交易內處理整批指令：同房型的指令共用一次帳本載入，逐筆在記憶體中檢查並累加
+    private void apply(List<Command> batch) {
+        Map<Long, List<Command>> byRoomType = new LinkedHashMap<>();
+        for (Command c : batch) {
+            c.reset();
+            byRoomType.computeIfAbsent(c.roomTypeId, id -> new ArrayList<>()).add(c);
+        }
+
+        Map<String, User> users = new HashMap<>();
+        List<Booking> accepted = new ArrayList<>();
+        List<Command> fromWaitlist = new ArrayList<>();
+        LocalDateTime now = LocalDateTime.now();
+        for (Map.Entry<Long, List<Command>> entry : byRoomType.entrySet()) {
+            List<Command> group = entry.getValue();
+            RoomType rt = roomTypeRepo.findById(entry.getKey()).orElse(null);
+            if (rt == null) {
+                group.forEach(c -> c.rejection = new RuntimeException("找不到房型 ID=" + entry.getKey()));
+                continue;
+            }
+
+            LocalDate from = group.stream().map(c -> c.checkIn).min(Comparator.naturalOrder()).get();
+            LocalDate to = group.stream().map(c -> c.checkOut).max(Comparator.naturalOrder()).get();
+            NavigableMap<LocalDate, RoomTypeInventory> ledger = inventoryService.loadLedger(rt, from, to);
+
+            for (Command c : group) {
+                User user = users.computeIfAbsent(c.username, name -> userRepo.findByUsername(name).orElse(null));
+                if (user == null) {
+                    c.rejection = new RuntimeException("找不到用戶：" + c.username);
+                    continue;
+                }
+
+                Collection<RoomTypeInventory> nights = ledger.subMap(c.checkIn, true, c.checkOut, false).values();
+                int remaining = nights.stream()
+                        .mapToInt(row -> row.getTotalRooms() - row.getBookedRooms())
+                        .min()
+                        .orElse(0);
+                if (remaining < c.quantity) {
+                    c.rejection = new RuntimeException("庫存不足，該日期區間剩餘：" + Math.max(remaining, 0));
+                    continue;
+                }
+                if (c.waitlistEntryId != null) {
+                    if (waitlistRepository.markPromoted(c.waitlistEntryId, now) == 0) {
+                        c.rejection = new RuntimeException("候補已取消或已轉為訂單");
+                        continue;
+                    }
+                    fromWaitlist.add(c);
+                }
+                for (RoomTypeInventory row : nights) {
+                    row.setBookedRooms(row.getBookedRooms() + c.quantity);
+                }
+
+                Booking booking = new Booking(null, c.checkIn, c.checkOut, rt, user, c.quantity,
+                        rateCalendarService.priceOf(rt, c.checkIn, c.checkOut, c.quantity));
+                booking.setStatus("PENDING");
+                c.booking = booking;
+                accepted.add(booking);
+            }
+            inventoryService.saveLedger(ledger.values());
+        }
+
+        if (accepted.isEmpty()) {
+            return;
+        }
+        bookingRepo.flush();
+        bookingBatchRepository.insertAll(accepted);
+        for (Command c : fromWaitlist) {
+            waitlistRepository.attachBooking(c.waitlistEntryId, c.booking.getId());
+        }
+        for (Booking b : accepted) {
+            eventPublisher.publishEvent(new BookingChangedEvent(
+                    b.getRoomType().getId(), b.getCheckIn(), b.getCheckOut(), b.getBookedQuantity()));
+            if (b.getRoomType().getAccommodation() != null) {
+                eventPublisher.publishEvent(new AccommodationCounterEvent(
+                        b.getRoomType().getAccommodation().getId(), AccommodationCounterEvent.Counter.BOOKINGS, 1));
+            }
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        long batchCount = batches.get();
+        stats.put("shards", shards.length);
+        stats.put("queued", Arrays.stream(shards).mapToInt(s -> s.queue.size()).sum());
+        stats.put("batches", batchCount);
+        stats.put("commands", commands.get());
+        stats.put("avgBatchSize", batchCount == 0 ? 0 : (double) commands.get() / batchCount);
+        return stats;
+    }
+}
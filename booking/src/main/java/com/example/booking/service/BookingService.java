@@ -1,27 +1,93 @@
 package com.example.booking.service;
 
+import com.example.booking.dto.AccommodationDTO;
+import com.example.booking.dto.AccommodationSearchFilter;
+import com.example.booking.dto.CartLineDTO;
+import com.example.booking.dto.CursorPage;
+import com.example.booking.dto.NearbyAccommodationDTO;
+import com.example.booking.dto.RoomTypeDTO;
+import com.example.booking.event.AccommodationChangedEvent;
+import com.example.booking.event.AccommodationCounterEvent;
+import com.example.booking.event.BookingChangedEvent;
+import com.example.booking.event.CatalogChangedEvent;
 import com.example.booking.model.*;
 import com.example.booking.repository.*;
+import com.example.booking.repository.AccommodationKeysetRepository.Sort;
 import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
 
 @Service
 public class BookingService {
 
+    // 購物車單次最多項目數
+    private static final int MAX_CART_LINES = 20;
+
+    // 關鍵字搜尋未指定排序時，依關聯度名次分頁的游標名稱
+    private static final String RELEVANCE_CURSOR = "relevance";
+    private static final String ORDERED_CURSOR = "ordered";
+
     @Autowired private AccommodationRepository accommodationRepo;
     @Autowired private BookingRepository bookingRepo;
     @Autowired private UserRepository userRepo;
     @Autowired private RoomTypeRepository roomTypeRepo;
+    @Autowired private InventoryService inventoryService;
+    @Autowired private AvailabilityIndex availabilityIndex;
+    @Autowired private ApplicationEventPublisher eventPublisher;
+    @Autowired private TransactionTemplate transactionTemplate;
+    @Autowired private BookingBatchRepository bookingBatchRepository;
+    @Autowired private BookingHoldService bookingHoldService;
+    @Autowired private BookingSequencer bookingSequencer;
+    @Autowired private BookingConflictDetector conflictDetector;
+    @Autowired private RateCalendarService rateCalendarService;
+    @Autowired private AccommodationSearchIndex searchIndex;
+    @Autowired private AccommodationKeysetRepository accommodationKeysetRepo;
+    @Autowired private AccommodationRankIndex rankIndex;
+    @Autowired private AccommodationGeoIndex geoIndex;
+    @Autowired private AccommodationFuzzyIndex fuzzyIndex;
+
+    // 扣庫存策略：ledger（每晚帳本，預設）/ pessimistic（鎖房型）/ optimistic（版本號 + 重試）/ sequenced（分片單一寫入者）
+    @Value("${app.booking.strategy:ledger}")
+    private String bookingStrategy;
+
+    // 交易衝突時的最多嘗試次數與起始退避時間（每次加倍並加上隨機抖動）
+    @Value("${app.booking.optimistic.max-attempts:5}")
+    private int optimisticMaxAttempts = 5;
+
+    @Value("${app.booking.optimistic.backoff-ms:10}")
+    private long optimisticBackoffMs = 10;
+
+    // 開交易前先以區間樹檢查剩餘房數，已售完的區間直接回絕
+    @Value("${app.booking.conflict-precheck:true}")
+    private boolean conflictPrecheck = true;
 
     // === 初始化資料 ===
     // 註解：改用 data.sql 初始化資料，不再使用 Java 代碼初始化
@@ -93,6 +159,7 @@ public class BookingService {
                 rt1.setDescription(acc.getDescription() + "｜標準雙人房");
                 rt1.setPricePerNight(acc.getPricePerNight());
                 rt1.setTotalRooms(5);
+                rt1.setMaxGuests(2);
                 roomTypes.add(rt1);
 
                 RoomType rt2 = new RoomType();
@@ -101,6 +168,7 @@ public class BookingService {
                 rt2.setDescription(acc.getDescription() + "｜豪華加大床");
                 rt2.setPricePerNight(acc.getPricePerNight().multiply(new BigDecimal("1.2")));
                 rt2.setTotalRooms(3);
+                rt2.setMaxGuests(3);
                 roomTypes.add(rt2);
             }
 
@@ -125,23 +193,208 @@ public class BookingService {
     }
 
     // === 以房型 ID 下單（正式邏輯）===
-    @Transactional
     public Booking bookByRoomType(long roomTypeId, LocalDate checkIn, LocalDate checkOut, int quantity) {
+        return bookByRoomType(roomTypeId, checkIn, checkOut, quantity, BookingStrategy.from(bookingStrategy));
+    }
+
+    // === 以指定扣庫存策略下單 ===
+    public Booking bookByRoomType(long roomTypeId, LocalDate checkIn, LocalDate checkOut, int quantity,
+                                  BookingStrategy strategy) {
+        if (strategy == BookingStrategy.SEQUENCED) {
+            return awaitSequenced(bookByRoomTypeAsync(roomTypeId, checkIn, checkOut, quantity));
+        }
+        precheckCapacity(roomTypeId, checkIn, checkOut, quantity);
+        return executeWithRetry(() -> placeBooking(roomTypeId, checkIn, checkOut, quantity, strategy));
+    }
+
+    // 預檢：不佔用交易與鎖，已售完的區間不必排隊扣庫存；結果可能稍舊，是否成功仍以帳本為準
+    private void precheckCapacity(long roomTypeId, LocalDate checkIn, LocalDate checkOut, int quantity) {
+        // 外層交易中載入區間樹會讀到尚未提交的資料，直接略過
+        if (!conflictPrecheck || TransactionSynchronizationManager.isActualTransactionActive()) {
+            return;
+        }
+        validateLine(checkIn, checkOut, quantity);
+        RoomType rt = roomTypeRepo.findById(roomTypeId).orElse(null);
+        if (rt == null) {
+            return;
+        }
+        int remaining = rt.getTotalRooms() - conflictDetector.maxConcurrent(roomTypeId, checkIn, checkOut);
+        if (remaining < quantity) {
+            throw new RuntimeException("庫存不足，該日期區間剩餘：" + Math.max(remaining, 0));
+        }
+    }
+
+    // === 非同步下單：交給房型所屬分片的單一寫入者排隊處理，呼叫端不佔用資料庫連線等待 ===
+    public CompletableFuture<Booking> bookByRoomTypeAsync(long roomTypeId, LocalDate checkIn, LocalDate checkOut,
+                                                          int quantity) {
+        validateLine(checkIn, checkOut, quantity);
+        return bookingSequencer.submit(roomTypeId, checkIn, checkOut, quantity, getLoggedInUsername());
+    }
+
+    // 同步等待排序器結果，拆開 CompletionException 讓呼叫端看到原本的錯誤訊息
+    private Booking awaitSequenced(CompletableFuture<Booking> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    // === 以暫時保留下單：保留仍有效時直接轉成訂單，不再扣庫存；已失效則改走一般流程 ===
+    public Booking bookWithHold(Long holdId, long roomTypeId, LocalDate checkIn, LocalDate checkOut, int quantity) {
+        if (holdId == null) {
+            return bookByRoomType(roomTypeId, checkIn, checkOut, quantity);
+        }
+        BookingStrategy strategy = BookingStrategy.from(bookingStrategy);
+        return executeWithRetry(() -> {
+            validateLine(checkIn, checkOut, quantity);
+            User user = getLoggedInUser();
+            if (bookingHoldService.claim(holdId, user.getUsername(), roomTypeId, checkIn, checkOut, quantity).isEmpty()) {
+                return placeBooking(roomTypeId, checkIn, checkOut, quantity, strategy);
+            }
+
+            RoomType rt = roomTypeRepo.findById(roomTypeId)
+                    .orElseThrow(() -> new RuntimeException("找不到房型 ID=" + roomTypeId));
+            Booking booking = new Booking(null, checkIn, checkOut, rt, user, quantity,
+                    rateCalendarService.priceOf(rt, checkIn, checkOut, quantity));
+            booking.setStatus("PENDING");
+            // 庫存與可用性索引在建立保留時已扣除，這裡只累加訂房次數
+            Booking saved = bookingRepo.save(booking);
+            publishBookingCount(saved, 1);
+            System.out.println("✅ 保留轉為訂單：" + saved.getId());
+            return saved;
+        });
+    }
+
+    // === 購物車下單：多個房型在同一筆交易內訂完，任一項失敗則全部回滾 ===
+    public List<Booking> bookCart(List<CartLineDTO> lines) {
+        return bookCart(lines, BookingStrategy.from(bookingStrategy));
+    }
+
+    public List<Booking> bookCart(List<CartLineDTO> lines, BookingStrategy strategy) {
+        if (lines == null || lines.isEmpty()) {
+            throw new RuntimeException("購物車沒有任何項目");
+        }
+        if (lines.size() > MAX_CART_LINES) {
+            throw new RuntimeException("購物車最多 " + MAX_CART_LINES + " 項");
+        }
+        for (CartLineDTO line : lines) {
+            if (line.getRoomTypeId() == null) {
+                throw new RuntimeException("購物車項目缺少房型");
+            }
+            validateLine(line.getCheckIn(), line.getCheckOut(), line.getQuantity() == null ? 0 : line.getQuantity());
+        }
+
+        // 依房型 ID、入住日排序後依序扣庫存（加鎖），交錯的購物車取得鎖的順序一致，不會互相死結
+        List<CartLineDTO> sorted = lines.stream()
+                .sorted(Comparator.comparing(CartLineDTO::getRoomTypeId)
+                        .thenComparing(CartLineDTO::getCheckIn))
+                .toList();
+        return executeWithRetry(() -> placeCart(sorted, strategy));
+    }
+
+    // 交易改由 TransactionTemplate 開啟：樂觀鎖衝突、死結/鎖等待逾時或同時建立同一晚帳本列時，整筆交易回滾後重新嘗試
+    private <T> T executeWithRetry(Supplier<T> action) {
+        // 已在外層交易中（例如舊版 book()）時無法重開交易，只嘗試一次
+        int maxAttempts = TransactionSynchronizationManager.isActualTransactionActive() ? 1 : optimisticMaxAttempts;
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return transactionTemplate.execute(status -> action.get());
+            } catch (ConcurrencyFailureException | DataIntegrityViolationException e) {
+                if (attempt >= maxAttempts) {
+                    throw new RuntimeException("訂房人數眾多，請稍後再試");
+                }
+                RetryBackoff.sleep(optimisticBackoffMs, attempt);
+            }
+        }
+    }
+
+    private Booking placeBooking(long roomTypeId, LocalDate checkIn, LocalDate checkOut, int quantity,
+                                 BookingStrategy strategy) {
+        validateLine(checkIn, checkOut, quantity);
+        User user = getLoggedInUser();
+
+        RoomType rt = reserve(strategy, roomTypeId, checkIn, checkOut, quantity);
+
+        Booking booking = new Booking(null, checkIn, checkOut, rt, user, quantity,
+                rateCalendarService.priceOf(rt, checkIn, checkOut, quantity));
+        booking.setStatus("PENDING"); // 設置初始狀態為待確認
+        Booking saved = bookingRepo.save(booking);
+        eventPublisher.publishEvent(new BookingChangedEvent(rt.getId(), checkIn, checkOut, quantity));
+        publishBookingCount(saved, 1);
+        System.out.println("✅ 新訂單建立成功：" + saved.getId());
+        return saved;
+    }
+
+    private List<Booking> placeCart(List<CartLineDTO> sorted, BookingStrategy strategy) {
+        User user = getLoggedInUser();
+
+        List<Booking> bookings = new ArrayList<>();
+        for (CartLineDTO line : sorted) {
+            RoomType rt = reserve(strategy, line.getRoomTypeId(), line.getCheckIn(), line.getCheckOut(), line.getQuantity());
+            Booking booking = new Booking(null, line.getCheckIn(), line.getCheckOut(), rt, user, line.getQuantity(),
+                    rateCalendarService.priceOf(rt, line.getCheckIn(), line.getCheckOut(), line.getQuantity()));
+            booking.setStatus("PENDING");
+            bookings.add(booking);
+        }
+
+        // 先送出 JPA 尚未寫入的變更，再以單一 JDBC batch 新增所有訂單
+        bookingRepo.flush();
+        bookingBatchRepository.insertAll(bookings);
+        for (Booking b : bookings) {
+            eventPublisher.publishEvent(new BookingChangedEvent(
+                    b.getRoomType().getId(), b.getCheckIn(), b.getCheckOut(), b.getBookedQuantity()));
+            publishBookingCount(b, 1);
+        }
+        System.out.println("✅ 購物車訂單建立成功：" + bookings.size() + " 筆");
+        return bookings;
+    }
+
+    private void validateLine(LocalDate checkIn, LocalDate checkOut, int quantity) {
         if (checkIn == null || checkOut == null || !checkOut.isAfter(checkIn)) {
             throw new RuntimeException("日期區間不合法");
         }
         if (quantity <= 0) {
             throw new RuntimeException("預訂數量需大於 0");
         }
+    }
 
-        String username = getLoggedInUsername();
-        User user = userRepo.findByUsername(username)
-                .orElseThrow(() -> new RuntimeException("找不到用戶：" + username));
+    private RoomType reserve(BookingStrategy strategy, long roomTypeId, LocalDate checkIn, LocalDate checkOut,
+                             int quantity) {
+        return switch (strategy) {
+            // 排序器只處理單筆訂房，購物車與保留轉訂單仍以帳本扣除
+            case LEDGER, SEQUENCED -> reserveWithLedger(roomTypeId, checkIn, checkOut, quantity);
+            case PESSIMISTIC -> reserveWithLock(roomTypeId, checkIn, checkOut, quantity);
+            case OPTIMISTIC -> reserveOptimistic(roomTypeId, checkIn, checkOut, quantity);
+        };
+    }
 
-        // 🔒 使用悲觀鎖查詢房型（關鍵修改）
-        RoomType rt = roomTypeRepo.findByIdWithLock(roomTypeId)
+    // 帳本模式：不鎖房型，直接以條件式 UPDATE 扣除每晚庫存
+    private RoomType reserveWithLedger(long roomTypeId, LocalDate checkIn, LocalDate checkOut, int quantity) {
+        RoomType rt = roomTypeRepo.findById(roomTypeId)
                 .orElseThrow(() -> new RuntimeException("找不到房型 ID=" + roomTypeId));
 
+        inventoryService.reserve(rt, checkIn, checkOut, quantity);
+        return rt;
+    }
+
+    // 樂觀鎖模式：不鎖任何列，衝突由帳本列的 @Version 在 flush 時偵測
+    private RoomType reserveOptimistic(long roomTypeId, LocalDate checkIn, LocalDate checkOut, int quantity) {
+        RoomType rt = roomTypeRepo.findById(roomTypeId)
+                .orElseThrow(() -> new RuntimeException("找不到房型 ID=" + roomTypeId));
+
+        inventoryService.reserveOptimistic(rt, checkIn, checkOut, quantity);
+        return rt;
+    }
+
+    // 悲觀鎖模式：鎖住整個房型後彙總重疊訂單（舊做法），仍同步扣除帳本避免兩種模式切換後失準
+    private RoomType reserveWithLock(long roomTypeId, LocalDate checkIn, LocalDate checkOut, int quantity) {
+        // 🔒 使用悲觀鎖查詢房型
+        RoomType rt = roomTypeRepo.findByIdWithLock(roomTypeId)
+                .orElseThrow(() -> new RuntimeException("找不到房型 ID=" + roomTypeId));
 
         Long alreadyBooked = bookingRepo.sumBookedQuantityBetween(roomTypeId, checkIn, checkOut);
         int totalRooms = rt.getTotalRooms();
@@ -151,20 +404,14 @@ public class BookingService {
             throw new RuntimeException("庫存不足，該日期區間剩餘：" + Math.max(totalRooms - alreadyBooked, 0));
         }
 
-        long days = ChronoUnit.DAYS.between(checkIn, checkOut);
-        if (days <= 0) {
-            throw new RuntimeException("入住/退房日期至少需 1 晚");
-        }
-
-        BigDecimal totalPrice = rt.getPricePerNight()
-                .multiply(BigDecimal.valueOf(days))
-                .multiply(BigDecimal.valueOf(quantity));
+        inventoryService.reserve(rt, checkIn, checkOut, quantity);
+        return rt;
+    }
 
-        Booking booking = new Booking(null, checkIn, checkOut, rt, user, quantity, totalPrice);
-        booking.setStatus("PENDING"); // 設置初始狀態為待確認
-        Booking saved = bookingRepo.save(booking);
-        System.out.println("✅ 新訂單建立成功：" + saved.getId());
-        return saved;
+    private User getLoggedInUser() {
+        String username = getLoggedInUsername();
+        return userRepo.findByUsername(username)
+                .orElseThrow(() -> new RuntimeException("找不到用戶：" + username));
     }
 
     // === 取得登入使用者 ===
@@ -184,6 +431,10 @@ public class BookingService {
         return sortAccommodations(accommodations, sortBy);
     }
 
+    public Optional<Accommodation> getAccommodation(Long id) {
+        return accommodationRepo.findById(id);
+    }
+
     public List<Accommodation> searchByLocation(String location) {
         return searchByLocation(location, null);
     }
@@ -198,24 +449,101 @@ public class BookingService {
         return sortAccommodations(accommodations, sortBy);
     }
 
-    // 地點或名稱搜尋（新增）
+    // 關鍵字搜尋：名稱、地點、地址、附近景點與設施，未指定排序時依關聯度排列
     public List<Accommodation> searchByLocationOrName(String keyword, String sortBy) {
         List<Accommodation> accommodations;
         if (keyword == null || keyword.isBlank()) {
             accommodations = accommodationRepo.findAll();
+        } else if (searchIndex.isReady()) {
+            accommodations = findAllInOrder(searchIndex.search(keyword));
         } else {
+            // 索引尚未建立（啟動中或已停用）：退回逐筆比對地點與名稱
             String searchKeyword = keyword.trim().toLowerCase();
-            // 搜尋地點或名稱包含關鍵字的住宿
             accommodations = accommodationRepo.findAll().stream()
-                    .filter(acc ->
-                        acc.getLocation().toLowerCase().contains(searchKeyword) ||
-                        acc.getName().toLowerCase().contains(searchKeyword)
-                    )
+                    .filter(acc -> matchesLocationOrName(acc, searchKeyword))
                     .collect(java.util.stream.Collectors.toList());
         }
         return sortAccommodations(accommodations, sortBy);
     }
 
+    /**
+     * 容許錯字的關鍵字搜尋：名稱或地點近似包含關鍵字即符合，錯字少的排在前面，
+     * 同樣錯字數的住宿再依 sortBy 排序（未指定時名稱符合優先於地點符合）；有日期時只保留可訂的住宿
+     */
+    public List<Accommodation> fuzzySearch(String keyword, LocalDate checkIn, LocalDate checkOut, String sortBy) {
+        Set<Long> available = checkIn != null && checkOut != null ? availableAccommodationIds(checkIn, checkOut) : null;
+        if (!fuzzyIndex.isReady()) {
+            // 索引尚未建立（啟動中或已停用）：退回一般關鍵字搜尋
+            List<Accommodation> exact = searchByLocationOrName(keyword, sortBy);
+            return available == null ? exact : sortAccommodations(exact.stream()
+                    .filter(acc -> available.contains(acc.getId()))
+                    .collect(java.util.stream.Collectors.toList()), sortBy, checkIn, checkOut);
+        }
+
+        List<AccommodationFuzzyIndex.Match> matches = fuzzyIndex.search(keyword).stream()
+                .filter(m -> available == null || available.contains(m.getAccommodationId()))
+                .collect(java.util.stream.Collectors.toList());
+        List<Accommodation> loaded = findAllInOrder(matches.stream()
+                .map(AccommodationFuzzyIndex.Match::getAccommodationId)
+                .collect(java.util.stream.Collectors.toList()));
+        Map<Long, Integer> editsOf = matches.stream().collect(java.util.stream.Collectors.toMap(
+                AccommodationFuzzyIndex.Match::getAccommodationId, AccommodationFuzzyIndex.Match::getEdits));
+
+        // 依錯字數分組，組內再依 sortBy 排序
+        List<Accommodation> result = new ArrayList<>(loaded.size());
+        int from = 0;
+        while (from < loaded.size()) {
+            int edits = editsOf.get(loaded.get(from).getId());
+            int to = from;
+            while (to < loaded.size() && editsOf.get(loaded.get(to).getId()) == edits) {
+                to++;
+            }
+            result.addAll(sortAccommodations(new ArrayList<>(loaded.subList(from, to)), sortBy, checkIn, checkOut));
+            from = to;
+        }
+        return result;
+    }
+
+    /**
+     * 以關鍵字篩選已取得的住宿（例如日期可用性查詢的結果），保留原本順序
+     */
+    public List<Accommodation> filterByKeyword(List<Accommodation> accommodations, String keyword) {
+        if (keyword == null || keyword.isBlank()) {
+            return accommodations;
+        }
+        if (searchIndex.isReady()) {
+            java.util.Set<Long> hits = new java.util.HashSet<>(searchIndex.search(keyword));
+            return accommodations.stream()
+                    .filter(acc -> hits.contains(acc.getId()))
+                    .collect(java.util.stream.Collectors.toList());
+        }
+        String searchKeyword = keyword.trim().toLowerCase();
+        return accommodations.stream()
+                .filter(acc -> matchesLocationOrName(acc, searchKeyword))
+                .collect(java.util.stream.Collectors.toList());
+    }
+
+    private static boolean matchesLocationOrName(Accommodation acc, String keyword) {
+        return (acc.getLocation() != null && acc.getLocation().toLowerCase().contains(keyword))
+                || (acc.getName() != null && acc.getName().toLowerCase().contains(keyword));
+    }
+
+    /**
+     * 排序有日期的搜尋結果：價格排序依各住宿最便宜房型在該日期區間的房價日曆報價（單間），
+     * 其他排序方式與不帶日期時相同
+     */
+    public List<Accommodation> sortAccommodations(List<Accommodation> accommodations, String sortBy,
+                                                  LocalDate checkIn, LocalDate checkOut) {
+        if (checkIn == null || checkOut == null || sortBy == null) {
+            return sortAccommodations(accommodations, sortBy);
+        }
+        return switch (sortBy.toLowerCase()) {
+            case "price_asc", "price_low" -> sortByCents(accommodations, quotedCents(accommodations, checkIn, checkOut), true);
+            case "price_desc", "price_high" -> sortByCents(accommodations, quotedCents(accommodations, checkIn, checkOut), false);
+            default -> sortAccommodations(accommodations, sortBy);
+        };
+    }
+
     /**
      * 排序住宿列表（改為 public 以便 Controller 調用)
      * @param accommodations 住宿列表
@@ -227,22 +555,19 @@ public class BookingService {
             return accommodations; // 不排序，返回原始順序
         }
 
+        // 名次索引涵蓋所有住宿時直接依預先排好的排列取出，不必逐一比較
+        Sort sort = Sort.of(sortBy);
+        if (sort != Sort.DEFAULT && rankIndex.isReady()) {
+            List<Accommodation> ranked = rankIndex.sort(accommodations, sort);
+            if (ranked != null) {
+                return ranked;
+            }
+        }
+
         return switch (sortBy.toLowerCase()) {
-            case "price_asc", "price_low" -> accommodations.stream()
-                    .sorted((a, b) -> {
-                        BigDecimal priceA = a.getPricePerNight() != null ? a.getPricePerNight() : BigDecimal.ZERO;
-                        BigDecimal priceB = b.getPricePerNight() != null ? b.getPricePerNight() : BigDecimal.ZERO;
-                        return priceA.compareTo(priceB);
-                    })
-                    .toList();
+            case "price_asc", "price_low" -> sortByPriceCents(accommodations, true);
 
-            case "price_desc", "price_high" -> accommodations.stream()
-                    .sorted((a, b) -> {
-                        BigDecimal priceA = a.getPricePerNight() != null ? a.getPricePerNight() : BigDecimal.ZERO;
-                        BigDecimal priceB = b.getPricePerNight() != null ? b.getPricePerNight() : BigDecimal.ZERO;
-                        return priceB.compareTo(priceA);
-                    })
-                    .toList();
+            case "price_desc", "price_high" -> sortByPriceCents(accommodations, false);
 
             case "rating", "rating_desc" -> accommodations.stream()
                     .sorted((a, b) -> {
@@ -303,6 +628,322 @@ public class BookingService {
         };
     }
 
+    // === 游標分頁 ===
+
+    /**
+     * 住宿列表的一頁，排序方式與 getAllAccommodations(sortBy) 相同
+     */
+    public CursorPage<Accommodation> getAccommodationPage(String sortBy, String cursor, Integer limit) {
+        return searchAccommodationPage(null, null, null, sortBy, cursor, limit);
+    }
+
+    /**
+     * 搜尋結果的一頁：關鍵字與日期先決定候選住宿 ID，再由資料庫依排序鍵取下一段；
+     * 有關鍵字且未指定排序時，依關鍵字索引的關聯度名次分頁
+     */
+    public CursorPage<Accommodation> searchAccommodationPage(String keyword, LocalDate checkIn, LocalDate checkOut,
+                                                             String sortBy, String cursor, Integer limit) {
+        int size = KeysetCursor.limit(limit);
+        Sort sort = Sort.of(sortBy);
+        boolean hasKeyword = keyword != null && !keyword.isBlank();
+
+        List<Long> ranked = hasKeyword && searchIndex.isReady() ? searchIndex.search(keyword) : null;
+        Collection<Long> candidates = ranked;
+        if (checkIn != null && checkOut != null) {
+            Set<Long> available = availableAccommodationIds(checkIn, checkOut);
+            if (ranked != null) {
+                ranked = ranked.stream().filter(available::contains).toList();
+                candidates = ranked;
+            } else {
+                candidates = available;
+            }
+        }
+
+        if (ranked != null && sort == Sort.DEFAULT) {
+            return rankedAccommodationPage(ranked, cursor, size);
+        }
+
+        String sortName = sort.name().toLowerCase();
+        KeysetCursor after = KeysetCursor.decode(cursor, sortName, sort.keyCount() + 1);
+        Object[] afterKeys = after != null ? sort.parse(after.getValues()) : null;
+
+        // 候選住宿已由索引決定時，沿名次索引的排列取下一頁；找到一頁的筆數即停止
+        List<Long> pageIds = candidates != null && rankIndex.isReady()
+                ? rankIndex.page(sort, afterKeys, candidates, size + 1)
+                : null;
+        List<Accommodation> fetched;
+        if (pageIds != null) {
+            fetched = findAllInOrder(pageIds);
+        } else {
+            // 索引尚未建立時，關鍵字改由資料庫比對名稱與地點
+            String nameOrLocation = hasKeyword && ranked == null ? keyword : null;
+            fetched = accommodationKeysetRepo.findPage(sort, afterKeys, candidates, nameOrLocation, size + 1);
+        }
+        return CursorPage.of(fetched, size, acc -> KeysetCursor.encode(sortName, sort.keysOf(acc)));
+    }
+
+    // === 條件搜尋 ===
+
+    /**
+     * 依搜尋條件查詢住宿：關鍵字、城市、價格、評分、設施、入住人數與日期都在同一個 SQL 中篩選並排序
+     */
+    public List<Accommodation> searchByFilter(AccommodationSearchFilter filter, String sortBy) {
+        ensureLedger(filter);
+        return accommodationKeysetRepo.findPage(Sort.of(sortBy), null, specificationOf(filter, true), Integer.MAX_VALUE);
+    }
+
+    /**
+     * 只保留符合城市、價格、評分、設施與人數條件的住宿（維持原順序），由資料庫以一次查詢判斷；
+     * 關鍵字與日期視為已由呼叫端處理（例如容許錯字的搜尋）
+     */
+    public List<Accommodation> retainByFilter(List<Accommodation> accommodations, AccommodationSearchFilter filter) {
+        if (accommodations.isEmpty() || !filter.hasAttributeFilters()) {
+            return accommodations;
+        }
+        Set<Long> ids = accommodations.stream().map(Accommodation::getId).collect(java.util.stream.Collectors.toSet());
+        Set<Long> matched = accommodationKeysetRepo.findPage(Sort.DEFAULT, null,
+                        specificationOf(filter, false).and(AccommodationSpecifications.idIn(ids)), Integer.MAX_VALUE)
+                .stream()
+                .map(Accommodation::getId)
+                .collect(java.util.stream.Collectors.toSet());
+        return accommodations.stream()
+                .filter(acc -> matched.contains(acc.getId()))
+                .collect(java.util.stream.Collectors.toList());
+    }
+
+    /**
+     * 依搜尋條件取一頁住宿：條件、排序鍵游標與筆數限制組成單一 SQL
+     */
+    public CursorPage<Accommodation> searchByFilterPage(AccommodationSearchFilter filter, String sortBy,
+                                                        String cursor, Integer limit) {
+        int size = KeysetCursor.limit(limit);
+        Sort sort = Sort.of(sortBy);
+        String sortName = sort.name().toLowerCase();
+        KeysetCursor after = KeysetCursor.decode(cursor, sortName, sort.keyCount() + 1);
+        Object[] afterKeys = after != null ? sort.parse(after.getValues()) : null;
+
+        ensureLedger(filter);
+        List<Accommodation> fetched = accommodationKeysetRepo.findPage(sort, afterKeys, specificationOf(filter, true),
+                size + 1);
+        return CursorPage.of(fetched, size, acc -> KeysetCursor.encode(sortName, sort.keysOf(acc)));
+    }
+
+    // 日期條件依每晚庫存帳本判斷，查詢前先回填帳本導入前的訂單
+    private void ensureLedger(AccommodationSearchFilter filter) {
+        if (filter.getCheckIn() != null && filter.getCheckOut() != null && filter.getCheckOut().isAfter(filter.getCheckIn())) {
+            inventoryService.ensureNightsForBookings(filter.getCheckIn(), filter.getCheckOut());
+        }
+    }
+
+    // withKeywordAndDates 為 false 時只組合住宿屬性與人數條件
+    private static Specification<Accommodation> specificationOf(AccommodationSearchFilter filter,
+                                                                boolean withKeywordAndDates) {
+        Specification<Accommodation> spec = Specification
+                .where(AccommodationSpecifications.inCities(filter.getCities()))
+                .and(AccommodationSpecifications.priceBetween(filter.getMinPrice(), filter.getMaxPrice()))
+                .and(AccommodationSpecifications.minRating(filter.getMinRating()))
+                .and(AccommodationSpecifications.hasAmenities(filter.getAmenities()));
+        if (!withKeywordAndDates) {
+            return spec.and(AccommodationSpecifications.availableFor(filter.getGuests(), null, null));
+        }
+        return spec.and(AccommodationSpecifications.keyword(filter.getKeyword()))
+                .and(AccommodationSpecifications.availableFor(filter.getGuests(), filter.getCheckIn(), filter.getCheckOut()));
+    }
+
+    // 依關聯度名次分頁：游標記錄上一頁最後一筆的名次與 ID
+    private CursorPage<Accommodation> rankedAccommodationPage(List<Long> ranked, String cursor, int size) {
+        int start = startAfter(ranked, KeysetCursor.decode(cursor, RELEVANCE_CURSOR, 2));
+        int end = Math.min(start + size, ranked.size());
+        List<Accommodation> items = findAllInOrder(ranked.subList(start, end));
+
+        boolean hasMore = end < ranked.size();
+        String next = hasMore ? KeysetCursor.encode(RELEVANCE_CURSOR, end - 1, ranked.get(end - 1)) : null;
+        return new CursorPage<>(items, next, hasMore);
+    }
+
+    /**
+     * 已在記憶體中排好的完整結果（容許錯字的搜尋、依房價日曆報價排序）的一頁，
+     * 游標與關聯度分頁相同，記錄上一頁最後一筆的位置與 ID
+     */
+    public CursorPage<Accommodation> pageOf(List<Accommodation> ordered, String cursor, Integer limit) {
+        int size = KeysetCursor.limit(limit);
+        List<Long> ids = ordered.stream().map(Accommodation::getId).toList();
+        int start = startAfter(ids, KeysetCursor.decode(cursor, ORDERED_CURSOR, 2));
+        int end = Math.min(start + size, ids.size());
+
+        boolean hasMore = end < ids.size();
+        String next = hasMore ? KeysetCursor.encode(ORDERED_CURSOR, end - 1, ids.get(end - 1)) : null;
+        return new CursorPage<>(new ArrayList<>(ordered.subList(start, end)), next, hasMore);
+    }
+
+    // 依游標的位置與最後一筆 ID 找出下一頁的起點
+    private static int startAfter(List<Long> ids, KeysetCursor after) {
+        int start = 0;
+        if (after != null) {
+            int position;
+            try {
+                position = Integer.parseInt(after.getValues().get(0));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("分頁游標無效");
+            }
+            long lastId = after.lastId();
+            if (position >= 0 && position < ids.size() && ids.get(position) == lastId) {
+                start = position + 1;
+            } else {
+                // 索引更新後名次可能移動：依上一頁最後一筆的 ID 找回位置，找不到就沿用原名次
+                int index = ids.indexOf(lastId);
+                start = index >= 0 ? index + 1 : Math.max(0, Math.min(position + 1, ids.size()));
+            }
+        }
+        return start;
+    }
+
+    // 依 ID 載入住宿並保留 ID 的順序（已刪除的略過）
+    private List<Accommodation> findAllInOrder(List<Long> ids) {
+        Map<Long, Accommodation> byId = accommodationRepo.findAllById(ids).stream()
+                .collect(java.util.stream.Collectors.toMap(Accommodation::getId, acc -> acc));
+        return ids.stream()
+                .map(byId::get)
+                .filter(Objects::nonNull)
+                .collect(java.util.stream.Collectors.toList());
+    }
+
+    private Set<Long> availableAccommodationIds(LocalDate checkIn, LocalDate checkOut) {
+        if (!checkOut.isAfter(checkIn)) {
+            throw new IllegalArgumentException("日期區間不合法");
+        }
+        if (availabilityIndex.covers(checkIn, checkOut)) {
+            return availabilityIndex.availableAccommodationIds(checkIn, checkOut);
+        }
+        inventoryService.ensureNightsForBookings(checkIn, checkOut);
+        return accommodationRepo.findAvailableAccommodations(checkIn, checkOut).stream()
+                .map(Accommodation::getId)
+                .collect(java.util.stream.Collectors.toSet());
+    }
+
+    // === 附近住宿 ===
+
+    /**
+     * 依與中心點的實際距離由近到遠列出住宿，可限定半徑與地圖範圍，並可再以關鍵字與日期篩選
+     * @param radiusKm 半徑（公里），null 表示不限
+     * @param box 地圖範圍，null 表示不限
+     * @param limit 最多筆數，未指定用預設值
+     */
+    public List<NearbyAccommodationDTO> searchNearby(double latitude, double longitude, Double radiusKm,
+                                                     AccommodationGeoIndex.BoundingBox box, String keyword,
+                                                     LocalDate checkIn, LocalDate checkOut, Integer limit) {
+        int size = KeysetCursor.limit(limit);
+        boolean hasKeyword = keyword != null && !keyword.isBlank();
+
+        Set<Long> candidates = hasKeyword && searchIndex.isReady()
+                ? new java.util.HashSet<>(searchIndex.search(keyword))
+                : null;
+        if (checkIn != null && checkOut != null) {
+            Set<Long> available = availableAccommodationIds(checkIn, checkOut);
+            if (candidates != null) {
+                candidates.retainAll(available);
+            } else {
+                candidates = available;
+            }
+        }
+
+        // 關鍵字索引尚未建立時，先取範圍內全部再比對地點與名稱
+        boolean filterByName = hasKeyword && !searchIndex.isReady();
+        List<AccommodationGeoIndex.Hit> hits = geoIndex.search(latitude, longitude, radiusKm, box, candidates,
+                filterByName ? Integer.MAX_VALUE : size);
+
+        Map<Long, Accommodation> byId = accommodationRepo.findAllById(hits.stream()
+                        .map(AccommodationGeoIndex.Hit::getAccommodationId)
+                        .collect(java.util.stream.Collectors.toList())).stream()
+                .collect(java.util.stream.Collectors.toMap(Accommodation::getId, acc -> acc));
+        String searchKeyword = hasKeyword ? keyword.trim().toLowerCase() : null;
+        List<NearbyAccommodationDTO> result = new ArrayList<>();
+        for (AccommodationGeoIndex.Hit hit : hits) {
+            Accommodation acc = byId.get(hit.getAccommodationId());
+            if (acc == null || (filterByName && !matchesLocationOrName(acc, searchKeyword))) {
+                continue;
+            }
+            double distance = BigDecimal.valueOf(hit.getDistanceKm()).setScale(3, java.math.RoundingMode.HALF_UP).doubleValue();
+            result.add(new NearbyAccommodationDTO(AccommodationDTO.from(acc), distance));
+            if (result.size() == size) {
+                break;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 所有訂單的一頁（新到舊）
+     */
+    public CursorPage<Booking> getBookingPage(String cursor, Integer limit) {
+        int size = KeysetCursor.limit(limit);
+        List<Booking> fetched = bookingRepo.findPageWithRelations(beforeId(cursor, "bookings"),
+                PageRequest.of(0, size + 1));
+        return CursorPage.of(fetched, size, b -> KeysetCursor.encode("bookings", b.getId()));
+    }
+
+    /**
+     * 房東名下訂單的一頁（新到舊）
+     */
+    public CursorPage<Booking> getOwnerBookingPage(String username, String cursor, Integer limit) {
+        int size = KeysetCursor.limit(limit);
+        List<Booking> fetched = bookingRepo.findPageByOwnerUsername(username, beforeId(cursor, "owner-bookings"),
+                PageRequest.of(0, size + 1));
+        return CursorPage.of(fetched, size, b -> KeysetCursor.encode("owner-bookings", b.getId()));
+    }
+
+    private static long beforeId(String cursor, String sortName) {
+        KeysetCursor after = KeysetCursor.decode(cursor, sortName, 1);
+        return after != null ? after.lastId() : Long.MAX_VALUE;
+    }
+
+    private static List<Accommodation> sortByPriceCents(List<Accommodation> accommodations, boolean ascending) {
+        long[] cents = new long[accommodations.size()];
+        for (int i = 0; i < cents.length; i++) {
+            cents[i] = MoneyCents.of(accommodations.get(i).getPricePerNight());
+        }
+        return sortByCents(accommodations, cents, ascending);
+    }
+
+    // 每間住宿在 [checkIn, checkOut) 的報價（分）：取最便宜房型的房價日曆總價；
+    // 沒有房型的住宿退回以列表價乘上晚數，讓單位一致
+    private long[] quotedCents(List<Accommodation> accommodations, LocalDate checkIn, LocalDate checkOut) {
+        Map<Long, Long> cheapest = new HashMap<>();
+        List<Long> ids = accommodations.stream().map(Accommodation::getId).toList();
+        if (!ids.isEmpty()) {
+            for (RoomType rt : roomTypeRepo.findByAccommodationIds(ids)) {
+                long quote = MoneyCents.of(rateCalendarService.priceOf(rt, checkIn, checkOut, 1));
+                cheapest.merge(rt.getAccommodation().getId(), quote, Math::min);
+            }
+        }
+        long nights = ChronoUnit.DAYS.between(checkIn, checkOut);
+        long[] cents = new long[accommodations.size()];
+        for (int i = 0; i < cents.length; i++) {
+            Accommodation acc = accommodations.get(i);
+            Long quote = cheapest.get(acc.getId());
+            cents[i] = quote != null ? quote : MoneyCents.of(acc.getPricePerNight()) * nights;
+        }
+        return cents;
+    }
+
+    // 價格先換算成分（long）再排序，比較時不必反覆比較 BigDecimal；排序穩定，同價維持原順序
+    private static List<Accommodation> sortByCents(List<Accommodation> accommodations, long[] cents, boolean ascending) {
+        int n = accommodations.size();
+        Integer[] order = new Integer[n];
+        for (int i = 0; i < n; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, ascending
+                ? (x, y) -> Long.compare(cents[x], cents[y])
+                : (x, y) -> Long.compare(cents[y], cents[x]));
+
+        List<Accommodation> sorted = new ArrayList<>(n);
+        for (int i : order) {
+            sorted.add(accommodations.get(i));
+        }
+        return sorted;
+    }
+
     public List<Booking> getBookingsForUser(String username) {
         return bookingRepo.findByUserUsernameFetchAll(username);
     }
@@ -312,9 +953,46 @@ public class BookingService {
     }
 
 
-    @SuppressWarnings("unused")
+    // === 查詢日期區間內仍有空房的住宿 ===
     public List<Accommodation> getAvailableAccommodations(LocalDate checkIn, LocalDate checkOut) {
-        return accommodationRepo.findAll();
+        if (checkIn == null || checkOut == null || !checkOut.isAfter(checkIn)) {
+            throw new IllegalArgumentException("日期區間不合法");
+        }
+        // 索引涵蓋的區間直接由記憶體判斷，其餘依資料庫的每晚庫存帳本判斷
+        if (availabilityIndex.covers(checkIn, checkOut)) {
+            return accommodationRepo.findAllById(availabilityIndex.availableAccommodationIds(checkIn, checkOut));
+        }
+        inventoryService.ensureNightsForBookings(checkIn, checkOut);
+        return accommodationRepo.findAvailableAccommodations(checkIn, checkOut);
+    }
+
+    // 訂單取消後通知可用性索引釋放房間
+    private void publishRelease(Booking booking) {
+        eventPublisher.publishEvent(new BookingChangedEvent(
+                booking.getRoomType().getId(), booking.getCheckIn(), booking.getCheckOut(),
+                -booking.getBookedQuantity()));
+        publishBookingCount(booking, -1);
+    }
+
+    // 訂房次數交給計數器累加後批次寫回，下單交易不更新住宿列
+    private void publishBookingCount(Booking booking, int delta) {
+        Accommodation accommodation = booking.getRoomType().getAccommodation();
+        if (accommodation != null) {
+            eventPublisher.publishEvent(new AccommodationCounterEvent(
+                    accommodation.getId(), AccommodationCounterEvent.Counter.BOOKINGS, delta));
+        }
+    }
+
+    // 以條件式更新改為已取消：前面的狀態檢查讀的是快照，同一訂單同時被取消（例如用戶與房東）時
+    // 只有改到狀態的交易釋放帳本與發出事件，另一個交易視為已取消
+    private Booking cancel(Booking booking) {
+        if (bookingRepo.markCancelled(booking.getId()) == 0) {
+            throw new RuntimeException("訂單已取消");
+        }
+        booking.setStatus("CANCELLED");
+        inventoryService.release(booking);
+        publishRelease(booking);
+        return booking;
     }
 
     // === 一般用戶取消訂單（需為訂單所有者） ===
@@ -339,8 +1017,7 @@ public class BookingService {
             throw new RuntimeException("已開始入住或入住當日，無法取消");
         }
 
-        booking.setStatus("CANCELLED");
-        return bookingRepo.save(booking);
+        return cancel(booking);
     }
 
     // === 管理員取消訂單（可取消任意訂單） ===
@@ -353,8 +1030,7 @@ public class BookingService {
             throw new RuntimeException("訂單已取消");
         }
 
-        booking.setStatus("CANCELLED");
-        return bookingRepo.save(booking);
+        return cancel(booking);
     }
 
     // === 房東專用方法 ===
@@ -370,7 +1046,9 @@ public class BookingService {
                 .orElseThrow(() -> new RuntimeException("找不到用戶：" + username));
 
         newAccommodation.setOwner(owner);
-        return accommodationRepo.save(newAccommodation);
+        Accommodation saved = accommodationRepo.save(newAccommodation);
+        eventPublisher.publishEvent(new AccommodationChangedEvent(saved.getId()));
+        return saved;
     }
 
     // 更新住宿
@@ -390,8 +1068,12 @@ public class BookingService {
         existing.setPricePerNight(updatedAccommodation.getPricePerNight());
         existing.setAmenities(updatedAccommodation.getAmenities());
         existing.setImageUrl(updatedAccommodation.getImageUrl()); // ✅ 添加圖片 URL 更新
+        existing.setLatitude(updatedAccommodation.getLatitude());
+        existing.setLongitude(updatedAccommodation.getLongitude());
 
-        return accommodationRepo.save(existing);
+        Accommodation saved = accommodationRepo.save(existing);
+        eventPublisher.publishEvent(new AccommodationChangedEvent(saved.getId()));
+        return saved;
     }
 
     // 刪除住宿
@@ -405,6 +1087,7 @@ public class BookingService {
         }
 
         accommodationRepo.deleteById(id);
+        eventPublisher.publishEvent(new AccommodationChangedEvent(id));
     }
 
     // 獲取房型列表
@@ -412,6 +1095,16 @@ public class BookingService {
         return roomTypeRepo.findByAccommodationId(accId);
     }
 
+    // 房型列表 API 用：單一建構式查詢產生 DTO
+    public List<RoomTypeDTO> getRoomTypeViewsForAccommodation(Long accId) {
+        return roomTypeRepo.findDtoByAccommodationId(accId);
+    }
+
+    // 房東名下的房型總數
+    public long countRoomTypesForOwner(String username) {
+        return roomTypeRepo.countByOwnerUsername(username);
+    }
+
     // 檢查住宿所有權（輔助方法）
     public void checkAccommodationOwnership(Long accId, String username) {
         Accommodation acc = accommodationRepo.findById(accId)
@@ -431,10 +1124,13 @@ public class BookingService {
                 .orElseThrow(() -> new RuntimeException("找不到住宿 ID=" + accId));
 
         newRoomType.setAccommodation(acc);
-        return roomTypeRepo.save(newRoomType);
+        RoomType saved = roomTypeRepo.save(newRoomType);
+        eventPublisher.publishEvent(new CatalogChangedEvent(saved.getId()));
+        return saved;
     }
 
     // 更新房型
+    @Transactional
     public RoomType updateRoomType(Long roomTypeId, RoomType updatedRoomType, String username) {
         RoomType existing = roomTypeRepo.findById(roomTypeId)
                 .orElseThrow(() -> new RuntimeException("找不到房型 ID=" + roomTypeId));
@@ -449,11 +1145,15 @@ public class BookingService {
         existing.setDescription(updatedRoomType.getDescription());
         existing.setPricePerNight(updatedRoomType.getPricePerNight());
         existing.setTotalRooms(updatedRoomType.getTotalRooms());
+        existing.setMaxGuests(updatedRoomType.getMaxGuests());
+        inventoryService.updateTotalRooms(roomTypeId, updatedRoomType.getTotalRooms());
+        eventPublisher.publishEvent(new CatalogChangedEvent(roomTypeId));
 
         return roomTypeRepo.save(existing);
     }
 
     // 刪除房型
+    @Transactional
     public void deleteRoomType(Long roomTypeId, String username) {
         RoomType roomType = roomTypeRepo.findById(roomTypeId)
                 .orElseThrow(() -> new RuntimeException("找不到房型 ID=" + roomTypeId));
@@ -463,7 +1163,10 @@ public class BookingService {
             throw new RuntimeException("無權限刪除此房型");
         }
 
+        inventoryService.deleteForRoomType(roomTypeId);
+        rateCalendarService.deleteForRoomType(roomTypeId);
         roomTypeRepo.deleteById(roomTypeId);
+        eventPublisher.publishEvent(new CatalogChangedEvent(roomTypeId));
     }
 
     // === 房東查看自己住宿的訂單 ===
@@ -495,6 +1198,7 @@ public class BookingService {
     }
 
     // === 房東取消訂單 ===
+    @Transactional
     public Booking cancelBookingByOwner(Long bookingId, String ownerUsername) {
         Booking booking = bookingRepo.findById(bookingId)
                 .orElseThrow(() -> new RuntimeException("找不到訂單 ID=" + bookingId));
@@ -509,8 +1213,7 @@ public class BookingService {
             throw new RuntimeException("訂單已經取消過了");
         }
 
-        booking.setStatus("CANCELLED");
-        return bookingRepo.save(booking);
+        return cancel(booking);
     }
 
     // === 管理員確認訂單 ===
@@ -539,12 +1242,15 @@ public class BookingService {
                 .orElseThrow(() -> new RuntimeException("找不到住宿 ID=" + accId));
 
         newRoomType.setAccommodation(acc);
-        return roomTypeRepo.save(newRoomType);
+        RoomType saved = roomTypeRepo.save(newRoomType);
+        eventPublisher.publishEvent(new CatalogChangedEvent(saved.getId()));
+        return saved;
     }
 
     /**
      * 管理員更新房型
      */
+    @Transactional
     public RoomType updateRoomTypeForAdmin(Long roomTypeId, RoomType updatedRoomType) {
         RoomType existing = roomTypeRepo.findById(roomTypeId)
                 .orElseThrow(() -> new RuntimeException("找不到房型 ID=" + roomTypeId));
@@ -554,6 +1260,9 @@ public class BookingService {
         existing.setDescription(updatedRoomType.getDescription());
         existing.setPricePerNight(updatedRoomType.getPricePerNight());
         existing.setTotalRooms(updatedRoomType.getTotalRooms());
+        existing.setMaxGuests(updatedRoomType.getMaxGuests());
+        inventoryService.updateTotalRooms(roomTypeId, updatedRoomType.getTotalRooms());
+        eventPublisher.publishEvent(new CatalogChangedEvent(roomTypeId));
 
         return roomTypeRepo.save(existing);
     }
@@ -561,12 +1270,16 @@ public class BookingService {
     /**
      * 管理員刪除房型
      */
+    @Transactional
     public void deleteRoomTypeForAdmin(Long roomTypeId) {
         RoomType roomType = roomTypeRepo.findById(roomTypeId)
                 .orElseThrow(() -> new RuntimeException("找不到房型 ID=" + roomTypeId));
 
         // 管理員直接刪除，不檢查所有權
+        inventoryService.deleteForRoomType(roomTypeId);
+        rateCalendarService.deleteForRoomType(roomTypeId);
         roomTypeRepo.deleteById(roomTypeId);
+        eventPublisher.publishEvent(new CatalogChangedEvent(roomTypeId));
     }
 
     /**
@@ -0,0 +1,26 @@
+package com.example.booking.service;
+
+/**
+ * 訂房扣庫存策略（對應設定 app.booking.strategy）
+ */
+public enum BookingStrategy {
+
+    /** 每晚庫存帳本 + 條件式 UPDATE（預設） */
+    LEDGER,
+
+    /** 悲觀鎖鎖定整個房型後彙總重疊訂單（舊做法，保留作為對照） */
+    PESSIMISTIC,
+
+    /** 不加鎖讀取帳本列，提交時以 @Version 偵測衝突並有限次數重試 */
+    OPTIMISTIC,
+
+    /** 依房型分片交給單一寫入者排隊處理，記憶體內檢查庫存後整批提交（僅單筆訂房，其餘流程同 LEDGER） */
+    SEQUENCED;
+
+    public static BookingStrategy from(String value) {
+        if (value == null || value.isBlank()) {
+            return LEDGER;
+        }
+        return valueOf(value.trim().toUpperCase());
+    }
+}
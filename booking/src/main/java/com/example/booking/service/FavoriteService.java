@@ -1,5 +1,7 @@
 package com.example.booking.service;
 
+import com.example.booking.dto.CursorPage;
+import com.example.booking.event.AccommodationCounterEvent;
 import com.example.booking.model.Accommodation;
 import com.example.booking.model.Favorite;
 import com.example.booking.model.User;
@@ -9,6 +11,8 @@ import com.example.booking.repository.UserRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -33,6 +37,9 @@ public class FavoriteService {
     @Autowired
     private AccommodationRepository accommodationRepository;
 
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
     /**
      * 添加收藏
      */
@@ -53,6 +60,8 @@ public class FavoriteService {
 
         Favorite favorite = new Favorite(user, accommodation);
         Favorite saved = favoriteRepository.save(favorite);
+        eventPublisher.publishEvent(new AccommodationCounterEvent(
+                accommodationId, AccommodationCounterEvent.Counter.FAVORITES, 1));
 
         logger.info("用戶 {} 成功添加收藏住宿 {}", username, accommodationId);
         return saved;
@@ -70,6 +79,8 @@ public class FavoriteService {
         }
 
         favoriteRepository.deleteByUserUsernameAndAccommodationId(username, accommodationId);
+        eventPublisher.publishEvent(new AccommodationCounterEvent(
+                accommodationId, AccommodationCounterEvent.Counter.FAVORITES, -1));
 
         logger.info("用戶 {} 成功取消收藏住宿 {}", username, accommodationId);
     }
@@ -105,6 +116,23 @@ public class FavoriteService {
                 .collect(Collectors.toList());
     }
 
+    /**
+     * 取得用戶收藏的一頁（新到舊），游標記錄上一頁最後一筆收藏的 ID
+     */
+    public CursorPage<Accommodation> getFavoritePage(String username, String cursor, Integer limit) {
+        int size = KeysetCursor.limit(limit);
+        KeysetCursor after = KeysetCursor.decode(cursor, "favorites", 1);
+        long beforeId = after != null ? after.lastId() : Long.MAX_VALUE;
+
+        List<Favorite> fetched = favoriteRepository.findPageByUserUsername(username, beforeId,
+                PageRequest.of(0, size + 1));
+        CursorPage<Favorite> page = CursorPage.of(fetched, size, f -> KeysetCursor.encode("favorites", f.getId()));
+        List<Accommodation> accommodations = page.getItems().stream()
+                .map(Favorite::getAccommodation)
+                .collect(Collectors.toList());
+        return new CursorPage<>(accommodations, page.getNextCursor(), page.isHasMore());
+    }
+
     /**
      * 檢查是否已收藏
      */
@@ -116,7 +144,7 @@ public class FavoriteService {
      * 取得收藏數量
      */
     public long getFavoriteCount(String username) {
-        return favoriteRepository.findByUserUsername(username).size();
+        return favoriteRepository.countByUserUsername(username);
     }
 }
 
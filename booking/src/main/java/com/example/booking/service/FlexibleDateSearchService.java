@@ -0,0 +1,159 @@
+package com.example.booking.service;
+
+import com.example.booking.dto.FlexibleSearchResultDTO;
+import com.example.booking.model.Accommodation;
+import com.example.booking.model.RoomType;
+import com.example.booking.repository.BookingHoldRepository;
+import com.example.booking.repository.BookingRepository;
+import com.example.booking.repository.RoomTypeRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.*;
+
+/**
+ * 彈性日期搜尋（例如「未來兩週任兩晚」）
+ * 一次載入搜尋期間內所有訂單與保留，算出每個房型的每晚剩餘房數與每晚房價，
+ * 再以滑動視窗求每個入住日起連續 L 晚的最少剩餘房數（單調佇列）與總價（累加和），
+ * 整體為期間長度的線性時間，不必對每個候選區間各查一次可用住宿。
+ */
+@Service
+public class FlexibleDateSearchService {
+
+    // 每間住宿最多回傳的區間數
+    static final int MAX_WINDOWS = 10;
+
+    @Autowired
+    private RoomTypeRepository roomTypeRepository;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private BookingHoldRepository bookingHoldRepository;
+
+    @Autowired
+    private RateCalendarService rateCalendarService;
+
+    /**
+     * 在 [from, to) 內找出每間住宿連續 nights 晚、至少 quantity 間可訂的最便宜區間，
+     * 住宿依最低總價排序，每間最多回傳 limit 個區間
+     */
+    @Transactional(readOnly = true)
+    public List<FlexibleSearchResultDTO> search(LocalDate from, LocalDate to, int nights, int quantity, int limit) {
+        int span = AvailabilityCalendarService.validateRange(from, to);
+        if (nights <= 0 || nights > span) {
+            throw new IllegalArgumentException("入住晚數需介於 1 到 " + span + " 晚");
+        }
+        if (quantity <= 0) {
+            throw new IllegalArgumentException("預訂數量需大於 0");
+        }
+        int perAccommodation = Math.min(Math.max(limit, 1), MAX_WINDOWS);
+
+        List<RoomType> roomTypes = roomTypeRepository.findAllWithAccommodation();
+        Map<Long, int[]> remaining = AvailabilityCalendarService.remainingPerNight(roomTypes, from, span,
+                bookingRepository.findActiveSpans(from, to),
+                bookingHoldRepository.findActiveSpans(from, to));
+
+        Map<Long, List<RoomType>> byAccommodation = new LinkedHashMap<>();
+        for (RoomType rt : roomTypes) {
+            byAccommodation.computeIfAbsent(rt.getAccommodation().getId(), id -> new ArrayList<>()).add(rt);
+        }
+
+        List<FlexibleSearchResultDTO> results = new ArrayList<>();
+        for (List<RoomType> group : byAccommodation.values()) {
+            List<FlexibleSearchResultDTO.Window> windows =
+                    bestWindows(group, remaining, from, span, nights, quantity, perAccommodation);
+            if (!windows.isEmpty()) {
+                Accommodation acc = group.get(0).getAccommodation();
+                results.add(new FlexibleSearchResultDTO(acc.getId(), acc.getName(), acc.getLocation(), windows));
+            }
+        }
+        results.sort(Comparator
+                .comparing((FlexibleSearchResultDTO r) -> r.getWindows().get(0).getTotalPrice())
+                .thenComparing(FlexibleSearchResultDTO::getAccommodationId));
+        return results;
+    }
+
+    // 每個入住日取該住宿可訂房型中總價最低者，再挑出最便宜的 limit 個入住日
+    private List<FlexibleSearchResultDTO.Window> bestWindows(List<RoomType> roomTypes, Map<Long, int[]> remaining,
+                                                             LocalDate from, int span, int nights,
+                                                             int quantity, int limit) {
+        int starts = span - nights + 1;
+        long[] bestPrice = new long[starts];
+        int[] bestRemaining = new int[starts];
+        RoomType[] bestRoomType = new RoomType[starts];
+        Arrays.fill(bestPrice, Long.MAX_VALUE);
+
+        for (RoomType rt : roomTypes) {
+            int[] minRemaining = slidingMin(remaining.get(rt.getId()), nights);
+            long[] totals = slidingSum(rateCalendarService.nightlyCents(rt, from, from.plusDays(span)), nights);
+            for (int s = 0; s < starts; s++) {
+                if (minRemaining[s] >= quantity && totals[s] < bestPrice[s]) {
+                    bestPrice[s] = totals[s];
+                    bestRemaining[s] = minRemaining[s];
+                    bestRoomType[s] = rt;
+                }
+            }
+        }
+
+        List<Integer> candidates = new ArrayList<>();
+        for (int s = 0; s < starts; s++) {
+            if (bestRoomType[s] != null) {
+                candidates.add(s);
+            }
+        }
+        candidates.sort(Comparator.comparingLong((Integer s) -> bestPrice[s]).thenComparingInt(s -> s));
+
+        List<FlexibleSearchResultDTO.Window> windows = new ArrayList<>();
+        for (int s : candidates.subList(0, Math.min(limit, candidates.size()))) {
+            RoomType rt = bestRoomType[s];
+            windows.add(new FlexibleSearchResultDTO.Window(from.plusDays(s), from.plusDays(s + nights),
+                    rt.getId(), rt.getName(), MoneyCents.toAmount(bestPrice[s] * quantity), bestRemaining[s]));
+        }
+        return windows;
+    }
+
+    /**
+     * 每個起點 s 的 values[s .. s + width) 最小值；以單調遞增佇列保存候選索引，每個索引最多進出一次
+     */
+    static int[] slidingMin(int[] values, int width) {
+        int[] result = new int[values.length - width + 1];
+        int[] deque = new int[values.length];
+        int head = 0;
+        int tail = 0;
+        for (int i = 0; i < values.length; i++) {
+            while (tail > head && values[deque[tail - 1]] >= values[i]) {
+                tail--;
+            }
+            deque[tail++] = i;
+            if (deque[head] <= i - width) {
+                head++;
+            }
+            if (i >= width - 1) {
+                result[i - width + 1] = values[deque[head]];
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 每個起點 s 的 values[s .. s + width) 總和
+     */
+    static long[] slidingSum(long[] values, int width) {
+        long[] result = new long[values.length - width + 1];
+        long sum = 0;
+        for (int i = 0; i < values.length; i++) {
+            sum += values[i];
+            if (i >= width) {
+                sum -= values[i - width];
+            }
+            if (i >= width - 1) {
+                result[i - width + 1] = sum;
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,94 @@
+package com.example.booking.service;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * 暫時保留的到期排程（雜湊時間輪）
+ * 依到期時間放入 tick 對應的格子，每次推進只檢查經過的格子，
+ * 不必定期掃描資料表找出逾時的保留。
+ * 保留時間超過一圈時，條目會留在格子內，等到其 deadline 那一圈才取出。
+ * 排入與推進都很短，直接以物件鎖同步。
+ */
+public class HoldTimingWheel {
+
+    private static final class Entry {
+        final Long holdId;
+        final long deadlineTick;
+
+        Entry(Long holdId, long deadlineTick) {
+            this.holdId = holdId;
+            this.deadlineTick = deadlineTick;
+        }
+    }
+
+    private final long tickMs;
+    private final int mask;
+    private final ArrayDeque<Entry>[] buckets;
+    private int size;
+
+    // 已處理到的 tick
+    private long currentTick;
+
+    @SuppressWarnings("unchecked")
+    public HoldTimingWheel(long tickMs, int wheelSize, long startMillis) {
+        if (tickMs <= 0 || wheelSize <= 0 || Integer.bitCount(wheelSize) != 1) {
+            throw new IllegalArgumentException("時間輪參數不合法：tickMs 需大於 0，格數需為 2 的次方");
+        }
+        this.tickMs = tickMs;
+        this.mask = wheelSize - 1;
+        this.buckets = new ArrayDeque[wheelSize];
+        for (int i = 0; i < wheelSize; i++) {
+            buckets[i] = new ArrayDeque<>();
+        }
+        this.currentTick = startMillis / tickMs;
+    }
+
+    /**
+     * 排入到期時間；已經過期的保留排在下一個 tick 立即處理
+     */
+    public synchronized void schedule(Long holdId, long expiresAtMillis) {
+        long tick = Math.max((expiresAtMillis + tickMs - 1) / tickMs, currentTick + 1);
+        buckets[(int) (tick & mask)].add(new Entry(holdId, tick));
+        size++;
+    }
+
+    /**
+     * 推進到 nowMillis，回傳這段期間到期的保留 ID
+     */
+    public synchronized List<Long> advance(long nowMillis) {
+        long target = nowMillis / tickMs;
+        List<Long> due = new ArrayList<>();
+        if (target <= currentTick) {
+            return due;
+        }
+        // 落後超過一圈（例如長時間 GC 或排程停擺）時，每個格子只需檢查一次
+        long steps = Math.min(target - currentTick, buckets.length);
+        for (long i = 1; i <= steps; i++) {
+            drain(buckets[(int) ((currentTick + i) & mask)], target, due);
+        }
+        currentTick = target;
+        return due;
+    }
+
+    private void drain(ArrayDeque<Entry> bucket, long target, List<Long> due) {
+        Iterator<Entry> it = bucket.iterator();
+        while (it.hasNext()) {
+            Entry e = it.next();
+            if (e.deadlineTick <= target) {
+                it.remove();
+                size--;
+                due.add(e.holdId);
+            }
+        }
+    }
+
+    /**
+     * 尚未到期的條目數
+     */
+    public synchronized int size() {
+        return size;
+    }
+}
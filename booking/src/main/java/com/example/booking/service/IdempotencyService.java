@@ -0,0 +1,326 @@
+package com.example.booking.service;
+
+import com.example.booking.model.IdempotencyRecord;
+import com.example.booking.repository.IdempotencyRecordRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
+
+/**
+ * Idempotency-Key 處理
+ * 同一使用者以同一個鍵重送請求時，直接回傳第一次的回應，不會再建立訂單或扣庫存。
+ * 近期的回應放在有上限的 LRU 快取，快取未命中才查 idempotency_keys 表；
+ * 資料表的唯一鍵確保多台機器或同時重送時只有一個請求會真正執行。
+ * 處理中的紀錄只有短暫的租約：執行中途當機留下的紀錄在租約過期後可由重送的請求接手，
+ * 不會讓這個鍵在保存期間一直回傳 409。
+ */
+@Service
+public class IdempotencyService {
+
+    private static final Logger logger = LoggerFactory.getLogger(IdempotencyService.class);
+
+    public static final String HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+    private static final int MAX_KEY_LENGTH = 100;
+
+    @Autowired
+    private IdempotencyRecordRepository recordRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    // 鍵的保存時間，過期後快取與資料表都會清除
+    @Value("${app.idempotency.ttl-hours:24}")
+    private long ttlHours = 24;
+
+    // 處理中紀錄的租約分鐘數，過期後視為執行中途中斷，同一個鍵可重新執行
+    @Value("${app.idempotency.pending-lease-minutes:5}")
+    private long pendingLeaseMinutes = 5;
+
+    // 記憶體快取的最多筆數
+    @Value("${app.idempotency.cache-size:10000}")
+    private int cacheSize = 10000;
+
+    private Map<String, StoredResponse> cache;
+
+    /**
+     * 已完成請求的回應
+     */
+    private static final class StoredResponse {
+        final String requestHash;
+        final int status;
+        final String body;
+        final LocalDateTime createdAt;
+
+        StoredResponse(String requestHash, int status, String body, LocalDateTime createdAt) {
+            this.requestHash = requestHash;
+            this.status = status;
+            this.body = body;
+            this.createdAt = createdAt;
+        }
+    }
+
+    /**
+     * 搶下的處理中紀錄；claimedAt 為寫入的 created_at，寫入結果或放棄時用來確認紀錄未被其他請求接手
+     */
+    private static final class Claim {
+        final Long id;
+        final LocalDateTime claimedAt;
+
+        Claim(Long id, LocalDateTime claimedAt) {
+            this.id = id;
+            this.claimedAt = claimedAt;
+        }
+    }
+
+    @PostConstruct
+    public void init() {
+        // 依存取順序淘汰最久未用的鍵，超過上限即移除
+        cache = Collections.synchronizedMap(new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, StoredResponse> eldest) {
+                return size() > cacheSize;
+            }
+        });
+    }
+
+    /**
+     * 以冪等方式執行同步請求；key 為空時直接執行
+     * request 為請求參數，用來辨識同一個鍵是否被用在不同的請求
+     */
+    public <T> ResponseEntity<?> execute(String key, String username, Object request,
+                                         Supplier<ResponseEntity<T>> action) {
+        if (key == null || key.isBlank()) {
+            return action.get();
+        }
+        String requestHash = hash(request);
+        ResponseEntity<?> previous = lookup(username, key, requestHash);
+        if (previous != null) {
+            return previous;
+        }
+        Claim claim = claim(username, key, requestHash);
+        if (claim == null) {
+            return concurrentResult(username, key, requestHash);
+        }
+
+        ResponseEntity<T> response;
+        try {
+            response = action.get();
+        } catch (RuntimeException e) {
+            abandon(claim);
+            throw e;
+        }
+        store(claim, username, key, requestHash, response);
+        return response;
+    }
+
+    /**
+     * 以冪等方式執行非同步請求
+     */
+    public <T> CompletableFuture<ResponseEntity<?>> executeAsync(String key, String username, Object request,
+                                                                 Supplier<CompletableFuture<ResponseEntity<T>>> action) {
+        if (key == null || key.isBlank()) {
+            return action.get().thenApply(response -> response);
+        }
+        String requestHash = hash(request);
+        ResponseEntity<?> previous = lookup(username, key, requestHash);
+        if (previous != null) {
+            return CompletableFuture.completedFuture(previous);
+        }
+        Claim claim = claim(username, key, requestHash);
+        if (claim == null) {
+            return CompletableFuture.completedFuture(concurrentResult(username, key, requestHash));
+        }
+
+        return action.get().handle((response, error) -> {
+            if (error != null) {
+                abandon(claim);
+                throw error instanceof CompletionException ce ? ce : new CompletionException(error);
+            }
+            store(claim, username, key, requestHash, response);
+            return response;
+        });
+    }
+
+    // 先查快取，再查資料表；找到已完成的紀錄即回傳保存的回應
+    private ResponseEntity<?> lookup(String username, String key, String requestHash) {
+        if (key.length() > MAX_KEY_LENGTH) {
+            throw new IllegalArgumentException(HEADER + " 長度不可超過 " + MAX_KEY_LENGTH);
+        }
+        String cacheKey = cacheKey(username, key);
+        StoredResponse stored = cache.get(cacheKey);
+        if (stored != null && isExpired(stored.createdAt)) {
+            cache.remove(cacheKey);
+            stored = null;
+        }
+        if (stored == null) {
+            IdempotencyRecord record = recordRepository.findByUsernameAndIdemKey(username, key).orElse(null);
+            if (record == null) {
+                return null;
+            }
+            if (isExpired(record.getCreatedAt())) {
+                // 過期但尚未被排程清除，先刪掉讓這個鍵可以重新使用
+                transactionTemplate.executeWithoutResult(s -> recordRepository.deleteRecord(record.getId()));
+                return null;
+            }
+            if (!record.isCompleted()) {
+                if (isLeaseExpired(record.getCreatedAt())) {
+                    // 處理中的請求已中斷，交由 claim 接手
+                    return null;
+                }
+                return conflict(HttpStatus.CONFLICT, "相同的請求正在處理中，請稍後再試");
+            }
+            stored = new StoredResponse(record.getRequestHash(), record.getStatusCode(),
+                    record.getResponseBody(), record.getCreatedAt());
+            cache.put(cacheKey, stored);
+        }
+
+        if (!stored.requestHash.equals(requestHash)) {
+            return conflict(HttpStatus.UNPROCESSABLE_ENTITY, HEADER + " 已用於不同的請求");
+        }
+        return replay(stored);
+    }
+
+    // 寫入處理中的紀錄；唯一鍵衝突時嘗試接手租約已過期的紀錄，都不成功代表其他請求已經搶先，回傳 null
+    // created_at 取到秒，資料庫欄位精度較低時寫回後仍能以相等比對
+    private Claim claim(String username, String key, String requestHash) {
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+        try {
+            return transactionTemplate.execute(status -> {
+                recordRepository.insertPending(username, key, requestHash, now);
+                return claimed(username, key, now);
+            });
+        } catch (DataIntegrityViolationException e) {
+            return transactionTemplate.execute(status -> {
+                int taken = recordRepository.takeOverPending(username, key, requestHash, now,
+                        now.minusMinutes(pendingLeaseMinutes));
+                if (taken == 0) {
+                    return null;
+                }
+                logger.warn("冪等鍵 {} 的處理中紀錄租約已過期，由新的請求接手", key);
+                return claimed(username, key, now);
+            });
+        }
+    }
+
+    private Claim claimed(String username, String key, LocalDateTime claimedAt) {
+        return recordRepository.findByUsernameAndIdemKey(username, key)
+                .map(record -> new Claim(record.getId(), claimedAt))
+                .orElse(null);
+    }
+
+    private ResponseEntity<?> concurrentResult(String username, String key, String requestHash) {
+        ResponseEntity<?> previous = lookup(username, key, requestHash);
+        return previous != null ? previous : conflict(HttpStatus.CONFLICT, "相同的請求正在處理中，請稍後再試");
+    }
+
+    private void store(Claim claim, String username, String key, String requestHash, ResponseEntity<?> response) {
+        int status = response.getStatusCode().value();
+        // 伺服器錯誤不保存，讓用戶端可以用同一個鍵重試
+        if (status >= 500) {
+            abandon(claim);
+            return;
+        }
+        String body;
+        try {
+            body = response.getBody() == null ? null : objectMapper.writeValueAsString(response.getBody());
+        } catch (JsonProcessingException e) {
+            logger.warn("無法保存冪等回應 {}：{}", key, e.getMessage());
+            abandon(claim);
+            return;
+        }
+        Integer updated = transactionTemplate.execute(s ->
+                recordRepository.complete(claim.id, claim.claimedAt, status, body));
+        if (updated == null || updated == 0) {
+            // 執行超過租約、紀錄已由重送的請求接手，保存的回應以接手者為準
+            logger.warn("冪等鍵 {} 已被其他請求接手，不保存這次的回應", key);
+            return;
+        }
+        cache.put(cacheKey(username, key), new StoredResponse(requestHash, status, body, LocalDateTime.now()));
+    }
+
+    // 執行失敗（例外）時刪除處理中的紀錄，讓同一個鍵可以重試
+    private void abandon(Claim claim) {
+        transactionTemplate.executeWithoutResult(s -> recordRepository.deletePending(claim.id, claim.claimedAt));
+    }
+
+    private ResponseEntity<?> replay(StoredResponse stored) {
+        ResponseEntity.BodyBuilder builder = ResponseEntity.status(stored.status)
+                .header(REPLAYED_HEADER, "true");
+        if (stored.body == null) {
+            return builder.build();
+        }
+        return builder.contentType(MediaType.APPLICATION_JSON).body(stored.body);
+    }
+
+    private static ResponseEntity<?> conflict(HttpStatus status, String message) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", false);
+        response.put("message", message);
+        return ResponseEntity.status(status).body(response);
+    }
+
+    /**
+     * 清除過期的鍵
+     */
+    @Scheduled(fixedDelayString = "${app.idempotency.purge-interval-ms:3600000}")
+    public void purgeExpired() {
+        synchronized (cache) {
+            cache.values().removeIf(stored -> isExpired(stored.createdAt));
+        }
+        Integer removed = transactionTemplate.execute(s ->
+                recordRepository.deleteCreatedBefore(LocalDateTime.now().minusHours(ttlHours)));
+        logger.debug("清除 {} 筆過期的冪等鍵", removed);
+    }
+
+    public int cachedCount() {
+        return cache.size();
+    }
+
+    private boolean isExpired(LocalDateTime createdAt) {
+        return createdAt.isBefore(LocalDateTime.now().minusHours(ttlHours));
+    }
+
+    private boolean isLeaseExpired(LocalDateTime createdAt) {
+        return createdAt.isBefore(LocalDateTime.now().minusMinutes(pendingLeaseMinutes));
+    }
+
+    private static String cacheKey(String username, String key) {
+        return username + ':' + key;
+    }
+
+    private String hash(Object request) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256")
+                    .digest(objectMapper.writeValueAsString(request).getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (JsonProcessingException | NoSuchAlgorithmException e) {
+            throw new IllegalStateException("無法計算請求摘要", e);
+        }
+    }
+}
@@ -0,0 +1,216 @@
+package com.example.booking.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 以 AVL 平衡的區間樹（依 [start, end) 排序，節點記錄子樹最大 end）
+ * 相同區間合併為一個節點並累加數量，數量歸零即移除。
+ * 查詢與 [from, to) 重疊的 k 個區間為 O(log n + k)，再對這 k 個端點掃描求最大同時佔用量。
+ * 非執行緒安全，由呼叫端同步。
+ */
+public class IntervalTree {
+
+    private static final class Node {
+        final int start;
+        final int end;
+        int quantity;
+        int maxEnd;
+        int height = 1;
+        Node left;
+        Node right;
+
+        Node(int start, int end, int quantity) {
+            this.start = start;
+            this.end = end;
+            this.quantity = quantity;
+            this.maxEnd = end;
+        }
+    }
+
+    private Node root;
+    private int size;
+
+    /**
+     * 在 [start, end) 加上 quantity（負數即扣除）
+     */
+    public void add(int start, int end, int quantity) {
+        if (end <= start || quantity == 0) {
+            return;
+        }
+        root = add(root, start, end, quantity);
+    }
+
+    /**
+     * 與 [from, to) 重疊的區間，每筆為 {start, end, quantity}，依 start 排序
+     */
+    public List<int[]> overlapping(int from, int to) {
+        List<int[]> result = new ArrayList<>();
+        collect(root, from, to, result);
+        return result;
+    }
+
+    /**
+     * [from, to) 內任一時點的最大同時佔用量
+     */
+    public int maxConcurrent(int from, int to) {
+        List<int[]> hits = overlapping(from, to);
+        if (hits.isEmpty()) {
+            return 0;
+        }
+        // 端點編碼為 (位置 << 32 | 是否為起點 << 31 | 索引)，排序後同一位置先結束再開始（半開區間）
+        long[] events = new long[hits.size() * 2];
+        int[] deltas = new int[hits.size() * 2];
+        for (int i = 0; i < hits.size(); i++) {
+            int[] h = hits.get(i);
+            events[2 * i] = (long) Math.max(h[0], from) << 32 | 1L << 31 | (2 * i);
+            events[2 * i + 1] = (long) Math.min(h[1], to) << 32 | (2 * i + 1);
+            deltas[2 * i] = h[2];
+            deltas[2 * i + 1] = -h[2];
+        }
+        Arrays.sort(events);
+
+        int current = 0;
+        int max = 0;
+        for (long e : events) {
+            current += deltas[(int) (e & 0x7FFFFFFF)];
+            max = Math.max(max, current);
+        }
+        return max;
+    }
+
+    /**
+     * 不同區間的節點數
+     */
+    public int size() {
+        return size;
+    }
+
+    // === AVL ===
+
+    private Node add(Node node, int start, int end, int quantity) {
+        if (node == null) {
+            if (quantity < 0) {
+                return null;
+            }
+            size++;
+            return new Node(start, end, quantity);
+        }
+        int cmp = compare(start, end, node);
+        if (cmp < 0) {
+            node.left = add(node.left, start, end, quantity);
+        } else if (cmp > 0) {
+            node.right = add(node.right, start, end, quantity);
+        } else {
+            node.quantity += quantity;
+            if (node.quantity > 0) {
+                return node;
+            }
+            size--;
+            return remove(node);
+        }
+        return rebalance(node);
+    }
+
+    // 移除節點本身，由右子樹最小節點遞補
+    private Node remove(Node node) {
+        if (node.left == null) {
+            return node.right;
+        }
+        if (node.right == null) {
+            return node.left;
+        }
+        Node successor = node.right;
+        while (successor.left != null) {
+            successor = successor.left;
+        }
+        Node replacement = new Node(successor.start, successor.end, successor.quantity);
+        replacement.right = removeMin(node.right);
+        replacement.left = node.left;
+        return rebalance(replacement);
+    }
+
+    private Node removeMin(Node node) {
+        if (node.left == null) {
+            return node.right;
+        }
+        node.left = removeMin(node.left);
+        return rebalance(node);
+    }
+
+    private static int compare(int start, int end, Node node) {
+        if (start != node.start) {
+            return Integer.compare(start, node.start);
+        }
+        return Integer.compare(end, node.end);
+    }
+
+    private static void collect(Node node, int from, int to, List<int[]> result) {
+        // 子樹內所有區間都在 from 之前結束，整棵略過
+        if (node == null || node.maxEnd <= from) {
+            return;
+        }
+        collect(node.left, from, to, result);
+        if (node.start >= to) {
+            // 右子樹的起點只會更晚
+            return;
+        }
+        if (node.end > from) {
+            result.add(new int[]{node.start, node.end, node.quantity});
+        }
+        collect(node.right, from, to, result);
+    }
+
+    private static int height(Node node) {
+        return node == null ? 0 : node.height;
+    }
+
+    private static void update(Node node) {
+        node.height = 1 + Math.max(height(node.left), height(node.right));
+        int maxEnd = node.end;
+        if (node.left != null) {
+            maxEnd = Math.max(maxEnd, node.left.maxEnd);
+        }
+        if (node.right != null) {
+            maxEnd = Math.max(maxEnd, node.right.maxEnd);
+        }
+        node.maxEnd = maxEnd;
+    }
+
+    private static Node rebalance(Node node) {
+        update(node);
+        int balance = height(node.left) - height(node.right);
+        if (balance > 1) {
+            if (height(node.left.left) < height(node.left.right)) {
+                node.left = rotateLeft(node.left);
+            }
+            return rotateRight(node);
+        }
+        if (balance < -1) {
+            if (height(node.right.right) < height(node.right.left)) {
+                node.right = rotateRight(node.right);
+            }
+            return rotateLeft(node);
+        }
+        return node;
+    }
+
+    private static Node rotateRight(Node node) {
+        Node pivot = node.left;
+        node.left = pivot.right;
+        pivot.right = node;
+        update(node);
+        update(pivot);
+        return pivot;
+    }
+
+    private static Node rotateLeft(Node node) {
+        Node pivot = node.right;
+        node.right = pivot.left;
+        pivot.left = node;
+        update(node);
+        update(pivot);
+        return pivot;
+    }
+}
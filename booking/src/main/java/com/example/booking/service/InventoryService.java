@@ -0,0 +1,239 @@
+package com.example.booking.service;
+
+import com.example.booking.model.Booking;
+import com.example.booking.model.RoomType;
+import com.example.booking.model.RoomTypeInventory;
+import com.example.booking.repository.BookingRepository;
+import com.example.booking.repository.RoomTypeInventoryRepository;
+import com.example.booking.repository.RoomTypeRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * 每晚庫存帳本服務
+ * 訂房時以單一條件式 UPDATE 扣除整段住宿的每晚庫存，
+ * 不再需要鎖住整個房型並彙總所有重疊訂單
+ */
+@Service
+public class InventoryService {
+
+    private static final Logger logger = LoggerFactory.getLogger(InventoryService.class);
+
+    @Autowired
+    private RoomTypeInventoryRepository inventoryRepository;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private RoomTypeRepository roomTypeRepository;
+
+    /**
+     * 扣除 [checkIn, checkOut) 每晚的庫存，任一晚不足即拋出例外
+     */
+    @Transactional
+    public void reserve(RoomType roomType, LocalDate checkIn, LocalDate checkOut, int quantity) {
+        // 扣除前的每晚剩餘房數（含保留中的房間），只用於不足時的訊息：
+        // 條件式 UPDATE 可能已扣除部分夜晚，之後在同一交易內讀帳本會少算
+        int[] remaining = ensureRemaining(roomType, checkIn, checkOut);
+
+        long nights = ChronoUnit.DAYS.between(checkIn, checkOut);
+        int updated = inventoryRepository.reserve(roomType.getId(), checkIn, checkOut, quantity);
+        if (updated < nights) {
+            throw new RuntimeException("庫存不足，該日期區間剩餘："
+                    + Math.max(Arrays.stream(remaining).min().orElse(0), 0));
+        }
+    }
+
+    /**
+     * 樂觀鎖模式扣庫存：不加鎖讀取帳本列，檢查後累加並立即 flush，
+     * 若其他交易已修改同一晚，flush 時會拋出 OptimisticLockingFailureException 交由呼叫端重試。
+     * 批次 UPDATE 不會同步持久化內容，同一交易內不應先呼叫 reserve/release 再呼叫本方法
+     */
+    @Transactional
+    public void reserveOptimistic(RoomType roomType, LocalDate checkIn, LocalDate checkOut, int quantity) {
+        List<RoomTypeInventory> rows = ledgerRows(roomType, checkIn, checkOut);
+        int remaining = rows.stream()
+                .mapToInt(row -> row.getTotalRooms() - row.getBookedRooms())
+                .min()
+                .orElse(0);
+        if (remaining < quantity) {
+            throw new RuntimeException("庫存不足，該日期區間剩餘：" + Math.max(remaining, 0));
+        }
+
+        for (RoomTypeInventory row : rows) {
+            row.setBookedRooms(row.getBookedRooms() + quantity);
+        }
+        inventoryRepository.saveAllAndFlush(rows);
+    }
+
+    /**
+     * 載入區間內的帳本列（依夜晚排序），供單一寫入者在記憶體中逐筆檢查與累加；
+     * 修改後以 saveLedger 寫回，其他交易同時修改時由 @Version 偵測衝突
+     */
+    @Transactional
+    public NavigableMap<LocalDate, RoomTypeInventory> loadLedger(RoomType roomType, LocalDate from, LocalDate to) {
+        NavigableMap<LocalDate, RoomTypeInventory> ledger = new TreeMap<>();
+        for (RoomTypeInventory row : ledgerRows(roomType, from, to)) {
+            ledger.put(row.getNight(), row);
+        }
+        return ledger;
+    }
+
+    @Transactional
+    public void saveLedger(Collection<RoomTypeInventory> rows) {
+        inventoryRepository.saveAllAndFlush(rows);
+    }
+
+    /**
+     * 釋放訂單佔用的每晚庫存
+     */
+    @Transactional
+    public void release(Booking booking) {
+        int released = inventoryRepository.release(
+                booking.getRoomType().getId(),
+                booking.getCheckIn(),
+                booking.getCheckOut(),
+                booking.getBookedQuantity());
+        logger.debug("訂單 {} 釋放 {} 晚庫存", booking.getId(), released);
+    }
+
+    /**
+     * 釋放指定房型與區間的每晚庫存（保留逾時或取消時）
+     */
+    @Transactional
+    public void release(Long roomTypeId, LocalDate checkIn, LocalDate checkOut, int quantity) {
+        int released = inventoryRepository.release(roomTypeId, checkIn, checkOut, quantity);
+        logger.debug("房型 {} 釋放 {} 晚庫存", roomTypeId, released);
+    }
+
+    /**
+     * 確保區間內每晚都有帳本列，缺少的夜晚以既有未取消訂單回填已訂數量
+     */
+    @Transactional
+    public void ensureNights(RoomType roomType, LocalDate from, LocalDate to) {
+        ensureRemaining(roomType, from, to);
+    }
+
+    /**
+     * 可用性查詢前補齊帳本：區間內有未取消訂單、帳本卻缺少夜晚的房型（帳本導入前的訂單）
+     * 以訂單回填該房型訂單涵蓋的夜晚，之後只需依帳本判斷每晚剩餘房數
+     */
+    @Transactional
+    public void ensureNightsForBookings(LocalDate from, LocalDate to) {
+        long nights = ChronoUnit.DAYS.between(from, to);
+        Map<Long, LocalDate[]> spans = new HashMap<>();
+        for (Object[] row : bookingRepository.findBookedSpansWithLedgerCount(from, to)) {
+            if (((Number) row[3]).longValue() >= nights) {
+                continue;
+            }
+            LocalDate start = ((LocalDate) row[1]).isAfter(from) ? (LocalDate) row[1] : from;
+            LocalDate end = ((LocalDate) row[2]).isBefore(to) ? (LocalDate) row[2] : to;
+            spans.put((Long) row[0], new LocalDate[]{start, end});
+        }
+        if (spans.isEmpty()) {
+            return;
+        }
+        // 帳本列已齊全的房型在 ensureRemaining 只讀取一次即返回
+        for (RoomType roomType : roomTypeRepository.findAllById(spans.keySet())) {
+            LocalDate[] span = spans.get(roomType.getId());
+            ensureRemaining(roomType, span[0], span[1]);
+        }
+    }
+
+    // 確保每晚都有帳本列，回傳區間內每晚目前的剩餘房數（依夜晚順序）
+    private int[] ensureRemaining(RoomType roomType, LocalDate from, LocalDate to) {
+        int nights = (int) ChronoUnit.DAYS.between(from, to);
+        int[] remaining = new int[nights];
+        Set<LocalDate> existing = new HashSet<>();
+        for (Object[] row : inventoryRepository.findRemainingBetween(roomType.getId(), from, to)) {
+            LocalDate night = (LocalDate) row[0];
+            existing.add(night);
+            remaining[(int) ChronoUnit.DAYS.between(from, night)] = ((Number) row[1]).intValue();
+        }
+        if (existing.size() >= nights) {
+            return remaining;
+        }
+
+        for (RoomTypeInventory row : seedMissing(roomType, from, to, existing)) {
+            remaining[(int) ChronoUnit.DAYS.between(from, row.getNight())] = row.getTotalRooms() - row.getBookedRooms();
+        }
+        return remaining;
+    }
+
+    // 區間內的帳本列（依夜晚排序），缺少的夜晚先建立
+    private List<RoomTypeInventory> ledgerRows(RoomType roomType, LocalDate from, LocalDate to) {
+        List<RoomTypeInventory> rows = inventoryRepository.findRowsBetween(roomType.getId(), from, to);
+        if (rows.size() >= ChronoUnit.DAYS.between(from, to)) {
+            return rows;
+        }
+        Set<LocalDate> existing = new HashSet<>();
+        rows.forEach(row -> existing.add(row.getNight()));
+        return seedMissing(roomType, from, to, existing);
+    }
+
+    // 以既有未取消訂單回填缺少夜晚的已訂數量並建立帳本列。同一房型的冷門日期可能被同時首次訂房：
+    // 重複的列由資料庫略過，之後以鎖定讀取重新讀出整段，包含其他交易剛建立、不在本交易快照內的列
+    private List<RoomTypeInventory> seedMissing(RoomType roomType, LocalDate from, LocalDate to,
+                                                Set<LocalDate> existing) {
+        int nights = (int) ChronoUnit.DAYS.between(from, to);
+        int[] booked = bookedPerNight(roomType.getId(), from, to);
+        int created = 0;
+        for (int i = 0; i < nights; i++) {
+            LocalDate night = from.plusDays(i);
+            if (!existing.contains(night)) {
+                created += inventoryRepository.insertIfAbsent(roomType.getId(), night, booked[i],
+                        roomType.getTotalRooms());
+            }
+        }
+        logger.debug("房型 {} 建立 {} 筆每晚庫存", roomType.getId(), created);
+        return inventoryRepository.findRowsBetweenForUpdate(roomType.getId(), from, to);
+    }
+
+    /**
+     * 房型總房數變更時同步帳本
+     */
+    @Transactional
+    public void updateTotalRooms(Long roomTypeId, int totalRooms) {
+        inventoryRepository.updateTotalRooms(roomTypeId, totalRooms);
+    }
+
+    /**
+     * 刪除房型時清除帳本
+     */
+    @Transactional
+    public void deleteForRoomType(Long roomTypeId) {
+        inventoryRepository.deleteByRoomTypeId(roomTypeId);
+    }
+
+    /**
+     * 以重疊訂單掃描出區間內每晚的已訂數量
+     */
+    private int[] bookedPerNight(Long roomTypeId, LocalDate from, LocalDate to) {
+        int nights = (int) ChronoUnit.DAYS.between(from, to);
+        int[] booked = new int[nights];
+        for (Booking b : bookingRepository.findConflictingBookings(roomTypeId, from, to)) {
+            int start = (int) Math.max(0, ChronoUnit.DAYS.between(from, b.getCheckIn()));
+            int end = (int) Math.min(nights, ChronoUnit.DAYS.between(from, b.getCheckOut()));
+            for (int i = start; i < end; i++) {
+                booked[i] += b.getBookedQuantity();
+            }
+        }
+        return booked;
+    }
+}
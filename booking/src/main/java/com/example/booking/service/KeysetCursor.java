@@ -0,0 +1,88 @@
+package com.example.booking.service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * 分頁游標（keyset pagination）
+ * 游標記錄上一頁最後一筆的排序鍵與 ID，下一頁只查「排在它之後」的資料，
+ * 不用 OFFSET 跳過前面的列，每一頁都是同一條索引上的一段範圍查詢。
+ * 內容以 Base64 編碼，呼叫端不應解析；排序方式不同的游標不能混用。
+ */
+public final class KeysetCursor {
+
+    public static final int DEFAULT_LIMIT = 50;
+    public static final int MAX_LIMIT = 200;
+
+    // 欄位分隔字元（ASCII unit separator），不會出現在一般資料中
+    private static final String SEPARATOR = "\u001f";
+
+    private final String sort;
+    private final List<String> values;
+
+    private KeysetCursor(String sort, List<String> values) {
+        this.sort = sort;
+        this.values = values;
+    }
+
+    /**
+     * 產生游標；values 依排序鍵順序排列，最後一個為 ID
+     */
+    public static String encode(String sort, Object... values) {
+        List<String> parts = new ArrayList<>(values.length + 1);
+        parts.add(sort);
+        for (Object value : values) {
+            parts.add(value == null ? "" : value.toString());
+        }
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(String.join(SEPARATOR, parts).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 解析游標；token 為空代表第一頁，回傳 null
+     */
+    public static KeysetCursor decode(String token, String expectedSort, int expectedValues) {
+        if (token == null || token.isBlank()) {
+            return null;
+        }
+        String decoded;
+        try {
+            decoded = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("分頁游標無效");
+        }
+        List<String> parts = Arrays.asList(decoded.split(SEPARATOR, -1));
+        if (parts.size() != expectedValues + 1 || !parts.get(0).equals(expectedSort)) {
+            throw new IllegalArgumentException("分頁游標無效或與排序方式不符");
+        }
+        return new KeysetCursor(parts.get(0), parts.subList(1, parts.size()));
+    }
+
+    /**
+     * 每頁筆數：未指定時用預設值，超過上限時截到上限
+     */
+    public static int limit(Integer requested) {
+        if (requested == null) {
+            return DEFAULT_LIMIT;
+        }
+        if (requested <= 0) {
+            throw new IllegalArgumentException("每頁筆數必須大於 0");
+        }
+        return Math.min(requested, MAX_LIMIT);
+    }
+
+    public String getSort() { return sort; }
+
+    public List<String> getValues() { return values; }
+
+    public long lastId() {
+        try {
+            return Long.parseLong(values.get(values.size() - 1));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("分頁游標無效");
+        }
+    }
+}
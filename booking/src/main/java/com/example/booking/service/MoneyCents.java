@@ -0,0 +1,28 @@
+package com.example.booking.service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * 金額與「分」（long）互轉
+ * 計價、排序與統計一律以 long 運算，只在寫入訂單或回傳前端時轉回 BigDecimal
+ */
+final class MoneyCents {
+
+    private MoneyCents() {}
+
+    static long of(BigDecimal amount) {
+        if (amount == null) {
+            return 0;
+        }
+        return amount.movePointRight(2).setScale(0, RoundingMode.HALF_UP).longValueExact();
+    }
+
+    static BigDecimal toAmount(long cents) {
+        return BigDecimal.valueOf(cents, 2);
+    }
+
+    static double toDouble(long cents) {
+        return cents / 100.0;
+    }
+}
@@ -0,0 +1,154 @@
+package com.example.booking.service;
+
+import com.example.booking.dto.QuoteDTO;
+import com.example.booking.event.BookingChangedEvent;
+import com.example.booking.event.CatalogChangedEvent;
+import com.example.booking.model.RoomType;
+import com.example.booking.repository.RoomTypeRepository;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 房型報價
+ * 房價來自房價日曆，剩餘房數來自可用性索引（不在索引範圍時改用衝突偵測區間樹），
+ * 都是記憶體查詢，不鎖房型也不佔用庫存帳本。
+ * 結果放在有上限的 LRU 快取，並記錄當時房型的版本號；訂房、取消、保留與房型/房價變更
+ * 在交易結束後遞增版本號，舊版本的快取項目視同失效，之後由 LRU 自然淘汰。
+ */
+@Service
+public class QuoteService {
+
+    @Autowired
+    private RoomTypeRepository roomTypeRepository;
+
+    @Autowired
+    private RateCalendarService rateCalendarService;
+
+    @Autowired
+    private AvailabilityIndex availabilityIndex;
+
+    @Autowired
+    private BookingConflictDetector conflictDetector;
+
+    // 快取最多筆數
+    @Value("${app.quote.cache-size:5000}")
+    private int cacheSize = 5000;
+
+    private Map<String, CachedQuote> cache;
+
+    private final Map<Long, Long> versions = new ConcurrentHashMap<>();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    private static final class CachedQuote {
+        final long version;
+        final LocalDate createdOn;
+        final QuoteDTO quote;
+
+        CachedQuote(long version, LocalDate createdOn, QuoteDTO quote) {
+            this.version = version;
+            this.createdOn = createdOn;
+            this.quote = quote;
+        }
+    }
+
+    @PostConstruct
+    public void init() {
+        cache = Collections.synchronizedMap(new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedQuote> eldest) {
+                return size() > cacheSize;
+            }
+        });
+    }
+
+    /**
+     * 報價，房型不存在時回傳 empty
+     */
+    public Optional<QuoteDTO> quote(Long roomTypeId, LocalDate checkIn, LocalDate checkOut, int quantity) {
+        AvailabilityCalendarService.validateRange(checkIn, checkOut);
+        if (checkIn.isBefore(LocalDate.now())) {
+            throw new IllegalArgumentException("入住日期不能早於今天");
+        }
+        if (quantity <= 0) {
+            throw new IllegalArgumentException("預訂數量需大於 0");
+        }
+
+        String key = roomTypeId + ":" + checkIn + ":" + checkOut + ":" + quantity;
+        // 先讀版本號再計算：計算期間若有異動，存入的項目版本已過期，下次查詢會重算
+        long version = versionOf(roomTypeId);
+        CachedQuote cached = cache.get(key);
+        // 跨日後房價日曆與可用性索引的視窗會移動，一併重算
+        if (cached != null && cached.version == version && cached.createdOn.equals(LocalDate.now())) {
+            hits.incrementAndGet();
+            return Optional.of(cached.quote);
+        }
+        misses.incrementAndGet();
+
+        Optional<RoomType> roomType = roomTypeRepository.findById(roomTypeId);
+        if (roomType.isEmpty()) {
+            return Optional.empty();
+        }
+        QuoteDTO quote = compute(roomType.get(), checkIn, checkOut, quantity);
+        cache.put(key, new CachedQuote(version, LocalDate.now(), quote));
+        return Optional.of(quote);
+    }
+
+    private QuoteDTO compute(RoomType rt, LocalDate checkIn, LocalDate checkOut, int quantity) {
+        long[] nightly = rateCalendarService.nightlyCents(rt, checkIn, checkOut);
+        List<QuoteDTO.NightPrice> prices = new ArrayList<>(nightly.length);
+        long stayCents = 0;
+        for (int i = 0; i < nightly.length; i++) {
+            prices.add(new QuoteDTO.NightPrice(checkIn.plusDays(i), MoneyCents.toAmount(nightly[i])));
+            stayCents += nightly[i];
+        }
+
+        int remaining = availabilityIndex.remainingRooms(rt.getId(), checkIn, checkOut);
+        if (remaining < 0) {
+            remaining = rt.getTotalRooms() - conflictDetector.maxConcurrent(rt.getId(), checkIn, checkOut);
+        }
+        return new QuoteDTO(rt.getId(), checkIn, checkOut, quantity, prices,
+                MoneyCents.toAmount(stayCents * quantity), Math.max(remaining, 0));
+    }
+
+    private long versionOf(Long roomTypeId) {
+        return versions.getOrDefault(roomTypeId, 0L);
+    }
+
+    // === 失效 ===
+    // 在交易結束後（可用性索引、區間樹等提交後監聽器都已更新）才遞增版本號
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMPLETION, fallbackExecution = true)
+    public void onBookingChanged(BookingChangedEvent event) {
+        versions.merge(event.getRoomTypeId(), 1L, Long::sum);
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMPLETION, fallbackExecution = true)
+    public void onCatalogChanged(CatalogChangedEvent event) {
+        versions.merge(event.getRoomTypeId(), 1L, Long::sum);
+    }
+
+    // === 監控 ===
+
+    public Map<String, Object> getStats() {
+        long h = hits.get();
+        long m = misses.get();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("entries", cache.size());
+        stats.put("capacity", cacheSize);
+        stats.put("hits", h);
+        stats.put("misses", m);
+        stats.put("hitRate", h + m == 0 ? 0.0 : (double) h / (h + m));
+        return stats;
+    }
+}
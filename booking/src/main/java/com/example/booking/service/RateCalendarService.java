@@ -0,0 +1,249 @@
+package com.example.booking.service;
+
+import com.example.booking.event.CatalogChangedEvent;
+import com.example.booking.model.RoomRate;
+import com.example.booking.model.RoomType;
+import com.example.booking.repository.RoomRateRepository;
+import com.example.booking.repository.RoomTypeRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 房價日曆
+ * 每個房型依基本房價與房價規則（星期、季節、單日覆寫）預先展開為從今天起 horizonDays 晚的
+ * 每晚房價（分），並保存前綴和；一段住宿的總價只需 prefix[退房] - prefix[入住]。
+ * 房型或規則變更時整份丟棄，下次查詢再重建；超出範圍的夜晚逐晚套用規則計算。
+ */
+@Service
+public class RateCalendarService {
+
+    @Autowired
+    private RoomRateRepository roomRateRepository;
+
+    @Autowired
+    private RoomTypeRepository roomTypeRepository;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    // 與可用性索引相同的涵蓋天數
+    @Value("${app.availability.horizon-days:540}")
+    private int horizonDays = 540;
+
+    private final Map<Long, Calendar> calendars = new ConcurrentHashMap<>();
+
+    /**
+     * 單一房型展開後的房價
+     */
+    private static final class Calendar {
+        final long baseCents;
+        final LocalDate baseDate;
+        // prefix[i] = baseDate 起前 i 晚的房價總和
+        final long[] prefix;
+        // 依優先順序由低到高排列，範圍外逐晚計算時由後往前找第一個適用的規則
+        final List<RoomRate> rules;
+
+        Calendar(long baseCents, LocalDate baseDate, long[] prefix, List<RoomRate> rules) {
+            this.baseCents = baseCents;
+            this.baseDate = baseDate;
+            this.prefix = prefix;
+            this.rules = rules;
+        }
+
+        long priceOn(LocalDate night) {
+            int i = (int) ChronoUnit.DAYS.between(baseDate, night);
+            if (i >= 0 && i < prefix.length - 1) {
+                return prefix[i + 1] - prefix[i];
+            }
+            for (int r = rules.size() - 1; r >= 0; r--) {
+                if (rules.get(r).appliesTo(night)) {
+                    return rules.get(r).getPriceCents();
+                }
+            }
+            return baseCents;
+        }
+    }
+
+    // === 計價 ===
+
+    /**
+     * 單間房 [checkIn, checkOut) 的總價（分）
+     */
+    public long stayCents(RoomType roomType, LocalDate checkIn, LocalDate checkOut) {
+        Calendar calendar = calendarFor(roomType);
+        int from = (int) ChronoUnit.DAYS.between(calendar.baseDate, checkIn);
+        int to = (int) ChronoUnit.DAYS.between(calendar.baseDate, checkOut);
+        if (from >= 0 && to < calendar.prefix.length) {
+            return calendar.prefix[to] - calendar.prefix[from];
+        }
+        long total = 0;
+        for (LocalDate night = checkIn; night.isBefore(checkOut); night = night.plusDays(1)) {
+            total += calendar.priceOn(night);
+        }
+        return total;
+    }
+
+    /**
+     * [checkIn, checkOut) 每晚的房價（分）
+     */
+    public long[] nightlyCents(RoomType roomType, LocalDate checkIn, LocalDate checkOut) {
+        Calendar calendar = calendarFor(roomType);
+        long[] nightly = new long[(int) ChronoUnit.DAYS.between(checkIn, checkOut)];
+        for (int i = 0; i < nightly.length; i++) {
+            nightly[i] = calendar.priceOn(checkIn.plusDays(i));
+        }
+        return nightly;
+    }
+
+    /**
+     * 訂單總價（quantity 間）
+     */
+    public BigDecimal priceOf(RoomType roomType, LocalDate checkIn, LocalDate checkOut, int quantity) {
+        return MoneyCents.toAmount(stayCents(roomType, checkIn, checkOut) * quantity);
+    }
+
+    private Calendar calendarFor(RoomType roomType) {
+        long baseCents = MoneyCents.of(roomType.getPricePerNight());
+        Calendar calendar = calendars.get(roomType.getId());
+        // 基本房價改變（含尚未提交的修改）或跨日後重建，讓視窗從今天開始
+        if (calendar == null || calendar.baseCents != baseCents || !calendar.baseDate.equals(LocalDate.now())) {
+            calendar = build(roomType.getId(), baseCents);
+            calendars.put(roomType.getId(), calendar);
+        }
+        return calendar;
+    }
+
+    private Calendar build(Long roomTypeId, long baseCents) {
+        List<RoomRate> rules = new ArrayList<>(roomRateRepository.findByRoomTypeIdOrderByIdAsc(roomTypeId));
+        // 穩定排序：先依類別優先順序，同類保留建立順序
+        rules.sort(Comparator.comparing(RoomRate::getRuleType));
+
+        LocalDate baseDate = LocalDate.now();
+        long[] nightly = new long[horizonDays];
+        Arrays.fill(nightly, baseCents);
+        for (RoomRate rule : rules) {
+            paint(nightly, baseDate, rule);
+        }
+
+        long[] prefix = new long[horizonDays + 1];
+        for (int i = 0; i < horizonDays; i++) {
+            prefix[i + 1] = prefix[i] + nightly[i];
+        }
+        return new Calendar(baseCents, baseDate, prefix, List.copyOf(rules));
+    }
+
+    // 將規則套用到展開陣列，優先順序高的規則後套用
+    private static void paint(long[] nightly, LocalDate baseDate, RoomRate rule) {
+        int from = rule.getStartDate() == null ? 0
+                : (int) Math.max(0, ChronoUnit.DAYS.between(baseDate, rule.getStartDate()));
+        int to = rule.getEndDate() == null ? nightly.length
+                : (int) Math.min(nightly.length, ChronoUnit.DAYS.between(baseDate, rule.getEndDate()));
+        if (from >= to) {
+            return;
+        }
+        int step = 1;
+        if (rule.getDayOfWeek() != null) {
+            // 移到第一個符合星期的夜晚後每 7 晚一次
+            int offset = Math.floorMod(rule.getDayOfWeek() - baseDate.plusDays(from).getDayOfWeek().getValue(), 7);
+            from += offset;
+            step = 7;
+        }
+        for (int i = from; i < to; i += step) {
+            nightly[i] = rule.getPriceCents();
+        }
+    }
+
+    // === 規則管理 ===
+
+    public List<RoomRate> getRules(Long roomTypeId) {
+        return roomRateRepository.findByRoomTypeIdOrderByIdAsc(roomTypeId);
+    }
+
+    @Transactional
+    public RoomRate addRule(Long roomTypeId, RoomRate rule) {
+        if (!roomTypeRepository.existsById(roomTypeId)) {
+            throw new RuntimeException("找不到房型 ID=" + roomTypeId);
+        }
+        validate(rule);
+        rule.setId(null);
+        rule.setRoomTypeId(roomTypeId);
+        RoomRate saved = roomRateRepository.save(rule);
+        changed(roomTypeId);
+        return saved;
+    }
+
+    @Transactional
+    public void deleteRule(Long roomTypeId, Long ruleId) {
+        RoomRate rule = roomRateRepository.findById(ruleId)
+                .filter(r -> r.getRoomTypeId().equals(roomTypeId))
+                .orElseThrow(() -> new RuntimeException("找不到房價規則 ID=" + ruleId));
+        roomRateRepository.delete(rule);
+        changed(roomTypeId);
+    }
+
+    /**
+     * 刪除房型時清除規則
+     */
+    @Transactional
+    public void deleteForRoomType(Long roomTypeId) {
+        roomRateRepository.deleteByRoomTypeId(roomTypeId);
+        calendars.remove(roomTypeId);
+    }
+
+    /**
+     * 房東只能管理自己住宿的房型
+     */
+    @Transactional(readOnly = true)
+    public void checkOwnership(Long roomTypeId, String username) {
+        RoomType roomType = roomTypeRepository.findById(roomTypeId)
+                .orElseThrow(() -> new RuntimeException("找不到房型 ID=" + roomTypeId));
+        if (!roomType.getAccommodation().getOwner().getUsername().equals(username)) {
+            throw new RuntimeException("無權限管理此房型的房價");
+        }
+    }
+
+    private static void validate(RoomRate rule) {
+        if (rule.getRuleType() == null) {
+            throw new IllegalArgumentException("請指定規則類型");
+        }
+        if (rule.getPriceCents() < 0) {
+            throw new IllegalArgumentException("房價不可為負數");
+        }
+        if (rule.getDayOfWeek() != null && (rule.getDayOfWeek() < 1 || rule.getDayOfWeek() > 7)) {
+            throw new IllegalArgumentException("星期需介於 1（星期一）到 7（星期日）");
+        }
+        if (rule.getRuleType() == RoomRate.RuleType.WEEKDAY) {
+            if (rule.getDayOfWeek() == null) {
+                throw new IllegalArgumentException("星期規則需指定星期");
+            }
+            rule.setStartDate(null);
+            rule.setEndDate(null);
+            return;
+        }
+        if (rule.getStartDate() == null || rule.getEndDate() == null || !rule.getEndDate().isAfter(rule.getStartDate())) {
+            throw new IllegalArgumentException("日期區間不合法");
+        }
+    }
+
+    // 先清掉本機快取，交易結束後（不論提交或回滾）再清一次，避免期間有人以舊資料重建
+    private void changed(Long roomTypeId) {
+        calendars.remove(roomTypeId);
+        eventPublisher.publishEvent(new CatalogChangedEvent(roomTypeId));
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMPLETION, fallbackExecution = true)
+    public void onCatalogChanged(CatalogChangedEvent event) {
+        calendars.remove(event.getRoomTypeId());
+    }
+}
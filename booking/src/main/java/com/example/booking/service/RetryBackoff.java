@@ -0,0 +1,25 @@
+package com.example.booking.service;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 交易衝突重試前的退避：起始時間每次加倍，再加上同等範圍的隨機抖動，
+ * 讓互相衝突的交易錯開重來，而不是同時再撞一次
+ */
+final class RetryBackoff {
+
+    private RetryBackoff() {}
+
+    /**
+     * 第 attempt 次失敗後等待；執行緒被中斷時恢復中斷旗標並拋出例外
+     */
+    static void sleep(long baseMs, int attempt) {
+        long delay = baseMs << (attempt - 1);
+        try {
+            Thread.sleep(delay + ThreadLocalRandom.current().nextLong(delay + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("訂房已中斷");
+        }
+    }
+}
@@ -1,6 +1,8 @@
 package com.example.booking.service;
 
 import com.example.booking.dto.ReviewDTO;
+import com.example.booking.event.AccommodationChangedEvent;
+import com.example.booking.event.AccommodationCounterEvent;
 import com.example.booking.model.Accommodation;
 import com.example.booking.model.Review;
 import com.example.booking.model.User;
@@ -10,6 +12,7 @@ import com.example.booking.repository.UserRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -35,6 +38,9 @@ public class ReviewService {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
     /**
      * 取得某住宿的所有評論
      */
@@ -78,7 +84,9 @@ public class ReviewService {
 
         review = reviewRepository.save(review);
 
-        // 更新住宿的評分和評論數
+        // 評論數交給計數器批次寫回，這裡只更新平均評分
+        eventPublisher.publishEvent(new AccommodationCounterEvent(
+                accommodationId, AccommodationCounterEvent.Counter.REVIEWS, 1));
         updateAccommodationRating(accommodationId);
 
         logger.info("評論新增成功，ID: {}", review.getId());
@@ -107,8 +115,11 @@ public class ReviewService {
                 .orElseThrow(() -> new RuntimeException("找不到住宿"));
 
         accommodation.setRating(avgRating);
+        // review_count 欄位不由 JPA 寫入，這裡只同步記憶體中的物件
         accommodation.setReviewCount(reviews.size());
         accommodationRepository.save(accommodation);
+        // 評分變動會改變篩選面向的評分區間
+        eventPublisher.publishEvent(new AccommodationChangedEvent(accommodationId));
 
         logger.info("更新住宿 {} 的評分: {}, 評論數: {}", accommodationId, avgRating, reviews.size());
     }
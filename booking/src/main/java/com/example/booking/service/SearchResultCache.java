@@ -0,0 +1,310 @@
+package com.example.booking.service;
+
+import com.example.booking.event.AccommodationChangedEvent;
+import com.example.booking.event.AccommodationCountersFlushedEvent;
+import com.example.booking.event.BookingChangedEvent;
+import com.example.booking.event.CatalogChangedEvent;
+import com.example.booking.model.Accommodation;
+import com.example.booking.repository.AccommodationKeysetRepository.Sort;
+import com.example.booking.repository.AccommodationRepository;
+import com.example.booking.repository.RoomTypeRepository;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.text.Normalizer;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * 搜尋結果快取
+ * 以正規化後的 (關鍵字, 入住日, 退房日, 人數, 排序) 為鍵，放在有上限的 LRU 快取。
+ * 每個項目記錄計算前的版本戳記，以及結果中的住宿與其房型；住宿或房型異動時只更新該住宿/房型的版本，
+ * 讀取時版本晚於戳記的項目視同失效，不影響其他項目。
+ * 異動也可能讓原本不在結果中的住宿變成符合（新增或改名、取消訂單釋出房間、房型加房），
+ * 這類事件在交易結束後直接移除關鍵字與日期可能符合的項目。
+ */
+@Service
+public class SearchResultCache {
+
+    @Autowired
+    private AccommodationRepository accommodationRepository;
+
+    @Autowired
+    private RoomTypeRepository roomTypeRepository;
+
+    // 快取最多筆數，0 表示停用
+    @Value("${app.search.cache-size:2000}")
+    private int cacheSize = 2000;
+
+    private Map<String, Entry> cache;
+
+    // 每次異動遞增的時鐘；住宿與房型的版本為最後一次異動時的時鐘值
+    private final AtomicLong clock = new AtomicLong();
+    private final Map<Long, Long> accommodationVersions = new ConcurrentHashMap<>();
+    private final Map<Long, Long> roomTypeVersions = new ConcurrentHashMap<>();
+    // 最後一次「可能新增符合住宿」的異動時鐘，計算期間發生時不存入結果
+    private final AtomicLong lastMembershipChange = new AtomicLong();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong staleEntries = new AtomicLong();
+    private final AtomicLong removedEntries = new AtomicLong();
+
+    private static final class Entry {
+        final String keyword;
+        final LocalDate checkIn;
+        final LocalDate checkOut;
+        final Integer guests;
+        final long stamp;
+        final LocalDate createdOn;
+        final List<Accommodation> result;
+        final long[] accommodationIds;
+        final long[] roomTypeIds;
+
+        Entry(String keyword, LocalDate checkIn, LocalDate checkOut, Integer guests, long stamp,
+              List<Accommodation> result, long[] accommodationIds, long[] roomTypeIds) {
+            this.keyword = keyword;
+            this.checkIn = checkIn;
+            this.checkOut = checkOut;
+            this.guests = guests;
+            this.stamp = stamp;
+            this.createdOn = LocalDate.now();
+            this.result = result;
+            this.accommodationIds = accommodationIds;
+            this.roomTypeIds = roomTypeIds;
+        }
+
+        // 結果是否取決於房間（有日期或人數）
+        boolean dependsOnRooms() {
+            return checkIn != null || guests != null;
+        }
+    }
+
+    @PostConstruct
+    public void init() {
+        cache = Collections.synchronizedMap(new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                if (size() > cacheSize) {
+                    evictions.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        });
+    }
+
+    /**
+     * 取得搜尋結果，快取沒有或已失效時以 loader 計算並存入；
+     * 只有其中一個日期時視同未指定日期（與搜尋本身的行為相同）
+     */
+    public List<Accommodation> get(String keyword, LocalDate checkIn, LocalDate checkOut, Integer guests,
+                                   String sortBy, Supplier<List<Accommodation>> loader) {
+        if (cacheSize <= 0) {
+            return loader.get();
+        }
+        String normalizedKeyword = normalizeKeyword(keyword);
+        if (checkIn == null || checkOut == null) {
+            checkIn = null;
+            checkOut = null;
+        }
+        String key = normalizedKeyword + "|" + checkIn + "|" + checkOut + "|" + guests + "|" + Sort.of(sortBy);
+
+        Entry cached = cache.get(key);
+        if (cached != null) {
+            if (isValid(cached)) {
+                hits.incrementAndGet();
+                return cached.result;
+            }
+            staleEntries.incrementAndGet();
+            cache.remove(key, cached);
+        }
+        misses.incrementAndGet();
+
+        // 先取戳記再計算：計算期間若有異動，項目的戳記早於該版本，下次讀取會重算
+        long stamp = clock.get();
+        List<Accommodation> result = List.copyOf(loader.get());
+        long[] accommodationIds = result.stream().mapToLong(Accommodation::getId).toArray();
+        Entry entry = new Entry(normalizedKeyword, checkIn, checkOut, guests, stamp, result, accommodationIds,
+                guests != null || checkIn != null ? roomTypeIdsOf(result) : new long[0]);
+        // 與 removeWhere 在同一把鎖內檢查並存入，移除完成後才存入的項目必定看得到該次異動
+        synchronized (cache) {
+            if (lastMembershipChange.get() <= stamp) {
+                cache.put(key, entry);
+            }
+        }
+        return result;
+    }
+
+    private boolean isValid(Entry entry) {
+        // 跨日後日期範圍與可用性索引的視窗會移動，一併重算
+        if (!entry.createdOn.equals(LocalDate.now())) {
+            return false;
+        }
+        for (long id : entry.accommodationIds) {
+            if (accommodationVersions.getOrDefault(id, 0L) > entry.stamp) {
+                return false;
+            }
+        }
+        for (long id : entry.roomTypeIds) {
+            if (roomTypeVersions.getOrDefault(id, 0L) > entry.stamp) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private long[] roomTypeIdsOf(List<Accommodation> result) {
+        if (result.isEmpty()) {
+            return new long[0];
+        }
+        List<Long> ids = result.stream().map(Accommodation::getId).toList();
+        return roomTypeRepository.findIdsByAccommodationIds(ids).stream()
+                .mapToLong(row -> (Long) row[0])
+                .toArray();
+    }
+
+    /**
+     * 關鍵字正規化：全半形統一、轉小寫、去除頭尾空白並合併連續空白
+     */
+    static String normalizeKeyword(String keyword) {
+        if (keyword == null) {
+            return "";
+        }
+        return Normalizer.normalize(keyword, Normalizer.Form.NFKC)
+                .trim()
+                .toLowerCase(Locale.ROOT)
+                .replaceAll("\\s+", " ");
+    }
+
+    // === 失效 ===
+    // 在交易結束後（索引等提交後監聽器都已更新）才遞增版本
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMPLETION, fallbackExecution = true)
+    public void onAccommodationChanged(AccommodationChangedEvent event) {
+        Long id = event.getAccommodationId();
+        accommodationVersions.put(id, clock.incrementAndGet());
+        // 新增或改名的住宿可能符合其他關鍵字
+        List<Object[]> rows = accommodationRepository.findSearchFieldsById(id);
+        if (!rows.isEmpty()) {
+            String text = searchableText(rows.get(0));
+            removeWhere(entry -> mayMatch(entry.keyword, text));
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMPLETION, fallbackExecution = true)
+    public void onCountersFlushed(AccommodationCountersFlushedEvent event) {
+        // 訂房數、評論數與收藏數會顯示在結果中，也影響熱門與評分排序；
+        // 結果由資料庫讀取計數，須等增量寫回後才遞增，否則寫回前重算的結果會被當成最新
+        accommodationVersions.put(event.getAccommodationId(), clock.incrementAndGet());
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMPLETION, fallbackExecution = true)
+    public void onBookingChanged(BookingChangedEvent event) {
+        roomTypeVersions.put(event.getRoomTypeId(), clock.incrementAndGet());
+        // 釋出房間時，原本售完的住宿可能出現在日期重疊的搜尋結果
+        if (event.getQuantityDelta() < 0) {
+            LocalDate checkIn = event.getCheckIn();
+            LocalDate checkOut = event.getCheckOut();
+            removeForRoomType(event.getRoomTypeId(), entry -> entry.checkIn != null
+                    && entry.checkIn.isBefore(checkOut) && entry.checkOut.isAfter(checkIn));
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMPLETION, fallbackExecution = true)
+    public void onCatalogChanged(CatalogChangedEvent event) {
+        roomTypeVersions.put(event.getRoomTypeId(), clock.incrementAndGet());
+        // 新增房型、加房或提高人數時，住宿可能開始符合有日期或人數的搜尋
+        removeForRoomType(event.getRoomTypeId(), Entry::dependsOnRooms);
+    }
+
+    // 移除房型所屬住宿可能符合的項目；房型已刪除時只會使結果變少，交由版本處理
+    private void removeForRoomType(Long roomTypeId, Predicate<Entry> affected) {
+        List<Object[]> snapshot = roomTypeRepository.findInventorySnapshotById(roomTypeId);
+        if (snapshot.isEmpty()) {
+            return;
+        }
+        List<Object[]> rows = accommodationRepository.findSearchFieldsById((Long) snapshot.get(0)[1]);
+        if (rows.isEmpty()) {
+            return;
+        }
+        String text = searchableText(rows.get(0));
+        removeWhere(entry -> affected.test(entry) && mayMatch(entry.keyword, text));
+    }
+
+    private void removeWhere(Predicate<Entry> predicate) {
+        int removed = 0;
+        synchronized (cache) {
+            lastMembershipChange.set(clock.incrementAndGet());
+            Iterator<Entry> it = cache.values().iterator();
+            while (it.hasNext()) {
+                if (predicate.test(it.next())) {
+                    it.remove();
+                    removed++;
+                }
+            }
+        }
+        removedEntries.addAndGet(removed);
+    }
+
+    // 名稱、地點、地址、附近景點與設施合併成一段正規化文字
+    private static String searchableText(Object[] row) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 1; i < row.length; i++) {
+            if (row[i] != null) {
+                sb.append(row[i]).append(' ');
+            }
+        }
+        return normalizeKeyword(sb.toString());
+    }
+
+    /**
+     * 關鍵字是否可能符合住宿文字：空白關鍵字一律符合；否則任一詞的任一相鄰兩字（單字詞為該字）
+     * 出現在文字中即視為可能符合。寧可多移除，也不留下少了新住宿的結果
+     */
+    static boolean mayMatch(String keyword, String text) {
+        if (keyword.isEmpty()) {
+            return true;
+        }
+        for (String term : keyword.split(" ")) {
+            if (term.length() < 2) {
+                if (text.contains(term)) {
+                    return true;
+                }
+                continue;
+            }
+            for (int i = 0; i + 2 <= term.length(); i++) {
+                if (text.contains(term.substring(i, i + 2))) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    // === 監控 ===
+
+    public Map<String, Object> getStats() {
+        long h = hits.get();
+        long m = misses.get();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("entries", cache.size());
+        stats.put("capacity", cacheSize);
+        stats.put("hits", h);
+        stats.put("misses", m);
+        stats.put("hitRate", h + m == 0 ? 0.0 : (double) h / (h + m));
+        stats.put("evictions", evictions.get());
+        stats.put("staleEntries", staleEntries.get());
+        stats.put("removedEntries", removedEntries.get());
+        return stats;
+    }
+}
@@ -8,7 +8,6 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
-import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.YearMonth;
 import java.time.format.DateTimeFormatter;
@@ -223,19 +222,19 @@ public class StatisticsService {
         for (int i = months - 1; i >= 0; i--) {
             YearMonth month = currentMonth.minusMonths(i);
 
-            BigDecimal monthRevenue = bookings.stream()
+            long monthRevenue = bookings.stream()
                 .filter(b -> "CONFIRMED".equals(b.getStatus()))
                 .filter(b -> {
                     if (b.getCheckIn() == null) return false;
                     YearMonth bookingMonth = YearMonth.from(b.getCheckIn());
                     return bookingMonth.equals(month);
                 })
-                .map(Booking::getTotalPrice)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+                .mapToLong(b -> MoneyCents.of(b.getTotalPrice()))
+                .sum();
 
             Map<String, Object> monthData = new HashMap<>();
             monthData.put("month", month.format(DateTimeFormatter.ofPattern("yyyy-MM")));
-            monthData.put("revenue", monthRevenue.doubleValue());
+            monthData.put("revenue", MoneyCents.toDouble(monthRevenue));
 
             result.add(monthData);
         }
@@ -260,19 +259,19 @@ public class StatisticsService {
         for (int i = months - 1; i >= 0; i--) {
             YearMonth month = currentMonth.minusMonths(i);
 
-            BigDecimal monthRevenue = bookings.stream()
+            long monthRevenue = bookings.stream()
                 .filter(b -> "CONFIRMED".equals(b.getStatus()))
                 .filter(b -> {
                     if (b.getCheckIn() == null) return false;
                     YearMonth bookingMonth = YearMonth.from(b.getCheckIn());
                     return bookingMonth.equals(month);
                 })
-                .map(Booking::getTotalPrice)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+                .mapToLong(b -> MoneyCents.of(b.getTotalPrice()))
+                .sum();
 
             Map<String, Object> monthData = new HashMap<>();
             monthData.put("month", month.format(DateTimeFormatter.ofPattern("yyyy-MM")));
-            monthData.put("revenue", monthRevenue.doubleValue());
+            monthData.put("revenue", MoneyCents.toDouble(monthRevenue));
 
             result.add(monthData);
         }
@@ -291,11 +290,11 @@ public class StatisticsService {
             .filter(b -> isBookingOwnedBy(b, ownerUsername))
             .collect(Collectors.toList());
 
-        // 統計每個住宿的營收
-        Map<String, BigDecimal> accommodationRevenue = bookings.stream()
+        // 統計每個住宿的營收（以分累加）
+        Map<String, Long> accommodationRevenue = bookings.stream()
             .collect(Collectors.groupingBy(
                 b -> b.getRoomType().getAccommodation().getName(),
-                Collectors.reducing(BigDecimal.ZERO, Booking::getTotalPrice, BigDecimal::add)
+                Collectors.summingLong(b -> MoneyCents.of(b.getTotalPrice()))
             ));
 
         // 轉換為前端格式
@@ -303,7 +302,7 @@ public class StatisticsService {
             .map(entry -> {
                 Map<String, Object> item = new HashMap<>();
                 item.put("name", entry.getKey());
-                item.put("revenue", entry.getValue().doubleValue());
+                item.put("revenue", MoneyCents.toDouble(entry.getValue()));
                 return item;
             })
             .sorted((a, b) -> Double.compare(
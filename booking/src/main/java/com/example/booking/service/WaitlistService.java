@@ -0,0 +1,436 @@
+package com.example.booking.service;
+
+import com.example.booking.event.BookingChangedEvent;
+import com.example.booking.event.CatalogChangedEvent;
+import com.example.booking.model.Booking;
+import com.example.booking.model.RoomType;
+import com.example.booking.model.WaitlistEntry;
+import com.example.booking.repository.BookingHoldRepository;
+import com.example.booking.repository.BookingRepository;
+import com.example.booking.repository.RoomTypeRepository;
+import com.example.booking.repository.WaitlistEntryRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 候補名單
+ * 等待中的候補依房型保存在記憶體，並以「每晚 → 候補 ID」建立索引；
+ * 取消訂單、保留逾時或房型調整釋出房間時，只把該房型與釋出的日期區間記為待處理，
+ * 由排程批次取出重疊的候補，依登記順序以一次唯讀查詢算出的每晚剩餘房數預先挑選，
+ * 再整批交給訂房排序器下單（帳本條件式更新，不鎖房型），最後由帳本決定是否成功；
+ * 候補在訂單的同一交易內改為已轉訂單，下單期間被取消的候補不會產生訂單。
+ * 挑選時跳過目前放不下的候補，後面需求較小的候補仍可先轉為訂單。
+ */
+@Service
+public class WaitlistService {
+
+    private static final Logger logger = LoggerFactory.getLogger(WaitlistService.class);
+
+    @Autowired
+    private WaitlistEntryRepository waitlistRepository;
+
+    @Autowired
+    private RoomTypeRepository roomTypeRepository;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private BookingHoldRepository bookingHoldRepository;
+
+    @Autowired
+    private BookingSequencer bookingSequencer;
+
+    @Autowired
+    private EmailService emailService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    // 每個房型每次最多轉為訂單的候補數，剩下的留到下一輪
+    @Value("${app.waitlist.batch-size:64}")
+    private int batchSize = 64;
+
+    // 等待中的候補，依房型分組；所有存取都在 this 的鎖內
+    private final Map<Long, RoomQueue> queues = new HashMap<>();
+
+    // 有房間釋出、待處理的房型與日期區間；null 區間代表整個房型
+    private final Map<Long, LocalDate[]> dirty = new ConcurrentHashMap<>();
+
+    // 同一時間只有一輪挑選與送出，避免同一筆候補被重複送出
+    private final Object promoteLock = new Object();
+
+    // 已送交排序器、尚未有結果的候補 ID
+    private final Set<Long> inFlight = ConcurrentHashMap.newKeySet();
+
+    private final AtomicLong promoted = new AtomicLong();
+
+    private static final class Waiter {
+        final Long id;
+        final String username;
+        final LocalDate checkIn;
+        final LocalDate checkOut;
+        final int quantity;
+
+        Waiter(WaitlistEntry entry) {
+            this.id = entry.getId();
+            this.username = entry.getUsername();
+            this.checkIn = entry.getCheckIn();
+            this.checkOut = entry.getCheckOut();
+            this.quantity = entry.getQuantity();
+        }
+    }
+
+    /**
+     * 單一房型的候補佇列
+     */
+    private static final class RoomQueue {
+        // 依登記順序
+        final NavigableMap<Long, Waiter> waiters = new TreeMap<>();
+        // 每晚的候補 ID，ID 遞增即登記順序
+        final NavigableMap<LocalDate, NavigableSet<Long>> byNight = new TreeMap<>();
+
+        void add(Waiter w) {
+            waiters.put(w.id, w);
+            for (LocalDate night = w.checkIn; night.isBefore(w.checkOut); night = night.plusDays(1)) {
+                byNight.computeIfAbsent(night, n -> new TreeSet<>()).add(w.id);
+            }
+        }
+
+        void remove(Long id) {
+            Waiter w = waiters.remove(id);
+            if (w == null) {
+                return;
+            }
+            for (LocalDate night = w.checkIn; night.isBefore(w.checkOut); night = night.plusDays(1)) {
+                NavigableSet<Long> ids = byNight.get(night);
+                if (ids != null && ids.remove(id) && ids.isEmpty()) {
+                    byNight.remove(night);
+                }
+            }
+        }
+
+        // 住宿期間與 [from, to) 有重疊的候補，依登記順序
+        List<Waiter> overlapping(LocalDate from, LocalDate to) {
+            if (from == null) {
+                return new ArrayList<>(waiters.values());
+            }
+            NavigableSet<Long> ids = new TreeSet<>();
+            for (NavigableSet<Long> night : byNight.subMap(from, true, to, false).values()) {
+                ids.addAll(night);
+            }
+            List<Waiter> result = new ArrayList<>(ids.size());
+            for (Long id : ids) {
+                result.add(waiters.get(id));
+            }
+            return result;
+        }
+    }
+
+    // === 載入 ===
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onReady() {
+        reload();
+    }
+
+    /**
+     * 結束入住日已過的候補並從資料庫重建佇列，每日與可用性索引同時執行
+     */
+    @Scheduled(cron = "${app.availability.rebuild-cron:0 5 0 * * *}")
+    public void reload() {
+        Integer expired = transactionTemplate.execute(status -> waitlistRepository.expirePast(LocalDate.now()));
+        List<WaitlistEntry> waiting = waitlistRepository.findAllWaiting();
+        synchronized (this) {
+            queues.clear();
+            for (WaitlistEntry entry : waiting) {
+                queueFor(entry.getRoomTypeId()).add(new Waiter(entry));
+            }
+        }
+        logger.info("已載入 {} 筆候補，{} 筆因入住日已過結束", waiting.size(), expired);
+    }
+
+    // === 登記 / 取消 ===
+
+    /**
+     * 登記候補；交易提交後才放入佇列，並立即檢查一次是否已有空房
+     */
+    @Transactional
+    public WaitlistEntry join(Long roomTypeId, LocalDate checkIn, LocalDate checkOut, int quantity, String username) {
+        if (checkIn == null || checkOut == null || !checkOut.isAfter(checkIn)) {
+            throw new RuntimeException("日期區間不合法");
+        }
+        if (checkIn.isBefore(LocalDate.now())) {
+            throw new RuntimeException("入住日期不能早於今天");
+        }
+        if (quantity <= 0) {
+            throw new RuntimeException("預訂數量需大於 0");
+        }
+        RoomType rt = roomTypeRepository.findById(roomTypeId)
+                .orElseThrow(() -> new RuntimeException("找不到房型 ID=" + roomTypeId));
+        if (quantity > rt.getTotalRooms()) {
+            throw new RuntimeException("候補數量超過房型總房數：" + rt.getTotalRooms());
+        }
+        if (waitlistRepository.existsWaiting(username, roomTypeId, checkIn, checkOut)) {
+            throw new RuntimeException("已登記過相同日期的候補");
+        }
+
+        WaitlistEntry saved = waitlistRepository.save(new WaitlistEntry(roomTypeId, username, checkIn, checkOut, quantity));
+        Waiter waiter = new Waiter(saved);
+        afterCommit(() -> {
+            synchronized (this) {
+                queueFor(roomTypeId).add(waiter);
+            }
+            markDirty(roomTypeId, checkIn, checkOut);
+        });
+        return saved;
+    }
+
+    /**
+     * 使用者取消自己的候補
+     */
+    @Transactional
+    public boolean leave(Long entryId, String username) {
+        WaitlistEntry entry = waitlistRepository.findById(entryId).orElse(null);
+        if (entry == null || waitlistRepository.cancelOwned(entryId, username) == 0) {
+            return false;
+        }
+        synchronized (this) {
+            RoomQueue queue = queues.get(entry.getRoomTypeId());
+            if (queue != null) {
+                queue.remove(entryId);
+            }
+        }
+        return true;
+    }
+
+    public List<WaitlistEntry> getEntriesForUser(String username) {
+        return waitlistRepository.findByUsernameOrderByIdDesc(username);
+    }
+
+    /**
+     * 在同房型、住宿期間有重疊的候補中排第幾位（從 1 開始），不在佇列中時回傳 0
+     */
+    public synchronized int positionOf(WaitlistEntry entry) {
+        RoomQueue queue = queues.get(entry.getRoomTypeId());
+        if (queue == null || !queue.waiters.containsKey(entry.getId())) {
+            return 0;
+        }
+        int ahead = 0;
+        for (Waiter w : queue.overlapping(entry.getCheckIn(), entry.getCheckOut())) {
+            if (w.id < entry.getId()) {
+                ahead++;
+            }
+        }
+        return ahead + 1;
+    }
+
+    // === 釋出房間 ===
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookingChanged(BookingChangedEvent event) {
+        if (event.getQuantityDelta() < 0) {
+            markDirty(event.getRoomTypeId(), event.getCheckIn(), event.getCheckOut());
+        }
+    }
+
+    // 房數增加或房型刪除：整個房型重新檢查
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCatalogChanged(CatalogChangedEvent event) {
+        markDirty(event.getRoomTypeId(), null, null);
+    }
+
+    private void markDirty(Long roomTypeId, LocalDate from, LocalDate to) {
+        synchronized (this) {
+            if (!queues.containsKey(roomTypeId)) {
+                return;
+            }
+        }
+        dirty.merge(roomTypeId, new LocalDate[]{from, to}, (a, b) -> {
+            if (a[0] == null || b[0] == null) {
+                return new LocalDate[]{null, null};
+            }
+            return new LocalDate[]{
+                    a[0].isBefore(b[0]) ? a[0] : b[0],
+                    a[1].isAfter(b[1]) ? a[1] : b[1]};
+        });
+    }
+
+    /**
+     * 處理所有待處理房型，單一房型失敗時保留到下一輪；
+     * 只送出訂房指令不等待結果，排程執行緒不會被排序器卡住
+     */
+    @Scheduled(fixedDelayString = "${app.waitlist.promote-interval-ms:2000}")
+    public void promotePending() {
+        for (Long roomTypeId : new ArrayList<>(dirty.keySet())) {
+            LocalDate[] range = dirty.remove(roomTypeId);
+            if (range == null) {
+                continue;
+            }
+            try {
+                promote(roomTypeId, range[0], range[1]);
+            } catch (RuntimeException e) {
+                logger.warn("房型 {} 候補轉訂單失敗，稍後重試：{}", roomTypeId, e.getMessage());
+                markDirty(roomTypeId, range[0], range[1]);
+            }
+        }
+    }
+
+    /**
+     * 將住宿期間與 [from, to) 重疊的候補依登記順序送交排序器轉為訂單（from 為 null 代表整個房型），
+     * 立即返回；所有指令完成後 future 以成功筆數完成
+     */
+    public CompletableFuture<Integer> promote(Long roomTypeId, LocalDate from, LocalDate to) {
+        synchronized (promoteLock) {
+            LocalDate today = LocalDate.now();
+            List<Waiter> candidates;
+            synchronized (this) {
+                RoomQueue queue = queues.get(roomTypeId);
+                if (queue == null) {
+                    return CompletableFuture.completedFuture(0);
+                }
+                candidates = queue.overlapping(from, to);
+            }
+            // 入住日已過的留給每日重建時結束；已送出、尚未有結果的不重複送出
+            candidates.removeIf(w -> w.checkIn.isBefore(today) || inFlight.contains(w.id));
+            if (candidates.isEmpty()) {
+                return CompletableFuture.completedFuture(0);
+            }
+
+            RoomType rt = roomTypeRepository.findById(roomTypeId).orElse(null);
+            if (rt == null) {
+                transactionTemplate.executeWithoutResult(status -> waitlistRepository.expireForRoomType(roomTypeId));
+                synchronized (this) {
+                    queues.remove(roomTypeId);
+                }
+                return CompletableFuture.completedFuture(0);
+            }
+
+            List<Waiter> selected = select(rt, candidates);
+            AtomicInteger count = new AtomicInteger();
+            CompletableFuture<?>[] done = new CompletableFuture<?>[selected.size()];
+            for (int i = 0; i < selected.size(); i++) {
+                Waiter w = selected.get(i);
+                inFlight.add(w.id);
+                // 通知信不在排序器的分片執行緒上寄送
+                done[i] = bookingSequencer.submit(roomTypeId, w.checkIn, w.checkOut, w.quantity, w.username, w.id)
+                        .whenCompleteAsync((booking, error) -> {
+                            inFlight.remove(w.id);
+                            if (error != null) {
+                                // 預選後又被其他訂單搶走；送出期間若有釋出會因這筆在途而被略過，再檢查一輪
+                                Throwable cause = error.getCause() != null ? error.getCause() : error;
+                                logger.debug("候補 {} 尚無法轉為訂單：{}", w.id, cause.getMessage());
+                                markDirty(roomTypeId, w.checkIn, w.checkOut);
+                                return;
+                            }
+                            markPromoted(roomTypeId, w, booking);
+                            count.incrementAndGet();
+                            promoted.incrementAndGet();
+                        });
+            }
+
+            // 本輪達到上限，剩下的候補下一輪繼續
+            if (selected.size() >= batchSize) {
+                markDirty(roomTypeId, from, to);
+            }
+            return CompletableFuture.allOf(done).handle((v, error) -> count.get());
+        }
+    }
+
+    // 依登記順序挑出目前放得下的候補，並在本機扣除，避免同一批超賣
+    private List<Waiter> select(RoomType rt, List<Waiter> candidates) {
+        LocalDate lo = candidates.stream().map(w -> w.checkIn).min(Comparator.naturalOrder()).get();
+        LocalDate hi = candidates.stream().map(w -> w.checkOut).max(Comparator.naturalOrder()).get();
+        int nights = (int) ChronoUnit.DAYS.between(lo, hi);
+        int[] remaining = AvailabilityCalendarService.remainingPerNight(List.of(rt), lo, nights,
+                bookingRepository.findActiveSpansForRoomType(rt.getId(), lo, hi),
+                bookingHoldRepository.findActiveSpansForRoomType(rt.getId(), lo, hi)).get(rt.getId());
+
+        List<Waiter> selected = new ArrayList<>();
+        for (Waiter w : candidates) {
+            if (selected.size() >= batchSize) {
+                break;
+            }
+            int start = (int) ChronoUnit.DAYS.between(lo, w.checkIn);
+            int end = (int) ChronoUnit.DAYS.between(lo, w.checkOut);
+            int min = Integer.MAX_VALUE;
+            for (int i = start; i < end; i++) {
+                min = Math.min(min, remaining[i]);
+            }
+            if (min < w.quantity) {
+                continue;
+            }
+            for (int i = start; i < end; i++) {
+                remaining[i] -= w.quantity;
+            }
+            selected.add(w);
+        }
+        return selected;
+    }
+
+    // 候補已由排序器在訂單的同一交易內標為已轉訂單，這裡只移出佇列並通知
+    private void markPromoted(Long roomTypeId, Waiter w, Booking booking) {
+        synchronized (this) {
+            RoomQueue queue = queues.get(roomTypeId);
+            if (queue != null) {
+                queue.remove(w.id);
+            }
+        }
+        logger.info("候補 {} 轉為訂單 {}", w.id, booking.getId());
+        try {
+            emailService.sendSimpleEmail(booking.getUser().getEmail(), "候補成功通知",
+                    "您候補的 " + w.checkIn + " ~ " + w.checkOut + " 已有空房，已為您建立訂單 #"
+                            + booking.getId() + "，請至「我的訂單」查看。");
+        } catch (RuntimeException e) {
+            logger.warn("候補 {} 通知信發送失敗：{}", w.id, e.getMessage());
+        }
+    }
+
+    private RoomQueue queueFor(Long roomTypeId) {
+        return queues.computeIfAbsent(roomTypeId, id -> new RoomQueue());
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    // === 監控 ===
+
+    public synchronized Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("roomTypes", queues.size());
+        stats.put("waiting", queues.values().stream().mapToInt(q -> q.waiters.size()).sum());
+        stats.put("pendingRoomTypes", dirty.size());
+        stats.put("inFlight", inFlight.size());
+        stats.put("promoted", promoted.get());
+        return stats;
+    }
+}
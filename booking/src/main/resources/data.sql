@@ -18,6 +18,22 @@ INSERT IGNORE INTO accommodations (id, name, location, description, price_per_ni
 (7, '墾丁海景度假村', '墾丁', '正對沙灘的豪華度假村', 3800.00, 'WiFi, 私人沙灘, SPA, 游泳池', 2, 4.7, 156, 287, 0.3, 'https://picsum.photos/800/600?random=7', 'https://picsum.photos/800/600?random=71,https://picsum.photos/800/600?random=72,https://picsum.photos/800/600?random=73', '南灣, 墾丁大街, 鵝鑾鼻燈塔', '屏東縣恆春鎮墾丁路123號', '08-8861-888'),
 (8, '宜蘭溫泉飯店', '宜蘭', '享受溫泉的舒適飯店', 2800.00, 'WiFi, 溫泉, 早餐, 停車場', 3, 4.4, 89, 167, 4.1, 'https://picsum.photos/800/600?random=8', 'https://picsum.photos/800/600?random=81,https://picsum.photos/800/600?random=82,https://picsum.photos/800/600?random=83', '礁溪溫泉公園, 五峰旗瀑布, 林美石磐步道', '宜蘭縣礁溪鄉溫泉路55號', '03-9881-234');
 
+-- 評分與評論數改為 NOT NULL DEFAULT 0：先補齊既有資料的 NULL，再修改欄位（ddl-auto=update 不會改既有欄位的 NULL 限制）
+UPDATE accommodations SET rating = 0 WHERE rating IS NULL;
+UPDATE accommodations SET review_count = 0 WHERE review_count IS NULL;
+ALTER TABLE accommodations MODIFY rating DECIMAL(3,2) NOT NULL DEFAULT 0;
+ALTER TABLE accommodations MODIFY review_count INT NOT NULL DEFAULT 0;
+
+-- 住宿座標（只補尚未設定的資料）
+UPDATE accommodations SET latitude = 25.033600, longitude = 121.564800 WHERE id = 1 AND latitude IS NULL;
+UPDATE accommodations SET latitude = 22.595300, longitude = 120.307000 WHERE id = 2 AND latitude IS NULL;
+UPDATE accommodations SET latitude = 24.162600, longitude = 120.640600 WHERE id = 3 AND latitude IS NULL;
+UPDATE accommodations SET latitude = 24.128100, longitude = 121.640700 WHERE id = 4 AND latitude IS NULL;
+UPDATE accommodations SET latitude = 25.045600, longitude = 121.514700 WHERE id = 5 AND latitude IS NULL;
+UPDATE accommodations SET latitude = 22.996900, longitude = 120.202700 WHERE id = 6 AND latitude IS NULL;
+UPDATE accommodations SET latitude = 21.947500, longitude = 120.797500 WHERE id = 7 AND latitude IS NULL;
+UPDATE accommodations SET latitude = 24.828700, longitude = 121.772000 WHERE id = 8 AND latitude IS NULL;
+
 
 -- 插入房型資料（明確指定 ID）
 INSERT IGNORE INTO room_types (id, name, description, price_per_night, total_rooms, accommodation_id) VALUES
@@ -45,6 +61,11 @@ INSERT IGNORE INTO room_types (id, name, description, price_per_night, total_roo
 (14, '溫泉房', '含私人溫泉池', 2800.00, 12, 8),
 (15, '溫泉套房', '豪華溫泉套房', 4200.00, 5, 8);
 
+-- 房型可入住人數（只補尚未設定的資料）
+UPDATE room_types SET max_guests = 2 WHERE id IN (1, 3, 5, 7, 9, 10, 14) AND max_guests IS NULL;
+UPDATE room_types SET max_guests = 3 WHERE id IN (2, 11, 12) AND max_guests IS NULL;
+UPDATE room_types SET max_guests = 4 WHERE id IN (4, 6, 8, 13, 15) AND max_guests IS NULL;
+
 -- 插入訂單資料（包含各種狀態和時間分布）
 INSERT IGNORE INTO bookings (user_id, room_type_id, check_in, check_out, booked_quantity, total_price, status, created_at) VALUES
 -- 最近一週的訂單
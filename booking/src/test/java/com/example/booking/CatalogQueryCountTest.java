@@ -0,0 +1,179 @@
+package com.example.booking;
+
+import com.example.booking.model.*;
+import com.example.booking.repository.*;
+import com.example.booking.service.KeysetCursor;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * 住宿、房型與房東 API 的 SQL 數量測試
+ * 每個端點的查詢數固定，不隨住宿、房型或訂單筆數增加（序列化時不再延遲載入關聯）。
+ * 不使用 @Transactional：測試交易的一級快取會讓延遲載入不發出 SQL，無法反映實際請求
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@DisplayName("API 查詢數測試")
+class CatalogQueryCountTest {
+
+    @Autowired
+    private WebApplicationContext context;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private AccommodationRepository accommodationRepo;
+
+    @Autowired
+    private RoomTypeRepository roomTypeRepo;
+
+    @Autowired
+    private BookingRepository bookingRepo;
+
+    @Autowired
+    private UserRepository userRepo;
+
+    private MockMvc mockMvc;
+    private Statistics statistics;
+    private User owner;
+    private User guest;
+    private final List<Accommodation> accommodations = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        // 不套用安全性過濾器，房東端點直接以 principal 帶入登入者
+        mockMvc = MockMvcBuilders.webAppContextSetup(context).build();
+        // 測試設定開啟 hibernate.generate_statistics
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        owner = user("count-owner-");
+        guest = user("count-guest-");
+        LocalDate checkIn = LocalDate.now().plusDays(20);
+        for (int i = 0; i < 3; i++) {
+            Accommodation acc = new Accommodation();
+            acc.setName("查詢數測試旅館" + i);
+            acc.setLocation("台東");
+            acc.setPricePerNight(BigDecimal.valueOf(1500 + i * 100));
+            acc.setOwner(owner);
+            acc = accommodationRepo.save(acc);
+            accommodations.add(acc);
+
+            for (int j = 0; j < 2; j++) {
+                RoomType rt = new RoomType(null, "房型" + j, null, acc.getPricePerNight(), 3);
+                rt.setAccommodation(acc);
+                rt = roomTypeRepo.save(rt);
+                Booking booking = new Booking(null, checkIn, checkIn.plusDays(2), rt, guest, 1, BigDecimal.valueOf(3000));
+                booking.setStatus(j == 0 ? "CONFIRMED" : "PENDING");
+                bookingRepo.save(booking);
+            }
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        bookingRepo.deleteAll(bookingRepo.findByUserUsername(guest.getUsername()));
+        accommodations.forEach(acc -> accommodationRepo.deleteById(acc.getId()));
+        userRepo.deleteById(owner.getId());
+        userRepo.deleteById(guest.getId());
+    }
+
+    @Test
+    @DisplayName("住宿 API - 列表、分頁、單筆與房型各一次查詢")
+    void testAccommodationEndpoints() throws Exception {
+        Long accId = accommodations.get(0).getId();
+
+        assertThat(statementsFor(get("/api/accommodations"))).isEqualTo(1);
+        assertThat(statementsFor(get("/api/accommodations").param("limit", "2"))).isEqualTo(1);
+        assertThat(statementsFor(get("/api/accommodations/" + accId))).isEqualTo(1);
+        assertThat(statementsFor(get("/api/accommodations/" + accId + "/room-types"))).isEqualTo(1);
+
+        // 未指定 limit 時同樣分頁，每頁最多 KeysetCursor.DEFAULT_LIMIT 筆
+        mockMvc.perform(get("/api/accommodations"))
+                .andExpect(jsonPath("$.items").isArray())
+                .andExpect(jsonPath("$.items.length()").value(lessThanOrEqualTo(KeysetCursor.DEFAULT_LIMIT)));
+        mockMvc.perform(get("/api/accommodations/" + accId))
+                .andExpect(jsonPath("$.ownerId").value(owner.getId()))
+                .andExpect(jsonPath("$.roomTypes").doesNotExist());
+    }
+
+    @Test
+    @DisplayName("房型 API - 全部、分頁與依住宿查詢各一次查詢，不帶出訂單")
+    void testRoomTypeEndpoints() throws Exception {
+        Long accId = accommodations.get(1).getId();
+
+        assertThat(statementsFor(get("/api/room-types"))).isEqualTo(1);
+        assertThat(statementsFor(get("/api/room-types").param("limit", "2"))).isEqualTo(1);
+        assertThat(statementsFor(get("/api/room-types/by-accommodation/" + accId))).isEqualTo(1);
+
+        mockMvc.perform(get("/api/room-types/by-accommodation/" + accId))
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].accommodationId").value(accId))
+                .andExpect(jsonPath("$[0].bookings").doesNotExist());
+    }
+
+    @Test
+    @DisplayName("房東 API - 住宿與訂單各一次查詢，房型與統計的查詢數固定")
+    void testOwnerEndpoints() throws Exception {
+        Long accId = accommodations.get(2).getId();
+
+        assertThat(statementsFor(ownerGet("/api/owner/accommodations"))).isEqualTo(1);
+        assertThat(statementsFor(ownerGet("/api/owner/bookings"))).isEqualTo(1);
+        assertThat(statementsFor(ownerGet("/api/owner/bookings").param("limit", "2"))).isEqualTo(1);
+        // 所有權檢查（住宿、房東）+ 房型列表
+        assertThat(statementsFor(ownerGet("/api/owner/accommodations/" + accId + "/room-types"))).isEqualTo(3);
+        // 住宿、訂單與房型數各一次，不逐間住宿查詢房型
+        assertThat(statementsFor(ownerGet("/api/owner/stats"))).isEqualTo(3);
+
+        mockMvc.perform(ownerGet("/api/owner/bookings"))
+                .andExpect(jsonPath("$.items.length()").value(6))
+                .andExpect(jsonPath("$.hasMore").value(false))
+                .andExpect(jsonPath("$.items[0].username").value(guest.getUsername()))
+                .andExpect(jsonPath("$.items[0].accommodationName").exists());
+        mockMvc.perform(ownerGet("/api/owner/stats"))
+                .andExpect(jsonPath("$.roomTypeCount").value(6));
+    }
+
+    // 執行請求並回傳期間送出的 SQL 數
+    private long statementsFor(MockHttpServletRequestBuilder request) throws Exception {
+        statistics.clear();
+        mockMvc.perform(request).andExpect(status().isOk());
+        return statistics.getPrepareStatementCount();
+    }
+
+    private MockHttpServletRequestBuilder ownerGet(String url) {
+        return get(url).principal(new UsernamePasswordAuthenticationToken(owner.getUsername(), null, List.of()));
+    }
+
+    private User user(String prefix) {
+        User user = new User();
+        user.setUsername(prefix + System.nanoTime());
+        user.setPassword("password");
+        user.setEmail(user.getUsername() + "@example.com");
+        return userRepo.save(user);
+    }
+}
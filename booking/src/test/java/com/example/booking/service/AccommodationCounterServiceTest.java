@@ -0,0 +1,118 @@
+package com.example.booking.service;
+
+import com.example.booking.event.AccommodationCounterEvent;
+import com.example.booking.event.AccommodationCounterEvent.Counter;
+import com.example.booking.model.Accommodation;
+import com.example.booking.repository.AccommodationRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * 住宿計數器測試
+ * 不使用 @Transactional：計數以 JDBC 累加 UPDATE 寫回，需讀回已提交的資料
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@DisplayName("住宿計數器測試")
+class AccommodationCounterServiceTest {
+
+    @Autowired
+    private AccommodationCounterService counterService;
+
+    @Autowired
+    private AccommodationRepository accommodationRepo;
+
+    private Accommodation accommodation;
+
+    @BeforeEach
+    void setUp() {
+        accommodation = new Accommodation();
+        accommodation.setName("計數測試旅館-" + System.nanoTime());
+        accommodation.setLocation("台東");
+        accommodation = accommodationRepo.save(accommodation);
+    }
+
+    @AfterEach
+    void tearDown() {
+        counterService.flush();
+        accommodationRepo.deleteById(accommodation.getId());
+    }
+
+    @Test
+    @DisplayName("增量寫回 - 三種計數分別累加，取消與移除收藏為負數")
+    void testFlush_AppliesDeltas() {
+        Long id = accommodation.getId();
+        counterService.onCounterEvent(new AccommodationCounterEvent(id, Counter.BOOKINGS, 1));
+        counterService.onCounterEvent(new AccommodationCounterEvent(id, Counter.BOOKINGS, 1));
+        counterService.onCounterEvent(new AccommodationCounterEvent(id, Counter.BOOKINGS, -1));
+        counterService.onCounterEvent(new AccommodationCounterEvent(id, Counter.REVIEWS, 1));
+        counterService.onCounterEvent(new AccommodationCounterEvent(id, Counter.FAVORITES, 1));
+        counterService.onCounterEvent(new AccommodationCounterEvent(id, Counter.FAVORITES, 1));
+
+        counterService.flush();
+
+        Accommodation reloaded = accommodationRepo.findById(id).orElseThrow();
+        assertThat(reloaded.getBookingCount()).isEqualTo(1);
+        assertThat(reloaded.getReviewCount()).isEqualTo(1);
+        assertThat(reloaded.getFavoriteCount()).isEqualTo(2);
+        assertThat(counterService.pendingFor(id)).containsExactly(0, 0, 0);
+    }
+
+    @Test
+    @DisplayName("JPA 儲存住宿 - 不覆蓋已寫回的計數")
+    void testSaveEntity_DoesNotOverwriteCounters() {
+        Long id = accommodation.getId();
+        counterService.onCounterEvent(new AccommodationCounterEvent(id, Counter.REVIEWS, 3));
+        counterService.flush();
+
+        // 手上的物件計數仍是 0，儲存其他欄位時不應把計數寫回 0
+        accommodation.setDescription("更新描述");
+        accommodationRepo.save(accommodation);
+
+        assertThat(accommodationRepo.findById(id).orElseThrow().getReviewCount()).isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("多執行緒同時累加 - 寫回總數不遺失")
+    void testConcurrentIncrements() throws Exception {
+        Long id = accommodation.getId();
+        int threads = 8;
+        int perThread = 500;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < perThread; i++) {
+                        counterService.onCounterEvent(new AccommodationCounterEvent(id, Counter.BOOKINGS, 1));
+                        if (i % 100 == 0) {
+                            // 與累加交錯寫回
+                            counterService.flush();
+                        }
+                    }
+                }));
+            }
+            for (Future<?> f : futures) {
+                f.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        counterService.flush();
+
+        assertThat(accommodationRepo.findById(id).orElseThrow().getBookingCount()).isEqualTo(threads * perThread);
+    }
+}
@@ -0,0 +1,169 @@
+package com.example.booking.service;
+
+import com.example.booking.dto.AccommodationDTO;
+import com.example.booking.dto.FacetedSearchResultDTO;
+import com.example.booking.dto.FacetedSearchResultDTO.FacetCount;
+import com.example.booking.event.AccommodationChangedEvent;
+import com.example.booking.model.Accommodation;
+import com.example.booking.repository.AccommodationRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * AccommodationFacetIndex 單元測試
+ * 測試欄位解析、選項筆數與篩選語意（同面向為或、跨面向為且）
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("篩選面向索引單元測試")
+class AccommodationFacetIndexTest {
+
+    @Mock
+    private AccommodationRepository accommodationRepository;
+
+    @InjectMocks
+    private AccommodationFacetIndex facetIndex;
+
+    private List<Accommodation> all;
+
+    @BeforeEach
+    void setUp() {
+        all = new ArrayList<>();
+        all.add(accommodation(1L, "台北市中山區", "WiFi, 早餐", 1800, "4.6"));
+        all.add(accommodation(2L, "臺北市大安區", "WiFi、停車場", 3200, "4.1"));
+        all.add(accommodation(3L, "花蓮縣壽豐鄉", "wifi, 游泳池, 停車場", 5200, "3.8"));
+        all.add(accommodation(4L, "花蓮縣花蓮市", "停車場", 900, null));
+        facetIndex.load(all.stream().map(AccommodationFacetIndexTest::row).collect(Collectors.toList()));
+    }
+
+    @Test
+    @DisplayName("欄位解析 - 設施去重不分大小寫，城市取到第一個市或縣")
+    void testParsing() {
+        assertThat(AccommodationFacetIndex.parseAmenities("WiFi, 停車場、早餐, wifi ,"))
+                .containsExactly("WiFi", "停車場", "早餐");
+        assertThat(AccommodationFacetIndex.parseAmenities(null)).isEmpty();
+        assertThat(AccommodationFacetIndex.cityOf("臺中市西屯區")).isEqualTo("台中市");
+        assertThat(AccommodationFacetIndex.cityOf("花蓮縣壽豐鄉")).isEqualTo("花蓮縣");
+        assertThat(AccommodationFacetIndex.cityOf("墾丁")).isEqualTo("墾丁");
+    }
+
+    @Test
+    @DisplayName("未篩選 - 回傳全部結果與各選項筆數")
+    void testCounts_NoFilter() {
+        FacetedSearchResultDTO result = facetIndex.apply(all, Map.of());
+
+        assertThat(result.getTotal()).isEqualTo(4);
+        assertThat(counts(result, AccommodationFacetIndex.AMENITY))
+                .containsEntry("wifi", 3)
+                .containsEntry("停車場", 3)
+                .containsEntry("早餐", 1)
+                .containsEntry("游泳池", 1);
+        assertThat(counts(result, AccommodationFacetIndex.CITY))
+                .containsEntry("台北市", 2)
+                .containsEntry("花蓮縣", 2);
+        assertThat(counts(result, AccommodationFacetIndex.PRICE))
+                .containsExactly(entry("0-1000", 1), entry("1000-2000", 1), entry("3000-5000", 1), entry("5000+", 1));
+        // 評分門檻為累積
+        assertThat(counts(result, AccommodationFacetIndex.RATING))
+                .containsExactly(entry("4.5+", 1), entry("4+", 2), entry("3.5+", 3), entry("3+", 3));
+    }
+
+    @Test
+    @DisplayName("篩選 - 同面向多選為或，跨面向為且，選項筆數不受自己面向影響")
+    void testFilters() {
+        FacetedSearchResultDTO result = facetIndex.apply(all, Map.of(
+                AccommodationFacetIndex.AMENITY, List.of("WiFi"),
+                AccommodationFacetIndex.CITY, List.of("花蓮縣", "臺北市")));
+
+        assertThat(ids(result)).containsExactly(1L, 2L, 3L);
+        // 設施筆數只套用城市篩選：四間都在所選城市內
+        assertThat(counts(result, AccommodationFacetIndex.AMENITY)).containsEntry("停車場", 3);
+        // 城市筆數只套用設施篩選
+        assertThat(counts(result, AccommodationFacetIndex.CITY))
+                .containsEntry("台北市", 2)
+                .containsEntry("花蓮縣", 1);
+        assertThat(result.getFacets().get(AccommodationFacetIndex.AMENITY))
+                .filteredOn(FacetCount::isSelected)
+                .extracting(FacetCount::getValue)
+                .containsExactly("wifi");
+
+        FacetedSearchResultDTO narrowed = facetIndex.apply(all, Map.of(
+                AccommodationFacetIndex.AMENITY, List.of("停車場"),
+                AccommodationFacetIndex.RATING, List.of("4+")));
+        assertThat(ids(narrowed)).containsExactly(2L);
+    }
+
+    @Test
+    @DisplayName("篩選 - 只對傳入的搜尋結果計算，並保留原本順序")
+    void testApply_KeepsResultOrder() {
+        List<Accommodation> results = List.of(all.get(3), all.get(1), all.get(2));
+
+        FacetedSearchResultDTO result = facetIndex.apply(results,
+                Map.of(AccommodationFacetIndex.AMENITY, List.of("停車場")));
+
+        assertThat(ids(result)).containsExactly(4L, 2L, 3L);
+        assertThat(counts(result, AccommodationFacetIndex.AMENITY)).doesNotContainKey("早餐");
+    }
+
+    @Test
+    @DisplayName("增量更新 - 住宿修改後移到新選項，刪除後不再計入")
+    void testIncrementalUpdate() {
+        Accommodation moved = accommodation(4L, "台東縣池上鄉", "WiFi", 2500, "4.8");
+        when(accommodationRepository.findFacetFieldsById(4L)).thenReturn(Collections.singletonList(row(moved)));
+
+        facetIndex.onAccommodationChanged(new AccommodationChangedEvent(4L));
+
+        FacetedSearchResultDTO result = facetIndex.apply(all, Map.of());
+        assertThat(counts(result, AccommodationFacetIndex.CITY)).containsEntry("花蓮縣", 1).containsEntry("台東縣", 1);
+        assertThat(counts(result, AccommodationFacetIndex.PRICE)).doesNotContainKey("0-1000");
+
+        when(accommodationRepository.findFacetFieldsById(3L)).thenReturn(List.of());
+        facetIndex.onAccommodationChanged(new AccommodationChangedEvent(3L));
+
+        assertThat(facetIndex.getStats()).containsEntry("accommodations", 3);
+        result = facetIndex.apply(all.subList(0, 2), Map.of());
+        assertThat(counts(result, AccommodationFacetIndex.AMENITY)).doesNotContainKey("游泳池");
+    }
+
+    @Test
+    @DisplayName("索引尚未建立 - 就傳入的結果臨時計算")
+    void testApply_NotLoaded() {
+        AccommodationFacetIndex fresh = new AccommodationFacetIndex();
+
+        FacetedSearchResultDTO result = fresh.apply(all, Map.of(AccommodationFacetIndex.PRICE, List.of("5000+")));
+
+        assertThat(ids(result)).containsExactly(3L);
+    }
+
+    private static Map<String, Integer> counts(FacetedSearchResultDTO result, String facet) {
+        Map<String, Integer> counts = new LinkedHashMap<>();
+        result.getFacets().get(facet).forEach(f -> counts.put(f.getValue(), f.getCount()));
+        return counts;
+    }
+
+    private static List<Long> ids(FacetedSearchResultDTO result) {
+        return result.getResults().stream().map(AccommodationDTO::getId).collect(Collectors.toList());
+    }
+
+    private static Accommodation accommodation(Long id, String location, String amenities, int price, String rating) {
+        Accommodation acc = new Accommodation(id, "住宿" + id, location, null, BigDecimal.valueOf(price));
+        acc.setAmenities(amenities);
+        acc.setRating(rating != null ? new BigDecimal(rating) : null);
+        return acc;
+    }
+
+    private static Object[] row(Accommodation acc) {
+        return new Object[]{acc.getId(), acc.getLocation(), acc.getAmenities(), acc.getPricePerNight(), acc.getRating()};
+    }
+}
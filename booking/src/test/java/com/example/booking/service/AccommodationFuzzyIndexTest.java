@@ -0,0 +1,198 @@
+package com.example.booking.service;
+
+import com.example.booking.event.AccommodationChangedEvent;
+import com.example.booking.model.Accommodation;
+import com.example.booking.repository.AccommodationRepository;
+import com.example.booking.service.AccommodationFuzzyIndex.Match;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * AccommodationFuzzyIndex 單元測試
+ * 測試錯字、字元對調、多個查詢詞、錯字數排序、增量更新，以及與 sortBy 合併排序
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("模糊搜尋索引單元測試")
+class AccommodationFuzzyIndexTest {
+
+    @Mock
+    private AccommodationRepository accommodationRepository;
+
+    @InjectMocks
+    private AccommodationFuzzyIndex fuzzyIndex;
+
+    @BeforeEach
+    void setUp() {
+        fuzzyIndex.load(List.of(
+                row(1L, "台北商旅", "台北"),
+                row(2L, "高雄港景飯店", "高雄"),
+                row(3L, "Taipei City Hotel", "台北"),
+                row(4L, "Harbor Inn", "高雄"),
+                row(5L, "港景民宿", "高雄港"),
+                row(6L, "台中精品旅館", "台中")));
+    }
+
+    @Test
+    @DisplayName("中文錯字 - 「高雄港京」找到高雄港景飯店，也找到地點「高雄港」")
+    void testChineseTypo() {
+        List<Match> matches = fuzzyIndex.search("高雄港京");
+
+        assertThat(ids(matches)).containsExactly(2L, 5L);
+        assertThat(matches.get(0).getEdits()).isEqualTo(1);
+        assertThat(matches.get(0).isInName()).isTrue();
+        assertThat(matches.get(1).isInName()).isFalse();
+        assertThat(ids(fuzzyIndex.search("精品旅舘"))).containsExactly(6L);
+    }
+
+    @Test
+    @DisplayName("英文錯字 - 相鄰字元對調算一個錯字，不分大小寫")
+    void testLatinTransposition() {
+        assertThat(ids(fuzzyIndex.search("taipie"))).containsExactly(3L);
+        assertThat(ids(fuzzyIndex.search("TAIPEI"))).containsExactly(3L);
+        assertThat(fuzzyIndex.search("taipie").get(0).getEdits()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("多個查詢詞 - 每個詞都須近似出現")
+    void testMultipleTokens() {
+        assertThat(ids(fuzzyIndex.search("harbr inn"))).containsExactly(4L);
+        assertThat(ids(fuzzyIndex.search("harbr hotel"))).isEmpty();
+    }
+
+    @Test
+    @DisplayName("排序 - 完全相同優先，同錯字數時名稱符合優先於地點符合")
+    void testOrdering() {
+        List<Match> matches = fuzzyIndex.search("港景");
+
+        // 兩個字的詞不容許錯字：名稱含「港景」的兩間，地點「高雄港」不符合
+        assertThat(ids(matches)).containsExactly(2L, 5L);
+        assertThat(ids(fuzzyIndex.search("高雄"))).containsExactly(2L, 4L, 5L);
+        assertThat(fuzzyIndex.search("高雄").get(0).isInName()).isTrue();
+        assertThat(fuzzyIndex.search("高雄").get(1).isInName()).isFalse();
+    }
+
+    @Test
+    @DisplayName("找不到 - 差太多或空白查詢回傳空列表")
+    void testNoMatch() {
+        assertThat(fuzzyIndex.search("xyzxyz")).isEmpty();
+        assertThat(fuzzyIndex.search("台南古蹟")).isEmpty();
+        assertThat(fuzzyIndex.search("  ")).isEmpty();
+    }
+
+    @Test
+    @DisplayName("編輯距離 - 近似子字串與提早結束")
+    void testSubstringDistance() {
+        assertThat(AccommodationFuzzyIndex.substringDistance("港京", "高雄港景飯店", 2)).isEqualTo(1);
+        assertThat(AccommodationFuzzyIndex.substringDistance("taipie", "taipei city", 2)).isEqualTo(1);
+        assertThat(AccommodationFuzzyIndex.substringDistance("hotel", "taipei city hotel", 2)).isZero();
+        assertThat(AccommodationFuzzyIndex.substringDistance("abcdef", "zzz", 1)).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("增量更新 - 改名與刪除後立即反映")
+    void testIncrementalUpdate() {
+        when(accommodationRepository.findSearchFieldsById(6L))
+                .thenReturn(Collections.singletonList(row(6L, "台中文創旅店", "台中")));
+        fuzzyIndex.onAccommodationChanged(new AccommodationChangedEvent(6L));
+
+        assertThat(ids(fuzzyIndex.search("精品旅館"))).isEmpty();
+        assertThat(ids(fuzzyIndex.search("文創旅館"))).containsExactly(6L);
+
+        when(accommodationRepository.findSearchFieldsById(2L)).thenReturn(List.of());
+        fuzzyIndex.onAccommodationChanged(new AccommodationChangedEvent(2L));
+
+        assertThat(ids(fuzzyIndex.search("高雄港京"))).containsExactly(5L);
+        assertThat(fuzzyIndex.getStats()).containsEntry("accommodations", 5).containsEntry("retiredDocs", 2);
+    }
+
+    @Test
+    @DisplayName("合併排序 - 錯字少的在前，同錯字數依 sortBy 排序")
+    void testFuzzySearch_CombinesWithSortBy() {
+        fuzzyIndex.load(List.of(
+                row(1L, "Sunset Inn", "台東"),
+                row(2L, "Sunsat Lodge", "台東"),
+                row(3L, "Sunset Hostel", "台東"),
+                row(4L, "Sunsit Resort", "台東")));
+        List<Accommodation> all = List.of(
+                accommodation(1L, 3000), accommodation(2L, 900), accommodation(3L, 1500), accommodation(4L, 800));
+        when(accommodationRepository.findAllById(any())).thenReturn(all);
+
+        BookingService service = new BookingService();
+        ReflectionTestUtils.setField(service, "accommodationRepo", accommodationRepository);
+        ReflectionTestUtils.setField(service, "fuzzyIndex", fuzzyIndex);
+        ReflectionTestUtils.setField(service, "rankIndex", new AccommodationRankIndex());
+
+        List<Long> sorted = service.fuzzySearch("sunset", null, null, "price_asc").stream()
+                .map(Accommodation::getId)
+                .collect(Collectors.toList());
+
+        // 完全相同的兩間依價格，其後才是各錯一個字的兩間
+        assertThat(sorted).containsExactly(3L, 1L, 4L, 2L);
+    }
+
+    @Tag("benchmark")
+    @Test
+    @DisplayName("效能 - 十萬筆住宿的模糊查詢")
+    void benchmarkSearch() {
+        Random random = new Random(7);
+        String[] cities = {"台北", "新北", "台中", "台南", "高雄", "花蓮", "宜蘭", "墾丁"};
+        String[] cjk = {"商旅", "飯店", "民宿", "旅館", "港景飯店", "溫泉會館", "海景度假村", "文創旅店"};
+        String[] latin = {"Harbor", "Sunset", "Garden", "Taipei", "Mountain", "River", "Ocean", "Central"};
+        String[] kinds = {"Hotel", "Inn", "Hostel", "Resort", "Lodge", "Suites"};
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = 0; i < 100_000; i++) {
+            String city = cities[random.nextInt(cities.length)];
+            String name = i % 2 == 0
+                    ? city + cjk[random.nextInt(cjk.length)] + (i % 1_000)
+                    : latin[random.nextInt(latin.length)] + " " + kinds[random.nextInt(kinds.length)] + " " + (i % 1_000);
+            rows.add(row((long) i + 1, name, city));
+        }
+        fuzzyIndex.load(rows);
+
+        String[] queries = {"高雄港京", "taipie", "sunst hotle", "溫泉會舘", "mountian lodge 42"};
+        for (String q : queries) {
+            fuzzyIndex.search(q);
+        }
+        for (String q : queries) {
+            int rounds = 20;
+            long start = System.nanoTime();
+            int found = 0;
+            for (int r = 0; r < rounds; r++) {
+                found = fuzzyIndex.search(q).size();
+            }
+            long perQueryNanos = (System.nanoTime() - start) / rounds;
+            assertThat(found).isPositive();
+            assertThat(TimeUnit.NANOSECONDS.toSeconds(perQueryNanos)).isLessThan(5);
+        }
+    }
+
+    private static Object[] row(Long id, String name, String location) {
+        return new Object[]{id, name, location, null, null, null};
+    }
+
+    private static Accommodation accommodation(Long id, int price) {
+        return new Accommodation(id, "住宿" + id, "台東", null, BigDecimal.valueOf(price));
+    }
+
+    private static List<Long> ids(List<Match> matches) {
+        return matches.stream().map(Match::getAccommodationId).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,218 @@
+package com.example.booking.service;
+
+import com.example.booking.event.AccommodationChangedEvent;
+import com.example.booking.repository.AccommodationRepository;
+import com.example.booking.service.AccommodationGeoIndex.BoundingBox;
+import com.example.booking.service.AccommodationGeoIndex.Hit;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * AccommodationGeoIndex 單元測試
+ * 查詢結果需與逐筆計算距離後排序相同，並測試半徑、地圖範圍、候選住宿與增量更新
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("住宿地理索引單元測試")
+class AccommodationGeoIndexTest {
+
+    // 台北 101
+    private static final double TAIPEI_101_LAT = 25.033964;
+    private static final double TAIPEI_101_LNG = 121.564468;
+
+    @Mock
+    private AccommodationRepository accommodationRepository;
+
+    @InjectMocks
+    private AccommodationGeoIndex geoIndex;
+
+    private List<Object[]> rows;
+
+    @BeforeEach
+    void setUp() {
+        rows = randomPoints(2_000, new Random(3));
+        geoIndex.load(rows);
+    }
+
+    @Test
+    @DisplayName("半徑搜尋 - 與逐筆計算距離的結果相同，由近到遠")
+    void testRadius_MatchesBruteForce() {
+        for (double radius : new double[]{0.5, 2, 10, 500}) {
+            List<Hit> hits = geoIndex.search(TAIPEI_101_LAT, TAIPEI_101_LNG, radius, null, null, 50);
+
+            assertThat(ids(hits)).as("radius=" + radius)
+                    .isEqualTo(bruteForce(TAIPEI_101_LAT, TAIPEI_101_LNG, radius, null, null, 50));
+            for (Hit hit : hits) {
+                assertThat(hit.getDistanceKm()).isLessThanOrEqualTo(radius);
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("最近鄰 - 不限半徑時任意中心點都與逐筆計算相同")
+    void testNearest_MatchesBruteForce() {
+        Random random = new Random(5);
+        for (int i = 0; i < 50; i++) {
+            double lat = 21.5 + random.nextDouble() * 4;
+            double lng = 119.5 + random.nextDouble() * 3;
+            int limit = 1 + random.nextInt(30);
+
+            assertThat(ids(geoIndex.search(lat, lng, null, null, null, limit)))
+                    .isEqualTo(bruteForce(lat, lng, null, null, null, limit));
+        }
+    }
+
+    @Test
+    @DisplayName("地圖範圍 - 只回傳範圍內的住宿，可與半徑、候選住宿同時使用")
+    void testBoundingBox_WithCandidates() {
+        BoundingBox box = new BoundingBox(24.9, 121.4, 25.1, 121.7);
+        Set<Long> candidates = rows.stream().map(row -> (Long) row[0])
+                .filter(id -> id % 2 == 0)
+                .collect(Collectors.toSet());
+
+        List<Hit> hits = geoIndex.search(box.centerLatitude(), box.centerLongitude(), 8.0, box, candidates, 20);
+
+        assertThat(hits).isNotEmpty();
+        assertThat(ids(hits)).isEqualTo(bruteForce(box.centerLatitude(), box.centerLongitude(), 8.0, box, candidates, 20));
+        for (Hit hit : hits) {
+            assertThat(hit.getAccommodationId() % 2).isZero();
+        }
+    }
+
+    @Test
+    @DisplayName("參數錯誤 - 座標、半徑或地圖範圍不合法")
+    void testInvalidArguments() {
+        assertThatThrownBy(() -> geoIndex.search(91, 0, null, null, null, 10))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> geoIndex.search(25, 121, 0.0, null, null, 10))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new BoundingBox(25.1, 121.4, 24.9, 121.7))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    @DisplayName("增量更新 - 住宿移動位置與刪除後立即反映")
+    void testIncrementalUpdate() {
+        Object[] moved = {7L, new BigDecimal("25.034000"), new BigDecimal("121.564500")};
+        when(accommodationRepository.findGeoFieldsById(7L)).thenReturn(Collections.singletonList(moved));
+        geoIndex.onAccommodationChanged(new AccommodationChangedEvent(7L));
+
+        List<Hit> nearest = geoIndex.search(TAIPEI_101_LAT, TAIPEI_101_LNG, null, null, null, 1);
+        assertThat(nearest.get(0).getAccommodationId()).isEqualTo(7L);
+        assertThat(nearest.get(0).getDistanceKm()).isLessThan(0.01);
+
+        when(accommodationRepository.findGeoFieldsById(7L)).thenReturn(List.of());
+        geoIndex.onAccommodationChanged(new AccommodationChangedEvent(7L));
+
+        assertThat(ids(geoIndex.search(TAIPEI_101_LAT, TAIPEI_101_LNG, 1.0, null, null, 10))).doesNotContain(7L);
+        assertThat(geoIndex.getStats()).containsEntry("accommodations", rows.size() - 1);
+    }
+
+    @Test
+    @DisplayName("索引未建立 - 由資料庫載入座標查詢")
+    void testNotReady_LoadsFromRepository() {
+        AccommodationGeoIndex fresh = new AccommodationGeoIndex();
+        ReflectionTestUtils.setField(fresh, "accommodationRepository", accommodationRepository);
+        when(accommodationRepository.findGeoFields()).thenReturn(rows);
+
+        assertThat(fresh.isReady()).isFalse();
+        assertThat(ids(fresh.search(TAIPEI_101_LAT, TAIPEI_101_LNG, 5.0, null, null, 10)))
+                .isEqualTo(bruteForce(TAIPEI_101_LAT, TAIPEI_101_LNG, 5.0, null, null, 10));
+    }
+
+    @Tag("benchmark")
+    @Test
+    @DisplayName("效能 - 十萬筆住宿：逐筆計算距離與格網索引")
+    void benchmarkSearch() {
+        rows = randomPoints(100_000, new Random(7));
+        geoIndex.load(rows);
+        Random random = new Random(9);
+        int queries = 1_000;
+        double[][] centers = new double[queries][];
+        for (int i = 0; i < queries; i++) {
+            centers[i] = new double[]{21.9 + random.nextDouble() * 3.3, 120.1 + random.nextDouble() * 1.9};
+        }
+
+        for (Double radius : new Double[]{1.0, 5.0, null}) {
+            // 暖機並確認結果一致
+            for (int i = 0; i < 20; i++) {
+                assertThat(ids(geoIndex.search(centers[i][0], centers[i][1], radius, null, null, 20)))
+                        .isEqualTo(bruteForce(centers[i][0], centers[i][1], radius, null, null, 20));
+            }
+            long start = System.nanoTime();
+            for (double[] center : centers) {
+                geoIndex.search(center[0], center[1], radius, null, null, 20);
+            }
+            long indexNanos = (System.nanoTime() - start) / queries;
+
+            assertThat(TimeUnit.NANOSECONDS.toSeconds(indexNanos)).isLessThan(5);
+        }
+    }
+
+    // 逐筆計算距離，同距離依 ID
+    private List<Long> bruteForce(double lat, double lng, Double radiusKm, BoundingBox box,
+                                  Set<Long> candidates, int limit) {
+        List<Hit> hits = new ArrayList<>();
+        for (Object[] row : rows) {
+            long id = (Long) row[0];
+            double pLat = ((BigDecimal) row[1]).doubleValue();
+            double pLng = ((BigDecimal) row[2]).doubleValue();
+            if (box != null && !box.contains(pLat, pLng)) {
+                continue;
+            }
+            if (candidates != null && !candidates.contains(id)) {
+                continue;
+            }
+            double d = AccommodationGeoIndex.distanceKm(lat, lng, pLat, pLng);
+            if (radiusKm == null || d <= radiusKm) {
+                hits.add(new Hit(id, d));
+            }
+        }
+        hits.sort(Comparator.comparingDouble(Hit::getDistanceKm).thenComparingLong(Hit::getAccommodationId));
+        return ids(hits.subList(0, Math.min(limit, hits.size())));
+    }
+
+    // 集中在台灣本島範圍，台北附近較密集
+    private static List<Object[]> randomPoints(int size, Random random) {
+        List<Object[]> list = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            double lat;
+            double lng;
+            if (i % 3 == 0) {
+                lat = TAIPEI_101_LAT + random.nextGaussian() * 0.05;
+                lng = TAIPEI_101_LNG + random.nextGaussian() * 0.05;
+            } else {
+                lat = 21.9 + random.nextDouble() * 3.3;
+                lng = 120.1 + random.nextDouble() * 1.9;
+            }
+            list.add(new Object[]{(long) i + 1,
+                    BigDecimal.valueOf(lat).setScale(6, RoundingMode.HALF_UP),
+                    BigDecimal.valueOf(lng).setScale(6, RoundingMode.HALF_UP)});
+        }
+        return list;
+    }
+
+    private static List<Long> ids(List<Hit> hits) {
+        return hits.stream().map(Hit::getAccommodationId).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,260 @@
+package com.example.booking.service;
+
+import com.example.booking.event.AccommodationChangedEvent;
+import com.example.booking.event.AccommodationCounterEvent;
+import com.example.booking.model.Accommodation;
+import com.example.booking.repository.AccommodationKeysetRepository.Sort;
+import com.example.booking.repository.AccommodationRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * AccommodationRankIndex 單元測試
+ * 排序結果需與原本的比較器排序一致（同值依 ID），並測試游標分頁與增量調整名次
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("住宿排序名次索引單元測試")
+class AccommodationRankIndexTest {
+
+    private static final String[] SORTS = {"price_asc", "price_desc", "rating", "distance", "name_asc", "name_desc"};
+
+    @Mock
+    private AccommodationRepository accommodationRepository;
+
+    @Spy
+    private AccommodationCounterService counterService = new AccommodationCounterService();
+
+    @InjectMocks
+    private AccommodationRankIndex rankIndex;
+
+    private List<Accommodation> all;
+
+    @BeforeEach
+    void setUp() {
+        all = randomCatalogue(60, new Random(11));
+        rankIndex.load(rows(all));
+    }
+
+    @Test
+    @DisplayName("排序 - 全部住宿與少量住宿都與比較器排序相同")
+    void testSort_MatchesComparator() {
+        BookingService comparatorSort = bookingService(new AccommodationRankIndex());
+        List<Accommodation> few = List.of(all.get(3), all.get(17), all.get(42), all.get(50));
+
+        for (String sortBy : SORTS) {
+            Sort sort = Sort.of(sortBy);
+            assertThat(ids(rankIndex.sort(all, sort))).as(sortBy)
+                    .isEqualTo(ids(comparatorSort.sortAccommodations(all, sortBy)));
+            assertThat(ids(rankIndex.sort(few, sort))).as(sortBy)
+                    .isEqualTo(ids(comparatorSort.sortAccommodations(few, sortBy)));
+        }
+    }
+
+    @Test
+    @DisplayName("熱門度 - 分數由高到低，同分依 ID")
+    void testSort_Popularity() {
+        List<Accommodation> sorted = rankIndex.sort(all, Sort.POPULARITY);
+
+        assertThat(sorted).hasSize(all.size());
+        for (int i = 1; i < sorted.size(); i++) {
+            BigDecimal previous = (BigDecimal) Sort.POPULARITY.keysOf(sorted.get(i - 1))[0];
+            BigDecimal current = (BigDecimal) Sort.POPULARITY.keysOf(sorted.get(i))[0];
+            int c = previous.compareTo(current);
+            assertThat(c >= 0).isTrue();
+            if (c == 0) {
+                assertThat(sorted.get(i - 1).getId()).isLessThan(sorted.get(i).getId());
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("尚未收錄的住宿 - 回傳 null 由呼叫端改用比較器")
+    void testSort_UnknownAccommodation() {
+        Accommodation unknown = accommodation(999L, "新住宿", 1000, "4.0", 1, 1, null);
+
+        assertThat(rankIndex.sort(List.of(all.get(0), unknown), Sort.PRICE_ASC)).isNull();
+        assertThat(new AccommodationRankIndex().sort(all, Sort.PRICE_ASC)).isNull();
+    }
+
+    @Test
+    @DisplayName("游標分頁 - 逐頁取得候選住宿，與整批排序相同")
+    void testPage_WalksCandidates() {
+        List<Accommodation> candidates = all.stream().filter(a -> a.getId() % 3 != 0).collect(Collectors.toList());
+        List<Long> candidateIds = ids(candidates);
+
+        for (String sortBy : SORTS) {
+            Sort sort = Sort.of(sortBy);
+            List<Long> walked = new ArrayList<>();
+            Object[] after = null;
+            while (true) {
+                List<Long> page = rankIndex.page(sort, after, candidateIds, 7);
+                walked.addAll(page);
+                if (page.size() < 7) {
+                    break;
+                }
+                Accommodation last = byId(page.get(page.size() - 1));
+                after = sort.keysOf(last);
+            }
+            assertThat(walked).as(sortBy).isEqualTo(ids(rankIndex.sort(candidates, sort)));
+        }
+    }
+
+    @Test
+    @DisplayName("增量更新 - 住宿修改、計數變動與刪除後名次隨之調整")
+    void testIncrementalUpdate() {
+        Accommodation cheapest = accommodation(5L, "住宿5", 1, null, 0, 0, null);
+        when(accommodationRepository.findRankFieldsById(5L)).thenReturn(Collections.singletonList(row(cheapest)));
+        rankIndex.onAccommodationChanged(new AccommodationChangedEvent(5L));
+
+        assertThat(rankIndex.sort(all, Sort.PRICE_ASC).get(0).getId()).isEqualTo(5L);
+
+        // 大量訂房使住宿 9 成為最熱門
+        rankIndex.onCounterEvent(new AccommodationCounterEvent(9L, AccommodationCounterEvent.Counter.BOOKINGS, 10_000));
+        assertThat(rankIndex.sort(all, Sort.POPULARITY).get(0).getId()).isEqualTo(9L);
+
+        when(accommodationRepository.findRankFieldsById(9L)).thenReturn(List.of());
+        rankIndex.onAccommodationChanged(new AccommodationChangedEvent(9L));
+
+        assertThat(rankIndex.getStats()).containsEntry("accommodations", all.size() - 1);
+        List<Accommodation> remaining = all.stream().filter(a -> a.getId() != 9L).collect(Collectors.toList());
+        assertThat(rankIndex.sort(remaining, Sort.POPULARITY)).hasSize(remaining.size());
+        assertThat(rankIndex.sort(all, Sort.POPULARITY)).isNull();
+
+        // 新住宿使用空出的位置
+        Accommodation added = accommodation(100L, "新住宿", 500, "5.0", 1, 0, null);
+        when(accommodationRepository.findRankFieldsById(100L)).thenReturn(Collections.singletonList(row(added)));
+        rankIndex.onAccommodationChanged(new AccommodationChangedEvent(100L));
+        remaining.add(added);
+        assertThat(ids(rankIndex.sort(remaining, Sort.PRICE_ASC)).subList(0, 2)).containsExactly(5L, 100L);
+    }
+
+    @Test
+    @DisplayName("住宿修改 - 尚未寫回的計數不應被資料庫的舊值覆蓋")
+    void testAccommodationChanged_KeepsPendingCounts() {
+        // 住宿 9 大量訂房，計數尚未寫回資料庫
+        AccommodationCounterEvent booked = new AccommodationCounterEvent(9L, AccommodationCounterEvent.Counter.BOOKINGS, 10_000);
+        counterService.onCounterEvent(booked);
+        rankIndex.onCounterEvent(booked);
+
+        // 只修改名稱，資料庫的訂房次數仍是舊值
+        Accommodation nine = all.stream().filter(a -> a.getId() == 9L).findFirst().orElseThrow();
+        Accommodation renamed = accommodation(9L, "改名住宿", nine.getPricePerNight().intValue(),
+                nine.getRating() != null ? nine.getRating().toPlainString() : null,
+                nine.getReviewCount(), nine.getBookingCount(), null);
+        when(accommodationRepository.findRankFieldsById(9L)).thenReturn(Collections.singletonList(row(renamed)));
+        rankIndex.onAccommodationChanged(new AccommodationChangedEvent(9L));
+        assertThat(rankIndex.sort(all, Sort.POPULARITY).get(0).getId()).isEqualTo(9L);
+
+        // 新收錄的住宿：資料庫的值加上尚未寫回的增量
+        counterService.onCounterEvent(new AccommodationCounterEvent(100L, AccommodationCounterEvent.Counter.BOOKINGS, 20_000));
+        Accommodation added = accommodation(100L, "新住宿", 500, null, 0, 0, null);
+        when(accommodationRepository.findRankFieldsById(100L)).thenReturn(Collections.singletonList(row(added)));
+        rankIndex.onAccommodationChanged(new AccommodationChangedEvent(100L));
+        List<Accommodation> withAdded = new ArrayList<>(all);
+        withAdded.add(added);
+        assertThat(rankIndex.sort(withAdded, Sort.POPULARITY).get(0).getId()).isEqualTo(100L);
+    }
+
+    @Tag("benchmark")
+    @Test
+    @DisplayName("效能 - 十萬筆住宿：比較器排序與名次索引")
+    void benchmarkSort() {
+        int listings = 100_000;
+        List<Accommodation> catalogue = randomCatalogue(listings, new Random(7));
+        rankIndex.load(rows(catalogue));
+        List<Accommodation> subset = catalogue.stream().filter(a -> a.getId() % 20 == 0).collect(Collectors.toList());
+
+        BookingService comparatorSort = bookingService(new AccommodationRankIndex());
+        BookingService indexedSort = bookingService(rankIndex);
+        assertThat(ids(indexedSort.sortAccommodations(catalogue, "price_asc")))
+                .isEqualTo(ids(comparatorSort.sortAccommodations(catalogue, "price_asc")));
+
+        String[] sorts = {"price_asc", "rating", "popularity", "distance", "name_asc"};
+        for (List<Accommodation> input : List.of(catalogue, subset)) {
+            for (String sortBy : sorts) {
+                long indexNanos = time(indexedSort, input, sortBy);
+                assertThat(TimeUnit.NANOSECONDS.toSeconds(indexNanos)).isLessThan(5);
+            }
+        }
+    }
+
+    // 先暖機再取多輪平均
+    private static long time(BookingService service, List<Accommodation> input, String sortBy) {
+        int warmup = 3;
+        int rounds = 10;
+        for (int i = 0; i < warmup; i++) {
+            service.sortAccommodations(input, sortBy);
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < rounds; i++) {
+            service.sortAccommodations(input, sortBy);
+        }
+        return (System.nanoTime() - start) / rounds;
+    }
+
+    private static BookingService bookingService(AccommodationRankIndex index) {
+        BookingService service = new BookingService();
+        ReflectionTestUtils.setField(service, "rankIndex", index);
+        return service;
+    }
+
+    private Accommodation byId(Long id) {
+        return all.stream().filter(a -> a.getId().equals(id)).findFirst().orElseThrow();
+    }
+
+    // 價格、評分、距離刻意取少量數值，製造大量同值
+    private static List<Accommodation> randomCatalogue(int size, Random random) {
+        String[] ratings = {null, "3.5", "4.0", "4.2", "4.5", "4.8", "5.0"};
+        String[] names = {"日安旅館", "Harbor Inn", "harbor inn", "山中小屋", "Alpine Lodge", "海景渡假村", "city hostel"};
+        List<Accommodation> list = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            String name = names[random.nextInt(names.length)] + (i % 50);
+            list.add(accommodation((long) i + 1, name, 800 + random.nextInt(20) * 100,
+                    ratings[random.nextInt(ratings.length)], random.nextInt(30), random.nextInt(50),
+                    random.nextInt(5) == 0 ? null : random.nextInt(40) / 4.0));
+        }
+        return list;
+    }
+
+    private static Accommodation accommodation(Long id, String name, int price, String rating,
+                                               int reviews, int bookings, Double distance) {
+        Accommodation acc = new Accommodation(id, name, "台北", null, BigDecimal.valueOf(price));
+        acc.setRating(rating != null ? new BigDecimal(rating) : null);
+        acc.setReviewCount(reviews);
+        acc.setBookingCount(bookings);
+        acc.setDistanceFromCenter(distance != null ? BigDecimal.valueOf(distance) : null);
+        return acc;
+    }
+
+    private static List<Object[]> rows(List<Accommodation> accommodations) {
+        return accommodations.stream().map(AccommodationRankIndexTest::row).collect(Collectors.toList());
+    }
+
+    private static Object[] row(Accommodation acc) {
+        return new Object[]{acc.getId(), acc.getName(), acc.getPricePerNight(), acc.getRating(),
+                acc.getReviewCount(), acc.getBookingCount(), acc.getDistanceFromCenter()};
+    }
+
+    private static List<Long> ids(List<Accommodation> accommodations) {
+        return accommodations.stream().map(Accommodation::getId).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,162 @@
+package com.example.booking.service;
+
+import com.example.booking.event.AccommodationChangedEvent;
+import com.example.booking.repository.AccommodationRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * AccommodationSearchIndex 單元測試
+ * 測試斷詞、跨欄位查詢、關聯度排序與增量更新
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("住宿關鍵字索引單元測試")
+class AccommodationSearchIndexTest {
+
+    @Mock
+    private AccommodationRepository accommodationRepository;
+
+    @InjectMocks
+    private AccommodationSearchIndex searchIndex;
+
+    @BeforeEach
+    void setUp() {
+        List<Object[]> rows = new ArrayList<>();
+        rows.add(row(1L, "日安旅館", "台北市中山區", "台北市中山區南京東路二段 1 號", "行天宮, 林森公園", "WiFi, 早餐"));
+        rows.add(row(2L, "海景渡假村", "花蓮縣", "花蓮縣壽豐鄉鹽寮 10 號", "七星潭", "WiFi, 停車場, 游泳池"));
+        rows.add(row(3L, "Taipei Backpackers", "台北市大同區", null, "台北車站, 迪化街", "WiFi, Laundry"));
+        rows.add(row(4L, "山中小屋", "南投縣", "南投縣仁愛鄉", "清境農場", "停車場, 早餐"));
+        searchIndex.load(rows);
+    }
+
+    @Test
+    @DisplayName("斷詞 - 中文產生單字與兩字詞，英數以單字為詞並轉小寫")
+    void testTokenize() {
+        assertThat(AccommodationSearchIndex.tokenize("日安旅館"))
+                .containsExactly("日", "日安", "安", "安旅", "旅", "旅館", "館");
+        assertThat(AccommodationSearchIndex.tokenize("Free WiFi, 24小時"))
+                .containsExactly("free", "wifi", "24", "小", "小時", "時");
+        // 全形英數正規化為半形
+        assertThat(AccommodationSearchIndex.tokenize("ＷｉＦｉ")).containsExactly("wifi");
+        assertThat(AccommodationSearchIndex.tokenize(null)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("查詢 - 中文詞須所有兩字詞都出現")
+    void testSearch_ChineseBigrams() {
+        assertThat(searchIndex.search("中山區")).containsExactly(1L);
+        assertThat(searchIndex.search("台北")).containsExactlyInAnyOrder(1L, 3L);
+        // 「山中」與「中山」是不同的兩字詞
+        assertThat(searchIndex.search("山中")).containsExactly(4L);
+        assertThat(searchIndex.search("高雄")).isEmpty();
+    }
+
+    @Test
+    @DisplayName("查詢 - 涵蓋地址、附近景點與設施欄位")
+    void testSearch_OtherFields() {
+        assertThat(searchIndex.search("七星潭")).containsExactly(2L);
+        assertThat(searchIndex.search("游泳池")).containsExactly(2L);
+        assertThat(searchIndex.search("南京東路")).containsExactly(1L);
+        assertThat(searchIndex.search("停車場 早餐")).containsExactly(4L);
+    }
+
+    @Test
+    @DisplayName("查詢 - 英數詞以前綴比對且不分大小寫")
+    void testSearch_LatinPrefix() {
+        assertThat(searchIndex.search("taip")).containsExactly(3L);
+        assertThat(searchIndex.search("LAUNDRY")).containsExactly(3L);
+        assertThat(searchIndex.search("wifi")).containsExactlyInAnyOrder(1L, 2L, 3L);
+    }
+
+    @Test
+    @DisplayName("排序 - 名稱命中優先於設施命中")
+    void testSearch_RankByField() {
+        List<Object[]> rows = new ArrayList<>();
+        rows.add(row(10L, "城市旅店", "台中市", null, null, "溫泉"));
+        rows.add(row(11L, "溫泉會館", "台中市", null, null, null));
+        searchIndex.load(rows);
+
+        assertThat(searchIndex.search("溫泉")).containsExactly(11L, 10L);
+    }
+
+    @Test
+    @DisplayName("增量更新 - 修改後舊詞失效、新詞可查；刪除後查無")
+    void testIncrementalUpdate() {
+        Object[] updated = row(2L, "海景渡假村", "台東縣", null, "三仙台", "WiFi");
+        when(accommodationRepository.findSearchFieldsById(2L)).thenReturn(Collections.singletonList(updated));
+
+        searchIndex.onAccommodationChanged(new AccommodationChangedEvent(2L));
+
+        assertThat(searchIndex.search("花蓮")).isEmpty();
+        assertThat(searchIndex.search("三仙台")).containsExactly(2L);
+        assertThat(searchIndex.search("海景")).containsExactly(2L);
+
+        when(accommodationRepository.findSearchFieldsById(2L)).thenReturn(List.of());
+        searchIndex.onAccommodationChanged(new AccommodationChangedEvent(2L));
+
+        assertThat(searchIndex.search("海景")).isEmpty();
+        assertThat(searchIndex.getStats()).containsEntry("accommodations", 3);
+    }
+
+    @Tag("benchmark")
+    @Test
+    @DisplayName("效能 - 十萬筆住宿的關鍵字查詢")
+    void benchmarkLargeCatalogue() {
+        String[] cities = {"台北市", "新北市", "台中市", "台南市", "高雄市", "花蓮縣", "宜蘭縣", "南投縣", "屏東縣", "台東縣"};
+        String[] districts = {"中山區", "大安區", "信義區", "西屯區", "北區", "前鎮區", "礁溪鄉", "仁愛鄉", "恆春鎮", "池上鄉"};
+        String[] kinds = {"旅館", "民宿", "飯店", "會館", "青年旅舍", "渡假村"};
+        String[] amenities = {"WiFi", "早餐", "停車場", "游泳池", "溫泉", "健身房", "洗衣機", "寵物友善"};
+        String[] attractions = {"夜市", "老街", "海灘", "國家公園", "美術館", "車站", "步道", "溫泉區"};
+
+        int listings = 100_000;
+        Random random = new Random(7);
+        List<Object[]> rows = new ArrayList<>(listings);
+        for (int i = 0; i < listings; i++) {
+            String city = cities[random.nextInt(cities.length)];
+            String district = districts[random.nextInt(districts.length)];
+            rows.add(row((long) i + 1,
+                    "第" + i + "號" + kinds[random.nextInt(kinds.length)],
+                    city + district,
+                    city + district + "路" + random.nextInt(500) + "號",
+                    attractions[random.nextInt(attractions.length)] + ", " + attractions[random.nextInt(attractions.length)],
+                    amenities[random.nextInt(amenities.length)] + ", " + amenities[random.nextInt(amenities.length)]));
+        }
+        searchIndex.load(rows);
+
+        String[] queries = {"台北 溫泉", "花蓮 民宿", "中山區", "wifi 早餐", "高雄市前鎮區 夜市", "渡假村 游泳池", "宜蘭 礁溪 溫泉"};
+        for (String q : queries) {
+            assertThat(searchIndex.search(q)).isNotEmpty();
+        }
+
+        int rounds = 1_000;
+        long start = System.nanoTime();
+        long hits = 0;
+        for (int i = 0; i < rounds; i++) {
+            hits += searchIndex.search(queries[i % queries.length]).size();
+        }
+        long elapsed = System.nanoTime() - start;
+
+        assertThat(hits).isPositive();
+        assertThat(TimeUnit.NANOSECONDS.toSeconds(elapsed)).isLessThan(5);
+    }
+
+    private static Object[] row(Long id, String name, String location, String address,
+                                String nearbyAttractions, String amenities) {
+        return new Object[]{id, name, location, address, nearbyAttractions, amenities};
+    }
+}
@@ -0,0 +1,245 @@
+package com.example.booking.service;
+
+import com.example.booking.dto.AccommodationSearchFilter;
+import com.example.booking.dto.CursorPage;
+import com.example.booking.model.*;
+import com.example.booking.repository.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * 住宿搜尋條件測試
+ * 關鍵字、城市、價格、評分、設施、入住人數與日期都由資料庫篩選，結果需與逐筆判斷相同
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@Transactional
+@DisplayName("住宿搜尋條件測試")
+class AccommodationSearchSpecificationTest {
+
+    @Autowired
+    private BookingService bookingService;
+
+    @Autowired
+    private AccommodationRepository accommodationRepo;
+
+    @Autowired
+    private RoomTypeRepository roomTypeRepo;
+
+    @Autowired
+    private BookingRepository bookingRepo;
+
+    @Autowired
+    private UserRepository userRepo;
+
+    private final Set<Long> created = new HashSet<>();
+    private Accommodation taipeiHotel;
+    private Accommodation taipeiHostel;
+    private Accommodation harborHotel;
+    private Accommodation hualienInn;
+    private LocalDate checkIn;
+
+    @BeforeEach
+    void setUp() {
+        checkIn = LocalDate.now().plusDays(30);
+
+        User guest = new User();
+        guest.setUsername("spec-" + System.nanoTime());
+        guest.setPassword("password");
+        guest.setEmail(guest.getUsername() + "@example.com");
+        guest = userRepo.save(guest);
+
+        taipeiHotel = accommodation("條件測試商旅", "台北市信義區", "2200", "4.5", "WiFi, 早餐, 停車場");
+        taipeiHostel = accommodation("條件測試青旅", "臺北市中正區", "800", "3.9", "WiFi、自助洗衣");
+        harborHotel = accommodation("條件測試港景飯店", "高雄市", "1800", "4.8", "WiFi, 游泳池, 早餐");
+        hualienInn = accommodation("條件測試民宿", "花蓮縣", "1500", null, "早餐");
+
+        RoomType twin = roomType(taipeiHotel, 2, 2);
+        RoomType family = roomType(taipeiHotel, 1, 4);
+        RoomType dorm = roomType(taipeiHostel, 1, 2);
+        RoomType harbor = roomType(harborHotel, 3, null);
+        roomType(hualienInn, 0, 6);
+
+        // 家庭房與青旅唯一的房間在區間內售完；港景飯店只有已取消的訂單
+        booking(family, guest, checkIn, checkIn.plusDays(2), 1, "CONFIRMED");
+        booking(dorm, guest, checkIn.plusDays(1), checkIn.plusDays(3), 1, "CONFIRMED");
+        booking(harbor, guest, checkIn, checkIn.plusDays(2), 3, "CANCELLED");
+        booking(twin, guest, checkIn, checkIn.plusDays(1), 1, "CONFIRMED");
+        bookingRepo.flush();
+    }
+
+    @Test
+    @DisplayName("單一條件 - 關鍵字、城市、價格、評分與設施")
+    void testSingleFilters() {
+        AccommodationSearchFilter filter = new AccommodationSearchFilter();
+        filter.setKeyword("港景");
+        assertThat(search(filter)).containsExactly(harborHotel.getId());
+
+        // 台與臺視為相同
+        filter = new AccommodationSearchFilter();
+        filter.setCities(List.of("台北市"));
+        assertThat(search(filter)).containsExactly(taipeiHotel.getId(), taipeiHostel.getId());
+
+        filter = new AccommodationSearchFilter();
+        filter.setMinPrice(new BigDecimal("1000"));
+        filter.setMaxPrice(new BigDecimal("2000"));
+        assertThat(search(filter)).containsExactly(harborHotel.getId(), hualienInn.getId());
+
+        // 未評分的住宿不符合評分門檻
+        filter = new AccommodationSearchFilter();
+        filter.setMinRating(new BigDecimal("4.5"));
+        assertThat(search(filter)).containsExactly(taipeiHotel.getId(), harborHotel.getId());
+
+        filter = new AccommodationSearchFilter();
+        filter.setAmenities(List.of("wifi", "早餐"));
+        assertThat(search(filter)).containsExactly(taipeiHotel.getId(), harborHotel.getId());
+    }
+
+    @Test
+    @DisplayName("入住人數 - 至少一個有房間的房型可住此人數，未設定人數的房型視為雙人房")
+    void testGuests() {
+        AccommodationSearchFilter filter = new AccommodationSearchFilter();
+        filter.setGuests(2);
+        assertThat(search(filter)).containsExactly(taipeiHotel.getId(), taipeiHostel.getId(), harborHotel.getId());
+
+        // 花蓮民宿的六人房沒有房間
+        filter.setGuests(4);
+        assertThat(search(filter)).containsExactly(taipeiHotel.getId());
+
+        filter.setGuests(7);
+        assertThat(search(filter)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("日期與人數 - 可住此人數的房型須在每一晚都有空房，已取消的訂單不佔房")
+    void testGuestsWithDates() {
+        AccommodationSearchFilter filter = new AccommodationSearchFilter();
+        filter.setGuests(2);
+        filter.setCheckIn(checkIn);
+        filter.setCheckOut(checkIn.plusDays(2));
+        assertThat(search(filter)).containsExactly(taipeiHotel.getId(), harborHotel.getId());
+
+        // 四人房只有一間且已訂出
+        filter.setGuests(4);
+        assertThat(search(filter)).isEmpty();
+
+        filter.setGuests(2);
+        filter.setCheckIn(checkIn.plusDays(3));
+        filter.setCheckOut(checkIn.plusDays(5));
+        assertThat(search(filter)).containsExactly(taipeiHotel.getId(), taipeiHostel.getId(), harborHotel.getId());
+    }
+
+    @Test
+    @DisplayName("排序與分頁 - 逐頁取得與一次查詢的結果相同")
+    void testSortAndPages() {
+        AccommodationSearchFilter filter = new AccommodationSearchFilter();
+        filter.setAmenities(List.of("WiFi"));
+        filter.setGuests(2);
+
+        for (String sortBy : new String[]{"price_asc", "price_desc", "rating", "popularity", "name_asc", ""}) {
+            List<Long> expected = ids(bookingService.searchByFilter(filter, sortBy));
+
+            List<Long> walked = new ArrayList<>();
+            String cursor = null;
+            do {
+                CursorPage<Accommodation> page = bookingService.searchByFilterPage(filter, sortBy, cursor, 1);
+                walked.addAll(ids(page.getItems()));
+                cursor = page.getNextCursor();
+            } while (cursor != null);
+
+            assertThat(walked).as(sortBy).isEqualTo(expected);
+        }
+        assertThat(ids(bookingService.searchByFilter(filter, "price_asc")))
+                .containsExactly(taipeiHostel.getId(), harborHotel.getId(), taipeiHotel.getId());
+    }
+
+    @Test
+    @DisplayName("保留符合條件 - 維持原本順序，只由資料庫判斷城市、價格等條件")
+    void testRetainByFilter() {
+        List<Accommodation> ordered = List.of(hualienInn, harborHotel, taipeiHostel, taipeiHotel);
+        AccommodationSearchFilter filter = new AccommodationSearchFilter();
+        filter.setMaxPrice(new BigDecimal("2000"));
+        filter.setGuests(2);
+        // 關鍵字由呼叫端處理，不會再篩選一次
+        filter.setKeyword("不存在的關鍵字");
+
+        assertThat(ids(bookingService.retainByFilter(ordered, filter)))
+                .containsExactly(harborHotel.getId(), taipeiHostel.getId());
+    }
+
+    @Test
+    @DisplayName("參數錯誤 - 價格區間顛倒、人數不足一人或日期不合法")
+    void testInvalidFilters() {
+        AccommodationSearchFilter prices = new AccommodationSearchFilter();
+        prices.setMinPrice(new BigDecimal("3000"));
+        prices.setMaxPrice(new BigDecimal("1000"));
+        assertThatThrownBy(() -> bookingService.searchByFilter(prices, null))
+                .isInstanceOf(IllegalArgumentException.class);
+
+        AccommodationSearchFilter guests = new AccommodationSearchFilter();
+        guests.setGuests(0);
+        assertThatThrownBy(() -> bookingService.searchByFilter(guests, null))
+                .isInstanceOf(IllegalArgumentException.class);
+
+        AccommodationSearchFilter dates = new AccommodationSearchFilter();
+        dates.setCheckIn(checkIn);
+        dates.setCheckOut(checkIn);
+        assertThatThrownBy(() -> bookingService.searchByFilter(dates, null))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    // 只比對本測試建立的住宿（其他測試可能留下資料）
+    private List<Long> search(AccommodationSearchFilter filter) {
+        return ids(bookingService.searchByFilter(filter, null));
+    }
+
+    private List<Long> ids(List<Accommodation> accommodations) {
+        return accommodations.stream()
+                .map(Accommodation::getId)
+                .filter(created::contains)
+                .collect(Collectors.toList());
+    }
+
+    private Accommodation accommodation(String name, String location, String price, String rating, String amenities) {
+        Accommodation acc = new Accommodation();
+        acc.setName(name);
+        acc.setLocation(location);
+        acc.setPricePerNight(new BigDecimal(price));
+        acc.setRating(rating != null ? new BigDecimal(rating) : null);
+        acc.setAmenities(amenities);
+        acc = accommodationRepo.save(acc);
+        created.add(acc.getId());
+        return acc;
+    }
+
+    private RoomType roomType(Accommodation acc, int totalRooms, Integer maxGuests) {
+        RoomType roomType = new RoomType();
+        roomType.setName("房型");
+        roomType.setPricePerNight(acc.getPricePerNight());
+        roomType.setTotalRooms(totalRooms);
+        roomType.setMaxGuests(maxGuests);
+        roomType.setAccommodation(acc);
+        return roomTypeRepo.save(roomType);
+    }
+
+    private void booking(RoomType roomType, User user, LocalDate from, LocalDate to, int quantity, String status) {
+        Booking booking = new Booking(null, from, to, roomType, user, quantity, BigDecimal.ZERO);
+        booking.setStatus(status);
+        bookingRepo.save(booking);
+    }
+}
@@ -0,0 +1,174 @@
+package com.example.booking.service;
+
+import com.example.booking.dto.SuggestionDTO;
+import com.example.booking.event.AccommodationChangedEvent;
+import com.example.booking.event.AccommodationCounterEvent;
+import com.example.booking.repository.AccommodationRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * AccommodationSuggestIndex 單元測試
+ * 測試中英文前綴比對、後綴比對、熱門度排序與增量更新
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("自動完成索引單元測試")
+class AccommodationSuggestIndexTest {
+
+    @Mock
+    private AccommodationRepository accommodationRepository;
+
+    @Spy
+    private AccommodationCounterService counterService = new AccommodationCounterService();
+
+    @InjectMocks
+    private AccommodationSuggestIndex suggestIndex;
+
+    @BeforeEach
+    void setUp() {
+        suggestIndex.load(List.of(
+                row(1L, "台北商旅", "台北", "台北101, 信義商圈, 國父紀念館", 256, "4.5", 128),
+                row(2L, "台北經濟旅館", "台北", "台北車站, 西門町", 89, "3.8", 45),
+                row(3L, "台中精品旅館", "台中", "逢甲夜市, 台中歌劇院", 142, "4.2", 76),
+                row(4L, "Harbor Inn Kaohsiung", "高雄", "駁二藝術特區, 西子灣", 180, "4.8", 95),
+                row(5L, "Ｈａｒｂｏｒ View", "高雄", "愛河", 10, "4.0", 3)));
+    }
+
+    @Test
+    @DisplayName("中文前綴 - 依熱門度排列名稱、地點與景點")
+    void testChinesePrefix() {
+        List<SuggestionDTO> result = suggestIndex.suggest("台北", 10);
+
+        // 同熱門度依文字排列
+        assertThat(texts(result)).containsExactly("台北", "台北101", "台北商旅", "台北經濟旅館", "台北車站");
+        assertThat(result.get(0).getType()).isEqualTo(AccommodationSuggestIndex.LOCATION);
+        assertThat(result.get(0).getAccommodationCount()).isEqualTo(2);
+        assertThat(result.get(0).getAccommodationId()).isNull();
+        assertThat(result.get(1).getType()).isEqualTo(AccommodationSuggestIndex.ATTRACTION);
+        assertThat(result.get(2).getAccommodationId()).isEqualTo(1L);
+    }
+
+    @Test
+    @DisplayName("英數前綴 - 不分大小寫與全半形，也可由後面的單字開始比對")
+    void testLatinPrefix() {
+        assertThat(texts(suggestIndex.suggest("HAR", 10))).containsExactly("Harbor Inn Kaohsiung", "Ｈａｒｂｏｒ View");
+        assertThat(texts(suggestIndex.suggest("kaoh", 10))).containsExactly("Harbor Inn Kaohsiung");
+        assertThat(texts(suggestIndex.suggest("101", 10))).containsExactly("台北101");
+        assertThat(texts(suggestIndex.suggest("西子", 10))).containsExactly("西子灣");
+    }
+
+    @Test
+    @DisplayName("筆數與空輸入 - 依 limit 截斷，空白或找不到時回傳空列表")
+    void testLimitAndEmpty() {
+        assertThat(suggestIndex.suggest("台", 2)).hasSize(2);
+        assertThat(suggestIndex.suggest("  ", 10)).isEmpty();
+        assertThat(suggestIndex.suggest(null, 10)).isEmpty();
+        assertThat(suggestIndex.suggest("不存在", 10)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("增量更新 - 改名、訂房數變動與刪除後建議隨之調整")
+    void testIncrementalUpdate() {
+        when(accommodationRepository.findSuggestFieldsById(2L)).thenReturn(Collections.singletonList(
+                row(2L, "台北青年旅館", "台北", "台北車站, 西門町", 89, "3.8", 45)));
+        suggestIndex.onAccommodationChanged(new AccommodationChangedEvent(2L));
+
+        assertThat(texts(suggestIndex.suggest("台北經", 10))).isEmpty();
+        assertThat(texts(suggestIndex.suggest("台北青", 10))).containsExactly("台北青年旅館");
+
+        // 大量訂房使台北青年旅館超越台北商旅
+        suggestIndex.onCounterEvent(new AccommodationCounterEvent(2L, AccommodationCounterEvent.Counter.BOOKINGS, 1_000));
+        List<String> ranked = texts(suggestIndex.suggest("台北", 10));
+        assertThat(ranked.indexOf("台北青年旅館")).isLessThan(ranked.indexOf("台北商旅"));
+
+        when(accommodationRepository.findSuggestFieldsById(1L)).thenReturn(List.of());
+        suggestIndex.onAccommodationChanged(new AccommodationChangedEvent(1L));
+
+        assertThat(texts(suggestIndex.suggest("台北", 10))).doesNotContain("台北商旅", "台北101");
+        assertThat(suggestIndex.suggest("台北", 1).get(0).getAccommodationCount()).isEqualTo(1);
+        assertThat(suggestIndex.getStats()).containsEntry("accommodations", 4);
+    }
+
+    @Test
+    @DisplayName("住宿修改 - 尚未寫回的計數不應被資料庫的舊值覆蓋")
+    void testAccommodationChanged_KeepsPendingCounts() {
+        AccommodationCounterEvent booked = new AccommodationCounterEvent(2L, AccommodationCounterEvent.Counter.BOOKINGS, 1_000);
+        counterService.onCounterEvent(booked);
+        suggestIndex.onCounterEvent(booked);
+
+        // 只修改附近景點，資料庫的訂房次數仍是舊值
+        when(accommodationRepository.findSuggestFieldsById(2L)).thenReturn(Collections.singletonList(
+                row(2L, "台北經濟旅館", "台北", "台北車站", 89, "3.8", 45)));
+        suggestIndex.onAccommodationChanged(new AccommodationChangedEvent(2L));
+        List<String> ranked = texts(suggestIndex.suggest("台北", 10));
+        assertThat(ranked.indexOf("台北經濟旅館")).isLessThan(ranked.indexOf("台北商旅"));
+
+        // 新收錄的住宿：資料庫的值加上尚未寫回的增量
+        counterService.onCounterEvent(new AccommodationCounterEvent(6L, AccommodationCounterEvent.Counter.BOOKINGS, 5_000));
+        when(accommodationRepository.findSuggestFieldsById(6L)).thenReturn(Collections.singletonList(
+                row(6L, "台北新開旅館", "台北", null, 0, "4.0", 0)));
+        suggestIndex.onAccommodationChanged(new AccommodationChangedEvent(6L));
+        assertThat(texts(suggestIndex.suggest("台北新", 1))).containsExactly("台北新開旅館");
+        ranked = texts(suggestIndex.suggest("台北", 10));
+        assertThat(ranked.indexOf("台北新開旅館")).isLessThan(ranked.indexOf("台北經濟旅館"));
+    }
+
+    @Tag("benchmark")
+    @Test
+    @DisplayName("效能 - 十萬筆住宿逐字輸入的查詢時間")
+    void benchmarkSuggest() {
+        Random random = new Random(7);
+        String[] cities = {"台北", "新北", "台中", "台南", "高雄", "花蓮", "宜蘭", "墾丁"};
+        String[] words = {"商旅", "飯店", "民宿", "旅館", "Hotel", "Inn", "Hostel", "度假村"};
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = 0; i < 100_000; i++) {
+            String city = cities[random.nextInt(cities.length)];
+            rows.add(row((long) i + 1, city + words[random.nextInt(words.length)] + (i % 5_000),
+                    city, city + "夜市, Sunset Beach " + (i % 300), random.nextInt(500), "4.0", random.nextInt(200)));
+        }
+        suggestIndex.load(rows);
+
+        String[] typed = {"台", "台北", "台北商", "台北商旅1", "h", "ho", "hos", "hoste", "sun", "sunset b", "花蓮民宿42"};
+        int rounds = 2_000;
+        for (String q : typed) {
+            suggestIndex.suggest(q, 10);
+        }
+        long start = System.nanoTime();
+        for (int r = 0; r < rounds; r++) {
+            for (String q : typed) {
+                suggestIndex.suggest(q, 10);
+            }
+        }
+        long perQueryNanos = (System.nanoTime() - start) / ((long) rounds * typed.length);
+
+        assertThat(suggestIndex.suggest("台北商", 10)).hasSize(10);
+        assertThat(TimeUnit.NANOSECONDS.toMillis(perQueryNanos)).isLessThan(10);
+    }
+
+    private static Object[] row(Long id, String name, String location, String attractions,
+                                int bookings, String rating, int reviews) {
+        return new Object[]{id, name, location, attractions, bookings, new BigDecimal(rating), reviews};
+    }
+
+    private static List<String> texts(List<SuggestionDTO> suggestions) {
+        return suggestions.stream().map(SuggestionDTO::getText).collect(Collectors.toList());
+    }
+}
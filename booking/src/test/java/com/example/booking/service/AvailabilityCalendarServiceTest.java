@@ -0,0 +1,198 @@
+package com.example.booking.service;
+
+import com.example.booking.dto.AvailabilityCalendarDTO;
+import com.example.booking.model.*;
+import com.example.booking.repository.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * AvailabilityCalendarService 測試
+ * 驗證每晚剩餘房數的差分掃描、遊程編碼與參數檢查
+ */
+@SpringBootTest
+@Transactional
+@ActiveProfiles("test")
+@DisplayName("住宿可用性日曆測試")
+class AvailabilityCalendarServiceTest {
+
+    @Autowired
+    private AvailabilityCalendarService calendarService;
+
+    @Autowired
+    private BookingRepository bookingRepo;
+
+    @Autowired
+    private BookingBatchRepository bookingBatchRepository;
+
+    @Autowired
+    private BookingHoldRepository holdRepo;
+
+    @Autowired
+    private RoomTypeRepository roomTypeRepo;
+
+    @Autowired
+    private AccommodationRepository accommodationRepo;
+
+    @Autowired
+    private UserRepository userRepo;
+
+    private User guest;
+    private Accommodation accommodation;
+    private RoomType standard;
+    private RoomType deluxe;
+    private LocalDate from;
+
+    @BeforeEach
+    void setUp() {
+        from = LocalDate.now().plusDays(10);
+
+        guest = new User();
+        guest.setUsername("calendar-guest");
+        guest.setPassword("password");
+        guest.setEmail("calendar-guest@example.com");
+        guest = userRepo.save(guest);
+
+        accommodation = new Accommodation();
+        accommodation.setName("日曆測試旅館");
+        accommodation.setLocation("台北");
+        accommodation = accommodationRepo.save(accommodation);
+
+        standard = newRoomType("標準房", 3);
+        deluxe = newRoomType("豪華房", 1);
+    }
+
+    @Test
+    @DisplayName("訂單與保留 - 應扣除對應夜晚，取消的訂單不計")
+    void testGetCalendar_CountsBookingsAndHolds() {
+        // 標準房：第 1~2 晚各 2 間、第 2 晚再保留 1 間
+        book(standard, from.plusDays(1), from.plusDays(3), 2, "CONFIRMED");
+        holdRepo.save(new BookingHold(standard.getId(), "guest", from.plusDays(2), from.plusDays(3), 1,
+                LocalDateTime.now().plusMinutes(10)));
+        // 豪華房：跨越查詢起點的訂單，以及已取消的訂單
+        book(deluxe, from.minusDays(2), from.plusDays(1), 1, "CONFIRMED");
+        book(deluxe, from.plusDays(3), from.plusDays(5), 1, "CANCELLED");
+
+        AvailabilityCalendarDTO calendar = calendarService
+                .getCalendar(accommodation.getId(), from, from.plusDays(5))
+                .orElseThrow();
+
+        assertThat(calendar.getNights()).isEqualTo(5);
+        assertThat(calendar.getEncoding()).isEqualTo("rle");
+        assertThat(runsOf(calendar, standard)).containsExactly(3, 1, 1, 1, 0, 1, 3, 2);
+        assertThat(runsOf(calendar, deluxe)).containsExactly(0, 1, 1, 4);
+    }
+
+    @Test
+    @DisplayName("大量訂單 - 結果應與逐晚累加一致")
+    void testGetCalendar_MatchesPerNightCount() {
+        int nights = 365;
+        int[] booked = new int[nights];
+        Random random = new Random(3);
+        standard.setTotalRooms(5000);
+        roomTypeRepo.save(standard);
+
+        List<Booking> bookings = new ArrayList<>();
+        for (int i = 0; i < 3000; i++) {
+            int start = random.nextInt(nights + 10) - 5;
+            int length = 1 + random.nextInt(7);
+            int quantity = 1 + random.nextInt(2);
+            Booking booking = new Booking(null, from.plusDays(start), from.plusDays(start + length), standard, guest,
+                    quantity, BigDecimal.valueOf(1000));
+            booking.setStatus("PENDING");
+            bookings.add(booking);
+            for (int d = Math.max(0, start); d < Math.min(nights, start + length); d++) {
+                booked[d] += quantity;
+            }
+        }
+        bookingRepo.flush();
+        bookingBatchRepository.insertAll(bookings);
+
+        long t0 = System.nanoTime();
+        AvailabilityCalendarDTO calendar = calendarService
+                .getCalendar(accommodation.getId(), from, from.plusDays(nights))
+                .orElseThrow();
+        System.out.printf("[可用性日曆] 訂單=%d 晚數=%d 耗時=%dus%n",
+                bookings.size(), nights, (System.nanoTime() - t0) / 1000);
+
+        int[] expected = new int[nights];
+        for (int d = 0; d < nights; d++) {
+            expected[d] = 5000 - booked[d];
+        }
+        assertThat(decode(runsOf(calendar, standard))).containsExactly(expected);
+    }
+
+    @Test
+    @DisplayName("沒有訂單 - 整段只需一組遊程")
+    void testGetCalendar_EmptyIsSingleRun() {
+        AvailabilityCalendarDTO calendar = calendarService
+                .getCalendar(accommodation.getId(), from, from.plusDays(365))
+                .orElseThrow();
+
+        assertThat(runsOf(calendar, standard)).containsExactly(3, 365);
+    }
+
+    @Test
+    @DisplayName("住宿不存在 - 應回傳空值")
+    void testGetCalendar_UnknownAccommodation() {
+        assertThat(calendarService.getCalendar(-1L, from, from.plusDays(1))).isEmpty();
+    }
+
+    @Test
+    @DisplayName("日期區間不合法或過長 - 應拋出例外")
+    void testGetCalendar_InvalidRange() {
+        assertThatThrownBy(() -> calendarService.getCalendar(accommodation.getId(), from, from))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> calendarService.getCalendar(accommodation.getId(), from,
+                from.plusDays(AvailabilityCalendarService.MAX_NIGHTS + 1)))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("最多");
+    }
+
+    private RoomType newRoomType(String name, int totalRooms) {
+        RoomType rt = new RoomType();
+        rt.setName(name);
+        rt.setPricePerNight(BigDecimal.valueOf(1000));
+        rt.setTotalRooms(totalRooms);
+        rt.setAccommodation(accommodation);
+        return roomTypeRepo.save(rt);
+    }
+
+    private void book(RoomType rt, LocalDate checkIn, LocalDate checkOut, int quantity, String status) {
+        Booking booking = new Booking(null, checkIn, checkOut, rt, guest, quantity, BigDecimal.valueOf(1000));
+        booking.setStatus(status);
+        bookingRepo.save(booking);
+    }
+
+    private static int[] runsOf(AvailabilityCalendarDTO calendar, RoomType rt) {
+        return calendar.getRoomTypes().stream()
+                .filter(c -> c.getRoomTypeId().equals(rt.getId()))
+                .findFirst()
+                .orElseThrow()
+                .getRemaining();
+    }
+
+    private static int[] decode(int[] runs) {
+        List<Integer> values = new ArrayList<>();
+        for (int i = 0; i < runs.length; i += 2) {
+            for (int n = 0; n < runs[i + 1]; n++) {
+                values.add(runs[i]);
+            }
+        }
+        return values.stream().mapToInt(Integer::intValue).toArray();
+    }
+}
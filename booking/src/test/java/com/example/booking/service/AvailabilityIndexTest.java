@@ -0,0 +1,185 @@
+package com.example.booking.service;
+
+import com.example.booking.event.BookingChangedEvent;
+import com.example.booking.event.CatalogChangedEvent;
+import com.example.booking.repository.BookingHoldRepository;
+import com.example.booking.repository.BookingRepository;
+import com.example.booking.repository.RoomTypeRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * AvailabilityIndex 單元測試
+ * 測試記憶體可用性索引的重建、區間查詢與增量更新
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("可用性索引單元測試")
+class AvailabilityIndexTest {
+
+    @Mock
+    private RoomTypeRepository roomTypeRepository;
+
+    @Mock
+    private BookingRepository bookingRepository;
+
+    @Mock
+    private BookingHoldRepository bookingHoldRepository;
+
+    @Spy
+    private BookingCommitTracker commitTracker = new BookingCommitTracker(mock(PlatformTransactionManager.class));
+
+    @InjectMocks
+    private AvailabilityIndex availabilityIndex;
+
+    private LocalDate today;
+
+    @BeforeEach
+    void setUp() {
+        today = LocalDate.now();
+
+        // 住宿 10：房型 1（2 間）；住宿 20：房型 2（1 間）
+        List<Object[]> roomTypes = new ArrayList<>();
+        roomTypes.add(new Object[]{1L, 10L, 2});
+        roomTypes.add(new Object[]{2L, 20L, 1});
+        when(roomTypeRepository.findInventorySnapshot()).thenReturn(roomTypes);
+
+        // 房型 2 在第 5~6 晚已被訂滿
+        List<Object[]> spans = new ArrayList<>();
+        spans.add(new Object[]{2L, today.plusDays(5), today.plusDays(7), 1});
+        when(bookingRepository.findActiveSpans(any(), any())).thenReturn(spans);
+
+        availabilityIndex.init();
+        availabilityIndex.rebuild();
+    }
+
+    @Test
+    @DisplayName("重建 - 應依既有訂單扣除剩餘房數")
+    void testRebuild_AppliesExistingBookings() {
+        assertThat(availabilityIndex.remainingRooms(2L, today.plusDays(5), today.plusDays(6))).isEqualTo(0);
+        assertThat(availabilityIndex.remainingRooms(2L, today.plusDays(7), today.plusDays(8))).isEqualTo(1);
+        assertThat(availabilityIndex.remainingRooms(1L, today, today.plusDays(30))).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("重建 - 暫時保留也應佔用剩餘房數")
+    void testRebuild_AppliesHolds() {
+        List<Object[]> holds = new ArrayList<>();
+        holds.add(new Object[]{1L, today.plusDays(2), today.plusDays(4), 1});
+        when(bookingHoldRepository.findActiveSpans(any(), any())).thenReturn(holds);
+
+        availabilityIndex.rebuild();
+
+        assertThat(availabilityIndex.remainingRooms(1L, today.plusDays(2), today.plusDays(4))).isEqualTo(1);
+        assertThat(availabilityIndex.remainingRooms(1L, today.plusDays(4), today.plusDays(5))).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("區間查詢 - 任一晚售完的住宿應被排除")
+    void testAvailableAccommodationIds_ExcludesSoldOut() {
+        assertThat(availabilityIndex.availableAccommodationIds(today.plusDays(4), today.plusDays(6)))
+                .containsExactly(10L);
+        assertThat(availabilityIndex.availableAccommodationIds(today, today.plusDays(5)))
+                .containsExactlyInAnyOrder(10L, 20L);
+    }
+
+    @Test
+    @DisplayName("增量更新 - 訂房與取消應即時反映")
+    void testOnBookingChanged_UpdatesRemaining() {
+        availabilityIndex.onBookingChanged(new BookingChangedEvent(1L, today.plusDays(1), today.plusDays(3), 2));
+        assertThat(availabilityIndex.availableAccommodationIds(today.plusDays(2), today.plusDays(3)))
+                .containsExactly(20L);
+
+        availabilityIndex.onBookingChanged(new BookingChangedEvent(1L, today.plusDays(1), today.plusDays(3), -1));
+        assertThat(availabilityIndex.remainingRooms(1L, today.plusDays(1), today.plusDays(3))).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("重建期間提交的訂單 - 快照已包含時不應再扣一次")
+    void testRebuild_CommitDuringRead() throws Exception {
+        BookingChangedEvent event = new BookingChangedEvent(1L, today.plusDays(1), today.plusDays(3), 1);
+        List<Object[]> spans = new ArrayList<>();
+        spans.add(new Object[]{1L, today.plusDays(1), today.plusDays(3), 1});
+        List<Object[]> info = new ArrayList<>();
+        info.add(new Object[]{1L, 10L, 2});
+        when(roomTypeRepository.findInventorySnapshotById(1L)).thenReturn(info);
+        when(bookingRepository.findActiveSpansForRoomType(eq(1L), any(), any())).thenReturn(spans);
+
+        // 讀取訂單時另一個交易正在提交，讀到的快照已包含它，事件在新快照生效後才送達
+        CountDownLatch committing = new CountDownLatch(1);
+        Thread writer = new Thread(() -> {
+            TransactionSynchronizationManager.initSynchronization();
+            try {
+                commitTracker.onBookingChanged(event);
+                TransactionSynchronization commit = TransactionSynchronizationManager.getSynchronizations().get(0);
+                commit.beforeCompletion();
+                committing.countDown();
+                Thread.sleep(200);
+                commit.afterCompletion(TransactionSynchronization.STATUS_COMMITTED);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                TransactionSynchronizationManager.clearSynchronization();
+            }
+        });
+        when(bookingRepository.findActiveSpans(any(), any())).thenAnswer(invocation -> {
+            writer.start();
+            committing.await();
+            return spans;
+        });
+
+        availabilityIndex.rebuild();
+        writer.join();
+
+        assertThat(availabilityIndex.remainingRooms(1L, today.plusDays(1), today.plusDays(3))).isEqualTo(1);
+        verify(roomTypeRepository, never()).findInventorySnapshotById(2L);
+    }
+
+    @Test
+    @DisplayName("房型異動 - 新房型應加入索引，刪除的房型應移除")
+    void testOnCatalogChanged_AddsAndRemovesRoomType() {
+        List<Object[]> newRoomType = new ArrayList<>();
+        newRoomType.add(new Object[]{3L, 30L, 4});
+        when(roomTypeRepository.findInventorySnapshotById(3L)).thenReturn(newRoomType);
+        when(bookingRepository.findActiveSpansForRoomType(eq(3L), any(), any())).thenReturn(List.of());
+
+        availabilityIndex.onCatalogChanged(new CatalogChangedEvent(3L));
+        assertThat(availabilityIndex.remainingRooms(3L, today, today.plusDays(1))).isEqualTo(4);
+
+        when(roomTypeRepository.findInventorySnapshotById(3L)).thenReturn(List.of());
+        availabilityIndex.onCatalogChanged(new CatalogChangedEvent(3L));
+        assertThat(availabilityIndex.remainingRooms(3L, today, today.plusDays(1))).isEqualTo(-1);
+    }
+
+    @Test
+    @DisplayName("範圍外查詢 - 應交回資料庫處理")
+    void testCovers_OutsideHorizon() {
+        assertThat(availabilityIndex.covers(today, today.plusDays(540))).isTrue();
+        assertThat(availabilityIndex.covers(today, today.plusDays(541))).isFalse();
+        assertThat(availabilityIndex.covers(today.minusDays(1), today.plusDays(1))).isFalse();
+    }
+
+    @Test
+    @DisplayName("記憶體用量 - 應隨房型數與天數線性成長")
+    void testMemoryBytes_Bounded() {
+        assertThat(availabilityIndex.memoryBytes()).isEqualTo(2L * (540 * 2 + 96));
+        assertThat(availabilityIndex.getStats()).containsEntry("roomTypes", 2);
+    }
+}
@@ -0,0 +1,110 @@
+package com.example.booking.service;
+
+import com.example.booking.event.BookingChangedEvent;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+/**
+ * BookingCommitTracker 單元測試
+ * 以手動建立的交易同步模擬提交前後，驗證載入會等到提交中的異動送達訂閱者之後才讀取
+ */
+@DisplayName("訂單異動提交追蹤單元測試")
+class BookingCommitTrackerTest {
+
+    private BookingCommitTracker tracker;
+    private final List<BookingChangedEvent> delivered = new ArrayList<>();
+    private BookingChangedEvent event;
+
+    @BeforeEach
+    void setUp() {
+        tracker = new BookingCommitTracker(mock(PlatformTransactionManager.class));
+        tracker.subscribe(delivered::add);
+        LocalDate checkIn = LocalDate.now().plusDays(10);
+        event = new BookingChangedEvent(7L, checkIn, checkIn.plusDays(2), 1);
+        TransactionSynchronizationManager.initSynchronization();
+    }
+
+    @AfterEach
+    void tearDown() {
+        TransactionSynchronizationManager.unbindResourceIfPossible(tracker);
+        TransactionSynchronizationManager.clearSynchronization();
+    }
+
+    @Test
+    @DisplayName("提交中的異動 - 同房型的載入應等到事件送達後才執行")
+    void testLoad_WaitsForCommittingChange() throws Exception {
+        tracker.onBookingChanged(event);
+        TransactionSynchronization sync = TransactionSynchronizationManager.getSynchronizations().get(0);
+        sync.beforeCompletion();
+
+        CompletableFuture<Integer> load = CompletableFuture.supplyAsync(() -> tracker.load(7L, delivered::size));
+        assertThatThrownBy(() -> load.get(200, TimeUnit.MILLISECONDS))
+                .isInstanceOf(java.util.concurrent.TimeoutException.class);
+
+        sync.afterCompletion(TransactionSynchronization.STATUS_COMMITTED);
+        // 載入時事件已送達：快照不含、之後的事件也不會再送一次
+        assertThat(load.get(5, TimeUnit.SECONDS)).isEqualTo(1);
+        assertThat(delivered).containsExactly(event);
+    }
+
+    @Test
+    @DisplayName("交易回滾 - 不通知訂閱者並釋放鎖")
+    void testRollback_NotDelivered() {
+        tracker.onBookingChanged(event);
+        TransactionSynchronization sync = TransactionSynchronizationManager.getSynchronizations().get(0);
+        sync.beforeCompletion();
+        sync.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK);
+
+        assertThat(delivered).isEmpty();
+        assertThat(CompletableFuture.supplyAsync(() -> tracker.load(7L, () -> "ok")).join()).isEqualTo("ok");
+    }
+
+    @Test
+    @DisplayName("同一交易的多筆異動 - 只登記一次，提交後依序送達並釋放所有分段")
+    void testMultipleChanges_OneSynchronization() {
+        LocalDate checkIn = LocalDate.now().plusDays(10);
+        BookingChangedEvent other = new BookingChangedEvent(70L, checkIn, checkIn.plusDays(1), 2);
+        BookingChangedEvent again = new BookingChangedEvent(7L, checkIn.plusDays(3), checkIn.plusDays(4), 1);
+        tracker.onBookingChanged(other);
+        tracker.onBookingChanged(event);
+        tracker.onBookingChanged(again);
+
+        assertThat(TransactionSynchronizationManager.getSynchronizations()).hasSize(1);
+        TransactionSynchronization sync = TransactionSynchronizationManager.getSynchronizations().get(0);
+        sync.beforeCompletion();
+        sync.afterCompletion(TransactionSynchronization.STATUS_COMMITTED);
+
+        assertThat(delivered).containsExactly(other, event, again);
+        assertThat(CompletableFuture.supplyAsync(() -> tracker.load(7L, () -> "ok")).join()).isEqualTo("ok");
+        assertThat(CompletableFuture.supplyAsync(() -> tracker.load(70L, () -> "ok")).join()).isEqualTo("ok");
+    }
+
+    @Test
+    @DisplayName("全量重建期間提交的房型 - 應列為需重新載入")
+    void testRecording_TouchedRoomTypes() {
+        tracker.startRecording();
+        tracker.onBookingChanged(event);
+        TransactionSynchronization sync = TransactionSynchronizationManager.getSynchronizations().get(0);
+        sync.beforeCompletion();
+        sync.afterCompletion(TransactionSynchronization.STATUS_COMMITTED);
+
+        assertThat(tracker.stopRecording()).containsExactly(7L);
+
+        tracker.startRecording();
+        assertThat(tracker.stopRecording()).isEmpty();
+    }
+}
@@ -0,0 +1,156 @@
+package com.example.booking.service;
+
+import com.example.booking.model.*;
+import com.example.booking.repository.*;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * 衝突查詢效能比較（區間樹 / JPQL 彙總 / JPQL 載入重疊訂單）
+ * 單一房型寫入 10 萬筆訂單後以相同的隨機區間查詢，驗證區間樹結果正確；標記為 benchmark，預設建置不執行
+ */
+@Tag("benchmark")
+@SpringBootTest
+@ActiveProfiles("test")
+@DisplayName("訂房衝突查詢效能測試")
+class BookingConflictBenchmarkTest {
+
+    private static final int BOOKINGS = 100_000;
+    private static final int SPAN_DAYS = 3 * 365;
+    private static final int QUERIES = 100;
+
+    @Autowired
+    private BookingConflictDetector conflictDetector;
+
+    @Autowired
+    private BookingBatchRepository bookingBatchRepository;
+
+    @Autowired
+    private BookingRepository bookingRepo;
+
+    @Autowired
+    private RoomTypeRepository roomTypeRepo;
+
+    @Autowired
+    private AccommodationRepository accommodationRepo;
+
+    @Autowired
+    private UserRepository userRepo;
+
+    @Autowired
+    private NamedParameterJdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private User guest;
+    private Accommodation accommodation;
+    private RoomType roomType;
+    private LocalDate base;
+
+    @BeforeEach
+    void setUp() {
+        base = LocalDate.now().plusDays(1);
+
+        guest = new User();
+        guest.setUsername("conflict-" + System.nanoTime());
+        guest.setPassword("password");
+        guest.setEmail(guest.getUsername() + "@example.com");
+        guest = userRepo.save(guest);
+
+        accommodation = new Accommodation();
+        accommodation.setName("衝突壓測旅館");
+        accommodation.setLocation("台北");
+        accommodation = accommodationRepo.save(accommodation);
+
+        roomType = new RoomType();
+        roomType.setName("衝突壓測房型");
+        roomType.setPricePerNight(BigDecimal.valueOf(1000));
+        roomType.setTotalRooms(BOOKINGS);
+        roomType.setAccommodation(accommodation);
+        roomType = roomTypeRepo.save(roomType);
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("DELETE FROM bookings WHERE room_type_id = :id", Map.of("id", roomType.getId()));
+        roomTypeRepo.deleteById(roomType.getId());
+        accommodationRepo.deleteById(accommodation.getId());
+        userRepo.deleteById(guest.getId());
+    }
+
+    @Test
+    @DisplayName("10 萬筆訂單 - 區間樹結果應與 JPQL 一致")
+    void compareWithJpql() {
+        Random random = new Random(7);
+        insertBookings(random);
+
+        for (int q = 0; q < QUERIES; q++) {
+            LocalDate checkIn = base.plusDays(random.nextInt(SPAN_DAYS - 14));
+            LocalDate checkOut = checkIn.plusDays(1 + random.nextInt(14));
+
+            int fromTree = conflictDetector.maxConcurrent(roomType.getId(), checkIn, checkOut);
+            long summed = bookingRepo.sumBookedQuantityBetween(roomType.getId(), checkIn, checkOut);
+            int fromScan = maxPerNight(bookingRepo.findConflictingBookings(roomType.getId(), checkIn, checkOut),
+                    checkIn, checkOut);
+
+            assertThat(fromTree).isEqualTo(fromScan);
+            // SUM 把不同晚的訂單也加在一起，只會高估
+            assertThat((long) fromTree).isLessThanOrEqualTo(summed);
+        }
+    }
+
+    private void insertBookings(Random random) {
+        List<Booking> chunk = new ArrayList<>();
+        for (int i = 0; i < BOOKINGS; i++) {
+            LocalDate checkIn = base.plusDays(random.nextInt(SPAN_DAYS));
+            LocalDate checkOut = checkIn.plusDays(1 + random.nextInt(7));
+            int quantity = 1 + random.nextInt(3);
+            Booking booking = new Booking(null, checkIn, checkOut, roomType, guest, quantity,
+                    BigDecimal.valueOf(1000L * quantity * ChronoUnit.DAYS.between(checkIn, checkOut)));
+            booking.setStatus("CONFIRMED");
+            chunk.add(booking);
+            if (chunk.size() == 5000 || i == BOOKINGS - 1) {
+                List<Booking> batch = chunk;
+                transactionTemplate.executeWithoutResult(s -> bookingBatchRepository.insertAll(batch));
+                chunk = new ArrayList<>();
+            }
+        }
+    }
+
+    // 與 InventoryService 回填帳本相同的逐晚累加
+    private static int maxPerNight(List<Booking> bookings, LocalDate from, LocalDate to) {
+        int nights = (int) ChronoUnit.DAYS.between(from, to);
+        int[] booked = new int[nights];
+        for (Booking b : bookings) {
+            int start = (int) Math.max(0, ChronoUnit.DAYS.between(from, b.getCheckIn()));
+            int end = (int) Math.min(nights, ChronoUnit.DAYS.between(from, b.getCheckOut()));
+            for (int i = start; i < end; i++) {
+                booked[i] += b.getBookedQuantity();
+            }
+        }
+        int max = 0;
+        for (int n : booked) {
+            max = Math.max(max, n);
+        }
+        return max;
+    }
+}
@@ -0,0 +1,89 @@
+package com.example.booking.service;
+
+import com.example.booking.model.*;
+import com.example.booking.repository.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * BookingConflictDetector 測試
+ * 驗證區間樹只載入尚未結束的住宿，並依重疊區間計算最大佔用量
+ */
+@SpringBootTest
+@Transactional
+@ActiveProfiles("test")
+@DisplayName("訂房衝突偵測測試")
+class BookingConflictDetectorTest {
+
+    @Autowired
+    private BookingConflictDetector conflictDetector;
+
+    @Autowired
+    private BookingRepository bookingRepo;
+
+    @Autowired
+    private RoomTypeRepository roomTypeRepo;
+
+    @Autowired
+    private AccommodationRepository accommodationRepo;
+
+    @Autowired
+    private UserRepository userRepo;
+
+    private User guest;
+    private RoomType roomType;
+    private LocalDate today;
+
+    @BeforeEach
+    void setUp() {
+        today = LocalDate.now();
+
+        guest = new User();
+        guest.setUsername("conflict-guest");
+        guest.setPassword("password");
+        guest.setEmail("conflict-guest@example.com");
+        guest = userRepo.save(guest);
+
+        Accommodation accommodation = new Accommodation();
+        accommodation.setName("衝突測試旅館");
+        accommodation.setLocation("台北");
+        accommodation = accommodationRepo.save(accommodation);
+
+        roomType = new RoomType();
+        roomType.setName("標準房");
+        roomType.setPricePerNight(BigDecimal.valueOf(1000));
+        roomType.setTotalRooms(5);
+        roomType.setAccommodation(accommodation);
+        roomType = roomTypeRepo.save(roomType);
+    }
+
+    @Test
+    @DisplayName("載入區間樹 - 已退房的住宿不載入，今天仍在住與未來的訂單計入")
+    void testLoad_SkipsPastStays() {
+        int before = (Integer) conflictDetector.getStats().get("intervals");
+        booking(today.minusDays(10), today.minusDays(7), 4);
+        booking(today.minusDays(3), today, 4);
+        booking(today.minusDays(1), today.plusDays(2), 2);
+        booking(today.plusDays(1), today.plusDays(3), 1);
+
+        assertThat(conflictDetector.maxConcurrent(roomType.getId(), today, today.plusDays(5))).isEqualTo(3);
+        assertThat(conflictDetector.overlapping(roomType.getId(), today.minusDays(10), today.plusDays(5))).hasSize(2);
+        assertThat((Integer) conflictDetector.getStats().get("intervals") - before).isEqualTo(2);
+    }
+
+    private void booking(LocalDate checkIn, LocalDate checkOut, int quantity) {
+        Booking booking = new Booking(null, checkIn, checkOut, roomType, guest, quantity, BigDecimal.ZERO);
+        booking.setStatus("CONFIRMED");
+        bookingRepo.saveAndFlush(booking);
+    }
+}
@@ -0,0 +1,228 @@
+package com.example.booking.service;
+
+import com.example.booking.model.*;
+import com.example.booking.repository.*;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * BookingHoldService 測試
+ * 驗證暫時保留的扣庫存、釋放、轉成訂單與逾時釋放
+ */
+@SpringBootTest
+@Transactional
+@ActiveProfiles("test")
+@DisplayName("訂房暫時保留測試")
+class BookingHoldServiceTest {
+
+    @Autowired
+    private BookingHoldService holdService;
+
+    @Autowired
+    private BookingService bookingService;
+
+    @Autowired
+    private BookingHoldRepository holdRepo;
+
+    @Autowired
+    private RoomTypeInventoryRepository inventoryRepo;
+
+    @Autowired
+    private BookingRepository bookingRepo;
+
+    @Autowired
+    private RoomTypeRepository roomTypeRepo;
+
+    @Autowired
+    private AccommodationRepository accommodationRepo;
+
+    @Autowired
+    private UserRepository userRepo;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    private User guest;
+    private RoomType roomType;
+    private LocalDate checkIn;
+    private LocalDate checkOut;
+
+    @BeforeEach
+    void setUp() {
+        holdRepo.deleteAll();
+        inventoryRepo.deleteAll();
+        bookingRepo.deleteAll();
+        roomTypeRepo.deleteAll();
+        accommodationRepo.deleteAll();
+        userRepo.deleteAll();
+
+        checkIn = LocalDate.now().plusDays(10);
+        checkOut = checkIn.plusDays(2);
+
+        guest = new User();
+        guest.setUsername("guest");
+        guest.setPassword("password");
+        guest.setEmail("guest@example.com");
+        guest = userRepo.save(guest);
+
+        Accommodation accommodation = new Accommodation();
+        accommodation.setName("保留測試旅館");
+        accommodation.setLocation("台北");
+        accommodation = accommodationRepo.save(accommodation);
+
+        roomType = new RoomType();
+        roomType.setName("標準房");
+        roomType.setPricePerNight(BigDecimal.valueOf(2000));
+        roomType.setTotalRooms(2);
+        roomType.setAccommodation(accommodation);
+        roomType = roomTypeRepo.save(roomType);
+
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken("guest", null,
+                        List.of(new SimpleGrantedAuthority("ROLE_USER"))));
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    @DisplayName("建立保留 - 應佔用庫存，其他人無法超訂")
+    void testCreateHold_BlocksInventory() {
+        holdService.createHold(roomType.getId(), checkIn, checkOut, 2, "guest", null);
+
+        assertThatThrownBy(() -> bookingService.bookByRoomType(roomType.getId(), checkIn, checkOut, 1))
+                .isInstanceOf(RuntimeException.class)
+                .hasMessageContaining("庫存不足");
+    }
+
+    @Test
+    @DisplayName("釋放保留 - 庫存應歸還")
+    void testRelease_FreesInventory() {
+        BookingHold hold = holdService.createHold(roomType.getId(), checkIn, checkOut, 2, "guest", null);
+
+        assertThat(holdService.release(hold.getId(), "someone-else")).isFalse();
+        assertThat(holdService.release(hold.getId(), "guest")).isTrue();
+        entityManager.flush();
+        entityManager.clear();
+
+        assertThat(holdRepo.count()).isZero();
+        assertThat(nightlyBooked()).containsOnly(0);
+    }
+
+    @Test
+    @DisplayName("替換保留 - 變更數量時應先釋放舊保留")
+    void testCreateHold_ReplacesPrevious() {
+        BookingHold first = holdService.createHold(roomType.getId(), checkIn, checkOut, 2, "guest", null);
+        BookingHold second = holdService.createHold(roomType.getId(), checkIn, checkOut, 1, "guest", first.getId());
+        entityManager.flush();
+        entityManager.clear();
+
+        assertThat(holdRepo.findById(first.getId())).isEmpty();
+        assertThat(holdRepo.findById(second.getId())).isPresent();
+        assertThat(nightlyBooked()).containsOnly(1);
+    }
+
+    @Test
+    @DisplayName("保留上限 - 同一使用者超過上限應拒絕，釋放或逾時後可再保留")
+    void testCreateHold_PerUserLimit() {
+        BookingHold first = null;
+        for (int i = 0; i < 5; i++) {
+            BookingHold hold = holdService.createHold(roomType.getId(), checkIn.plusDays(i * 2L), checkOut.plusDays(i * 2L), 1, "guest", null);
+            first = first == null ? hold : first;
+        }
+
+        assertThatThrownBy(() -> holdService.createHold(roomType.getId(), checkIn.plusDays(20), checkOut.plusDays(20), 1, "guest", null))
+                .isInstanceOf(RuntimeException.class)
+                .hasMessageContaining("上限");
+
+        // 逾時未釋放的保留不計入
+        first.setExpiresAt(LocalDateTime.now().minusMinutes(1));
+        holdRepo.saveAndFlush(first);
+        assertThatCode(() -> holdService.createHold(roomType.getId(), checkIn.plusDays(20), checkOut.plusDays(20), 1, "guest", null))
+                .doesNotThrowAnyException();
+        // 其他使用者不受影響
+        assertThatCode(() -> holdService.createHold(roomType.getId(), checkIn, checkOut, 1, "other", null))
+                .doesNotThrowAnyException();
+    }
+
+    @Test
+    @DisplayName("保留轉訂單 - 不應重複扣庫存")
+    void testBookWithHold_ConvertsWithoutDoubleReserve() {
+        BookingHold hold = holdService.createHold(roomType.getId(), checkIn, checkOut, 2, "guest", null);
+
+        Booking booking = bookingService.bookWithHold(hold.getId(), roomType.getId(), checkIn, checkOut, 2);
+        entityManager.flush();
+        entityManager.clear();
+
+        assertThat(booking.getId()).isNotNull();
+        assertThat(booking.getTotalPrice()).isEqualByComparingTo(BigDecimal.valueOf(2000 * 2 * 2));
+        assertThat(holdRepo.count()).isZero();
+        assertThat(nightlyBooked()).containsOnly(2);
+    }
+
+    @Test
+    @DisplayName("保留內容不符 - 應釋放保留並改走一般扣庫存")
+    void testBookWithHold_Mismatch_FallsBack() {
+        BookingHold hold = holdService.createHold(roomType.getId(), checkIn, checkOut, 2, "guest", null);
+
+        bookingService.bookWithHold(hold.getId(), roomType.getId(), checkIn, checkOut, 1);
+        entityManager.flush();
+        entityManager.clear();
+
+        assertThat(holdRepo.count()).isZero();
+        assertThat(nightlyBooked()).containsOnly(1);
+    }
+
+    @Test
+    @DisplayName("逾時保留 - 應釋放庫存，且不能再轉成訂單")
+    void testExpire_ReleasesInventory() {
+        BookingHold hold = holdService.createHold(roomType.getId(), checkIn, checkOut, 2, "guest", null);
+        hold.setExpiresAt(LocalDateTime.now().minusMinutes(1));
+        holdRepo.saveAndFlush(hold);
+
+        assertThat(holdService.expire(hold.getId())).isTrue();
+        entityManager.flush();
+        entityManager.clear();
+
+        assertThat(holdRepo.count()).isZero();
+        assertThat(nightlyBooked()).containsOnly(0);
+    }
+
+    @Test
+    @DisplayName("未到期保留 - expire 不應釋放")
+    void testExpire_NotYetDue_Keeps() {
+        BookingHold hold = holdService.createHold(roomType.getId(), checkIn, checkOut, 1, "guest", null);
+
+        assertThat(holdService.expire(hold.getId())).isFalse();
+        entityManager.flush();
+        entityManager.clear();
+
+        assertThat(holdRepo.findById(hold.getId())).isPresent();
+        assertThat(nightlyBooked()).containsOnly(1);
+    }
+
+    private List<Integer> nightlyBooked() {
+        return inventoryRepo.findRowsBetween(roomType.getId(), checkIn, checkOut).stream()
+                .map(RoomTypeInventory::getBookedRooms)
+                .toList();
+    }
+}
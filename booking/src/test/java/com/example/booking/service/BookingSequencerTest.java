@@ -0,0 +1,168 @@
+package com.example.booking.service;
+
+import com.example.booking.model.*;
+import com.example.booking.repository.*;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * 單一寫入者訂房排序器測試
+ * 不使用 @Transactional，指令由分片執行緒在自己的交易內提交
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@DisplayName("訂房排序器測試")
+class BookingSequencerTest {
+
+    @Autowired
+    private BookingService bookingService;
+
+    @Autowired
+    private BookingSequencer bookingSequencer;
+
+    @Autowired
+    private InventoryService inventoryService;
+
+    @Autowired
+    private RoomTypeInventoryRepository inventoryRepo;
+
+    @Autowired
+    private BookingRepository bookingRepo;
+
+    @Autowired
+    private RoomTypeRepository roomTypeRepo;
+
+    @Autowired
+    private AccommodationRepository accommodationRepo;
+
+    @Autowired
+    private UserRepository userRepo;
+
+    private final List<Long> roomTypeIds = new ArrayList<>();
+    private User guest;
+    private Accommodation accommodation;
+    private LocalDate checkIn;
+
+    @BeforeEach
+    void setUp() {
+        checkIn = LocalDate.now().plusDays(40);
+
+        guest = new User();
+        guest.setUsername("seq-" + System.nanoTime());
+        guest.setPassword("password");
+        guest.setEmail(guest.getUsername() + "@example.com");
+        guest = userRepo.save(guest);
+
+        accommodation = new Accommodation();
+        accommodation.setName("搶購測試旅館");
+        accommodation.setLocation("墾丁");
+        accommodation = accommodationRepo.save(accommodation);
+
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(guest.getUsername(), null,
+                        List.of(new SimpleGrantedAuthority("ROLE_USER"))));
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+        bookingRepo.deleteAll(bookingRepo.findByUserUsername(guest.getUsername()));
+        for (Long id : roomTypeIds) {
+            inventoryService.deleteForRoomType(id);
+            roomTypeRepo.deleteById(id);
+        }
+        accommodationRepo.deleteById(accommodation.getId());
+        userRepo.deleteById(guest.getId());
+    }
+
+    @Test
+    @DisplayName("搶購熱門房型 - 恰好賣完總房數，其餘回報庫存不足")
+    void testHotRoomType_SellsExactlyCapacity() throws Exception {
+        int totalRooms = 50;
+        int requests = 200;
+        RoomType rt = newRoomType(totalRooms);
+
+        List<CompletableFuture<Booking>> futures = new ArrayList<>();
+        for (int i = 0; i < requests; i++) {
+            futures.add(bookingService.bookByRoomTypeAsync(rt.getId(), checkIn, checkIn.plusDays(2), 1));
+        }
+
+        int success = 0;
+        int soldOut = 0;
+        for (CompletableFuture<Booking> f : futures) {
+            try {
+                assertThat(f.get(1, TimeUnit.MINUTES).getId()).isNotNull();
+                success++;
+            } catch (ExecutionException e) {
+                assertThat(e.getCause()).hasMessageContaining("庫存不足");
+                soldOut++;
+            }
+        }
+
+        System.out.printf("[排序器] 成功=%d 售完=%d 統計=%s%n", success, soldOut, bookingSequencer.getStats());
+        assertThat(success).isEqualTo(totalRooms);
+        assertThat(soldOut).isEqualTo(requests - totalRooms);
+        assertThat(bookingRepo.sumBookedQuantityBetween(rt.getId(), checkIn, checkIn.plusDays(2)))
+                .isEqualTo((long) totalRooms);
+        assertThat(inventoryRepo.findRowsBetween(rt.getId(), checkIn, checkIn.plusDays(2)))
+                .extracting(RoomTypeInventory::getBookedRooms)
+                .containsOnly(totalRooms);
+    }
+
+    @Test
+    @DisplayName("同步呼叫 SEQUENCED 策略 - 行為應與一般下單相同")
+    void testBookByRoomType_SequencedStrategy() {
+        RoomType rt = newRoomType(1);
+
+        Booking booking = bookingService.bookByRoomType(rt.getId(), checkIn, checkIn.plusDays(1), 1,
+                BookingStrategy.SEQUENCED);
+        assertThat(booking.getTotalPrice()).isEqualByComparingTo(BigDecimal.valueOf(1000));
+
+        assertThatThrownBy(() -> bookingService.bookByRoomType(rt.getId(), checkIn, checkIn.plusDays(1), 1,
+                BookingStrategy.SEQUENCED))
+                .isInstanceOf(RuntimeException.class)
+                .hasMessageContaining("庫存不足，該日期區間剩餘：0");
+    }
+
+    @Test
+    @DisplayName("不存在的房型 - 應以例外完成，不影響同批其他指令")
+    void testUnknownRoomType_Rejected() {
+        RoomType rt = newRoomType(2);
+
+        CompletableFuture<Booking> missing = bookingService.bookByRoomTypeAsync(-1L, checkIn, checkIn.plusDays(1), 1);
+        CompletableFuture<Booking> ok = bookingService.bookByRoomTypeAsync(rt.getId(), checkIn, checkIn.plusDays(1), 1);
+
+        assertThat(ok.join().getId()).isNotNull();
+        assertThatThrownBy(missing::join).hasCauseInstanceOf(RuntimeException.class)
+                .hasMessageContaining("找不到房型");
+    }
+
+    private RoomType newRoomType(int totalRooms) {
+        RoomType rt = new RoomType();
+        rt.setName("海景房");
+        rt.setPricePerNight(BigDecimal.valueOf(1000));
+        rt.setTotalRooms(totalRooms);
+        rt.setAccommodation(accommodation);
+        rt = roomTypeRepo.save(rt);
+        roomTypeIds.add(rt.getId());
+        return rt;
+    }
+}
@@ -40,6 +40,12 @@ public class BookingServiceTest {
     @Autowired
     private BookingRepository bookingRepo;
 
+    @Autowired
+    private RoomRateRepository roomRateRepo;
+
+    @Autowired
+    private InventoryService inventoryService;
+
     @Autowired
     private PasswordEncoder passwordEncoder;
 
@@ -397,6 +403,23 @@ public class BookingServiceTest {
                 .hasMessageContaining("已取消");
     }
 
+    @Test
+    @DisplayName("條件式取消 - 已取消的訂單不會再被改到，帳本不會重複釋放")
+    void testMarkCancelled_OnlyOnce() {
+        Booking booking = bookingService.bookByRoomType(testRoomType.getId(), checkInDate, checkOutDate, 1);
+        bookingService.cancelBookingByOwner(booking.getId(), owner.getUsername());
+
+        // 另一個交易讀到取消前的快照、通過狀態檢查後，條件式更新不會成功
+        assertThat(bookingRepo.markCancelled(booking.getId())).isZero();
+        assertThatThrownBy(() -> bookingService.cancelBookingByAdmin(booking.getId()))
+                .hasMessageContaining("已取消");
+
+        // 帳本只釋放一次：五間全部可訂，第六間庫存不足
+        bookingService.bookByRoomType(testRoomType.getId(), checkInDate, checkOutDate, 5);
+        assertThatThrownBy(() -> bookingService.bookByRoomType(testRoomType.getId(), checkInDate, checkOutDate, 1))
+                .hasMessageContaining("庫存不足");
+    }
+
     // ==================== Legacy API 測試 ====================
 
     @Test
@@ -414,4 +437,148 @@ public class BookingServiceTest {
         assertThat(result.getRoomType().getId()).isEqualTo(testRoomType.getId());
         assertThat(result.getBookedQuantity()).isEqualTo(1);
     }
-}
\ No newline at end of file
+
+    // ==================== 扣庫存策略測試 ====================
+
+    @Test
+    @DisplayName("樂觀鎖策略 - 應成功建立訂單並在滿房後拒絕")
+    void testBookByRoomType_Optimistic() {
+        Booking first = bookingService.bookByRoomType(
+                testRoomType.getId(), checkInDate, checkOutDate, 5, BookingStrategy.OPTIMISTIC);
+        assertThat(first.getStatus()).isEqualTo("PENDING");
+
+        assertThatThrownBy(() -> bookingService.bookByRoomType(
+                testRoomType.getId(), checkInDate, checkOutDate, 1, BookingStrategy.OPTIMISTIC))
+                .isInstanceOf(RuntimeException.class)
+                .hasMessageContaining("庫存不足");
+    }
+
+    @Test
+    @DisplayName("混用策略 - 帳本應在各策略間保持一致")
+    void testBookByRoomType_MixedStrategies_ShareLedger() {
+        bookingService.bookByRoomType(testRoomType.getId(), checkInDate, checkOutDate, 2, BookingStrategy.OPTIMISTIC);
+        bookingService.bookByRoomType(testRoomType.getId(), checkInDate, checkOutDate, 2, BookingStrategy.PESSIMISTIC);
+
+        assertThatThrownBy(() -> bookingService.bookByRoomType(
+                testRoomType.getId(), checkInDate, checkOutDate, 2, BookingStrategy.LEDGER))
+                .isInstanceOf(RuntimeException.class)
+                .hasMessageContaining("剩餘：1");
+    }
+
+    // ==================== 可用性查詢測試 ====================
+
+    @Test
+    @DisplayName("可用性查詢 - 仍有空房的住宿應出現在結果中")
+    void testGetAvailableAccommodations_PartiallyBooked_Included() {
+        bookingService.bookByRoomType(testRoomType.getId(), checkInDate, checkOutDate, 4);
+
+        List<Accommodation> result = bookingService.getAvailableAccommodations(checkInDate, checkOutDate);
+
+        assertThat(result).extracting(Accommodation::getId).containsExactly(testAccommodation.getId());
+    }
+
+    @Test
+    @DisplayName("可用性查詢 - 任一晚售完的住宿應被排除")
+    void testGetAvailableAccommodations_SoldOutNight_Excluded() {
+        // Given - 兩筆訂單只在第二晚同時佔用，合計剛好滿房
+        bookingService.bookByRoomType(testRoomType.getId(), checkInDate, checkInDate.plusDays(2), 3);
+        bookingService.bookByRoomType(testRoomType.getId(), checkInDate.plusDays(1), checkOutDate, 2);
+
+        // When & Then
+        assertThat(bookingService.getAvailableAccommodations(checkInDate, checkOutDate)).isEmpty();
+        // 第一晚仍有空房
+        assertThat(bookingService.getAvailableAccommodations(checkInDate, checkInDate.plusDays(1)))
+                .extracting(Accommodation::getId)
+                .containsExactly(testAccommodation.getId());
+    }
+
+    @Test
+    @DisplayName("可用性查詢 - 區間開始前入住的訂單也應計入")
+    void testGetAvailableAccommodations_BookingStartsBeforeRange_Counted() {
+        bookingService.bookByRoomType(testRoomType.getId(), checkInDate, checkOutDate, 5);
+
+        assertThat(bookingService.getAvailableAccommodations(checkInDate.plusDays(1), checkOutDate.plusDays(2)))
+                .isEmpty();
+    }
+
+    @Test
+    @DisplayName("可用性查詢 - 已取消的訂單不應佔用房間")
+    void testGetAvailableAccommodations_CancelledIgnored() {
+        Booking booking = bookingService.bookByRoomType(testRoomType.getId(), checkInDate, checkOutDate, 5);
+        bookingService.cancelBooking(booking.getId(), testUser.getUsername());
+
+        assertThat(bookingService.getAvailableAccommodations(checkInDate, checkOutDate)).hasSize(1);
+    }
+
+    @Test
+    @DisplayName("可用性查詢 - 保留中的房間也應計入")
+    void testGetAvailableAccommodations_HeldRoomsCounted() {
+        // 保留只扣帳本、不建立訂單
+        inventoryService.reserve(testRoomType, checkInDate.plusDays(1), checkOutDate, 5);
+
+        assertThat(bookingService.getAvailableAccommodations(checkInDate, checkOutDate)).isEmpty();
+        assertThat(bookingService.getAvailableAccommodations(checkInDate, checkInDate.plusDays(1))).hasSize(1);
+    }
+
+    @Test
+    @DisplayName("可用性查詢 - 帳本導入前的訂單應先回填帳本再判斷")
+    void testGetAvailableAccommodations_LegacyBookingBackfilled() {
+        // 直接寫入的訂單沒有帳本列
+        bookingRepo.save(new Booking(null, checkInDate.plusDays(1), checkOutDate, testRoomType, testUser, 5,
+                BigDecimal.valueOf(20000)));
+
+        assertThat(bookingService.getAvailableAccommodations(checkInDate, checkOutDate)).isEmpty();
+        assertThat(bookingService.getAvailableAccommodations(checkInDate, checkInDate.plusDays(1))).hasSize(1);
+    }
+
+    @Test
+    @DisplayName("可用性查詢 - 另一房型有空房時住宿仍可訂")
+    void testGetAvailableAccommodations_OtherRoomTypeFree_Included() {
+        RoomType suite = new RoomType();
+        suite.setName("套房");
+        suite.setPricePerNight(BigDecimal.valueOf(5000));
+        suite.setTotalRooms(1);
+        suite.setAccommodation(testAccommodation);
+        roomTypeRepo.save(suite);
+        bookingService.bookByRoomType(testRoomType.getId(), checkInDate, checkOutDate, 5);
+
+        assertThat(bookingService.getAvailableAccommodations(checkInDate, checkOutDate)).hasSize(1);
+    }
+
+    @Test
+    @DisplayName("日期搜尋的價格排序 - 依最便宜房型在該區間的房價日曆報價")
+    void testSortAccommodations_DatedPriceUsesCalendar() {
+        // 列表價較低，但該區間是旺季價
+        testAccommodation.setPricePerNight(BigDecimal.valueOf(500));
+        roomRateRepo.save(new RoomRate(testRoomType.getId(), RoomRate.RuleType.SEASON, null,
+                checkInDate, checkOutDate, 900_000));
+
+        Accommodation other = new Accommodation();
+        other.setName("另一間住宿");
+        other.setLocation("台中");
+        other.setPricePerNight(BigDecimal.valueOf(3000));
+        other.setOwner(owner);
+        other = accommodationRepo.save(other);
+        RoomType single = new RoomType();
+        single.setName("單人房");
+        single.setPricePerNight(BigDecimal.valueOf(2500));
+        single.setTotalRooms(1);
+        single.setAccommodation(other);
+        roomTypeRepo.save(single);
+
+        List<Accommodation> both = List.of(testAccommodation, other);
+        assertThat(bookingService.sortAccommodations(both, "price_asc"))
+                .extracting(Accommodation::getId).containsExactly(testAccommodation.getId(), other.getId());
+        assertThat(bookingService.sortAccommodations(both, "price_asc", checkInDate, checkOutDate))
+                .extracting(Accommodation::getId).containsExactly(other.getId(), testAccommodation.getId());
+        assertThat(bookingService.sortAccommodations(both, "price_desc", checkInDate, checkOutDate))
+                .extracting(Accommodation::getId).containsExactly(testAccommodation.getId(), other.getId());
+    }
+
+    @Test
+    @DisplayName("可用性查詢 - 日期區間不合法應拋出異常")
+    void testGetAvailableAccommodations_InvalidRange_ThrowsException() {
+        assertThatThrownBy(() -> bookingService.getAvailableAccommodations(checkOutDate, checkInDate))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
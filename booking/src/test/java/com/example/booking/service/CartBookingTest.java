@@ -0,0 +1,214 @@
+package com.example.booking.service;
+
+import com.example.booking.dto.CartLineDTO;
+import com.example.booking.model.*;
+import com.example.booking.repository.*;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * 購物車訂房測試
+ * 不使用 @Transactional，才能驗證整筆回滾、交錯購物車不死結與批次寫入的耗時
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@DisplayName("購物車訂房測試")
+class CartBookingTest {
+
+    @Autowired
+    private BookingService bookingService;
+
+    @Autowired
+    private InventoryService inventoryService;
+
+    @Autowired
+    private BookingRepository bookingRepo;
+
+    @Autowired
+    private RoomTypeRepository roomTypeRepo;
+
+    @Autowired
+    private AccommodationRepository accommodationRepo;
+
+    @Autowired
+    private UserRepository userRepo;
+
+    private final List<Long> roomTypeIds = new ArrayList<>();
+    private User guest;
+    private Accommodation accommodation;
+    private LocalDate checkIn;
+    private LocalDate checkOut;
+
+    @BeforeEach
+    void setUp() {
+        checkIn = LocalDate.now().plusDays(20);
+        checkOut = checkIn.plusDays(2);
+
+        guest = new User();
+        guest.setUsername("cart-" + System.nanoTime());
+        guest.setPassword("password");
+        guest.setEmail(guest.getUsername() + "@example.com");
+        guest = userRepo.save(guest);
+
+        accommodation = new Accommodation();
+        accommodation.setName("購物車測試旅館");
+        accommodation.setLocation("台中");
+        accommodation = accommodationRepo.save(accommodation);
+
+        authenticate();
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+        bookingRepo.deleteAll(bookingRepo.findByUserUsername(guest.getUsername()));
+        for (Long id : roomTypeIds) {
+            inventoryService.deleteForRoomType(id);
+            roomTypeRepo.deleteById(id);
+        }
+        accommodationRepo.deleteById(accommodation.getId());
+        userRepo.deleteById(guest.getId());
+    }
+
+    @Test
+    @DisplayName("多房型一次訂完 - 應建立所有訂單並計算各自總價")
+    void testBookCart_Success() {
+        RoomType twin = newRoomType("雙人房", 2000, 5);
+        RoomType family = newRoomType("家庭房", 3500, 2);
+
+        List<Booking> bookings = bookingService.bookCart(List.of(
+                new CartLineDTO(family.getId(), checkIn, checkOut, 1),
+                new CartLineDTO(twin.getId(), checkIn, checkOut, 2)));
+
+        assertThat(bookings).hasSize(2);
+        assertThat(bookings).allMatch(b -> b.getId() != null && "PENDING".equals(b.getStatus()));
+        assertThat(bookingRepo.findByUserUsername(guest.getUsername())).hasSize(2);
+        assertThat(bookingRepo.sumBookedQuantityBetween(twin.getId(), checkIn, checkOut)).isEqualTo(2L);
+        assertThat(bookings.stream().map(Booking::getTotalPrice).reduce(BigDecimal.ZERO, BigDecimal::add))
+                .isEqualByComparingTo(BigDecimal.valueOf(2000 * 2 * 2 + 3500 * 2));
+    }
+
+    @Test
+    @DisplayName("任一項庫存不足 - 整台購物車都不應成立")
+    void testBookCart_OneLineFails_RollsBackAll() {
+        RoomType twin = newRoomType("雙人房", 2000, 5);
+        RoomType family = newRoomType("家庭房", 3500, 1);
+
+        assertThatThrownBy(() -> bookingService.bookCart(List.of(
+                new CartLineDTO(twin.getId(), checkIn, checkOut, 2),
+                new CartLineDTO(family.getId(), checkIn, checkOut, 2))))
+                .isInstanceOf(RuntimeException.class)
+                .hasMessageContaining("庫存不足");
+
+        assertThat(bookingRepo.findByUserUsername(guest.getUsername())).isEmpty();
+        // 第一項扣掉的帳本也應一起回滾，仍可訂滿
+        assertThatCode(() -> bookingService.bookByRoomType(twin.getId(), checkIn, checkOut, 5))
+                .doesNotThrowAnyException();
+    }
+
+    @Test
+    @DisplayName("空購物車 - 應拋出異常")
+    void testBookCart_Empty_ThrowsException() {
+        assertThatThrownBy(() -> bookingService.bookCart(List.of()))
+                .isInstanceOf(RuntimeException.class)
+                .hasMessageContaining("沒有任何項目");
+    }
+
+    @Test
+    @DisplayName("交錯的購物車 - 依房型排序加鎖，不應死結")
+    void testBookCart_OpposingOrder_NoDeadlock() throws Exception {
+        int rounds = 20;
+        RoomType a = newRoomType("A", 1000, rounds * 2);
+        RoomType b = newRoomType("B", 1000, rounds * 2);
+
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        AtomicInteger success = new AtomicInteger();
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < 2; t++) {
+            final boolean reversed = t == 1;
+            futures.add(pool.submit(() -> {
+                authenticate();
+                try {
+                    for (int i = 0; i < rounds; i++) {
+                        CartLineDTO lineA = new CartLineDTO(a.getId(), checkIn, checkOut, 1);
+                        CartLineDTO lineB = new CartLineDTO(b.getId(), checkIn, checkOut, 1);
+                        bookingService.bookCart(reversed ? List.of(lineB, lineA) : List.of(lineA, lineB),
+                                BookingStrategy.PESSIMISTIC);
+                        success.incrementAndGet();
+                    }
+                } finally {
+                    SecurityContextHolder.clearContext();
+                }
+                return null;
+            }));
+        }
+        for (Future<?> f : futures) {
+            f.get(2, TimeUnit.MINUTES);
+        }
+        pool.shutdown();
+
+        assertThat(success.get()).isEqualTo(rounds * 2);
+        assertThat(bookingRepo.sumBookedQuantityBetween(a.getId(), checkIn, checkOut)).isEqualTo(rounds * 2L);
+        assertThat(bookingRepo.sumBookedQuantityBetween(b.getId(), checkIn, checkOut)).isEqualTo(rounds * 2L);
+    }
+
+    @Test
+    @DisplayName("耗時比較 - 購物車一次送出 vs 逐筆呼叫")
+    void testBookCart_FasterThanSequentialCalls() {
+        int lines = 10;
+        List<RoomType> sequentialRooms = new ArrayList<>();
+        List<CartLineDTO> cart = new ArrayList<>();
+        for (int i = 0; i < lines; i++) {
+            sequentialRooms.add(newRoomType("逐筆-" + i, 1000, 5));
+            cart.add(new CartLineDTO(newRoomType("購物車-" + i, 1000, 5).getId(), checkIn, checkOut, 1));
+        }
+
+        long t0 = System.nanoTime();
+        for (RoomType rt : sequentialRooms) {
+            bookingService.bookByRoomType(rt.getId(), checkIn, checkOut, 1);
+        }
+        long sequentialMicros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - t0);
+
+        t0 = System.nanoTime();
+        List<Booking> bookings = bookingService.bookCart(cart);
+        long cartMicros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - t0);
+
+        System.out.printf("[購物車] %d 項：逐筆 %dus，購物車 %dus%n", lines, sequentialMicros, cartMicros);
+        assertThat(bookings).hasSize(lines);
+        assertThat(bookingRepo.findByUserUsername(guest.getUsername())).hasSize(lines * 2);
+    }
+
+    private RoomType newRoomType(String name, int price, int totalRooms) {
+        RoomType rt = new RoomType();
+        rt.setName(name);
+        rt.setPricePerNight(BigDecimal.valueOf(price));
+        rt.setTotalRooms(totalRooms);
+        rt.setAccommodation(accommodation);
+        rt = roomTypeRepo.save(rt);
+        roomTypeIds.add(rt.getId());
+        return rt;
+    }
+
+    private void authenticate() {
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(guest.getUsername(), null,
+                        List.of(new SimpleGrantedAuthority("ROLE_USER"))));
+    }
+}
@@ -0,0 +1,166 @@
+package com.example.booking.service;
+
+import com.example.booking.dto.FlexibleSearchResultDTO;
+import com.example.booking.model.*;
+import com.example.booking.repository.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * FlexibleDateSearchService 測試
+ * 驗證滑動視窗的最小值/總和，以及每間住宿最便宜可訂區間的挑選
+ */
+@SpringBootTest
+@Transactional
+@ActiveProfiles("test")
+@DisplayName("彈性日期搜尋測試")
+class FlexibleDateSearchServiceTest {
+
+    @Autowired
+    private FlexibleDateSearchService searchService;
+
+    @Autowired
+    private BookingRepository bookingRepo;
+
+    @Autowired
+    private RoomTypeRepository roomTypeRepo;
+
+    @Autowired
+    private AccommodationRepository accommodationRepo;
+
+    @Autowired
+    private UserRepository userRepo;
+
+    private User guest;
+    private Accommodation seaside;
+    private Accommodation downtown;
+    private RoomType cheap;
+    private RoomType pricey;
+    private LocalDate from;
+
+    @BeforeEach
+    void setUp() {
+        from = LocalDate.now().plusDays(20);
+
+        guest = new User();
+        guest.setUsername("flex-guest");
+        guest.setPassword("password");
+        guest.setEmail("flex-guest@example.com");
+        guest = userRepo.save(guest);
+
+        seaside = newAccommodation("海景旅館");
+        downtown = newAccommodation("市區旅館");
+        cheap = newRoomType(seaside, "經濟房", 1000, 1);
+        pricey = newRoomType(seaside, "套房", 3000, 2);
+        newRoomType(downtown, "標準房", 2000, 1);
+    }
+
+    @Test
+    @DisplayName("便宜房型部分日期已滿 - 應挑出其餘日期並依總價排序")
+    void testSearch_PicksCheapestAvailableWindows() {
+        // 經濟房第 0~2 晚已滿
+        Booking booking = new Booking(null, from, from.plusDays(3), cheap, guest, 1, BigDecimal.valueOf(3000));
+        booking.setStatus("CONFIRMED");
+        bookingRepo.save(booking);
+
+        List<FlexibleSearchResultDTO> results = ours(searchService.search(from, from.plusDays(7), 2, 1, 3));
+
+        assertThat(results).extracting(FlexibleSearchResultDTO::getAccommodationId)
+                .containsExactly(seaside.getId(), downtown.getId());
+
+        List<FlexibleSearchResultDTO.Window> seasideWindows = results.get(0).getWindows();
+        assertThat(seasideWindows).extracting(FlexibleSearchResultDTO.Window::getCheckIn)
+                .containsExactly(from.plusDays(3), from.plusDays(4), from.plusDays(5));
+        assertThat(seasideWindows).allSatisfy(w -> {
+            assertThat(w.getRoomTypeId()).isEqualTo(cheap.getId());
+            assertThat(w.getTotalPrice()).isEqualByComparingTo("2000");
+            assertThat(w.getCheckOut()).isEqualTo(w.getCheckIn().plusDays(2));
+        });
+
+        assertThat(results.get(1).getWindows().get(0).getCheckIn()).isEqualTo(from);
+        assertThat(results.get(1).getWindows().get(0).getTotalPrice()).isEqualByComparingTo("4000");
+    }
+
+    @Test
+    @DisplayName("需要多間房 - 只有房數足夠的房型入選，無可訂區間的住宿不回傳")
+    void testSearch_QuantityFiltersRoomTypes() {
+        List<FlexibleSearchResultDTO> results = ours(searchService.search(from, from.plusDays(5), 3, 2, 1));
+
+        assertThat(results).hasSize(1);
+        FlexibleSearchResultDTO.Window window = results.get(0).getWindows().get(0);
+        assertThat(window.getRoomTypeId()).isEqualTo(pricey.getId());
+        assertThat(window.getTotalPrice()).isEqualByComparingTo("18000");
+        assertThat(window.getRemaining()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("晚數超過期間 - 應拋出例外")
+    void testSearch_InvalidNights() {
+        assertThatThrownBy(() -> searchService.search(from, from.plusDays(3), 4, 1, 3))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> searchService.search(from, from.plusDays(3), 0, 1, 3))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    @DisplayName("滑動視窗 - 最小值與總和應與逐一計算一致")
+    void testSlidingWindows_MatchBruteForce() {
+        Random random = new Random(11);
+        for (int round = 0; round < 50; round++) {
+            int length = 1 + random.nextInt(60);
+            int width = 1 + random.nextInt(length);
+            int[] values = random.ints(length, 0, 5).toArray();
+            long[] prices = random.longs(length, 0, 100_000).toArray();
+
+            int[] mins = FlexibleDateSearchService.slidingMin(values, width);
+            long[] sums = FlexibleDateSearchService.slidingSum(prices, width);
+            assertThat(mins).hasSize(length - width + 1);
+            for (int s = 0; s + width <= length; s++) {
+                int min = Integer.MAX_VALUE;
+                long sum = 0;
+                for (int i = s; i < s + width; i++) {
+                    min = Math.min(min, values[i]);
+                    sum += prices[i];
+                }
+                assertThat(mins[s]).isEqualTo(min);
+                assertThat(sums[s]).isEqualTo(sum);
+            }
+        }
+    }
+
+    // 只看本測試建立的住宿
+    private List<FlexibleSearchResultDTO> ours(List<FlexibleSearchResultDTO> results) {
+        return results.stream()
+                .filter(r -> r.getAccommodationId().equals(seaside.getId())
+                        || r.getAccommodationId().equals(downtown.getId()))
+                .toList();
+    }
+
+    private Accommodation newAccommodation(String name) {
+        Accommodation acc = new Accommodation();
+        acc.setName(name);
+        acc.setLocation("花蓮");
+        return accommodationRepo.save(acc);
+    }
+
+    private RoomType newRoomType(Accommodation acc, String name, int price, int totalRooms) {
+        RoomType rt = new RoomType();
+        rt.setName(name);
+        rt.setPricePerNight(BigDecimal.valueOf(price));
+        rt.setTotalRooms(totalRooms);
+        rt.setAccommodation(acc);
+        return roomTypeRepo.save(rt);
+    }
+}
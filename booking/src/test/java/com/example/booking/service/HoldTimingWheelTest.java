@@ -0,0 +1,73 @@
+package com.example.booking.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * HoldTimingWheel 單元測試
+ * 以固定的時間值推進，驗證到期順序、超過一圈與落後追趕
+ */
+@DisplayName("保留到期時間輪單元測試")
+class HoldTimingWheelTest {
+
+    private static final long START = 1_000_000L;
+
+    private HoldTimingWheel wheel;
+
+    @BeforeEach
+    void setUp() {
+        // 每格 1 秒、共 8 格
+        wheel = new HoldTimingWheel(1000, 8, START);
+    }
+
+    @Test
+    @DisplayName("到期前不應取出，到期後只取出一次")
+    void testAdvance_ReturnsDueOnce() {
+        wheel.schedule(1L, START + 3000);
+
+        assertThat(wheel.advance(START + 2000)).isEmpty();
+        assertThat(wheel.advance(START + 3000)).containsExactly(1L);
+        assertThat(wheel.advance(START + 4000)).isEmpty();
+        assertThat(wheel.size()).isZero();
+    }
+
+    @Test
+    @DisplayName("超過一圈的保留 - 經過同一格時不應提早取出")
+    void testAdvance_BeyondOneRound() {
+        wheel.schedule(1L, START + 10_000);
+
+        assertThat(wheel.advance(START + 2000)).isEmpty();
+        assertThat(wheel.advance(START + 9000)).isEmpty();
+        assertThat(wheel.advance(START + 10_000)).containsExactly(1L);
+    }
+
+    @Test
+    @DisplayName("已過期的保留 - 應在下一個 tick 取出")
+    void testSchedule_AlreadyExpired() {
+        wheel.schedule(1L, START - 5000);
+
+        assertThat(wheel.advance(START + 1000)).containsExactly(1L);
+    }
+
+    @Test
+    @DisplayName("落後超過一圈 - 應一次取出所有到期的保留")
+    void testAdvance_CatchUpAfterLongPause() {
+        wheel.schedule(1L, START + 1000);
+        wheel.schedule(2L, START + 5000);
+        wheel.schedule(3L, START + 30_000);
+
+        assertThat(wheel.advance(START + 20_000)).containsExactlyInAnyOrder(1L, 2L);
+        assertThat(wheel.size()).isEqualTo(1);
+        assertThat(wheel.advance(START + 30_000)).containsExactly(3L);
+    }
+
+    @Test
+    @DisplayName("格數不是 2 的次方 - 應拋出異常")
+    void testConstructor_InvalidSize() {
+        assertThatThrownBy(() -> new HoldTimingWheel(1000, 6, START))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,224 @@
+package com.example.booking.service;
+
+import com.example.booking.model.*;
+import com.example.booking.repository.*;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * IdempotencyService 測試
+ * 不使用 @Transactional，鍵的寫入與訂單各自在獨立交易中提交，與實際請求相同
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@DisplayName("冪等鍵測試")
+class IdempotencyServiceTest {
+
+    @Autowired
+    private IdempotencyService idempotencyService;
+
+    @Autowired
+    private IdempotencyRecordRepository recordRepo;
+
+    @Autowired
+    private BookingService bookingService;
+
+    @Autowired
+    private InventoryService inventoryService;
+
+    @Autowired
+    private BookingRepository bookingRepo;
+
+    @Autowired
+    private RoomTypeRepository roomTypeRepo;
+
+    @Autowired
+    private AccommodationRepository accommodationRepo;
+
+    @Autowired
+    private UserRepository userRepo;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private User guest;
+    private Accommodation accommodation;
+    private RoomType roomType;
+
+    @BeforeEach
+    void setUp() {
+        guest = new User();
+        guest.setUsername("idem-" + System.nanoTime());
+        guest.setPassword("password");
+        guest.setEmail(guest.getUsername() + "@example.com");
+        guest = userRepo.save(guest);
+
+        accommodation = new Accommodation();
+        accommodation.setName("冪等測試旅館");
+        accommodation.setLocation("台南");
+        accommodation = accommodationRepo.save(accommodation);
+
+        roomType = new RoomType();
+        roomType.setName("雙人房");
+        roomType.setPricePerNight(BigDecimal.valueOf(1800));
+        roomType.setTotalRooms(3);
+        roomType.setAccommodation(accommodation);
+        roomType = roomTypeRepo.save(roomType);
+
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(guest.getUsername(), null,
+                        List.of(new SimpleGrantedAuthority("ROLE_USER"))));
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+        recordRepo.deleteAll();
+        bookingRepo.deleteAll(bookingRepo.findByUserUsername(guest.getUsername()));
+        inventoryService.deleteForRoomType(roomType.getId());
+        roomTypeRepo.deleteById(roomType.getId());
+        accommodationRepo.deleteById(accommodation.getId());
+        userRepo.deleteById(guest.getId());
+    }
+
+    @Test
+    @DisplayName("重送相同請求 - 應回傳第一次的結果，不重複建立訂單")
+    void testReplay_DoesNotBookTwice() {
+        LocalDate checkIn = LocalDate.now().plusDays(15);
+        List<Object> request = List.of(roomType.getId(), checkIn.toString());
+
+        ResponseEntity<?> first = idempotencyService.execute("key-1", guest.getUsername(), request, () -> {
+            Booking booking = bookingService.bookByRoomType(roomType.getId(), checkIn, checkIn.plusDays(1), 1);
+            return ResponseEntity.ok(Map.of("bookingId", booking.getId()));
+        });
+        ResponseEntity<?> replay = idempotencyService.execute("key-1", guest.getUsername(), request, () -> {
+            Booking booking = bookingService.bookByRoomType(roomType.getId(), checkIn, checkIn.plusDays(1), 1);
+            return ResponseEntity.ok(Map.of("bookingId", booking.getId()));
+        });
+
+        Booking only = bookingRepo.findByUserUsername(guest.getUsername()).get(0);
+        assertThat(bookingRepo.findByUserUsername(guest.getUsername())).hasSize(1);
+        assertThat(first.getStatusCode().value()).isEqualTo(200);
+        assertThat(replay.getStatusCode().value()).isEqualTo(200);
+        assertThat(replay.getHeaders().getFirst(IdempotencyService.REPLAYED_HEADER)).isEqualTo("true");
+        assertThat((String) replay.getBody()).contains("\"bookingId\":" + only.getId());
+    }
+
+    @Test
+    @DisplayName("同一個鍵用於不同請求 - 應回傳 422")
+    void testSameKeyDifferentRequest_Rejected() {
+        AtomicInteger calls = new AtomicInteger();
+        idempotencyService.execute("key-2", guest.getUsername(), List.of("a"),
+                () -> ResponseEntity.ok(Map.of("n", calls.incrementAndGet())));
+
+        ResponseEntity<?> response = idempotencyService.execute("key-2", guest.getUsername(), List.of("b"),
+                () -> ResponseEntity.ok(Map.of("n", calls.incrementAndGet())));
+
+        assertThat(response.getStatusCode().value()).isEqualTo(422);
+        assertThat(calls.get()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("執行時拋出例外 - 鍵應釋放，可用同一個鍵重試")
+    void testActionThrows_KeyReleased() {
+        assertThatThrownBy(() -> idempotencyService.execute("key-3", guest.getUsername(), List.of("x"),
+                () -> { throw new IllegalStateException("暫時錯誤"); }))
+                .isInstanceOf(IllegalStateException.class);
+
+        ResponseEntity<?> retry = idempotencyService.execute("key-3", guest.getUsername(), List.of("x"),
+                () -> ResponseEntity.ok(Map.of("ok", true)));
+        assertThat(retry.getStatusCode().value()).isEqualTo(200);
+        assertThat(retry.getHeaders().containsKey(IdempotencyService.REPLAYED_HEADER)).isFalse();
+    }
+
+    @Test
+    @DisplayName("處理中的紀錄 - 租約內回傳 409，過期後由重送的請求接手")
+    void testPendingLease_ExpiredTakenOver() {
+        LocalDateTime now = LocalDateTime.now();
+        transactionTemplate.executeWithoutResult(s -> {
+            recordRepo.insertPending(guest.getUsername(), "key-live", "hash", now);
+            recordRepo.insertPending(guest.getUsername(), "key-crashed", "hash", now.minusMinutes(30));
+        });
+        AtomicInteger calls = new AtomicInteger();
+
+        ResponseEntity<?> live = idempotencyService.execute("key-live", guest.getUsername(), List.of("x"),
+                () -> ResponseEntity.ok(Map.of("n", calls.incrementAndGet())));
+        assertThat(live.getStatusCode().value()).isEqualTo(409);
+
+        ResponseEntity<?> takenOver = idempotencyService.execute("key-crashed", guest.getUsername(), List.of("x"),
+                () -> ResponseEntity.ok(Map.of("n", calls.incrementAndGet())));
+        ResponseEntity<?> replay = idempotencyService.execute("key-crashed", guest.getUsername(), List.of("x"),
+                () -> ResponseEntity.ok(Map.of("n", calls.incrementAndGet())));
+
+        assertThat(takenOver.getStatusCode().value()).isEqualTo(200);
+        assertThat(replay.getHeaders().getFirst(IdempotencyService.REPLAYED_HEADER)).isEqualTo("true");
+        assertThat(calls.get()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("不同使用者使用相同的鍵 - 互不影響")
+    void testKeysScopedPerUser() {
+        AtomicInteger calls = new AtomicInteger();
+        idempotencyService.execute("shared", guest.getUsername(), List.of("x"),
+                () -> ResponseEntity.ok(Map.of("n", calls.incrementAndGet())));
+        idempotencyService.execute("shared", "someone-else", List.of("x"),
+                () -> ResponseEntity.ok(Map.of("n", calls.incrementAndGet())));
+
+        assertThat(calls.get()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("快取有上限 - 被淘汰的鍵仍可由資料表重放")
+    void testCacheBounded_FallsBackToTable() {
+        Object original = ReflectionTestUtils.getField(idempotencyService, "cacheSize");
+        ReflectionTestUtils.setField(idempotencyService, "cacheSize", 3);
+        try {
+            AtomicInteger calls = new AtomicInteger();
+            for (int i = 0; i < 10; i++) {
+                idempotencyService.execute("bulk-" + i, guest.getUsername(), List.of(i),
+                        () -> ResponseEntity.ok(Map.of("n", calls.incrementAndGet())));
+            }
+            assertThat(idempotencyService.cachedCount()).isLessThanOrEqualTo(3);
+
+            ResponseEntity<?> replay = idempotencyService.execute("bulk-0", guest.getUsername(), List.of(0),
+                    () -> ResponseEntity.ok(Map.of("n", calls.incrementAndGet())));
+            assertThat(calls.get()).isEqualTo(10);
+            assertThat((String) replay.getBody()).contains("\"n\":1");
+        } finally {
+            ReflectionTestUtils.setField(idempotencyService, "cacheSize", original);
+        }
+    }
+
+    @Test
+    @DisplayName("沒有帶鍵 - 每次都執行")
+    void testNoKey_AlwaysExecutes() {
+        AtomicInteger calls = new AtomicInteger();
+        idempotencyService.execute(null, guest.getUsername(), List.of("x"),
+                () -> ResponseEntity.ok(Map.of("n", calls.incrementAndGet())));
+        idempotencyService.execute(" ", guest.getUsername(), List.of("x"),
+                () -> ResponseEntity.ok(Map.of("n", calls.incrementAndGet())));
+
+        assertThat(calls.get()).isEqualTo(2);
+        assertThat(recordRepo.count()).isZero();
+    }
+}
@@ -0,0 +1,112 @@
+package com.example.booking.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * IntervalTree 單元測試
+ * 驗證半開區間的邊界、相同區間合併與移除，並以逐晚累加的暴力解對照隨機資料
+ */
+@DisplayName("訂房區間樹單元測試")
+class IntervalTreeTest {
+
+    private IntervalTree tree;
+
+    @BeforeEach
+    void setUp() {
+        tree = new IntervalTree();
+    }
+
+    @Test
+    @DisplayName("退房日當晚不算佔用 - 首尾相接的區間不應重疊")
+    void testMaxConcurrent_HalfOpenBoundary() {
+        tree.add(10, 12, 1);
+        tree.add(12, 14, 1);
+
+        assertThat(tree.maxConcurrent(10, 14)).isEqualTo(1);
+        assertThat(tree.maxConcurrent(12, 13)).isEqualTo(1);
+        assertThat(tree.maxConcurrent(14, 20)).isZero();
+        assertThat(tree.overlapping(8, 10)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("部分重疊 - 只計算查詢區間內同時佔用的最大值")
+    void testMaxConcurrent_PartialOverlap() {
+        tree.add(1, 5, 2);
+        tree.add(3, 8, 1);
+        tree.add(6, 9, 3);
+
+        assertThat(tree.maxConcurrent(1, 3)).isEqualTo(2);
+        assertThat(tree.maxConcurrent(1, 6)).isEqualTo(3);
+        assertThat(tree.maxConcurrent(6, 8)).isEqualTo(4);
+        assertThat(tree.overlapping(5, 6)).hasSize(1);
+    }
+
+    @Test
+    @DisplayName("相同區間 - 數量合併，扣回零後移除節點")
+    void testAdd_MergeAndRemove() {
+        tree.add(1, 3, 2);
+        tree.add(1, 3, 1);
+        assertThat(tree.size()).isEqualTo(1);
+        assertThat(tree.maxConcurrent(1, 3)).isEqualTo(3);
+
+        tree.add(1, 3, -3);
+        assertThat(tree.size()).isZero();
+        assertThat(tree.maxConcurrent(0, 10)).isZero();
+
+        // 不存在的區間扣除數量不應建立節點
+        tree.add(5, 6, -1);
+        assertThat(tree.size()).isZero();
+    }
+
+    @Test
+    @DisplayName("隨機新增與取消 - 結果應與逐晚累加一致")
+    void testMaxConcurrent_MatchesBruteForce() {
+        Random random = new Random(42);
+        int days = 400;
+        int[] perNight = new int[days];
+        List<int[]> live = new ArrayList<>();
+
+        for (int step = 0; step < 5000; step++) {
+            if (!live.isEmpty() && random.nextInt(4) == 0) {
+                // 取消一筆既有訂單
+                int[] b = live.remove(random.nextInt(live.size()));
+                tree.add(b[0], b[1], -b[2]);
+                apply(perNight, b, -1);
+            } else {
+                int start = random.nextInt(days - 14);
+                int[] b = {start, start + 1 + random.nextInt(14), 1 + random.nextInt(3)};
+                live.add(b);
+                tree.add(b[0], b[1], b[2]);
+                apply(perNight, b, 1);
+            }
+
+            if (step % 50 == 0) {
+                int from = random.nextInt(days - 30);
+                int to = from + 1 + random.nextInt(30);
+                assertThat(tree.maxConcurrent(from, to)).isEqualTo(max(perNight, from, to));
+            }
+        }
+    }
+
+    private static void apply(int[] perNight, int[] booking, int sign) {
+        for (int d = booking[0]; d < booking[1]; d++) {
+            perNight[d] += sign * booking[2];
+        }
+    }
+
+    private static int max(int[] perNight, int from, int to) {
+        int max = 0;
+        for (int d = from; d < to; d++) {
+            max = Math.max(max, perNight[d]);
+        }
+        return max;
+    }
+}
@@ -0,0 +1,216 @@
+package com.example.booking.service;
+
+import com.example.booking.model.*;
+import com.example.booking.repository.*;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * 訂房併發吞吐量比較（每晚帳本 / 房型悲觀鎖 / 樂觀鎖重試 / 分片單一寫入者）
+ * 多執行緒同時訂房，驗證不超賣、帳本與成功訂單一致；標記為 benchmark，預設建置不執行
+ */
+@Tag("benchmark")
+@SpringBootTest
+@ActiveProfiles("test")
+@DisplayName("訂房併發吞吐量測試")
+class InventoryContentionBenchmarkTest {
+
+    private static final int THREADS = 8;
+    private static final int BOOKINGS_PER_THREAD = 20;
+
+    @Autowired
+    private BookingService bookingService;
+
+    @Autowired
+    private InventoryService inventoryService;
+
+    @Autowired
+    private RoomTypeInventoryRepository inventoryRepo;
+
+    @Autowired
+    private BookingRepository bookingRepo;
+
+    @Autowired
+    private RoomTypeRepository roomTypeRepo;
+
+    @Autowired
+    private AccommodationRepository accommodationRepo;
+
+    @Autowired
+    private UserRepository userRepo;
+
+    private final List<Long> roomTypeIds = new ArrayList<>();
+    private User guest;
+    private Accommodation accommodation;
+    private LocalDate base;
+
+    @BeforeEach
+    void setUp() {
+        base = LocalDate.now().plusDays(30);
+
+        guest = new User();
+        guest.setUsername("bench-" + System.nanoTime());
+        guest.setPassword("password");
+        guest.setEmail(guest.getUsername() + "@example.com");
+        guest = userRepo.save(guest);
+
+        accommodation = new Accommodation();
+        accommodation.setName("壓測旅館");
+        accommodation.setLocation("台北");
+        accommodation = accommodationRepo.save(accommodation);
+    }
+
+    @AfterEach
+    void tearDown() {
+        bookingRepo.deleteAll(bookingRepo.findByUserUsername(guest.getUsername()));
+        for (Long id : roomTypeIds) {
+            inventoryService.deleteForRoomType(id);
+            roomTypeRepo.deleteById(id);
+        }
+        accommodationRepo.deleteById(accommodation.getId());
+        userRepo.deleteById(guest.getId());
+    }
+
+    @Test
+    @DisplayName("不重疊日期 - 帳本不需排隊等待同一房型鎖")
+    void disjointDates() throws Exception {
+        for (BookingStrategy strategy : BookingStrategy.values()) {
+            RoomType rt = newRoomType(1);
+            int success = run(strategy, t -> rt,
+                    (t, i) -> base.plusDays((long) (t * BOOKINGS_PER_THREAD + i) * 2));
+
+            // 每筆訂單日期互不重疊，應全部成功
+            assertThat(success).isEqualTo(THREADS * BOOKINGS_PER_THREAD);
+            assertLedgerMatchesBookings(rt);
+        }
+    }
+
+    @Test
+    @DisplayName("熱門房型 - 同一晚搶房不可超賣")
+    void hotRoomType() throws Exception {
+        int totalRooms = THREADS * BOOKINGS_PER_THREAD / 2;
+        for (BookingStrategy strategy : BookingStrategy.values()) {
+            RoomType rt = newRoomType(totalRooms);
+            int success = run(strategy, t -> rt, (t, i) -> base);
+
+            // 同時首次訂房會一起建立帳本列，不應有多餘的失敗：除了樂觀鎖可能重試用盡，都應恰好賣完
+            if (strategy == BookingStrategy.OPTIMISTIC) {
+                assertThat(success).isLessThanOrEqualTo(totalRooms);
+            } else {
+                assertThat(success).as(strategy.name())
+                        .isEqualTo(Math.min(THREADS * BOOKINGS_PER_THREAD, totalRooms));
+            }
+            assertThat(bookingRepo.sumBookedQuantityBetween(rt.getId(), base, base.plusDays(1)))
+                    .isEqualTo((long) success);
+            assertLedgerMatchesBookings(rt);
+        }
+    }
+
+    @Test
+    @DisplayName("冷門房型 - 各執行緒各訂各的房型，應全部成功")
+    void coldRoomTypes() throws Exception {
+        for (BookingStrategy strategy : BookingStrategy.values()) {
+            List<RoomType> cold = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                cold.add(newRoomType(BOOKINGS_PER_THREAD));
+            }
+            int success = run(strategy, cold::get, (t, i) -> base);
+
+            assertThat(success).isEqualTo(THREADS * BOOKINGS_PER_THREAD);
+            for (RoomType rt : cold) {
+                assertLedgerMatchesBookings(rt);
+            }
+        }
+    }
+
+    @FunctionalInterface
+    private interface CheckInPlan {
+        LocalDate checkIn(int thread, int index);
+    }
+
+    @FunctionalInterface
+    private interface RoomTypePlan {
+        RoomType roomType(int thread);
+    }
+
+    private RoomType newRoomType(int totalRooms) {
+        RoomType rt = new RoomType();
+        rt.setName("壓測房型");
+        rt.setPricePerNight(BigDecimal.valueOf(1000));
+        rt.setTotalRooms(totalRooms);
+        rt.setAccommodation(accommodation);
+        rt = roomTypeRepo.save(rt);
+        roomTypeIds.add(rt.getId());
+        return rt;
+    }
+
+    private int run(BookingStrategy strategy, RoomTypePlan rooms, CheckInPlan plan) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger success = new AtomicInteger();
+        List<Future<?>> futures = new ArrayList<>();
+
+        for (int t = 0; t < THREADS; t++) {
+            final int thread = t;
+            futures.add(pool.submit(() -> {
+                SecurityContextHolder.getContext().setAuthentication(
+                        new UsernamePasswordAuthenticationToken(guest.getUsername(), null,
+                                List.of(new SimpleGrantedAuthority("ROLE_USER"))));
+                RoomType rt = rooms.roomType(thread);
+                try {
+                    start.await();
+                    for (int i = 0; i < BOOKINGS_PER_THREAD; i++) {
+                        LocalDate checkIn = plan.checkIn(thread, i);
+                        try {
+                            bookingService.bookByRoomType(rt.getId(), checkIn, checkIn.plusDays(1), 1, strategy);
+                            success.incrementAndGet();
+                        } catch (RuntimeException e) {
+                            // 庫存不足或重試用盡，計入失敗即可
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    SecurityContextHolder.clearContext();
+                }
+                return null;
+            }));
+        }
+
+        start.countDown();
+        for (Future<?> f : futures) {
+            f.get(2, TimeUnit.MINUTES);
+        }
+        pool.shutdown();
+        return success.get();
+    }
+
+    private void assertLedgerMatchesBookings(RoomType rt) {
+        List<RoomTypeInventory> rows = inventoryRepo.findAll().stream()
+                .filter(row -> row.getRoomTypeId().equals(rt.getId()))
+                .toList();
+        for (RoomTypeInventory row : rows) {
+            long booked = bookingRepo.sumBookedQuantityBetween(rt.getId(), row.getNight(), row.getNight().plusDays(1));
+            assertThat(row.getBookedRooms()).isEqualTo((int) booked);
+            assertThat(row.getBookedRooms()).isLessThanOrEqualTo(rt.getTotalRooms());
+        }
+    }
+}
@@ -0,0 +1,203 @@
+package com.example.booking.service;
+
+import com.example.booking.model.*;
+import com.example.booking.repository.*;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * InventoryService 測試
+ * 驗證每晚庫存帳本的建立、扣除與釋放
+ */
+@SpringBootTest
+@Transactional
+@ActiveProfiles("test")
+@DisplayName("每晚庫存帳本測試")
+class InventoryServiceTest {
+
+    @Autowired
+    private InventoryService inventoryService;
+
+    @Autowired
+    private RoomTypeInventoryRepository inventoryRepo;
+
+    @Autowired
+    private BookingRepository bookingRepo;
+
+    @Autowired
+    private RoomTypeRepository roomTypeRepo;
+
+    @Autowired
+    private AccommodationRepository accommodationRepo;
+
+    @Autowired
+    private UserRepository userRepo;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    private User guest;
+    private RoomType roomType;
+    private LocalDate checkIn;
+    private LocalDate checkOut;
+
+    @BeforeEach
+    void setUp() {
+        inventoryRepo.deleteAll();
+        bookingRepo.deleteAll();
+        roomTypeRepo.deleteAll();
+        accommodationRepo.deleteAll();
+        userRepo.deleteAll();
+
+        checkIn = LocalDate.now().plusDays(10);
+        checkOut = checkIn.plusDays(3);
+
+        guest = new User();
+        guest.setUsername("guest");
+        guest.setPassword("password");
+        guest.setEmail("guest@example.com");
+        guest = userRepo.save(guest);
+
+        Accommodation accommodation = new Accommodation();
+        accommodation.setName("帳本測試旅館");
+        accommodation.setLocation("台北");
+        accommodation = accommodationRepo.save(accommodation);
+
+        roomType = new RoomType();
+        roomType.setName("標準房");
+        roomType.setPricePerNight(BigDecimal.valueOf(2000));
+        roomType.setTotalRooms(5);
+        roomType.setAccommodation(accommodation);
+        roomType = roomTypeRepo.save(roomType);
+    }
+
+    @Test
+    @DisplayName("扣庫存 - 應為每晚建立帳本列並累加已訂數量")
+    void testReserve_CreatesNightlyRows() {
+        inventoryService.reserve(roomType, checkIn, checkOut, 2);
+
+        List<RoomTypeInventory> rows = nightlyRows();
+        assertThat(rows).hasSize(3);
+        assertThat(rows).allSatisfy(row -> {
+            assertThat(row.getBookedRooms()).isEqualTo(2);
+            assertThat(row.getTotalRooms()).isEqualTo(5);
+        });
+    }
+
+    @Test
+    @DisplayName("扣庫存 - 既有訂單應回填到新建立的帳本列")
+    void testReserve_BackfillsExistingBookings() {
+        // Given - 帳本導入前已存在的訂單（只佔第一晚）
+        Booking legacy = new Booking(null, checkIn, checkIn.plusDays(1), roomType, guest, 4, BigDecimal.valueOf(8000));
+        bookingRepo.save(legacy);
+
+        // When & Then - 第一晚只剩 1 間
+        assertThatThrownBy(() -> inventoryService.reserve(roomType, checkIn, checkOut, 2))
+                .isInstanceOf(RuntimeException.class)
+                .hasMessageContaining("庫存不足");
+    }
+
+    @Test
+    @DisplayName("扣庫存 - 其他交易已建立部分夜晚時只補上缺少的列，不因重複而失敗")
+    void testReserve_NightAlreadySeeded() {
+        // 模擬同時首次訂房的另一個交易已先建立第二晚（已訂 1 間）
+        assertThat(inventoryRepo.insertIfAbsent(roomType.getId(), checkIn.plusDays(1), 1, 5)).isEqualTo(1);
+        assertThat(inventoryRepo.insertIfAbsent(roomType.getId(), checkIn.plusDays(1), 0, 5)).isZero();
+
+        inventoryService.reserve(roomType, checkIn, checkOut, 2);
+
+        List<RoomTypeInventory> rows = nightlyRows();
+        assertThat(rows).hasSize(3);
+        assertThat(rows).extracting(RoomTypeInventory::getBookedRooms).containsExactlyInAnyOrder(2, 3, 2);
+    }
+
+    @Test
+    @DisplayName("扣庫存 - 任一晚不足應拋出異常")
+    void testReserve_InsufficientNight_ThrowsException() {
+        inventoryService.reserve(roomType, checkIn.plusDays(1), checkIn.plusDays(2), 5);
+
+        assertThatThrownBy(() -> inventoryService.reserve(roomType, checkIn, checkOut, 1))
+                .isInstanceOf(RuntimeException.class)
+                .hasMessageContaining("庫存不足");
+    }
+
+    @Test
+    @DisplayName("扣庫存不足 - 剩餘房數依帳本計算，包含沒有訂單的保留")
+    void testReserve_Insufficient_ReportsLedgerRemaining() {
+        // 保留只扣帳本、不建立訂單；後兩晚各剩 1 間，第一晚仍有 5 間
+        inventoryService.reserve(roomType, checkIn.plusDays(1), checkOut, 4);
+
+        assertThatThrownBy(() -> inventoryService.reserve(roomType, checkIn, checkOut, 2))
+                .isInstanceOf(RuntimeException.class)
+                .hasMessageContaining("剩餘：1");
+    }
+
+    @Test
+    @DisplayName("釋放庫存 - 取消後應可再次訂滿")
+    void testRelease_FreesNights() {
+        inventoryService.reserve(roomType, checkIn, checkOut, 5);
+        Booking booking = bookingRepo.save(
+                new Booking(null, checkIn, checkOut, roomType, guest, 5, BigDecimal.valueOf(30000)));
+
+        inventoryService.release(booking);
+
+        assertThatCode(() -> inventoryService.reserve(roomType, checkIn, checkOut, 5))
+                .doesNotThrowAnyException();
+    }
+
+    @Test
+    @DisplayName("樂觀鎖扣庫存 - 應累加已訂數量並遞增版本號")
+    void testReserveOptimistic_IncrementsVersion() {
+        inventoryService.reserveOptimistic(roomType, checkIn, checkOut, 2);
+        long versionAfterFirst = nightlyRows().get(0).getVersion();
+
+        inventoryService.reserveOptimistic(roomType, checkIn, checkOut, 1);
+
+        assertThat(nightlyRows()).allSatisfy(row -> {
+            assertThat(row.getBookedRooms()).isEqualTo(3);
+            assertThat(row.getVersion()).isGreaterThan(versionAfterFirst);
+        });
+    }
+
+    @Test
+    @DisplayName("樂觀鎖扣庫存 - 任一晚不足應拋出異常")
+    void testReserveOptimistic_Insufficient_ThrowsException() {
+        inventoryService.reserveOptimistic(roomType, checkIn.plusDays(2), checkOut, 4);
+
+        assertThatThrownBy(() -> inventoryService.reserveOptimistic(roomType, checkIn, checkOut, 2))
+                .isInstanceOf(RuntimeException.class)
+                .hasMessageContaining("剩餘：1");
+    }
+
+    @Test
+    @DisplayName("調整總房數 - 應同步到既有帳本列")
+    void testUpdateTotalRooms_SyncsRows() {
+        inventoryService.reserve(roomType, checkIn, checkOut, 1);
+
+        inventoryService.updateTotalRooms(roomType.getId(), 8);
+
+        assertThat(nightlyRows()).allSatisfy(row ->
+                assertThat(row.getTotalRooms()).isEqualTo(8));
+    }
+
+    /**
+     * 帳本以批次 UPDATE 維護，需清除持久化內容後重新讀取
+     */
+    private List<RoomTypeInventory> nightlyRows() {
+        entityManager.flush();
+        entityManager.clear();
+        return inventoryRepo.findAll();
+    }
+}
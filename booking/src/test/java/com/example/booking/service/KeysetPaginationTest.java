@@ -0,0 +1,143 @@
+package com.example.booking.service;
+
+import com.example.booking.dto.CursorPage;
+import com.example.booking.model.Accommodation;
+import com.example.booking.repository.AccommodationRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * 游標分頁測試
+ * 逐頁走完整個列表，結果需與一次取全部再排序相同：不重複、不遺漏，同值時依 ID 排列
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@Transactional
+@DisplayName("游標分頁測試")
+class KeysetPaginationTest {
+
+    @Autowired
+    private BookingService bookingService;
+
+    @Autowired
+    private AccommodationRepository accommodationRepo;
+
+    @BeforeEach
+    void setUp() {
+        // 刻意製造同價、同評分、缺值的住宿，檢查同值與 NULL 的處理
+        String[] prices = {"1200", "1800", "1200", "3500", "900", "1800", "2600", "1200", "4100", "900", "1500", "2600", "3100"};
+        String[] ratings = {"4.5", null, "4.5", "3.8", "4.9", "4.1", null, "4.5", "3.2", "4.9", "4.0", "4.1", "4.5"};
+        for (int i = 0; i < prices.length; i++) {
+            Accommodation acc = new Accommodation();
+            acc.setName("分頁旅館 " + (char) ('A' + (i * 7) % 13));
+            acc.setLocation(i % 2 == 0 ? "台北" : "花蓮");
+            acc.setPricePerNight(new BigDecimal(prices[i]));
+            acc.setRating(ratings[i] != null ? new BigDecimal(ratings[i]) : null);
+            acc.setReviewCount(i % 4);
+            acc.setBookingCount(i % 3);
+            acc.setDistanceFromCenter(i % 5 == 0 ? null : BigDecimal.valueOf(i % 4));
+            accommodationRepo.save(acc);
+        }
+        accommodationRepo.flush();
+    }
+
+    @Test
+    @DisplayName("逐頁取得 - 與整批排序結果一致")
+    void testPages_MatchFullSort() {
+        List<Accommodation> byId = accommodationRepo.findAll().stream()
+                .sorted(Comparator.comparing(Accommodation::getId))
+                .collect(Collectors.toList());
+
+        for (String sortBy : new String[]{"", "price_asc", "price_desc", "rating", "popularity", "distance"}) {
+            List<Long> expected = ids(bookingService.sortAccommodations(byId, sortBy));
+            assertThat(ids(walk(sortBy, 4))).as(sortBy).isEqualTo(expected);
+        }
+    }
+
+    @Test
+    @DisplayName("名稱排序 - 走完所有頁面不重複也不遺漏")
+    void testPages_NameSort_NoDuplicates() {
+        List<Long> walked = ids(walk("name_asc", 3));
+
+        assertThat(new HashSet<>(walked)).hasSize(walked.size());
+        assertThat(new HashSet<>(walked)).isEqualTo(new HashSet<>(ids(accommodationRepo.findAll())));
+    }
+
+    @Test
+    @DisplayName("已排好的結果 - 依位置逐頁取得，與原本順序相同")
+    void testPageOf_WalksOrderedList() {
+        List<Accommodation> ordered = bookingService.sortAccommodations(accommodationRepo.findAll(), "price_desc");
+
+        List<Accommodation> walked = new ArrayList<>();
+        String cursor = null;
+        do {
+            CursorPage<Accommodation> page = bookingService.pageOf(ordered, cursor, 5);
+            assertThat(page.getItems()).hasSizeLessThanOrEqualTo(5);
+            walked.addAll(page.getItems());
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+
+        assertThat(ids(walked)).isEqualTo(ids(ordered));
+    }
+
+    @Test
+    @DisplayName("最後一頁 - 沒有下一頁游標")
+    void testLastPage() {
+        int total = (int) accommodationRepo.count();
+
+        CursorPage<Accommodation> page = bookingService.getAccommodationPage(null, null, total);
+
+        assertThat(page.getItems()).hasSize(total);
+        assertThat(page.isHasMore()).isFalse();
+        assertThat(page.getNextCursor()).isNull();
+    }
+
+    @Test
+    @DisplayName("游標無效 - 格式錯誤或與排序方式不符")
+    void testInvalidCursor() {
+        CursorPage<Accommodation> first = bookingService.getAccommodationPage("price_asc", null, 2);
+
+        assertThatThrownBy(() -> bookingService.getAccommodationPage("rating", first.getNextCursor(), 2))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> bookingService.getAccommodationPage("price_asc", "!!!", 2))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    @DisplayName("每頁筆數 - 未指定用預設值，超過上限截斷，非正數拒絕")
+    void testLimit() {
+        assertThat(KeysetCursor.limit(null)).isEqualTo(KeysetCursor.DEFAULT_LIMIT);
+        assertThat(KeysetCursor.limit(10_000)).isEqualTo(KeysetCursor.MAX_LIMIT);
+        assertThatThrownBy(() -> KeysetCursor.limit(0)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private List<Accommodation> walk(String sortBy, int limit) {
+        List<Accommodation> all = new ArrayList<>();
+        String cursor = null;
+        do {
+            CursorPage<Accommodation> page = bookingService.getAccommodationPage(sortBy, cursor, limit);
+            assertThat(page.getItems()).hasSizeLessThanOrEqualTo(limit);
+            all.addAll(page.getItems());
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+        return all;
+    }
+
+    private static List<Long> ids(List<Accommodation> accommodations) {
+        return accommodations.stream().map(Accommodation::getId).collect(Collectors.toList());
+    }
+}
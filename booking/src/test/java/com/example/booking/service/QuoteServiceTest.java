@@ -0,0 +1,155 @@
+package com.example.booking.service;
+
+import com.example.booking.dto.QuoteDTO;
+import com.example.booking.event.BookingChangedEvent;
+import com.example.booking.event.CatalogChangedEvent;
+import com.example.booking.model.RoomType;
+import com.example.booking.repository.RoomTypeRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * QuoteService 單元測試
+ * 驗證報價內容、快取命中，以及訂房/房型變更後的版本失效
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("房型報價測試")
+class QuoteServiceTest {
+
+    @Mock
+    private RoomTypeRepository roomTypeRepo;
+
+    @Mock
+    private RateCalendarService rateCalendarService;
+
+    @Mock
+    private AvailabilityIndex availabilityIndex;
+
+    @Mock
+    private BookingConflictDetector conflictDetector;
+
+    @InjectMocks
+    private QuoteService quoteService;
+
+    private RoomType roomType;
+    private LocalDate checkIn;
+    private LocalDate checkOut;
+
+    @BeforeEach
+    void setUp() {
+        quoteService.init();
+
+        roomType = new RoomType();
+        roomType.setId(1L);
+        roomType.setName("雙人房");
+        roomType.setPricePerNight(BigDecimal.valueOf(1000));
+        roomType.setTotalRooms(5);
+
+        checkIn = LocalDate.now().plusDays(10);
+        checkOut = checkIn.plusDays(3);
+    }
+
+    @Test
+    @DisplayName("報價 - 回傳每晚房價、總價與剩餘房數")
+    void testQuote_Breakdown() {
+        when(roomTypeRepo.findById(1L)).thenReturn(Optional.of(roomType));
+        when(rateCalendarService.nightlyCents(roomType, checkIn, checkOut))
+                .thenReturn(new long[]{100_000L, 150_050L, 100_000L});
+        when(availabilityIndex.remainingRooms(1L, checkIn, checkOut)).thenReturn(3);
+
+        QuoteDTO quote = quoteService.quote(1L, checkIn, checkOut, 2).orElseThrow();
+
+        assertThat(quote.getNights()).isEqualTo(3);
+        assertThat(quote.getNightlyPrices()).hasSize(3);
+        assertThat(quote.getNightlyPrices().get(1).getDate()).isEqualTo(checkIn.plusDays(1));
+        assertThat(quote.getNightlyPrices().get(1).getPrice()).isEqualByComparingTo("1500.50");
+        assertThat(quote.getTotalPrice()).isEqualByComparingTo("7001.00");
+        assertThat(quote.getRemainingRooms()).isEqualTo(3);
+        assertThat(quote.isAvailable()).isTrue();
+        verifyNoInteractions(conflictDetector);
+    }
+
+    @Test
+    @DisplayName("不在可用性索引範圍 - 改用區間樹計算剩餘房數")
+    void testQuote_FallsBackToConflictDetector() {
+        when(roomTypeRepo.findById(1L)).thenReturn(Optional.of(roomType));
+        when(rateCalendarService.nightlyCents(roomType, checkIn, checkOut)).thenReturn(new long[3]);
+        when(availabilityIndex.remainingRooms(1L, checkIn, checkOut)).thenReturn(-1);
+        when(conflictDetector.maxConcurrent(1L, checkIn, checkOut)).thenReturn(4);
+
+        QuoteDTO quote = quoteService.quote(1L, checkIn, checkOut, 2).orElseThrow();
+
+        assertThat(quote.getRemainingRooms()).isEqualTo(1);
+        assertThat(quote.isAvailable()).isFalse();
+    }
+
+    @Test
+    @DisplayName("相同條件再次報價 - 應命中快取，不再查詢")
+    void testQuote_CacheHit() {
+        when(roomTypeRepo.findById(1L)).thenReturn(Optional.of(roomType));
+        when(rateCalendarService.nightlyCents(roomType, checkIn, checkOut)).thenReturn(new long[3]);
+        when(availabilityIndex.remainingRooms(1L, checkIn, checkOut)).thenReturn(5);
+
+        quoteService.quote(1L, checkIn, checkOut, 1);
+        quoteService.quote(1L, checkIn, checkOut, 1);
+
+        verify(roomTypeRepo, times(1)).findById(1L);
+        assertThat(quoteService.getStats()).containsEntry("hits", 1L).containsEntry("misses", 1L);
+    }
+
+    @Test
+    @DisplayName("訂房或房型變更後 - 該房型的快取應失效")
+    void testQuote_InvalidatedByEvents() {
+        when(roomTypeRepo.findById(1L)).thenReturn(Optional.of(roomType));
+        when(rateCalendarService.nightlyCents(roomType, checkIn, checkOut)).thenReturn(new long[3]);
+        when(availabilityIndex.remainingRooms(1L, checkIn, checkOut)).thenReturn(5, 3, 3);
+
+        assertThat(quoteService.quote(1L, checkIn, checkOut, 1).orElseThrow().getRemainingRooms()).isEqualTo(5);
+
+        quoteService.onBookingChanged(new BookingChangedEvent(1L, checkIn, checkOut, 2));
+        assertThat(quoteService.quote(1L, checkIn, checkOut, 1).orElseThrow().getRemainingRooms()).isEqualTo(3);
+
+        // 其他房型的變更不影響
+        quoteService.onCatalogChanged(new CatalogChangedEvent(2L));
+        quoteService.quote(1L, checkIn, checkOut, 1);
+        verify(roomTypeRepo, times(2)).findById(1L);
+
+        quoteService.onCatalogChanged(new CatalogChangedEvent(1L));
+        quoteService.quote(1L, checkIn, checkOut, 1);
+        verify(roomTypeRepo, times(3)).findById(1L);
+    }
+
+    @Test
+    @DisplayName("房型不存在 - 回傳 empty")
+    void testQuote_RoomTypeNotFound() {
+        when(roomTypeRepo.findById(99L)).thenReturn(Optional.empty());
+
+        assertThat(quoteService.quote(99L, checkIn, checkOut, 1)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("參數不合法 - 應拋出 IllegalArgumentException")
+    void testQuote_Validation() {
+        assertThatThrownBy(() -> quoteService.quote(1L, checkOut, checkIn, 1))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> quoteService.quote(1L, LocalDate.now().minusDays(1), checkOut, 1))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("今天");
+        assertThatThrownBy(() -> quoteService.quote(1L, checkIn, checkOut, 0))
+                .isInstanceOf(IllegalArgumentException.class);
+        verify(roomTypeRepo, never()).findById(any());
+    }
+}
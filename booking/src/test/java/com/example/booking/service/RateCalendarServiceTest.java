@@ -0,0 +1,232 @@
+package com.example.booking.service;
+
+import com.example.booking.event.CatalogChangedEvent;
+import com.example.booking.model.RoomRate;
+import com.example.booking.model.RoomRate.RuleType;
+import com.example.booking.model.RoomType;
+import com.example.booking.repository.RoomRateRepository;
+import com.example.booking.repository.RoomTypeRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.math.BigDecimal;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * RateCalendarService 單元測試
+ * 驗證規則優先順序、前綴和與逐晚計算一致、快取重建，以及與舊 BigDecimal 計價的效能比較
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("房價日曆測試")
+class RateCalendarServiceTest {
+
+    @Mock
+    private RoomRateRepository roomRateRepo;
+
+    @Mock
+    private RoomTypeRepository roomTypeRepo;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @InjectMocks
+    private RateCalendarService rateCalendarService;
+
+    private RoomType roomType;
+    private List<RoomRate> rules;
+    private LocalDate monday;
+
+    @BeforeEach
+    void setUp() {
+        roomType = new RoomType();
+        roomType.setId(1L);
+        roomType.setName("雙人房");
+        roomType.setPricePerNight(new BigDecimal("1000.00"));
+
+        rules = new ArrayList<>();
+        lenient().when(roomRateRepo.findByRoomTypeIdOrderByIdAsc(1L)).thenAnswer(inv -> List.copyOf(rules));
+
+        monday = LocalDate.now().plusDays(7).with(TemporalAdjusters.next(DayOfWeek.MONDAY));
+    }
+
+    @Test
+    @DisplayName("沒有規則 - 每晚都是基本房價")
+    void testStayCents_BasePriceOnly() {
+        assertThat(rateCalendarService.stayCents(roomType, monday, monday.plusDays(3))).isEqualTo(300_000L);
+        assertThat(rateCalendarService.priceOf(roomType, monday, monday.plusDays(3), 2))
+                .isEqualByComparingTo("6000.00");
+    }
+
+    @Test
+    @DisplayName("覆寫 > 季節 > 星期 - 重疊時依優先順序套用")
+    void testNightlyCents_RulePrecedence() {
+        // 週六 1500；季節 1200（含週六）；季節中的週三覆寫 2000
+        rules.add(new RoomRate(1L, RuleType.OVERRIDE, null, monday.plusDays(2), monday.plusDays(3), 200_000L));
+        rules.add(new RoomRate(1L, RuleType.SEASON, null, monday.plusDays(1), monday.plusDays(6), 120_000L));
+        rules.add(new RoomRate(1L, RuleType.WEEKDAY, 6, null, null, 150_000L));
+
+        long[] nightly = rateCalendarService.nightlyCents(roomType, monday, monday.plusDays(14));
+
+        assertThat(nightly[0]).isEqualTo(100_000L);   // 週一：基本價
+        assertThat(nightly[1]).isEqualTo(120_000L);   // 週二：季節
+        assertThat(nightly[2]).isEqualTo(200_000L);   // 週三：覆寫
+        assertThat(nightly[5]).isEqualTo(120_000L);   // 週六：季節優先於星期
+        assertThat(nightly[6]).isEqualTo(100_000L);   // 週日：季節已結束
+        assertThat(nightly[12]).isEqualTo(150_000L);  // 下週六：星期規則
+        assertThat(rateCalendarService.stayCents(roomType, monday, monday.plusDays(14)))
+                .isEqualTo(sum(nightly));
+    }
+
+    @Test
+    @DisplayName("同類規則重疊 - 以後建立者為準")
+    void testNightlyCents_LaterRuleWins() {
+        rules.add(new RoomRate(1L, RuleType.SEASON, null, monday, monday.plusDays(7), 120_000L));
+        rules.add(new RoomRate(1L, RuleType.SEASON, null, monday.plusDays(3), monday.plusDays(5), 90_000L));
+
+        long[] nightly = rateCalendarService.nightlyCents(roomType, monday, monday.plusDays(7));
+
+        assertThat(nightly).containsExactly(120_000L, 120_000L, 120_000L, 90_000L, 90_000L, 120_000L, 120_000L);
+    }
+
+    @Test
+    @DisplayName("超出展開範圍 - 逐晚套用規則，結果與範圍內相同")
+    void testStayCents_BeyondHorizon() {
+        rules.add(new RoomRate(1L, RuleType.WEEKDAY, 6, null, null, 150_000L));
+        LocalDate far = LocalDate.now().plusDays(600).with(TemporalAdjusters.next(DayOfWeek.MONDAY));
+
+        // 一週 6 晚基本價 + 1 晚週六
+        assertThat(rateCalendarService.stayCents(roomType, far, far.plusDays(7))).isEqualTo(750_000L);
+        assertThat(rateCalendarService.stayCents(roomType, monday, monday.plusDays(7))).isEqualTo(750_000L);
+        // 跨越範圍邊界
+        LocalDate edge = LocalDate.now().plusDays(535);
+        assertThat(rateCalendarService.stayCents(roomType, edge, edge.plusDays(10)))
+                .isEqualTo(sum(rateCalendarService.nightlyCents(roomType, edge, edge.plusDays(10))));
+    }
+
+    @Test
+    @DisplayName("基本房價變更 - 重新展開日曆")
+    void testStayCents_RebuildsOnBasePriceChange() {
+        assertThat(rateCalendarService.stayCents(roomType, monday, monday.plusDays(1))).isEqualTo(100_000L);
+
+        roomType.setPricePerNight(new BigDecimal("1234.56"));
+
+        assertThat(rateCalendarService.stayCents(roomType, monday, monday.plusDays(1))).isEqualTo(123_456L);
+        verify(roomRateRepo, times(2)).findByRoomTypeIdOrderByIdAsc(1L);
+    }
+
+    @Test
+    @DisplayName("新增規則 - 清除快取並發布目錄變更事件")
+    void testAddRule_InvalidatesCalendar() {
+        when(roomTypeRepo.existsById(1L)).thenReturn(true);
+        when(roomRateRepo.save(any(RoomRate.class))).thenAnswer(inv -> {
+            RoomRate rule = inv.getArgument(0);
+            rules.add(rule);
+            return rule;
+        });
+        assertThat(rateCalendarService.stayCents(roomType, monday, monday.plusDays(1))).isEqualTo(100_000L);
+
+        rateCalendarService.addRule(1L, new RoomRate(null, RuleType.OVERRIDE, null, monday, monday.plusDays(1), 80_000L));
+
+        assertThat(rateCalendarService.stayCents(roomType, monday, monday.plusDays(1))).isEqualTo(80_000L);
+        verify(eventPublisher).publishEvent(any(CatalogChangedEvent.class));
+    }
+
+    @Test
+    @DisplayName("規則不合法 - 應拋出 IllegalArgumentException")
+    void testAddRule_Validation() {
+        when(roomTypeRepo.existsById(1L)).thenReturn(true);
+
+        assertThatThrownBy(() -> rateCalendarService.addRule(1L,
+                new RoomRate(null, RuleType.WEEKDAY, null, null, null, 100L)))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("星期");
+        assertThatThrownBy(() -> rateCalendarService.addRule(1L,
+                new RoomRate(null, RuleType.SEASON, null, monday, monday, 100L)))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("日期區間");
+        assertThatThrownBy(() -> rateCalendarService.addRule(1L,
+                new RoomRate(null, RuleType.OVERRIDE, null, monday, monday.plusDays(1), -1L)))
+                .isInstanceOf(IllegalArgumentException.class);
+        verify(roomRateRepo, never()).save(any(RoomRate.class));
+    }
+
+    @Tag("benchmark")
+    @Test
+    @DisplayName("效能比較 - 前綴和計價與逐晚 BigDecimal 結果一致")
+    void benchmarkAgainstBigDecimal() {
+        rules.add(new RoomRate(1L, RuleType.WEEKDAY, 5, null, null, 135_050L));
+        rules.add(new RoomRate(1L, RuleType.WEEKDAY, 6, null, null, 150_075L));
+        rules.add(new RoomRate(1L, RuleType.SEASON, null, monday.plusDays(30), monday.plusDays(90), 128_825L));
+
+        int stays = 200_000;
+        Random random = new Random(11);
+        LocalDate[] checkIns = new LocalDate[stays];
+        int[] nights = new int[stays];
+        int[] quantities = new int[stays];
+        for (int i = 0; i < stays; i++) {
+            checkIns[i] = LocalDate.now().plusDays(random.nextInt(500));
+            nights[i] = 1 + random.nextInt(14);
+            quantities[i] = 1 + random.nextInt(3);
+        }
+        // 預熱並建好日曆
+        rateCalendarService.stayCents(roomType, monday, monday.plusDays(1));
+
+        BigDecimal legacyTotal = BigDecimal.ZERO;
+        for (int i = 0; i < stays; i++) {
+            legacyTotal = legacyTotal.add(legacyPrice(checkIns[i], nights[i], quantities[i]));
+        }
+        long t1 = System.nanoTime();
+        long centsTotal = 0;
+        for (int i = 0; i < stays; i++) {
+            centsTotal += rateCalendarService.stayCents(roomType, checkIns[i], checkIns[i].plusDays(nights[i]))
+                    * quantities[i];
+        }
+        long t2 = System.nanoTime();
+
+        assertThat(MoneyCents.toAmount(centsTotal)).isEqualByComparingTo(legacyTotal);
+        assertThat(TimeUnit.NANOSECONDS.toSeconds(t2 - t1)).isLessThan(5);
+    }
+
+    // 舊做法：逐晚找出適用房價後以 BigDecimal 相乘累加
+    private BigDecimal legacyPrice(LocalDate checkIn, int nights, int quantity) {
+        BigDecimal total = BigDecimal.ZERO;
+        for (int n = 0; n < nights; n++) {
+            LocalDate night = checkIn.plusDays(n);
+            BigDecimal price = roomType.getPricePerNight();
+            for (RuleType type : RuleType.values()) {
+                for (RoomRate rule : rules) {
+                    if (rule.getRuleType() == type && rule.appliesTo(night)) {
+                        price = BigDecimal.valueOf(rule.getPriceCents(), 2);
+                    }
+                }
+            }
+            total = total.add(price.multiply(BigDecimal.valueOf(quantity)));
+        }
+        return total;
+    }
+
+    private static long sum(long[] values) {
+        long total = 0;
+        for (long v : values) {
+            total += v;
+        }
+        return total;
+    }
+}
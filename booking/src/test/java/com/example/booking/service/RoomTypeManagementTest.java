@@ -9,6 +9,8 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
 import java.util.*;
@@ -39,6 +41,33 @@ class RoomTypeManagementTest {
     @Mock
     private UserRepository userRepo;
 
+    @Mock
+    private InventoryService inventoryService;
+
+    @Mock
+    private AvailabilityIndex availabilityIndex;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @Mock
+    private BookingBatchRepository bookingBatchRepository;
+
+    @Mock
+    private BookingHoldService bookingHoldService;
+
+    @Mock
+    private BookingSequencer bookingSequencer;
+
+    @Mock
+    private BookingConflictDetector conflictDetector;
+
+    @Mock
+    private RateCalendarService rateCalendarService;
+
     @InjectMocks
     private BookingService bookingService;
 
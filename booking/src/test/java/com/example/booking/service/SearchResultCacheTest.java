@@ -0,0 +1,208 @@
+package com.example.booking.service;
+
+import com.example.booking.event.AccommodationChangedEvent;
+import com.example.booking.event.AccommodationCountersFlushedEvent;
+import com.example.booking.event.BookingChangedEvent;
+import com.example.booking.event.CatalogChangedEvent;
+import com.example.booking.model.Accommodation;
+import com.example.booking.repository.AccommodationRepository;
+import com.example.booking.repository.RoomTypeRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * SearchResultCache 單元測試
+ * 驗證鍵的正規化、命中，以及住宿/房型異動時只讓受影響的項目失效
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("搜尋結果快取測試")
+class SearchResultCacheTest {
+
+    @Mock
+    private AccommodationRepository accommodationRepo;
+
+    @Mock
+    private RoomTypeRepository roomTypeRepo;
+
+    @InjectMocks
+    private SearchResultCache cache;
+
+    private final AtomicInteger loads = new AtomicInteger();
+    private Accommodation taipei;
+    private Accommodation kaohsiung;
+    private LocalDate checkIn;
+    private LocalDate checkOut;
+
+    @BeforeEach
+    void setUp() {
+        cache.init();
+        taipei = new Accommodation(1L, "台北商旅", "台北", null, BigDecimal.valueOf(2200));
+        kaohsiung = new Accommodation(2L, "高雄港景飯店", "高雄", null, BigDecimal.valueOf(1800));
+        checkIn = LocalDate.now().plusDays(5);
+        checkOut = checkIn.plusDays(2);
+    }
+
+    @Test
+    @DisplayName("正規化 - 空白、全半形、大小寫與排序別名視為同一查詢")
+    void testNormalizedKey() {
+        cache.get("  台北 ", null, null, null, "price_low", loader(taipei));
+        List<Accommodation> result = cache.get("台北", null, null, null, "price_asc", loader(taipei));
+        cache.get("Ｔａｉｐｅｉ", null, null, null, null, loader(taipei));
+        cache.get("taipei", null, null, null, "", loader(taipei));
+        // 只有一個日期時視同未指定日期
+        cache.get("台北", checkIn, null, null, "price_asc", loader(taipei));
+
+        assertThat(result).containsExactly(taipei);
+        assertThat(loads.get()).isEqualTo(2);
+        assertThat(cache.getStats()).containsEntry("hits", 3L).containsEntry("misses", 2L);
+    }
+
+    @Test
+    @DisplayName("訂房 - 只讓結果中含該房型的項目失效")
+    void testBookingInvalidatesOnlyTouchedEntries() {
+        stubRoomTypes();
+        cache.get("台北", checkIn, checkOut, 2, null, loader(taipei));
+        cache.get("高雄", checkIn, checkOut, 2, null, loader(kaohsiung));
+
+        cache.onBookingChanged(new BookingChangedEvent(10L, checkIn, checkOut, 1));
+
+        cache.get("台北", checkIn, checkOut, 2, null, loader(taipei));
+        cache.get("高雄", checkIn, checkOut, 2, null, loader(kaohsiung));
+        assertThat(loads.get()).isEqualTo(3);
+        assertThat(cache.getStats()).containsEntry("staleEntries", 1L).containsEntry("hits", 1L);
+    }
+
+    @Test
+    @DisplayName("計數與住宿異動 - 結果中的住宿版本遞增後重算")
+    void testAccommodationVersion() {
+        cache.get("台北", null, null, null, "popularity", loader(taipei));
+        cache.get("高雄", null, null, null, "popularity", loader(kaohsiung));
+
+        cache.onCountersFlushed(new AccommodationCountersFlushedEvent(1L));
+        cache.get("台北", null, null, null, "popularity", loader(taipei));
+        cache.get("高雄", null, null, null, "popularity", loader(kaohsiung));
+        assertThat(loads.get()).isEqualTo(3);
+
+        // 已刪除的住宿：查不到欄位，只遞增版本
+        when(accommodationRepo.findSearchFieldsById(2L)).thenReturn(List.of());
+        cache.onAccommodationChanged(new AccommodationChangedEvent(2L));
+        cache.get("高雄", null, null, null, "popularity", loader());
+        assertThat(loads.get()).isEqualTo(4);
+    }
+
+    @Test
+    @DisplayName("新增住宿 - 移除關鍵字可能符合的項目，其他項目保留")
+    void testNewAccommodationRemovesMatchingEntries() {
+        cache.get("台北 商旅", null, null, null, null, loader(taipei));
+        cache.get("高雄", null, null, null, null, loader(kaohsiung));
+        cache.get(null, null, null, null, null, loader(taipei, kaohsiung));
+
+        when(accommodationRepo.findSearchFieldsById(3L)).thenReturn(Collections.singletonList(
+                new Object[]{3L, "台北青年旅館", "台北市中正區", null, "西門町", "WiFi"}));
+        cache.onAccommodationChanged(new AccommodationChangedEvent(3L));
+
+        // 「台北 商旅」與不帶關鍵字的項目被移除，「高雄」仍命中
+        assertThat(cache.getStats()).containsEntry("entries", 1).containsEntry("removedEntries", 2L);
+        cache.get("高雄", null, null, null, null, loader(kaohsiung));
+        assertThat(loads.get()).isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("取消訂單 - 釋出房間時移除日期重疊且關鍵字可能符合的項目")
+    void testReleaseRemovesOverlappingEntries() {
+        cache.get("高雄", checkIn, checkOut, null, null, loader());
+        cache.get("高雄", checkOut, checkOut.plusDays(2), null, null, loader());
+        cache.get("台北", checkIn, checkOut, null, null, loader(taipei));
+        cache.get("高雄", null, null, null, null, loader(kaohsiung));
+
+        when(roomTypeRepo.findInventorySnapshotById(20L))
+                .thenReturn(Collections.singletonList(new Object[]{20L, 2L, 5}));
+        when(accommodationRepo.findSearchFieldsById(2L)).thenReturn(Collections.singletonList(
+                new Object[]{2L, "高雄港景飯店", "高雄", null, null, null}));
+        cache.onBookingChanged(new BookingChangedEvent(20L, checkIn, checkOut, -1));
+
+        assertThat(cache.getStats()).containsEntry("entries", 3).containsEntry("removedEntries", 1L);
+    }
+
+    @Test
+    @DisplayName("房型變更 - 移除有日期或人數且可能符合的項目")
+    void testCatalogChangeRemovesRoomDependentEntries() {
+        cache.get("高雄", null, null, 4, null, loader());
+        cache.get("高雄", null, null, null, null, loader(kaohsiung));
+
+        when(roomTypeRepo.findInventorySnapshotById(21L))
+                .thenReturn(Collections.singletonList(new Object[]{21L, 2L, 3}));
+        when(accommodationRepo.findSearchFieldsById(2L)).thenReturn(Collections.singletonList(
+                new Object[]{2L, "高雄港景飯店", "高雄", null, null, null}));
+        cache.onCatalogChanged(new CatalogChangedEvent(21L));
+
+        assertThat(cache.getStats()).containsEntry("entries", 1);
+        cache.get("高雄", null, null, null, null, loader(kaohsiung));
+        assertThat(loads.get()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("容量上限 - 超過時淘汰最久未使用的項目並計數")
+    void testEviction() {
+        ReflectionTestUtils.setField(cache, "cacheSize", 2);
+        cache.init();
+
+        cache.get("a", null, null, null, null, loader());
+        cache.get("b", null, null, null, null, loader());
+        cache.get("a", null, null, null, null, loader());
+        cache.get("c", null, null, null, null, loader());
+        cache.get("a", null, null, null, null, loader());
+        cache.get("b", null, null, null, null, loader());
+
+        assertThat(loads.get()).isEqualTo(4);
+        assertThat(cache.getStats())
+                .containsEntry("entries", 2)
+                .containsEntry("evictions", 2L)
+                .containsEntry("hitRate", 2.0 / 6);
+    }
+
+    @Test
+    @DisplayName("可能符合 - 任一詞的相鄰兩字出現在住宿文字中")
+    void testMayMatch() {
+        assertThat(SearchResultCache.mayMatch("", "任何住宿")).isTrue();
+        assertThat(SearchResultCache.mayMatch("台北 商旅", "台北青年旅館")).isTrue();
+        assertThat(SearchResultCache.mayMatch("港景", "高雄港景飯店")).isTrue();
+        assertThat(SearchResultCache.mayMatch("花蓮", "高雄港景飯店")).isFalse();
+        assertThat(SearchResultCache.mayMatch("inn", "harbor inn")).isTrue();
+    }
+
+    private void stubRoomTypes() {
+        when(roomTypeRepo.findIdsByAccommodationIds(any())).thenAnswer(invocation -> {
+            Iterable<Long> ids = invocation.getArgument(0);
+            List<Object[]> rows = new java.util.ArrayList<>();
+            for (Long id : ids) {
+                rows.add(new Object[]{id * 10, id});
+            }
+            return rows;
+        });
+    }
+
+    private Supplier<List<Accommodation>> loader(Accommodation... result) {
+        return () -> {
+            loads.incrementAndGet();
+            return List.of(result);
+        };
+    }
+}
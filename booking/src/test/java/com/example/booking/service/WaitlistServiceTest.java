@@ -0,0 +1,190 @@
+package com.example.booking.service;
+
+import com.example.booking.model.*;
+import com.example.booking.repository.*;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * 候補名單測試
+ * 不使用 @Transactional：候補在交易提交後才進入佇列，轉訂單由排序器在自己的交易內提交
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@DisplayName("候補名單測試")
+class WaitlistServiceTest {
+
+    @Autowired
+    private WaitlistService waitlistService;
+
+    @Autowired
+    private BookingService bookingService;
+
+    @Autowired
+    private BookingSequencer bookingSequencer;
+
+    @Autowired
+    private InventoryService inventoryService;
+
+    @Autowired
+    private WaitlistEntryRepository waitlistRepo;
+
+    @Autowired
+    private BookingRepository bookingRepo;
+
+    @Autowired
+    private RoomTypeRepository roomTypeRepo;
+
+    @Autowired
+    private AccommodationRepository accommodationRepo;
+
+    @Autowired
+    private UserRepository userRepo;
+
+    private final List<User> guests = new ArrayList<>();
+    private Accommodation accommodation;
+    private RoomType roomType;
+    private LocalDate checkIn;
+    private LocalDate checkOut;
+
+    @BeforeEach
+    void setUp() {
+        checkIn = LocalDate.now().plusDays(30);
+        checkOut = checkIn.plusDays(2);
+
+        for (int i = 0; i < 3; i++) {
+            User guest = new User();
+            guest.setUsername("wait-" + i + "-" + System.nanoTime());
+            guest.setPassword("password");
+            guest.setEmail(guest.getUsername() + "@example.com");
+            guests.add(userRepo.save(guest));
+        }
+
+        accommodation = new Accommodation();
+        accommodation.setName("候補測試旅館");
+        accommodation.setLocation("花蓮");
+        accommodation = accommodationRepo.save(accommodation);
+
+        roomType = new RoomType();
+        roomType.setName("熱門房型");
+        roomType.setPricePerNight(BigDecimal.valueOf(2000));
+        roomType.setTotalRooms(1);
+        roomType.setAccommodation(accommodation);
+        roomType = roomTypeRepo.save(roomType);
+    }
+
+    @AfterEach
+    void tearDown() {
+        for (User guest : guests) {
+            waitlistRepo.deleteAll(waitlistRepo.findByUsernameOrderByIdDesc(guest.getUsername()));
+            bookingRepo.deleteAll(bookingRepo.findByUserUsername(guest.getUsername()));
+        }
+        inventoryService.deleteForRoomType(roomType.getId());
+        roomTypeRepo.deleteById(roomType.getId());
+        accommodationRepo.deleteById(accommodation.getId());
+        guests.forEach(g -> userRepo.deleteById(g.getId()));
+        waitlistService.reload();
+    }
+
+    @Test
+    @DisplayName("取消訂單釋出房間 - 依登記順序轉為訂單")
+    void testPromote_FifoAfterCancel() {
+        Booking taken = book(guests.get(0));
+        WaitlistEntry first = waitlistService.join(roomType.getId(), checkIn, checkOut, 1, guests.get(1).getUsername());
+        WaitlistEntry second = waitlistService.join(roomType.getId(), checkIn, checkOut, 1, guests.get(2).getUsername());
+
+        assertThat(waitlistService.positionOf(first)).isEqualTo(1);
+        assertThat(waitlistService.positionOf(second)).isEqualTo(2);
+
+        // 尚未釋出：沒有人能轉為訂單
+        assertThat(waitlistService.promote(roomType.getId(), null, null).join()).isZero();
+        assertThat(status(first)).isEqualTo(WaitlistEntry.WAITING);
+
+        bookingService.cancelBookingByAdmin(taken.getId());
+        waitlistService.promote(roomType.getId(), checkIn, checkOut).join();
+
+        WaitlistEntry promoted = waitlistRepo.findById(first.getId()).orElseThrow();
+        assertThat(promoted.getStatus()).isEqualTo(WaitlistEntry.PROMOTED);
+        assertThat(bookingRepo.findByUserUsername(guests.get(1).getUsername()))
+                .extracting(Booking::getId)
+                .containsExactly(promoted.getBookingId());
+        assertThat(status(second)).isEqualTo(WaitlistEntry.WAITING);
+        assertThat(waitlistService.positionOf(second)).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("釋出的日期不重疊 - 候補不受影響")
+    void testPromote_OnlyOverlappingNights() {
+        book(guests.get(0));
+        WaitlistEntry entry = waitlistService.join(roomType.getId(), checkIn, checkOut, 1, guests.get(1).getUsername());
+
+        assertThat(waitlistService.promote(roomType.getId(), checkOut, checkOut.plusDays(3)).join()).isZero();
+        assertThat(status(entry)).isEqualTo(WaitlistEntry.WAITING);
+    }
+
+    @Test
+    @DisplayName("取消候補 - 不再轉為訂單")
+    void testLeave() {
+        Booking taken = book(guests.get(0));
+        WaitlistEntry entry = waitlistService.join(roomType.getId(), checkIn, checkOut, 1, guests.get(1).getUsername());
+
+        assertThat(waitlistService.leave(entry.getId(), guests.get(2).getUsername())).isFalse();
+        assertThat(waitlistService.leave(entry.getId(), guests.get(1).getUsername())).isTrue();
+
+        bookingService.cancelBookingByAdmin(taken.getId());
+        assertThat(waitlistService.promote(roomType.getId(), checkIn, checkOut).join()).isZero();
+        assertThat(status(entry)).isEqualTo(WaitlistEntry.CANCELLED);
+    }
+
+    @Test
+    @DisplayName("下單期間取消候補 - 排序器拒絕指令，不建立訂單")
+    void testSubmit_CancelledEntryRejected() {
+        String username = guests.get(1).getUsername();
+        WaitlistEntry entry = waitlistService.join(roomType.getId(), checkIn, checkOut, 1, username);
+        assertThat(waitlistService.leave(entry.getId(), username)).isTrue();
+
+        assertThatThrownBy(() -> bookingSequencer.submit(roomType.getId(), checkIn, checkOut, 1, username, entry.getId()).join())
+                .hasMessageContaining("候補已取消");
+        assertThat(bookingRepo.findByUserUsername(username)).isEmpty();
+        assertThat(status(entry)).isEqualTo(WaitlistEntry.CANCELLED);
+        // 被拒絕的指令沒有佔用帳本
+        assertThat(book(guests.get(0)).getId()).isNotNull();
+    }
+
+    @Test
+    @DisplayName("重複登記或數量超過總房數 - 應拋出例外")
+    void testJoin_Validation() {
+        String username = guests.get(1).getUsername();
+        waitlistService.join(roomType.getId(), checkIn, checkOut, 1, username);
+
+        assertThatThrownBy(() -> waitlistService.join(roomType.getId(), checkIn, checkOut, 1, username))
+                .isInstanceOf(RuntimeException.class)
+                .hasMessageContaining("已登記過");
+        assertThatThrownBy(() -> waitlistService.join(roomType.getId(), checkIn, checkOut, 2, username))
+                .isInstanceOf(RuntimeException.class)
+                .hasMessageContaining("總房數");
+        assertThatThrownBy(() -> waitlistService.join(roomType.getId(), checkOut, checkIn, 1, username))
+                .isInstanceOf(RuntimeException.class)
+                .hasMessageContaining("日期區間不合法");
+    }
+
+    private Booking book(User guest) {
+        return bookingSequencer.submit(roomType.getId(), checkIn, checkOut, 1, guest.getUsername()).join();
+    }
+
+    private String status(WaitlistEntry entry) {
+        return waitlistRepo.findById(entry.getId()).orElseThrow().getStatus();
+    }
+}